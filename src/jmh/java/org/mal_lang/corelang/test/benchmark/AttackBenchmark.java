@@ -0,0 +1,98 @@
+package org.mal_lang.corelang.test.benchmark;
+
+import core.Asset;
+import core.AttackStep;
+import core.Attacker;
+import core.Defense;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.CompiledAttacker;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one attack simulation on the {@link Topologies}, with the reference {@link Attacker},
+ * with {@link CompiledAttacker} (compile and solve), and with a {@link GraphSolver} on a graph
+ * compiled once up front (solve only).
+ *
+ * <p>Throughput and the latency distribution are reported by the two benchmark modes; run with
+ * {@code -prof gc} (the default of the {@code benchmark} profile) to get the allocation rate per
+ * operation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttackBenchmark {
+    @Param({"flat", "meshed", "groups", "data", "vulnerabilities"})
+    public String topology;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"reference", "compiled", "solver"})
+    public String engine;
+
+    private List<AttackStep> attackPoints;
+    private GraphSolver solver;
+    private int[] attackPointIds;
+
+    @Setup(Level.Trial)
+    public void buildModel() {
+        clearModel();
+        attackPoints = Topologies.build(topology, size);
+        if (engine.equals("solver")) {
+            AttackGraph graph = AttackGraph.compile();
+            solver = new GraphSolver(graph);
+            attackPointIds = graph.ids(attackPoints);
+        }
+    }
+
+    /** The reference attacker keeps its state in the attack steps, so it is reset before every run. */
+    @Setup(Level.Invocation)
+    public void resetModel() {
+        if (engine.equals("solver")) {
+            return;
+        }
+        for (AttackStep attackStep : AttackStep.allAttackSteps) {
+            attackStep.ttc = AttackStep.infinity;
+            attackStep.visitedParents.clear();
+            attackStep.expectedParents.clear();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void clearModel() {
+        Asset.allAssets.clear();
+        AttackStep.allAttackSteps.clear();
+        Defense.allDefenses.clear();
+    }
+
+    @Benchmark
+    public Object attack() {
+        if (engine.equals("solver")) {
+            return solver.solve(attackPointIds);
+        }
+        Attacker attacker = engine.equals("reference") ? new Attacker() : new CompiledAttacker();
+        for (AttackStep attackPoint : attackPoints) {
+            attacker.addAttackPoint(attackPoint);
+        }
+        attacker.attack();
+        return attacker;
+    }
+}
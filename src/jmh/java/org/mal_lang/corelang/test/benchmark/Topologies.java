@@ -0,0 +1,172 @@
+package org.mal_lang.corelang.test.benchmark;
+
+import core.AttackStep;
+import java.util.ArrayList;
+import java.util.List;
+import org.mal_lang.corelang.test.Application;
+import org.mal_lang.corelang.test.ConnectionRule;
+import org.mal_lang.corelang.test.Data;
+import org.mal_lang.corelang.test.Group;
+import org.mal_lang.corelang.test.Identity;
+import org.mal_lang.corelang.test.Network;
+import org.mal_lang.corelang.test.RoutingFirewall;
+import org.mal_lang.corelang.test.SoftwareProduct;
+import org.mal_lang.corelang.test.SoftwareVulnerability;
+
+/**
+ * Parameterized coreLang models used by the benchmarks. Every builder creates its assets in the
+ * global {@code core} registries and returns the attack points of the model.
+ */
+public final class Topologies {
+    /** Number of rules managed by one routing firewall. */
+    private static final int RULES_PER_FIREWALL = 16;
+    /** Number of following networks every network of a mesh is connected to. */
+    private static final int MESH_DEGREE = 4;
+
+    private Topologies() {}
+
+    public static List<AttackStep> build(String topology, int size) {
+        switch (topology) {
+            case "flat":
+                return flatNetwork(size);
+            case "meshed":
+                return meshedNetwork(size);
+            case "groups":
+                return groupHierarchy(size);
+            case "data":
+                return dataTree(size);
+            case "vulnerabilities":
+                return vulnerabilityFanOut(size);
+            default:
+                throw new IllegalArgumentException("Unknown topology " + topology);
+        }
+    }
+
+    /*
+    Network Hub <--> Connection i <--> Network i <--> Application i    (i = 0 .. size-1)
+
+    Every 16 connection rules share a RoutingFirewall.
+
+    Attacker's entry point: Hub.accessUninspected
+    */
+    static List<AttackStep> flatNetwork(int size) {
+        var hub = new Network("Hub");
+        RoutingFirewall firewall = null;
+        for (int i = 0; i < size; i++) {
+            if (i % RULES_PER_FIREWALL == 0) {
+                firewall = new RoutingFirewall("Firewall" + i / RULES_PER_FIREWALL);
+            }
+            var net = new Network("Network" + i);
+            var conn = new ConnectionRule("Connection" + i);
+            var app = new Application("Application" + i);
+            conn.addNetworks(hub);
+            conn.addNetworks(net);
+            net.addApplications(app);
+            firewall.addConnectionRules(conn);
+        }
+        return List.of(hub.accessUninspected);
+    }
+
+    /*
+    Network i <--> Connection i.j <--> Network (i + j) mod size    (j = 1 .. 4)
+
+    Every 16 connection rules share a RoutingFirewall, and every network exposes one Application.
+
+    Attacker's entry point: Network0.accessUninspected
+    */
+    static List<AttackStep> meshedNetwork(int size) {
+        var networks = new ArrayList<Network>();
+        for (int i = 0; i < size; i++) {
+            var net = new Network("Network" + i);
+            net.addApplications(new Application("Application" + i));
+            networks.add(net);
+        }
+        RoutingFirewall firewall = null;
+        int rules = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 1; j <= Math.min(MESH_DEGREE, size - 1); j++) {
+                if (rules++ % RULES_PER_FIREWALL == 0) {
+                    firewall = new RoutingFirewall("Firewall" + rules / RULES_PER_FIREWALL);
+                }
+                var conn = new ConnectionRule("Connection" + i + "." + j);
+                conn.addNetworks(networks.get(i));
+                conn.addNetworks(networks.get((i + j) % size));
+                firewall.addConnectionRules(conn);
+            }
+        }
+        return List.of(networks.get(0).accessUninspected);
+    }
+
+    /*
+    Group 0 <--parentGroup-- Group 1 <-- ... <-- Group size-1
+       |                        |                     |
+    Identity 0.a, 0.b      Identity 1.a, 1.b     Identity size-1.a, size-1.b
+
+    Attacker's entry point: Identity (size-1).a.assume
+    */
+    static List<AttackStep> groupHierarchy(int size) {
+        Group parent = null;
+        Identity deepest = null;
+        for (int i = 0; i < size; i++) {
+            var group = new Group("Group" + i);
+            if (parent != null) {
+                parent.addChildGroups(group);
+            }
+            deepest = new Identity("Identity" + i + ".a");
+            group.addGroupIds(deepest);
+            group.addGroupIds(new Identity("Identity" + i + ".b"));
+            parent = group;
+        }
+        return List.of(deepest.assume);
+    }
+
+    /*
+    Application <--> Data 0 <--> Data 1, Data 2 <--> ...
+
+    A complete binary containment tree of size Data assets.
+
+    Attacker's entry point: Application.fullAccess
+    */
+    static List<AttackStep> dataTree(int size) {
+        var app = new Application("Application");
+        var data = new ArrayList<Data>();
+        for (int i = 0; i < size; i++) {
+            var d = new Data("Data" + i);
+            if (i == 0) {
+                app.addContainedData(d);
+            } else {
+                data.get((i - 1) / 2).addContainedData(d);
+            }
+            data.add(d);
+        }
+        return List.of(app.fullAccess);
+    }
+
+    /*
+    SoftwareProduct <--> Application i    (i = 0 .. size/8)
+           |                    |
+    SoftwareVulnerability  SoftwareVulnerability i    (size in total)
+
+    Attacker's entry points: Application i.networkConnect
+    */
+    static List<AttackStep> vulnerabilityFanOut(int size) {
+        var product = new SoftwareProduct("Product");
+        var apps = new ArrayList<Application>();
+        var attackPoints = new ArrayList<AttackStep>();
+        for (int i = 0; i <= size / 8; i++) {
+            var app = new Application("Application" + i);
+            product.addSoftApplications(app);
+            apps.add(app);
+            attackPoints.add(app.networkConnect);
+        }
+        for (int i = 0; i < size; i++) {
+            var vulnerability = new SoftwareVulnerability("Vulnerability" + i);
+            if (i % 2 == 0) {
+                product.addSoftProductVulnerabilities(vulnerability);
+            } else {
+                apps.get(i % apps.size()).addVulnerabilities(vulnerability);
+            }
+        }
+        return attackPoints;
+    }
+}
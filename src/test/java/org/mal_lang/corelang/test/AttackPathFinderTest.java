@@ -0,0 +1,127 @@
+package org.mal_lang.corelang.test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.AttackPath;
+import org.mal_lang.corelang.test.engine.AttackPathFinder;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AttackPathFinderTest extends CoreLangTest {
+    private static class TwoRouteModel {
+        /*
+        Network Office <--> Connection 1 <--> Network Servers <--> Application Web --> Data Pages
+              |                                                         ^
+        Connection 2 <--> Network Lab -----------------------------------|
+                                                         (Lab also holds Web)
+        User --> Identity --> Application Web (exec privileges)
+
+        Attacker's entry points: Office.physicalAccess, User.attemptSocialEngineering
+        */
+        public final Network office = new Network("Office");
+        public final Network servers = new Network("Servers");
+        public final Network lab = new Network("Lab");
+        public final ConnectionRule conn1 = new ConnectionRule("Connection1");
+        public final ConnectionRule conn2 = new ConnectionRule("Connection2");
+        public final Application web = new Application("Web");
+        public final Data pages = new Data("Pages");
+        public final User user = new User("User");
+        public final Identity identity = new Identity("Identity");
+
+        public TwoRouteModel() {
+            conn1.addNetworks(office);
+            conn1.addNetworks(servers);
+            conn2.addNetworks(office);
+            conn2.addNetworks(lab);
+            servers.addApplications(web);
+            lab.addApplications(web);
+            web.addContainedData(pages);
+            user.addUserIds(identity);
+            identity.addExecPrivApps(web);
+        }
+    }
+
+    private static void assertWellFormed(AttackGraph graph, double[] ttc, AttackPath path, int target) {
+        assertEquals(target, path.step(path.length() - 1));
+        assertEquals(0, ttc[path.step(0)]);
+        for (int i = 1; i < path.length(); i++) {
+            assertTrue(graph.step(path.step(i)).expectedParents.contains(graph.step(path.step(i - 1))),
+                    path.toString());
+            for (int other : path.requiredParents(i)) {
+                assertTrue(ttc[other] != GraphSolver.UNREACHED, path.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testShortestPathFollowsSolver() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new TwoRouteModel();
+        var graph = AttackGraph.compile();
+        var solver = new GraphSolver(graph);
+        double[] ttc = solver.solve(new int[] {graph.id(model.office.physicalAccess)}).clone();
+        var finder = new AttackPathFinder(solver);
+
+        int target = graph.id(model.pages.read);
+        AttackPath path = finder.shortestPath(target);
+        assertEquals(ttc[target], path.ttc());
+        assertWellFormed(graph, ttc, path, target);
+        assertEquals(graph.id(model.office.physicalAccess), path.step(0));
+        assertNull(finder.shortestPath(graph.id(model.identity.assume)));
+    }
+
+    @Test
+    public void testShortestPathsAreRanked() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new TwoRouteModel();
+        var graph = AttackGraph.compile();
+        var solver = new GraphSolver(graph);
+        double[] ttc = solver.solve(new int[] {
+            graph.id(model.office.physicalAccess), graph.id(model.user.attemptSocialEngineering)}).clone();
+        var finder = new AttackPathFinder(solver);
+
+        int target = graph.id(model.pages.read);
+        var paths = finder.shortestPaths(target, 5);
+        assertFalse(paths.isEmpty());
+        assertEquals(ttc[target], paths.get(0).ttc());
+        assertEquals(finder.shortestPath(target).ttc(), paths.get(0).ttc());
+        for (int i = 0; i < paths.size(); i++) {
+            assertWellFormed(graph, ttc, paths.get(i), target);
+            if (i > 0) {
+                assertTrue(paths.get(i - 1).ttc() <= paths.get(i).ttc());
+                assertFalse(paths.get(i - 1).equals(paths.get(i)));
+            }
+        }
+        assertTrue(finder.shortestPaths(target, 0).isEmpty());
+    }
+
+    @Test
+    public void testDuplicateEdgesGiveOnePath() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        for (long seed = 0; seed < 50; seed++) {
+            var random = RandomAttackGraph.generate(seed, 40);
+            var solver = new GraphSolver(random.graph);
+            var localTtc = new double[random.graph.stepCount()];
+            for (int step = 0; step < localTtc.length; step++) {
+                localTtc[step] = random.graph.step(step).localTtc();
+            }
+            double[] ttc =
+                    solver.solve(random.attackPoints, random.defenseStates(), localTtc).clone();
+            var finder = new AttackPathFinder(solver);
+            Arrays.fill(localTtc, 100);
+            for (int target = 0; target < ttc.length; target++) {
+                if (ttc[target] == GraphSolver.UNREACHED) {
+                    continue;
+                }
+                var paths = finder.shortestPaths(target, 4);
+                assertEquals(ttc[target], paths.get(0).ttc(), "seed " + seed);
+                assertEquals(paths.size(), new HashSet<>(paths).size(), "seed " + seed);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.mal_lang.corelang.test;
+
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.BitParallelReachability;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BitParallelReachabilityTest extends CoreLangTest {
+    private static class RestrictedOfficeModel {
+        /*
+        Network Office <--> Connection 1 <--> Network Servers <--> Application Web --> Data Pages
+              |                                     |
+            User --> Identity                Connection 2 (restricted) <--> Application DB
+
+        Entry points: every attack step of the model
+        */
+        public final Network office = new Network("Office");
+        public final Network servers = new Network("Servers");
+        public final ConnectionRule conn1 = new ConnectionRule("Connection1");
+        public final ConnectionRule conn2 = new ConnectionRule("Connection2", true, false);
+        public final Application web = new Application("Web");
+        public final Application db = new Application("DB");
+        public final Data pages = new Data("Pages");
+        public final User user = new User("User");
+        public final Identity identity = new Identity("Identity");
+
+        public RestrictedOfficeModel() {
+            conn1.addNetworks(office);
+            conn1.addNetworks(servers);
+            servers.addApplications(web);
+            conn2.addNetworks(servers);
+            conn2.addApplications(db);
+            web.addContainedData(pages);
+            user.addUserIds(identity);
+            identity.addExecPrivApps(web);
+        }
+    }
+
+    @Test
+    public void testMatchesOneSolvePerEntryPoint() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        new RestrictedOfficeModel();
+        var graph = AttackGraph.compile();
+        int[] entryPoints = new int[graph.stepCount()];
+        for (int i = 0; i < entryPoints.length; i++) {
+            entryPoints[i] = i;
+        }
+
+        var reachability = new BitParallelReachability(graph);
+        reachability.solve(entryPoints);
+        assertEquals((entryPoints.length + 63) / 64, reachability.words());
+
+        var solver = new GraphSolver(graph);
+        for (int e = 0; e < entryPoints.length; e++) {
+            double[] ttc = solver.solve(new int[] {entryPoints[e]});
+            for (int step = 0; step < graph.stepCount(); step++) {
+                assertEquals(ttc[step] != GraphSolver.UNREACHED, reachability.reached(step, e),
+                        graph.step(step).fullName() + " from " + graph.step(entryPoints[e]).fullName());
+            }
+        }
+    }
+
+    @Test
+    public void testDefenseStatesApplyToAllEntryPoints() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new RestrictedOfficeModel();
+        var graph = AttackGraph.compile();
+        int[] entryPoints = {graph.id(model.office.physicalAccess), graph.id(model.servers.physicalAccess)};
+        var defenseEnabled = graph.defenseStates();
+        defenseEnabled[graph.defenseIndex(model.conn2.restricted)] = false;
+
+        var reachability = new BitParallelReachability(graph);
+        reachability.solve(entryPoints, defenseEnabled);
+        var solver = new GraphSolver(graph);
+        for (int e = 0; e < entryPoints.length; e++) {
+            double[] ttc = solver.solve(new int[] {entryPoints[e]}, defenseEnabled);
+            for (int step = 0; step < graph.stepCount(); step++) {
+                assertEquals(ttc[step] != GraphSolver.UNREACHED, reachability.reached(step, e));
+            }
+        }
+        int disable = graph.defenseStep(graph.defenseIndex(model.conn2.restricted));
+        assertEquals(entryPoints.length, reachability.reachedCount(disable));
+    }
+}
@@ -0,0 +1,132 @@
+package org.mal_lang.corelang.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mal_lang.corelang.test.engine.AssociationIndex;
+import org.mal_lang.corelang.test.engine.BulkModelLoader;
+import org.mal_lang.corelang.test.engine.BulkModelWriter;
+import org.mal_lang.corelang.test.engine.MalSpec;
+import org.mal_lang.corelang.test.engine.ModelContext;
+import org.mal_lang.corelang.test.engine.ModelGenerator;
+import org.mal_lang.corelang.test.engine.ModelSink;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkModelLoaderTest extends CoreLangTest {
+    private static final int LENGTH = 50;
+
+    /*
+    Network 0 <--> Connection 0 <--> Network 1 <--> ... <--> Network 50
+
+    Network Isolated <--> Connection Restricted (restricted enabled)
+
+    Attacker's entry point: Network0.accessUninspected
+    */
+    private static void writeNetworkChain(MalSpec spec, Path file) {
+        var networkConnection = spec.association("NetworkConnection", "Network", "ConnectionRule");
+        try (var writer = new BulkModelWriter(file)) {
+            int previous = writer.addAsset("Network", "Network0");
+            for (int i = 1; i <= LENGTH; i++) {
+                int conn = writer.addAsset("ConnectionRule", "Connection" + (i - 1));
+                int net = writer.addAsset("Network", "Network" + i);
+                writer.addAssociation(networkConnection, previous, conn);
+                writer.addAssociation(networkConnection, net, conn);
+                previous = net;
+            }
+            int isolated = writer.addAsset("Network", "Isolated");
+            int restricted = writer.addAsset("ConnectionRule", "ConnectionRestricted");
+            writer.addAssociation(networkConnection, isolated, restricted);
+            writer.setDefense(restricted, "restricted", true);
+        }
+    }
+
+    /** Sums a hash of every asset, association and defense, so the order they come in is ignored. */
+    private static class DigestSink implements ModelSink {
+        int assets;
+        long digest;
+
+        @Override
+        public int addAsset(String type, String name) {
+            digest += (assets + "/" + type + "/" + name).hashCode();
+            return assets++;
+        }
+
+        @Override
+        public void addAssociation(MalSpec.Association association, int left, int right) {
+            digest += 31L * (association.name + "/" + left + "/" + right).hashCode();
+        }
+
+        @Override
+        public void setDefense(int asset, String defense, boolean enabled) {
+            digest += 961L * (asset + "/" + defense + "/" + enabled).hashCode();
+        }
+    }
+
+    @Test
+    public void testLoadedModelMatchesWrittenOne(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var spec = MalSpec.load();
+        Path file = directory.resolve("chain.model");
+        writeNetworkChain(spec, file);
+
+        var context = new ModelContext();
+        var assets = new BulkModelLoader(spec).load(file, context);
+
+        assertEquals(2 * LENGTH + 3, assets.size());
+        assertEquals(assets, context.assets());
+        assertEquals("Network0", assets.get(0).name);
+        assertTrue(assets.get(1) instanceof ConnectionRule);
+        var index = AssociationIndex.of(assets);
+        assertArrayEquals(new int[] {0, 2}, index.neighbors(1, "networks"));
+        var restricted = (ConnectionRule) assets.get(assets.size() - 1);
+        assertTrue(restricted.restricted.isEnabled());
+        assertTrue(!((ConnectionRule) assets.get(1)).restricted.isEnabled());
+
+        var attacker = context.attacker();
+        attacker.addAttackPoint(((Network) assets.get(0)).accessUninspected);
+        attacker.attack();
+        ((Network) assets.get(2 * LENGTH)).accessUninspected.assertCompromisedInstantaneously();
+        ((Network) assets.get(2 * LENGTH + 1)).accessUninspected.assertUncompromised();
+    }
+
+    @Test
+    public void testUnknownAssociationIsRejected(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var spec = MalSpec.load();
+        Path file = directory.resolve("other.model");
+        writeNetworkChain(spec, file);
+
+        var otherSpec = MalSpec.load(Path.of("src/main/mal/ComputeResources.mal"));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new BulkModelLoader(otherSpec).load(file, new ModelContext()));
+    }
+
+    @Test
+    public void testLargeModelsAreWrittenInBlocks(@TempDir Path directory) throws IOException {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var spec = MalSpec.load();
+        var parameters = ModelGenerator.Parameters.forAssetCount(100_000);
+        Path file = directory.resolve("large.model");
+        var generated = new DigestSink();
+        new ModelGenerator(spec, parameters).generate(generated);
+        try (var writer = new BulkModelWriter(file)) {
+            new ModelGenerator(spec, parameters).generate(writer);
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.collect(Collectors.toList()));
+        }
+
+        var loaded = new DigestSink();
+        new BulkModelLoader(spec).load(file, loaded);
+        assertEquals(parameters.assetCount(), loaded.assets);
+        assertEquals(generated.digest, loaded.digest);
+    }
+}
@@ -0,0 +1,147 @@
+package org.mal_lang.corelang.test;
+
+import core.Attacker;
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.CompiledAttacker;
+
+public class CompiledAttackerTest extends CoreLangTest {
+    private static class NetworkTestModel {
+        /*
+        Network A <---> Connection 1 --> Application 1
+                             |
+                             ---Out--> Network B <-In-> Connection 2 <--> Application 2
+                                           |
+                                      DataInTransit
+                                           |
+                                         Data
+
+        Attacker's entry point: NetworkA.physicalAccess
+        */
+        public final Network netA = new Network("NetworkA");
+        public final Network netB = new Network("NetworkB");
+        public final ConnectionRule conn1 = new ConnectionRule("Connection1");
+        public final ConnectionRule conn2 = new ConnectionRule("Connection2");
+        public final Application app1 = new Application("Application1");
+        public final Application app2 = new Application("Application2");
+        public final Data data = new Data("data", false);
+        public final RoutingFirewall routingfw = new RoutingFirewall("RoutingFirewall");
+
+        public NetworkTestModel() {
+            conn1.addNetworks(netA);
+            conn1.addOutNetworks(netB);
+            conn1.addApplications(app1);
+            conn2.addInNetworks(netB);
+            conn2.addApplications(app2);
+            netB.addTransitData(data);
+            routingfw.addConnectionRules(conn1);
+            routingfw.addConnectionRules(conn2);
+        }
+
+        public void addAttacker(Attacker attacker) {
+            attacker.addAttackPoint(netA.physicalAccess);
+        }
+    }
+
+    private static class IAMTestModel {
+        public final Hardware server = new Hardware("Server");
+        public final Application os = new Application("OS");
+        public final Application db = new Application("DB");
+        public final Identity admin = new Identity("admin");
+        public final Identity dba = new Identity("dba");
+        public final Group admins = new Group("admins");
+        public final Group superAdmins = new Group("superAdmins");
+        public final User user = new User("user");
+        public final Credentials password = new Credentials("password");
+        public final Data table = new Data("table");
+
+        public IAMTestModel() {
+            server.addSysExecutedApps(os);
+            os.addAppExecutedApps(db);
+            os.addHighPrivAppIAMs(admin);
+            db.addLowPrivAppIAMs(dba);
+            db.addContainedData(table);
+            table.addReadingIAMs(dba);
+            admins.addChildGroups(superAdmins);
+            admin.addChildId(dba);
+            user.addUserIds(dba);
+            dba.addCredentials(password);
+        }
+
+        public void addAttacker(Attacker attacker) {
+            attacker.addAttackPoint(user.attemptSocialEngineering);
+            attacker.addAttackPoint(superAdmins.assume);
+        }
+    }
+
+    private static class ReplicatedInformationModel {
+        /*
+        Data 0 ---+
+        Data 1 ---+--Replica--> Information
+          ...     |
+        Data n-1 -+
+
+        Attacker's entry points: Data i.write for the first n-1 replicas (and Data n-1.write)
+        */
+        public final Information info = new Information("Information");
+        public final Data[] replicas = new Data[200];
+
+        public ReplicatedInformationModel() {
+            for (int i = 0; i < replicas.length; i++) {
+                replicas[i] = new Data("Replica" + i);
+                info.addDataReplicas(replicas[i]);
+            }
+        }
+
+        public void addAttacker(Attacker attacker, int writtenReplicas) {
+            for (int i = 0; i < writtenReplicas; i++) {
+                attacker.addAttackPoint(replicas[i].write);
+            }
+        }
+    }
+
+    @Test
+    public void testNetworkModelMatchesReference() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new NetworkTestModel();
+
+        assertSameAsReference(new CompiledAttacker(), model::addAttacker);
+
+        model.netB.accessUninspected.assertCompromisedInstantaneously();
+    }
+
+    @Test
+    public void testIAMModelMatchesReference() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new IAMTestModel();
+
+        assertSameAsReference(new CompiledAttacker(), model::addAttacker);
+
+        model.admins.assume.assertCompromisedInstantaneously();
+    }
+
+    @Test
+    public void testNoAttackPointsMatchesReference() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new NetworkTestModel();
+
+        assertSameAsReference(new CompiledAttacker(), attacker -> {});
+
+        model.netA.accessUninspected.assertUncompromised();
+    }
+
+    @Test
+    public void testAndStepWithManyParentsMatchesReference() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new ReplicatedInformationModel();
+
+        assertSameAsReference(
+                new CompiledAttacker(),
+                attacker -> model.addAttacker(attacker, model.replicas.length - 1));
+        model.info.write.assertUncompromised();
+
+        assertSameAsReference(
+                new CompiledAttacker(),
+                attacker -> model.addAttacker(attacker, model.replicas.length));
+        model.info.write.assertCompromisedInstantaneously();
+    }
+}
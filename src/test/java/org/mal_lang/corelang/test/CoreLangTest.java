@@ -2,8 +2,11 @@ package org.mal_lang.corelang.test;
 
 import core.Asset;
 import core.AttackStep;
+import core.Attacker;
 import core.Defense;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CoreLangTest {
@@ -31,6 +34,32 @@ public class CoreLangTest {
                 String.format("Attack step %s was reached", attackStep.fullName()));
     }
 
+    /**
+     * Runs {@code attacker} and then the reference {@link Attacker} on the current model, with the
+     * same attack points, and asserts that every attack step ends up with the same TTC.
+     */
+    public static void assertSameAsReference(Attacker attacker, Consumer<Attacker> attackPoints) {
+        attackPoints.accept(attacker);
+        attacker.attack();
+        var actual = new double[AttackStep.allAttackSteps.size()];
+        int i = 0;
+        for (AttackStep attackStep : AttackStep.allAttackSteps) {
+            actual[i++] = attackStep.ttc;
+            attackStep.ttc = Double.MAX_VALUE;
+        }
+
+        var reference = new Attacker();
+        attackPoints.accept(reference);
+        reference.attack();
+        i = 0;
+        for (AttackStep attackStep : AttackStep.allAttackSteps) {
+            assertEquals(
+                    attackStep.ttc,
+                    actual[i++],
+                    String.format("TTC of %s differs from the reference attacker", attackStep.fullName()));
+        }
+    }
+
   @AfterEach
   public void deleteModel() {
     Asset.allAssets.clear();
@@ -0,0 +1,86 @@
+package org.mal_lang.corelang.test;
+
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.DeadStepPruning;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeadStepPruningTest extends CoreLangTest {
+    private static class SegmentedNetworkModel {
+        /*
+        Network Office <--> Connection 1 (restricted) <--> Network Servers <--> Application Web --> Data Pages
+                                                                  |
+        Network Lab <--> Application Tools                  Application DB (notPresent)
+
+        Attacker's entry point: Office.physicalAccess
+        */
+        public final Network office = new Network("Office");
+        public final Network servers = new Network("Servers");
+        public final Network lab = new Network("Lab");
+        public final ConnectionRule conn1 = new ConnectionRule("Connection1", true, false);
+        public final Application web = new Application("Web");
+        public final Application db = new Application("DB", true, false);
+        public final Application tools = new Application("Tools");
+        public final Data pages = new Data("Pages");
+
+        public SegmentedNetworkModel() {
+            conn1.addNetworks(office);
+            conn1.addNetworks(servers);
+            servers.addApplications(web);
+            servers.addApplications(db);
+            web.addContainedData(pages);
+            lab.addApplications(tools);
+        }
+    }
+
+    @Test
+    public void testPrunedGraphKeepsEveryTtc() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new SegmentedNetworkModel();
+        var graph = AttackGraph.compile();
+        int[] attackPoints = {graph.id(model.office.physicalAccess)};
+
+        for (boolean restricted : new boolean[] {true, false}) {
+            var defenseEnabled = graph.defenseStates();
+            defenseEnabled[graph.defenseIndex(model.conn1.restricted)] = restricted;
+            var pruning = DeadStepPruning.of(graph, attackPoints, defenseEnabled);
+            double[] expected = new GraphSolver(graph).solve(attackPoints, defenseEnabled);
+
+            assertArrayEquals(expected, pruning.solve(new GraphSolver(pruning.graph())));
+            assertEquals(graph.stepCount(), pruning.graph().stepCount() + pruning.prunedCount());
+            assertEquals(-1, pruning.prunedId(graph.id(model.lab.physicalAccess)));
+            assertEquals(-1, pruning.prunedId(graph.id(model.db.fullAccess)));
+            for (int step = 0; step < graph.stepCount(); step++) {
+                assertEquals(expected[step] != GraphSolver.UNREACHED, pruning.prunedId(step) >= 0,
+                        graph.step(step).fullName());
+            }
+        }
+    }
+
+    @Test
+    public void testPruningTowardsTargets() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new SegmentedNetworkModel();
+        var graph = AttackGraph.compile();
+        int[] attackPoints = {graph.id(model.office.physicalAccess)};
+        var defenseEnabled = graph.defenseStates();
+        defenseEnabled[graph.defenseIndex(model.conn1.restricted)] = false;
+        int target = graph.id(model.pages.read);
+
+        var live = DeadStepPruning.of(graph, attackPoints, defenseEnabled);
+        var towardsTarget = DeadStepPruning.of(graph, attackPoints, defenseEnabled, new int[] {target});
+        double[] expected = new GraphSolver(graph).solve(attackPoints, defenseEnabled);
+        double[] ttc = towardsTarget.solve(new GraphSolver(towardsTarget.graph()));
+
+        assertEquals(expected[target], ttc[target]);
+        assertTrue(towardsTarget.graph().stepCount() <= live.graph().stepCount());
+        for (int step = 0; step < graph.stepCount(); step++) {
+            if (towardsTarget.prunedId(step) >= 0) {
+                assertEquals(expected[step], ttc[step]);
+            }
+        }
+    }
+}
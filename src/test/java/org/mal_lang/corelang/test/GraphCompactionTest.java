@@ -0,0 +1,82 @@
+package org.mal_lang.corelang.test;
+
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.GraphCompaction;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GraphCompactionTest extends CoreLangTest {
+    private static class EavesdropModel {
+        /*
+        Network Office <--> Connection 1 (restricted) <--> Network Servers <--> Application Web --> Data Pages
+              |                                                |
+        Data Transit (transitData)                      Data Logs (transitData)
+        User --> Identity --> Application Web (exec privileges)
+
+        Attacker's entry points: Office.physicalAccess, User.attemptSocialEngineering
+        */
+        public final Network office = new Network("Office");
+        public final Network servers = new Network("Servers");
+        public final ConnectionRule conn1 = new ConnectionRule("Connection1", true, false);
+        public final Application web = new Application("Web");
+        public final Data pages = new Data("Pages");
+        public final Data transit = new Data("Transit");
+        public final Data logs = new Data("Logs");
+        public final User user = new User("User");
+        public final Identity identity = new Identity("Identity");
+
+        public EavesdropModel() {
+            conn1.addNetworks(office);
+            conn1.addNetworks(servers);
+            servers.addApplications(web);
+            web.addContainedData(pages);
+            office.addTransitData(transit);
+            servers.addTransitData(logs);
+            user.addUserIds(identity);
+            identity.addExecPrivApps(web);
+        }
+    }
+
+    @Test
+    public void testCompactionKeepsEveryTtc() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new EavesdropModel();
+        var graph = AttackGraph.compile();
+        int[] attackPoints = {
+            graph.id(model.office.physicalAccess), graph.id(model.user.attemptSocialEngineering)};
+        var compaction = GraphCompaction.of(graph, attackPoints);
+        var compact = compaction.graph();
+
+        assertTrue(compaction.removedCount() > 0);
+        assertEquals(graph.stepCount(), compact.stepCount() + compaction.removedCount());
+        assertTrue(compact.edgeCount() < graph.edgeCount());
+
+        var defenseEnabled = graph.defenseStates();
+        double[] expected = new GraphSolver(graph).solve(attackPoints, defenseEnabled);
+        double[] ttc = new GraphSolver(compact).solve(compaction.toCompact(attackPoints), defenseEnabled);
+        assertArrayEquals(expected, compaction.expand(ttc));
+
+        defenseEnabled[graph.defenseIndex(model.conn1.restricted)] = false;
+        expected = new GraphSolver(graph).solve(attackPoints, defenseEnabled);
+        ttc = new GraphSolver(compact).solve(compaction.toCompact(attackPoints), defenseEnabled);
+        assertArrayEquals(expected, compaction.expand(ttc));
+    }
+
+    @Test
+    public void testRemovedStepsCannotSeed() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        new EavesdropModel();
+        var graph = AttackGraph.compile();
+        var compaction = GraphCompaction.of(graph, new int[0]);
+        int removed = 0;
+        while (compaction.compactId(removed) >= 0) {
+            removed++;
+        }
+        int step = removed;
+        assertThrows(IllegalArgumentException.class, () -> compaction.toCompact(new int[] {step}));
+    }
+}
@@ -0,0 +1,120 @@
+package org.mal_lang.corelang.test;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.DeadStepPruning;
+import org.mal_lang.corelang.test.engine.GraphCompaction;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import org.mal_lang.corelang.test.engine.PartitionedSolver;
+import org.mal_lang.corelang.test.engine.SharedParentHubs;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs every graph pass on seeded {@link RandomAttackGraph}s and compares the TTCs it gives with a
+ * plain {@link GraphSolver} solve of the same graph, under the default and under random defense
+ * states.
+ */
+public class GraphPassDifferentialTest extends CoreLangTest {
+    private static final int SIZE = 60;
+
+    /** Checks one pass on one graph, given the TTCs of the plain solve. */
+    private interface Check {
+        void accept(long seed, RandomAttackGraph model, boolean[] defenseEnabled, double[] expected);
+    }
+
+    private static void forEachGraph(int graphs, Check check) {
+        for (long seed = 0; seed < graphs; seed++) {
+            var model = RandomAttackGraph.generate(seed, SIZE);
+            AttackGraph graph = model.graph;
+            for (boolean[] defenseEnabled : new boolean[][] {graph.defenseStates(), model.defenseStates()}) {
+                double[] expected = new GraphSolver(graph).solve(model.attackPoints, defenseEnabled);
+                check.accept(seed, model, defenseEnabled, expected);
+            }
+        }
+    }
+
+    @Test
+    public void testCompactionKeepsEveryTtc() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        forEachGraph(200, (seed, model, defenseEnabled, expected) -> {
+            var compaction = GraphCompaction.of(model.graph, model.attackPoints);
+            double[] ttc =
+                    new GraphSolver(compaction.graph())
+                            .solve(compaction.toCompact(model.attackPoints), defenseEnabled);
+            assertArrayEquals(expected, compaction.expand(ttc), "seed " + seed);
+        });
+    }
+
+    @Test
+    public void testPruningKeepsEveryTtc() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        forEachGraph(200, (seed, model, defenseEnabled, expected) -> {
+            var pruning = DeadStepPruning.of(model.graph, model.attackPoints, defenseEnabled);
+            assertArrayEquals(expected, pruning.solve(new GraphSolver(pruning.graph())), "seed " + seed);
+        });
+    }
+
+    @Test
+    public void testPruningTowardsTargetsKeepsTheirTtc() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        forEachGraph(200, (seed, model, defenseEnabled, expected) -> {
+            int steps = model.graph.stepCount();
+            int[] targets = {(int) (seed % steps), (int) (seed * 7 % steps)};
+            var pruning = DeadStepPruning.of(model.graph, model.attackPoints, defenseEnabled, targets);
+            double[] ttc = pruning.solve(new GraphSolver(pruning.graph()));
+            for (int step = 0; step < steps; step++) {
+                if (pruning.prunedId(step) >= 0) {
+                    assertEquals(expected[step], ttc[step], "seed " + seed);
+                }
+            }
+            for (int target : targets) {
+                assertEquals(expected[target], ttc[target], "seed " + seed);
+            }
+        });
+    }
+
+    @Test
+    public void testHubsKeepEveryTtc() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var hubCount = new int[1];
+        forEachGraph(200, (seed, model, defenseEnabled, expected) -> {
+            var hubs = SharedParentHubs.of(model.graph);
+            var shared = hubs.graph();
+            hubCount[0] += hubs.hubCount();
+            double[] ttc = new GraphSolver(shared).solve(model.attackPoints, defenseEnabled);
+            assertArrayEquals(expected, hubs.expand(ttc), "seed " + seed);
+
+            var localTtc = new double[model.graph.stepCount()];
+            for (int step = 0; step < localTtc.length; step++) {
+                localTtc[step] = (seed + step) % 3;
+            }
+            expected = new GraphSolver(model.graph).solve(model.attackPoints, defenseEnabled, localTtc);
+            double[] sharedLocalTtc = Arrays.copyOf(localTtc, shared.stepCount());
+            ttc = new GraphSolver(shared).solve(model.attackPoints, defenseEnabled, sharedLocalTtc);
+            assertArrayEquals(expected, hubs.expand(ttc), "seed " + seed);
+        });
+        assertTrue(hubCount[0] > 0);
+    }
+
+    @Test
+    public void testPartitionsKeepEveryTtc() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        forEachGraph(40, (seed, model, defenseEnabled, expected) -> {
+            var random = new Random(seed);
+            var partition = new int[model.graph.stepCount()];
+            int partitions = 1 + random.nextInt(4);
+            for (int step = 0; step < partition.length; step++) {
+                partition[step] = random.nextInt(partitions);
+            }
+            try (var solver =
+                    PartitionedSolver.start(model.graph, partition, PartitionedSolver.Mode.THREADS)) {
+                double[] ttc = solver.solve(model.attackPoints, defenseEnabled);
+                assertArrayEquals(expected, ttc, "seed " + seed);
+            }
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package org.mal_lang.corelang.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.GraphSnapshot;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GraphSnapshotTest extends CoreLangTest {
+    private static class ServerRoomModel {
+        /*
+        Network Office <--> Connection 1 (restricted) <--> Network Servers <--> Application Web --> Data Pages
+                                                                                     ^
+        User --> Identity -----------------------------------------------------------|
+
+        Attacker's entry point: Office.physicalAccess
+        */
+        public final Network office = new Network("Office");
+        public final Network servers = new Network("Servers");
+        public final ConnectionRule conn1 = new ConnectionRule("Connection1", true, false);
+        public final Application web = new Application("Web");
+        public final Data pages = new Data("Pages");
+        public final User user = new User("User");
+        public final Identity identity = new Identity("Identity");
+
+        public ServerRoomModel() {
+            conn1.addNetworks(office);
+            conn1.addNetworks(servers);
+            servers.addApplications(web);
+            web.addContainedData(pages);
+            user.addUserIds(identity);
+            identity.addExecPrivApps(web);
+        }
+    }
+
+    @Test
+    public void testSnapshotRoundTrip(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new ServerRoomModel();
+        var graph = AttackGraph.compile();
+        var defenseEnabled = graph.defenseStates();
+        defenseEnabled[graph.defenseIndex(model.conn1.restricted)] = false;
+        double[] ttc = new GraphSolver(graph).solve(
+                new int[] {graph.id(model.office.physicalAccess)}, defenseEnabled);
+
+        Path file = directory.resolve("servers.snapshot");
+        GraphSnapshot.write(file, graph, defenseEnabled, ttc);
+        var snapshot = GraphSnapshot.open(file);
+
+        assertTrue(snapshot.matches(graph));
+        assertEquals(graph.stepCount(), snapshot.stepCount());
+        assertEquals(graph.edgeCount(), snapshot.edgeCount());
+        assertArrayEquals(ttc, snapshot.ttcs());
+        for (int step = 0; step < graph.stepCount(); step++) {
+            String name = graph.step(step).fullName();
+            assertEquals(name, snapshot.fullName(step));
+            assertEquals(name, snapshot.fullName(snapshot.idOf(name)));
+            assertEquals(graph.isAnd(step), snapshot.isAnd(step));
+            assertEquals(graph.localTtc(step), snapshot.localTtc(step));
+            assertEquals(graph.step(step).expectedParents.size(), snapshot.parentCount(step));
+            for (int p = 0; p < snapshot.parentCount(step); p++) {
+                assertTrue(graph.step(step).expectedParents.contains(graph.step(snapshot.parent(step, p))));
+            }
+        }
+        for (int d = 0; d < graph.defenseCount(); d++) {
+            assertEquals(defenseEnabled[d], snapshot.defenseEnabled(d));
+            assertEquals(graph.defenseStep(d), snapshot.defenseStep(d));
+        }
+        assertFalse(snapshot.defenseEnabled(graph.defenseIndex(model.conn1.restricted)));
+        assertEquals(-1, snapshot.idOf("Nowhere.access"));
+    }
+
+    @Test
+    public void testRejectsOtherFiles(@TempDir Path directory) throws IOException {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        new ServerRoomModel();
+        var graph = AttackGraph.compile();
+        Path file = directory.resolve("servers.snapshot");
+        GraphSnapshot.write(file, graph, new GraphSolver(graph).solve(new int[0]));
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.open(file));
+        Files.write(file, new byte[] {'n', 'o', 'p', 'e'});
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.open(file));
+    }
+}
@@ -0,0 +1,151 @@
+package org.mal_lang.corelang.test;
+
+import core.AttackStep;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AssociationIndex;
+import org.mal_lang.corelang.test.engine.CompiledAttacker;
+import org.mal_lang.corelang.test.engine.HierarchyClosureIndex;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HierarchyClosureIndexTest extends CoreLangTest {
+    private static class HierarchyModel {
+        /*
+        Identity alice --memberOf--> Group team --parentGroup--> Group dept --parentGroup--> Group org
+                                                                                              ^
+        Identity admin <--parentId--> Identity backup --memberOf--> Group admins (notPresent) -+
+
+        Attacker's entry point: alice.assume or admin.assume
+        */
+        public final Identity alice = new Identity("alice");
+        public final Identity admin = new Identity("admin");
+        public final Identity backup = new Identity("backup");
+        public final Group team = new Group("team");
+        public final Group dept = new Group("dept");
+        public final Group org = new Group("org");
+        public final Group admins = new Group("admins", true);
+
+        public HierarchyModel() {
+            alice.addMemberOf(team);
+            team.addParentGroup(dept);
+            dept.addParentGroup(org);
+            admin.addParentId(backup);
+            backup.addParentId(admin);
+            backup.addMemberOf(admins);
+            admins.addParentGroup(org);
+        }
+    }
+
+    private static class ManagementModel {
+        /*
+        Identity ops --managedIAMs--> Identity service --subprivileges--> Privileges deploy
+              |
+              +--subprivileges--> Privileges audit (notPresent) --managedIAMs--> Group auditors
+
+        Attacker's entry point: ops.assume
+        */
+        public final Identity ops = new Identity("ops");
+        public final Identity service = new Identity("service");
+        public final Privileges deploy = new Privileges("deploy");
+        public final Privileges audit = new Privileges("audit", true);
+        public final Group auditors = new Group("auditors");
+
+        public ManagementModel() {
+            ops.addManagedIAMs(service);
+            service.addSubprivileges(deploy);
+            ops.addSubprivileges(audit);
+            audit.addManagedIAMs(auditors);
+        }
+    }
+
+    @Test
+    public void testClosureFollowsHierarchyUpwards() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new HierarchyModel();
+        var index = HierarchyClosureIndex.of();
+
+        assertEquals(List.of(model.alice, model.team, model.dept, model.org), index.closure(model.alice));
+        assertTrue(index.reaches(model.team, model.org));
+        assertFalse(index.reaches(model.org, model.alice));
+        assertFalse(index.reaches(model.dept, model.team));
+    }
+
+    @Test
+    public void testCyclesShareComponentAndNotPresentBlocks() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new HierarchyModel();
+        var associations = AssociationIndex.of();
+        var index = HierarchyClosureIndex.of(associations);
+
+        assertEquals(index.component(associations.id(model.admin)),
+                index.component(associations.id(model.backup)));
+        assertTrue(index.reaches(model.admin, model.backup));
+        assertTrue(index.reaches(model.backup, model.admin));
+        assertFalse(index.reaches(model.backup, model.admins));
+        assertFalse(index.reaches(model.admin, model.org));
+        assertTrue(index.reaches(model.admins, model.org));
+    }
+
+    @Test
+    public void testDeepHierarchy() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var groups = new Group[2000];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = new Group("Group" + i);
+            if (i > 0) {
+                groups[i].addParentGroup(groups[i - 1]);
+            }
+        }
+        var index = HierarchyClosureIndex.of();
+
+        assertEquals(groups.length, index.closure(groups[groups.length - 1]).size());
+        assertTrue(index.reaches(groups[groups.length - 1], groups[0]));
+        assertFalse(index.reaches(groups[0], groups[1]));
+        assertTrue(index.closureWords() < (long) groups.length * groups.length / 64);
+    }
+
+    @Test
+    public void testClosureMatchesAttacker() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new HierarchyModel();
+        var index = HierarchyClosureIndex.of();
+        var iamObjects =
+                List.of(model.alice, model.admin, model.backup, model.team, model.dept, model.org, model.admins);
+
+        for (IAMObject start : List.of(model.alice, model.admin)) {
+            for (AttackStep attackStep : AttackStep.allAttackSteps) {
+                attackStep.ttc = Double.MAX_VALUE;
+            }
+            var attacker = new CompiledAttacker();
+            attacker.addAttackPoint(start.assume);
+            attacker.attack();
+            for (IAMObject other : iamObjects) {
+                assertEquals(index.reaches(start, other), other.assume.ttc != Double.MAX_VALUE,
+                        start.name + " -> " + other.name);
+            }
+        }
+    }
+
+    @Test
+    public void testManagedObjectsAndSubprivilegesAreAssumed() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new ManagementModel();
+        var index = HierarchyClosureIndex.of();
+
+        assertEquals(List.of(model.ops, model.service, model.deploy), index.closure(model.ops));
+        assertFalse(index.reaches(model.ops, model.audit));
+        assertTrue(index.reaches(model.audit, model.auditors));
+
+        for (AttackStep attackStep : AttackStep.allAttackSteps) {
+            attackStep.ttc = Double.MAX_VALUE;
+        }
+        var attacker = new CompiledAttacker();
+        attacker.addAttackPoint(model.ops.assume);
+        attacker.attack();
+        for (IAMObject other : List.of(model.service, model.deploy, model.audit, model.auditors)) {
+            assertEquals(index.reaches(model.ops, other), other.assume.ttc != Double.MAX_VALUE, other.name);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.mal_lang.corelang.test;
+
+import core.Asset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mal_lang.corelang.test.engine.BulkModelLoader;
+import org.mal_lang.corelang.test.engine.BulkModelWriter;
+import org.mal_lang.corelang.test.engine.HostTemplate;
+import org.mal_lang.corelang.test.engine.LiveModelSink;
+import org.mal_lang.corelang.test.engine.MalSpec;
+import org.mal_lang.corelang.test.engine.ModelContext;
+import org.mal_lang.corelang.test.engine.ModelSink;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HostTemplateTest extends CoreLangTest {
+    private static final int HARDWARE = 0;
+    private static final int OS = 1;
+    private static final int CONTAINER = 2;
+    private static final int ADMIN = 3;
+    private static final int LOGS = 4;
+
+    /*
+    Network (port) <-- Application OS <-- Hardware Host
+                           |    \\--> Identity Admin (high privileges)
+                           |--> Application Container --> Data Logs
+    */
+    private static HostTemplate stack(MalSpec spec, int[] network) {
+        var builder = HostTemplate.builder();
+        builder.addAsset("Hardware", "Host");
+        builder.addAsset("Application", "OS");
+        builder.addAsset("Application", "Container");
+        builder.addAsset("Identity", "Admin");
+        builder.addAsset("Data", "Logs");
+        network[0] = builder.addPort("Network");
+        builder.addAssociation(spec.association("SysExecution", "Hardware", "Application"), HARDWARE, OS);
+        builder.addAssociation(spec.association("AppExecution", "Application", "Application"), OS, CONTAINER);
+        builder.addAssociation(
+                spec.association("HighPrivilegeApplicationAccess", "IAMObject", "Application"), ADMIN, OS);
+        builder.addAssociation(spec.association("AppContainment", "Data", "Application"), LOGS, CONTAINER);
+        builder.addAssociation(spec.association("NetworkExposure", "Network", "Application"), network[0], OS);
+        builder.setDefense(CONTAINER, "supplyChainAuditing", true);
+        return builder.build();
+    }
+
+    @Test
+    public void testStampedHostsShareTheTemplate() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var spec = MalSpec.load();
+        var port = new int[1];
+        var template = stack(spec, port);
+        var context = new ModelContext();
+        List<Asset> assets =
+                context.build(
+                        () -> {
+                            var sink = new LiveModelSink();
+                            int office = sink.addAsset("Network", "Office");
+                            int lab = sink.addAsset("Network", "Lab");
+                            for (int h = 0; h < 3; h++) {
+                                var host = template.instance("Host" + h).bind(port[0], h == 1 ? lab : office);
+                                if (h == 1) {
+                                    host.setDefense(OS, "notPresent", true);
+                                }
+                                assertEquals(2 + h * template.assetCount(), host.stamp(sink));
+                            }
+                            return sink.assets();
+                        });
+
+        assertEquals(2 + 3 * template.assetCount(), assets.size());
+        var office = (Network) assets.get(0);
+        var lab = (Network) assets.get(1);
+        for (int h = 0; h < 3; h++) {
+            int first = 2 + h * template.assetCount();
+            var hardware = (Hardware) assets.get(first + HARDWARE);
+            var os = (Application) assets.get(first + OS);
+            var container = (Application) assets.get(first + CONTAINER);
+            assertTrue(hardware.sysExecutedApps.contains(os));
+            assertTrue(os.appExecutedApps.contains(container));
+            assertTrue(os.highPrivAppIAMs.contains(assets.get(first + ADMIN)));
+            assertTrue(container.containedData.contains(assets.get(first + LOGS)));
+            assertTrue(os.networks.contains(h == 1 ? lab : office));
+            assertTrue(container.supplyChainAuditing.defaultValue);
+            assertEquals(h == 1, os.notPresent.defaultValue);
+        }
+        assertEquals(2, office.applications.size());
+        assertEquals(1, lab.applications.size());
+        assertFalse(((Application) assets.get(2 + CONTAINER)).notPresent.defaultValue);
+    }
+
+    @Test
+    public void testStampingIntoAFile(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var spec = MalSpec.load();
+        var port = new int[1];
+        var template = stack(spec, port);
+        Path file = directory.resolve("hosts.model");
+        try (var writer = new BulkModelWriter(file)) {
+            int network = writer.addAsset("Network", "Network");
+            for (int h = 0; h < 100; h++) {
+                template.instance("Host" + h).bind(port[0], network).stamp(writer);
+            }
+        }
+
+        var context = new ModelContext();
+        var assets = new BulkModelLoader(spec).load(file, context);
+        assertEquals(1 + 100 * template.assetCount(), assets.size());
+        assertEquals(100, ((Network) assets.get(0)).applications.size());
+        assertTrue(context.compile().edgeCount() > 0);
+    }
+
+    @Test
+    public void testFilesKeepTheTemplateOnce(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var spec = MalSpec.load();
+        var port = new int[1];
+        var template = stack(spec, port);
+        Path file = directory.resolve("hosts.model");
+        try (var writer = new BulkModelWriter(file)) {
+            int office = writer.addAsset("Network", "Office");
+            for (int h = 0; h < 100; h++) {
+                var host = template.instance("Host" + h).bind(port[0], office);
+                if (h == 7) {
+                    host.setDefense(OS, "notPresent", true);
+                }
+                assertEquals(1 + h * template.assetCount() + (h >= 50 ? 1 : 0), host.stamp(writer));
+                if (h == 49) {
+                    assertEquals(1 + 50 * template.assetCount(), writer.addAsset("Network", "Lab"));
+                }
+            }
+        }
+
+        var copies = new ArrayList<String>();
+        var counting =
+                new ModelSink() {
+                    int assets;
+
+                    @Override
+                    public int addAsset(String type, String name) {
+                        return assets++;
+                    }
+
+                    @Override
+                    public void addAssociation(MalSpec.Association association, int left, int right) {}
+
+                    @Override
+                    public void setDefense(int asset, String defense, boolean enabled) {}
+
+                    @Override
+                    public int addInstance(HostTemplate.Instance instance) {
+                        copies.add(instance.name());
+                        int first = assets;
+                        assets += template.assetCount();
+                        return first;
+                    }
+                };
+        new BulkModelLoader(spec).load(file, counting);
+        assertEquals(100, copies.size());
+        assertEquals("Host99", copies.get(99));
+        assertEquals(2 + 100 * template.assetCount(), counting.assets);
+
+        var assets = new BulkModelLoader(spec).load(file, new ModelContext());
+        assertEquals(2 + 100 * template.assetCount(), assets.size());
+        var lab = (Network) assets.get(1 + 50 * template.assetCount());
+        assertEquals("Lab", lab.name);
+        assertEquals(100, ((Network) assets.get(0)).applications.size());
+        for (int h = 0; h < 100; h++) {
+            var os = (Application) assets.get(1 + h * template.assetCount() + (h >= 50 ? 1 : 0) + OS);
+            assertEquals("Host" + h + ".OS", os.name);
+            assertEquals(h == 7, os.notPresent.defaultValue);
+        }
+    }
+
+    @Test
+    public void testUnboundPortsAndPortToPortAssociationsAreRejected() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var spec = MalSpec.load();
+        var port = new int[1];
+        var template = stack(spec, port);
+        var context = new ModelContext();
+        assertThrows(
+                IllegalStateException.class,
+                () -> context.build(() -> template.instance("Host").stamp(new LiveModelSink())));
+
+        var builder = HostTemplate.builder();
+        int left = builder.addPort("Left");
+        int right = builder.addPort("Right");
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.addAssociation(spec.association("NetworkExposure", "Network", "Application"), left, right));
+    }
+}
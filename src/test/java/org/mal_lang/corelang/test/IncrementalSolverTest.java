@@ -0,0 +1,146 @@
+package org.mal_lang.corelang.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import org.mal_lang.corelang.test.engine.IncrementalSolver;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IncrementalSolverTest extends CoreLangTest {
+    private static class SegmentedNetworkModel {
+        /*
+        Internet <--> Connection In --> DMZ <--> Connection Core --> Core
+                                         |                            |
+                                    Application Web              Application DB
+                                                                      |
+                                                                     Data
+
+        Attacker's entry point: Internet.physicalAccess
+        */
+        public final Network internet = new Network("Internet");
+        public final Network dmz = new Network("DMZ");
+        public final Network core = new Network("Core");
+        public final ConnectionRule connIn = new ConnectionRule("ConnectionIn");
+        public final ConnectionRule connCore = new ConnectionRule("ConnectionCore");
+        public final Application web = new Application("Web");
+        public final Application db = new Application("DB");
+        public final Data data = new Data("data");
+
+        public SegmentedNetworkModel() {
+            connIn.addNetworks(internet);
+            connIn.addOutNetworks(dmz);
+            connCore.addNetworks(dmz);
+            connCore.addOutNetworks(core);
+            dmz.addApplications(web);
+            core.addApplications(db);
+            db.addContainedData(data);
+        }
+    }
+
+    private static class ReplicatedInformationModel {
+        /*
+        Data 0 ---+
+        Data 1 ---+--Replica--> Information
+          ...     |
+        Data n-1 -+
+
+        Attacker's entry points: Data i.write, added and removed one at a time
+        */
+        public final Information info = new Information("Information");
+        public final Data[] replicas = new Data[2000];
+
+        public ReplicatedInformationModel() {
+            for (int i = 0; i < replicas.length; i++) {
+                replicas[i] = new Data("Replica" + i);
+                info.addDataReplicas(replicas[i]);
+            }
+        }
+    }
+
+    private static void assertSameAsFullSolve(IncrementalSolver solver, int[] attackPoints) {
+        AttackGraph graph = solver.graph();
+        var expected = new GraphSolver(graph).solve(attackPoints, solver.defenseStates());
+        assertArrayEquals(expected, solver.ttc());
+    }
+
+    @Test
+    public void testDefenseFlipsMatchFullSolve() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new SegmentedNetworkModel();
+        var solver = IncrementalSolver.forGlobalModel();
+        solver.addAttackPoint(model.internet.physicalAccess);
+        solver.solve();
+        int[] attackPoints = solver.graph().ids(List.of(model.internet.physicalAccess));
+
+        var random = new Random(1);
+        for (int i = 0; i < 50; i++) {
+            var graph = solver.graph();
+            solver.setDefense(graph.defense(random.nextInt(graph.defenseCount())), random.nextBoolean());
+            assertSameAsFullSolve(solver, attackPoints);
+        }
+    }
+
+    @Test
+    public void testAddedAssociationsMatchFullSolve() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new SegmentedNetworkModel();
+        var solver = IncrementalSolver.forGlobalModel();
+        solver.addAttackPoint(model.internet.physicalAccess);
+        solver.setDefense(model.connCore.restricted, true);
+        solver.solve();
+        int stepCount = solver.graph().stepCount();
+
+        var bypass = new ConnectionRule("Bypass");
+        bypass.addNetworks(model.internet);
+        bypass.addNetworks(model.core);
+        solver.modelChanged();
+
+        int[] attackPoints = solver.graph().ids(List.of(model.internet.physicalAccess));
+        assertSameAsFullSolve(solver, attackPoints);
+        assertTrue(solver.lastAffectedCount() < solver.graph().stepCount());
+        assertTrue(solver.graph().stepCount() > stepCount);
+
+        solver.setDefense(bypass.restricted, true);
+        assertSameAsFullSolve(solver, attackPoints);
+    }
+
+    @Test
+    public void testReplicaWritesMatchFullSolve() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new ReplicatedInformationModel();
+        var solver = IncrementalSolver.forGlobalModel();
+        var attackPoints = new ArrayList<Data>();
+        for (int i = 0; i < model.replicas.length - 1; i++) {
+            solver.addAttackPoint(model.replicas[i].write);
+            attackPoints.add(model.replicas[i]);
+        }
+        solver.solve();
+
+        // Writing the last replica completes Information.attemptWriteFromReplica, an & step with
+        // one parent per replica; taking any replica away again makes it unreachable.
+        Data last = model.replicas[model.replicas.length - 1];
+        solver.addAttackPoint(last.write);
+        attackPoints.add(last);
+        assertSameAsFullSolve(solver, writeIds(solver.graph(), attackPoints));
+        for (int i = 0; i < 3; i++) {
+            Data removed = attackPoints.remove(i * 100);
+            solver.removeAttackPoint(removed.write);
+            assertSameAsFullSolve(solver, writeIds(solver.graph(), attackPoints));
+            solver.addAttackPoint(removed.write);
+            attackPoints.add(removed);
+            assertSameAsFullSolve(solver, writeIds(solver.graph(), attackPoints));
+        }
+    }
+
+    private static int[] writeIds(AttackGraph graph, List<Data> replicas) {
+        var ids = new int[replicas.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = graph.id(replicas.get(i).write);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,191 @@
+package org.mal_lang.corelang.test;
+
+import core.Asset;
+import core.AttackStep;
+import core.Defense;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AssociationIndex;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import org.mal_lang.corelang.test.engine.LetEvaluator;
+import org.mal_lang.corelang.test.engine.LiveModelSink;
+import org.mal_lang.corelang.test.engine.MalSpec;
+import org.mal_lang.corelang.test.engine.ModelGenerator;
+import org.mal_lang.corelang.test.engine.SpecParents;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class LetEvaluatorTest extends CoreLangTest {
+    private static class HubNetworkModel {
+        /*
+                        Connection Both <--> Application Both
+                              |
+        Network Hub <-Out- Connection Out <--> Application Out
+                    -In->  Connection In  <--> Application In
+                              |
+                        Application Local
+
+        Connection Diode (associated later)
+        */
+        public final Network hub = new Network("Hub");
+        public final ConnectionRule both = new ConnectionRule("ConnectionBoth");
+        public final ConnectionRule out = new ConnectionRule("ConnectionOut");
+        public final ConnectionRule in = new ConnectionRule("ConnectionIn");
+        public final Application appBoth = new Application("ApplicationBoth");
+        public final Application appOut = new Application("ApplicationOut");
+        public final Application appIn = new Application("ApplicationIn");
+        public final Application local = new Application("ApplicationLocal");
+        public final ConnectionRule diode = new ConnectionRule("ConnectionDiode");
+
+        public HubNetworkModel() {
+            hub.addNetConnections(both);
+            hub.addOutgoingNetConnections(out);
+            hub.addIngoingNetConnections(in);
+            hub.addApplications(local);
+            both.addApplications(appBoth);
+            out.addApplications(appOut);
+            in.addApplications(appIn);
+        }
+    }
+
+    private static int[] ids(AssociationIndex index, Asset... assets) {
+        var result = new int[assets.length];
+        for (int i = 0; i < assets.length; i++) {
+            result[i] = index.id(assets[i]);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    @Test
+    public void testNetworkLets() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new HubNetworkModel();
+        var index = AssociationIndex.of();
+        var lets = new LetEvaluator(MalSpec.load(), index);
+
+        assertArrayEquals(
+                ids(index, model.both, model.out),
+                lets.evaluate(model.hub, "outboundAllowedConnections"));
+        assertArrayEquals(
+                ids(index, model.both, model.in),
+                lets.evaluate(model.hub, "inboundAllowedConnections"));
+        assertArrayEquals(
+                ids(index, model.both, model.out, model.in),
+                lets.evaluate(model.hub, "allNetConnections"));
+        assertArrayEquals(
+                ids(index, model.local, model.appBoth, model.appOut, model.appIn),
+                lets.evaluate(model.hub, "allowedApplicationConnectionsApplications"));
+        assertArrayEquals(
+                ids(index, model.appOut, model.appIn),
+                lets.evaluateExpression(
+                        index.id(model.hub),
+                        "(allNetConnections() - netConnections).applications[Application]"));
+    }
+
+    @Test
+    public void testValuesAreSharedUntilAnAssociationIsAdded() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new HubNetworkModel();
+        var index = AssociationIndex.of();
+        var lets = new LetEvaluator(MalSpec.load(), index);
+
+        int[] before = lets.evaluate(model.hub, "allNetConnections");
+        assertSame(before, lets.evaluate(model.hub, "allNetConnections"));
+        int hub = index.id(model.hub);
+        int[] beforeReach = lets.evaluateExpression(hub, "allNetConnections().applications");
+        assertSame(beforeReach, lets.evaluateExpression(hub, "allNetConnections().applications"));
+        assertFalse(index.refresh());
+
+        model.hub.addDiodeIngoingNetConnections(model.diode);
+        index.associationAdded();
+        int[] after = lets.evaluate(model.hub, "allNetConnections");
+        assertNotSame(before, after);
+        assertArrayEquals(ids(index, model.both, model.out, model.in, model.diode), after);
+        assertSame(after, lets.evaluate(model.hub, "allNetConnections"));
+        assertNotSame(beforeReach, lets.evaluateExpression(hub, "allNetConnections().applications"));
+        assertFalse(index.refresh());
+    }
+
+    @Test
+    public void testCompilingFromSpecReaches() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        /*
+        Network Hub -In-> Connection In
+                    -Diode-> Connection Diode (added through the sink after the first compile)
+        */
+        var spec = MalSpec.load();
+        var sink = new LiveModelSink();
+        int hub = sink.addAsset("Network", "Hub");
+        int in = sink.addAsset("ConnectionRule", "ConnectionIn");
+        int diode = sink.addAsset("ConnectionRule", "ConnectionDiode");
+        sink.addAssociation(spec.association("InNetworkConnection", "Network", "ConnectionRule"), hub, in);
+        var index = AssociationIndex.of();
+        sink.track(index);
+        var parents = new SpecParents(new LetEvaluator(spec, index));
+        var network = (Network) sink.assets().get(hub);
+        var connectionIn = (ConnectionRule) sink.assets().get(in);
+        var connectionDiode = (ConnectionRule) sink.assets().get(diode);
+
+        // Network.reverseReach -> inboundAllowedConnections().attemptReverseReach
+        var graph = AttackGraph.compile(AttackStep.allAttackSteps, Defense.allDefenses, parents);
+        double[] ttc = new GraphSolver(graph).solve(new int[] {graph.id(network.reverseReach)});
+        assertNotEquals(GraphSolver.UNREACHED, ttc[graph.id(connectionIn.attemptReverseReach)]);
+        assertEquals(GraphSolver.UNREACHED, ttc[graph.id(connectionDiode.attemptReverseReach)]);
+
+        sink.addAssociation(
+                spec.association("DiodeInNetworkConnection", "Network", "ConnectionRule"), hub, diode);
+        graph = AttackGraph.compile(AttackStep.allAttackSteps, Defense.allDefenses, parents);
+        ttc = new GraphSolver(graph).solve(new int[] {graph.id(network.reverseReach)});
+        assertNotEquals(GraphSolver.UNREACHED, ttc[graph.id(connectionDiode.attemptReverseReach)]);
+    }
+
+    @Test
+    public void testReachHops() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var lets = new LetEvaluator(MalSpec.load(), AssociationIndex.of(List.of()));
+        // Only Credentials.propagateOneCredentialCompromised has a closure, credentials*.
+        assertEquals(Set.of("credentials"), lets.closureRoles());
+        // For example allNetConnections().applications, where the let is one role.
+        assertEquals(2, lets.reachHops());
+    }
+
+    @Test
+    public void testSpecParentsMatchGeneratedParents() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        new HubNetworkModel();
+        new OfficeNetworkModel();
+        var spec = MalSpec.load();
+        var parameters = new ModelGenerator.Parameters();
+        parameters.networks = 3;
+        parameters.applicationsPerNetwork = 2;
+        parameters.identities = 8;
+        parameters.softwareProducts = 2;
+        new ModelGenerator(spec, parameters).generate(new LiveModelSink());
+        var parents = new SpecParents(new LetEvaluator(spec, AssociationIndex.of()));
+
+        for (AttackStep step : AttackStep.allAttackSteps) {
+            assertEquals(
+                    identitySet(AttackGraph.EXPECTED_PARENTS.parents(step)),
+                    identitySet(parents.parents(step)),
+                    step.fullName());
+        }
+    }
+
+    private static Set<AttackStep> identitySet(Iterable<? extends AttackStep> steps) {
+        Set<AttackStep> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (AttackStep step : steps) {
+            set.add(step);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,90 @@
+package org.mal_lang.corelang.test;
+
+import core.Asset;
+import core.AttackStep;
+import core.Defense;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.ModelContext;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModelContextTest extends CoreLangTest {
+    private static class NetworkChainModel {
+        /*
+        Network 0 <--> Connection 0 <--> Network 1 <--> ... <--> Network N
+
+        Network Isolated
+
+        Attacker's entry point: Network0.accessUninspected
+        */
+        public final List<Network> networks = new ArrayList<>();
+        public final Network isolated = new Network("Isolated");
+
+        public NetworkChainModel(int length) {
+            networks.add(new Network("Network0"));
+            for (int i = 1; i <= length; i++) {
+                var conn = new ConnectionRule("Connection" + (i - 1));
+                var net = new Network("Network" + i);
+                conn.addNetworks(networks.get(i - 1));
+                conn.addNetworks(net);
+                networks.add(net);
+            }
+        }
+
+        public Network last() {
+            return networks.get(networks.size() - 1);
+        }
+    }
+
+    @Test
+    public void testBuildLeavesGlobalRegistriesUntouched() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var global = new Network("global");
+        int assets = Asset.allAssets.size();
+        int attackSteps = AttackStep.allAttackSteps.size();
+        int defenses = Defense.allDefenses.size();
+
+        var context = new ModelContext();
+        var model = context.build(() -> new NetworkChainModel(2));
+
+        assertEquals(assets, Asset.allAssets.size());
+        assertEquals(attackSteps, AttackStep.allAttackSteps.size());
+        assertEquals(defenses, Defense.allDefenses.size());
+        assertTrue(Asset.allAssets.contains(global));
+        assertTrue(context.assets().contains(model.isolated));
+        assertTrue(!context.assets().contains(global));
+    }
+
+    @Test
+    public void testConcurrentModels() throws Exception {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var tasks = new ArrayList<Callable<NetworkChainModel>>();
+            for (int i = 0; i < 16; i++) {
+                int length = 1 + i;
+                tasks.add(
+                        () -> {
+                            var context = new ModelContext();
+                            var model = context.build(() -> new NetworkChainModel(length));
+                            var attacker = context.attacker();
+                            attacker.addAttackPoint(model.networks.get(0).accessUninspected);
+                            attacker.attack();
+                            return model;
+                        });
+            }
+            for (Future<NetworkChainModel> future : executor.invokeAll(tasks)) {
+                var model = future.get();
+                model.last().accessUninspected.assertCompromisedInstantaneously();
+                model.isolated.accessUninspected.assertUncompromised();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.mal_lang.corelang.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mal_lang.corelang.test.engine.BulkModelLoader;
+import org.mal_lang.corelang.test.engine.BulkModelWriter;
+import org.mal_lang.corelang.test.engine.MalSpec;
+import org.mal_lang.corelang.test.engine.ModelContext;
+import org.mal_lang.corelang.test.engine.ModelGenerator;
+import org.mal_lang.corelang.test.engine.ModelSink;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModelGeneratorTest extends CoreLangTest {
+    /** Counts what the generator emits and checks that associations refer to existing assets. */
+    private static class CountingSink implements ModelSink {
+        int assets;
+        int associations;
+
+        @Override
+        public int addAsset(String type, String name) {
+            return assets++;
+        }
+
+        @Override
+        public void addAssociation(MalSpec.Association association, int left, int right) {
+            assertTrue(left >= 0 && left < assets && right >= 0 && right < assets);
+            associations++;
+        }
+
+        @Override
+        public void setDefense(int asset, String defense, boolean enabled) {}
+    }
+
+    @Test
+    public void testAssetCountMatchesParameters() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var spec = MalSpec.load();
+        for (long size : new long[] {1_000, 20_000}) {
+            var parameters = ModelGenerator.Parameters.forAssetCount(size);
+            var sink = new CountingSink();
+            new ModelGenerator(spec, parameters).generate(sink);
+
+            assertEquals(parameters.assetCount(), sink.assets);
+            assertTrue(sink.assets > size / 2 && sink.assets < size * 2, "assets = " + sink.assets);
+            assertTrue(sink.associations > sink.assets);
+        }
+    }
+
+    @Test
+    public void testGenerationIsReproducible(@TempDir Path directory) throws IOException {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var spec = MalSpec.load();
+        var parameters = new ModelGenerator.Parameters();
+        Path first = directory.resolve("first.model");
+        Path second = directory.resolve("second.model");
+        try (var writer = new BulkModelWriter(first)) {
+            new ModelGenerator(spec, parameters).generate(writer);
+        }
+        try (var writer = new BulkModelWriter(second)) {
+            new ModelGenerator(spec, parameters).generate(writer);
+        }
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+
+        var context = new ModelContext();
+        var assets = new BulkModelLoader(spec).load(first, context);
+        assertEquals(parameters.assetCount(), assets.size());
+        assertTrue(context.compile().edgeCount() > 0);
+    }
+}
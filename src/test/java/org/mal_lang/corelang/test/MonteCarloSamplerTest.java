@@ -0,0 +1,71 @@
+package org.mal_lang.corelang.test;
+
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.MalSpec;
+import org.mal_lang.corelang.test.engine.MonteCarloResult;
+import org.mal_lang.corelang.test.engine.MonteCarloSampler;
+import org.mal_lang.corelang.test.engine.SamplingPlan;
+import org.mal_lang.corelang.test.engine.StepCatalog;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MonteCarloSamplerTest extends CoreLangTest {
+    private static class PhishingTestModel {
+        public final User user = new User("user");
+        public final Identity identity = new Identity("identity");
+        public final Credentials credentials = new Credentials("credentials");
+        public final Application application = new Application("application");
+
+        public PhishingTestModel() {
+            user.addUserIds(identity);
+            identity.addCredentials(credentials);
+            identity.addExecPrivApps(application);
+        }
+    }
+
+    private static class Sampling {
+        final AttackGraph graph = AttackGraph.compile();
+        final MonteCarloSampler sampler =
+                new MonteCarloSampler(SamplingPlan.of(StepCatalog.of(graph), MalSpec.load()));
+    }
+
+    @Test
+    public void testSampledCompromiseProbability() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new PhishingTestModel();
+        var sampling = new Sampling();
+        var graph = sampling.graph;
+        int[] attackPoints = {graph.id(model.user.attemptSocialEngineering)};
+        int[] targets = {graph.id(model.user.unsafeUserActivity)};
+
+        MonteCarloResult result = sampling.sampler.run(attackPoints, targets, 4000, 42L, 4);
+
+        assertEquals(1.0, result.compromiseProbability(graph.id(model.user.socialEngineering)));
+        // credentialTheft is HardAndUncertain, i.e. Bernoulli(0.5) * Exponential(0.1)
+        double theft = result.compromiseProbability(graph.id(model.user.credentialTheft));
+        assertTrue(theft > 0.45 && theft < 0.55, "P(credentialTheft) = " + theft);
+        // unsafeUserActivity is Exponential(0.03), whose median is ln(2) / 0.03 days
+        double median = result.percentile(graph.id(model.user.unsafeUserActivity), 0.5);
+        assertEquals(Math.log(2) / 0.03, median, 0.15 * Math.log(2) / 0.03);
+    }
+
+    @Test
+    public void testSamplingIsReproducibleAcrossThreadCounts() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new PhishingTestModel();
+        var sampling = new Sampling();
+        var graph = sampling.graph;
+        int[] attackPoints = {graph.id(model.user.attemptSocialEngineering)};
+        int target = graph.id(model.identity.assume);
+
+        MonteCarloResult single = sampling.sampler.run(attackPoints, new int[] {target}, 500, 7L, 1);
+        MonteCarloResult parallel = sampling.sampler.run(attackPoints, new int[] {target}, 500, 7L, 3);
+
+        assertArrayEquals(single.samplesOf(target), parallel.samplesOf(target));
+        for (int i = 0; i < graph.stepCount(); i++) {
+            assertEquals(single.compromiseProbability(i), parallel.compromiseProbability(i));
+        }
+    }
+}
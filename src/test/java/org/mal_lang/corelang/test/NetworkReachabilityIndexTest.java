@@ -0,0 +1,116 @@
+package org.mal_lang.corelang.test;
+
+import core.AttackStep;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.CompiledAttacker;
+import org.mal_lang.corelang.test.engine.NetworkReachabilityIndex;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mal_lang.corelang.test.engine.NetworkReachabilityIndex.Access.INSPECTED;
+import static org.mal_lang.corelang.test.engine.NetworkReachabilityIndex.Access.UNINSPECTED;
+
+public class NetworkReachabilityIndexTest extends CoreLangTest {
+    private static class ZonedNetworkModel {
+        /*
+        Network A <--> Connection 1 (payloadInspection) <--> Network B <--> Application B
+            |                                                    |
+            |                                              Out Connection 2 In --> Network C
+            |                                                    |                      |
+        Connection 4 (restricted)                          Application C          Out Connection 3 Diode --> Network D
+            |
+        Network E <--> Application E
+
+        Attacker's entry point: NetworkA.accessUninspected
+        */
+        public final Network netA = new Network("NetworkA");
+        public final Network netB = new Network("NetworkB");
+        public final Network netC = new Network("NetworkC");
+        public final Network netD = new Network("NetworkD");
+        public final Network netE = new Network("NetworkE");
+        public final ConnectionRule conn1 = new ConnectionRule("Connection1", false, true);
+        public final ConnectionRule conn2 = new ConnectionRule("Connection2");
+        public final ConnectionRule conn3 = new ConnectionRule("Connection3");
+        public final ConnectionRule conn4 = new ConnectionRule("Connection4", true, false);
+        public final Application appB = new Application("ApplicationB");
+        public final Application appC = new Application("ApplicationC");
+        public final Application appE = new Application("ApplicationE");
+
+        public ZonedNetworkModel() {
+            conn1.addNetworks(netA);
+            conn1.addNetworks(netB);
+            conn2.addOutNetworks(netB);
+            conn2.addInNetworks(netC);
+            conn2.addInApplications(appC);
+            conn3.addOutNetworks(netC);
+            conn3.addDiodeInNetworks(netD);
+            conn4.addNetworks(netA);
+            conn4.addNetworks(netE);
+            netB.addApplications(appB);
+            netE.addApplications(appE);
+        }
+    }
+
+    @Test
+    public void testDirectionality() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new ZonedNetworkModel();
+        var index = NetworkReachabilityIndex.of();
+
+        assertTrue(index.reachesNetwork(model.netB, UNINSPECTED, model.netC, UNINSPECTED));
+        assertTrue(index.reachesNetwork(model.netC, UNINSPECTED, model.netD, UNINSPECTED));
+        assertFalse(index.reachesNetwork(model.netC, UNINSPECTED, model.netB, INSPECTED));
+        assertFalse(index.reachesNetwork(model.netD, UNINSPECTED, model.netC, INSPECTED));
+        assertEquals(List.of(model.netB, model.netC, model.netD),
+                index.networks(model.netB, UNINSPECTED, UNINSPECTED));
+    }
+
+    @Test
+    public void testDefensesOnConnectionRules() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new ZonedNetworkModel();
+        var index = NetworkReachabilityIndex.of();
+
+        assertFalse(index.reachesNetwork(model.netA, UNINSPECTED, model.netB, UNINSPECTED));
+        assertTrue(index.reachesNetwork(model.netA, UNINSPECTED, model.netB, INSPECTED));
+        assertTrue(index.reachesNetwork(model.netA, UNINSPECTED, model.netD, INSPECTED));
+        assertFalse(index.reachesNetwork(model.netA, UNINSPECTED, model.netD, UNINSPECTED));
+        assertFalse(index.reachesNetwork(model.netA, UNINSPECTED, model.netE, INSPECTED));
+
+        assertTrue(index.reachesApplication(model.netA, UNINSPECTED, model.appB, INSPECTED));
+        assertFalse(index.reachesApplication(model.netA, UNINSPECTED, model.appB, UNINSPECTED));
+        assertTrue(index.reachesApplication(model.netA, UNINSPECTED, model.appC, INSPECTED));
+        assertFalse(index.reachesApplication(model.netA, UNINSPECTED, model.appE, INSPECTED));
+        assertEquals(List.of(model.appB, model.appC),
+                index.applications(model.netB, UNINSPECTED, UNINSPECTED));
+    }
+
+    @Test
+    public void testIndexMatchesAttacker() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new ZonedNetworkModel();
+        var index = NetworkReachabilityIndex.of();
+        var networks = List.of(model.netA, model.netB, model.netC, model.netD, model.netE);
+        var applications = List.of(model.appB, model.appC, model.appE);
+
+        for (Network start : networks) {
+            for (AttackStep attackStep : AttackStep.allAttackSteps) {
+                attackStep.ttc = Double.MAX_VALUE;
+            }
+            var attacker = new CompiledAttacker();
+            attacker.addAttackPoint(start.accessUninspected);
+            attacker.attack();
+            for (Network other : networks) {
+                assertEquals(index.reachesNetwork(start, UNINSPECTED, other, UNINSPECTED),
+                        other.accessUninspected.ttc == 0, start.name + " -> " + other.name);
+                assertEquals(index.reachesNetwork(start, UNINSPECTED, other, INSPECTED),
+                        other.accessInspected.ttc == 0, start.name + " -> " + other.name);
+            }
+            for (Application app : applications) {
+                assertEquals(index.reachesApplication(start, UNINSPECTED, app, INSPECTED),
+                        app.networkConnectInspected.ttc == 0, start.name + " -> " + app.name);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.mal_lang.corelang.test;
+
+/** The small office network shared by the tests of the server and the result streams. */
+class OfficeNetworkModel {
+    /*
+    Network Office <--> Connection 1 <--> Network Servers <--> Application Web --> Data Pages
+
+    Attacker's entry point: Office.physicalAccess
+    */
+    public final Network office = new Network("Office");
+    public final Network servers = new Network("Servers");
+    public final ConnectionRule conn1 = new ConnectionRule("Connection1");
+    public final Application web = new Application("Web");
+    public final Data pages = new Data("Pages");
+
+    public OfficeNetworkModel() {
+        conn1.addNetworks(office);
+        conn1.addNetworks(servers);
+        servers.addApplications(web);
+        web.addContainedData(pages);
+    }
+}
@@ -0,0 +1,236 @@
+package org.mal_lang.corelang.test;
+
+import core.Asset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.BulkModelLoader;
+import org.mal_lang.corelang.test.engine.BulkModelWriter;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import org.mal_lang.corelang.test.engine.MalSpec;
+import org.mal_lang.corelang.test.engine.ModelContext;
+import org.mal_lang.corelang.test.engine.ModelGenerator;
+import org.mal_lang.corelang.test.engine.ModelPartitioner;
+import org.mal_lang.corelang.test.engine.PartitionedSolver;
+import org.mal_lang.corelang.test.engine.StepCatalog;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PartitionedSolverTest extends CoreLangTest {
+    private static class SegmentedEstateModel {
+        /*
+        Network Zone0 <--> Connection 0 <--> Network Zone1 <--> Connection 1 <--> Network Zone2
+            |                                    |                                    |
+        Application App0 --> Data Data0      Application App1 --> Data Data1      ...
+
+        Attacker's entry point: Zone0.physicalAccess
+        Every asset is placed in the partition of its zone; a connection rule in the lower one.
+        */
+        public final List<Network> zones = new ArrayList<>();
+        public final List<ConnectionRule> connections = new ArrayList<>();
+        public final Map<Asset, Integer> partition = new IdentityHashMap<>();
+
+        public SegmentedEstateModel(int length) {
+            for (int i = 0; i < length; i++) {
+                var zone = new Network("Zone" + i);
+                var app = new Application("App" + i);
+                var data = new Data("Data" + i);
+                zone.addApplications(app);
+                app.addContainedData(data);
+                zones.add(zone);
+                partition.put(zone, i);
+                partition.put(app, i);
+                partition.put(data, i);
+                if (i > 0) {
+                    var conn = new ConnectionRule("Connection" + (i - 1));
+                    conn.addNetworks(zones.get(i - 1));
+                    conn.addNetworks(zone);
+                    connections.add(conn);
+                    partition.put(conn, i - 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWorkerProcessesMatchASingleSolve() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new SegmentedEstateModel(3);
+        var graph = AttackGraph.compile();
+        int[] attackPoints = {graph.id(model.zones.get(0).physicalAccess)};
+        int[] partition =
+                PartitionedSolver.partitionByAsset(
+                        StepCatalog.of(graph), asset -> model.partition.getOrDefault(asset, 0));
+
+        try (var solver = PartitionedSolver.start(graph, partition, PartitionedSolver.Mode.PROCESSES)) {
+            assertEquals(3, solver.partitionCount());
+            for (boolean restricted : new boolean[] {true, false}) {
+                var defenseEnabled = graph.defenseStates();
+                defenseEnabled[graph.defenseIndex(model.connections.get(0).restricted)] = restricted;
+                double[] expected = new GraphSolver(graph).solve(attackPoints, defenseEnabled);
+                assertArrayEquals(expected, solver.solve(attackPoints, defenseEnabled));
+            }
+        }
+    }
+
+    @Test
+    public void testThreadWorkersOnManyPartitions() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new SegmentedEstateModel(8);
+        var graph = AttackGraph.compile();
+        int[] attackPoints = {
+            graph.id(model.zones.get(0).physicalAccess), graph.id(model.zones.get(5).physicalAccess)
+        };
+        int[] partition =
+                PartitionedSolver.partitionByAsset(
+                        StepCatalog.of(graph), asset -> model.partition.getOrDefault(asset, 0) / 2);
+        double[] expected = new GraphSolver(graph).solve(attackPoints);
+
+        try (var solver = PartitionedSolver.start(graph, partition, PartitionedSolver.Mode.THREADS)) {
+            assertEquals(4, solver.partitionCount());
+            for (int repeat = 0; repeat < 2; repeat++) {
+                assertArrayEquals(expected, solver.solve(attackPoints));
+                assertTrue(solver.rounds() >= 1);
+            }
+        }
+    }
+
+    /*
+    Network Zone0 <--> Connection 0 <--> Network Zone1 <--> ... <--> Network Zone11
+        |                                    |
+    Application App0 <-- Data Data0      Application App1 <-- Data Data1      ...
+
+    Connection 5 is restricted.
+    */
+    private static void writeEstateChain(MalSpec spec, Path file, int length) {
+        var exposure = spec.association("NetworkExposure", "Network", "Application");
+        var containment = spec.association("AppContainment", "Data", "Application");
+        var connection = spec.association("NetworkConnection", "Network", "ConnectionRule");
+        try (var writer = new BulkModelWriter(file)) {
+            int previous = -1;
+            for (int i = 0; i < length; i++) {
+                int zone = writer.addAsset("Network", "Zone" + i);
+                int app = writer.addAsset("Application", "App" + i);
+                writer.addAssociation(exposure, zone, app);
+                writer.addAssociation(containment, writer.addAsset("Data", "Data" + i), app);
+                if (previous >= 0) {
+                    int conn = writer.addAsset("ConnectionRule", "Connection" + (i - 1));
+                    writer.addAssociation(connection, previous, conn);
+                    writer.addAssociation(connection, zone, conn);
+                    if (i - 1 == 5) {
+                        writer.setDefense(conn, "restricted", true);
+                    }
+                }
+                previous = zone;
+            }
+        }
+    }
+
+    /** A model file loaded whole and solved from the {@code physicalAccess} of its first network. */
+    private static class WholeModel {
+        final int assetCount;
+        final StepCatalog catalog;
+        final double[] ttc;
+        final Map<String, Integer> ids = new HashMap<>();
+        final int network;
+
+        WholeModel(MalSpec spec, Path file) {
+            var context = new ModelContext();
+            List<Asset> assets = new BulkModelLoader(spec).load(file, context);
+            assetCount = assets.size();
+            var graph = context.compile();
+            catalog = context.catalog(graph);
+            for (int i = 0; i < graph.stepCount(); i++) {
+                if (catalog.assetOf(i) >= 0) {
+                    ids.put(catalog.assetOf(i) + " " + catalog.stepName(i), i);
+                }
+            }
+            int first = 0;
+            while (!(assets.get(first) instanceof Network)) {
+                first++;
+            }
+            network = first;
+            int[] attackPoints = {graph.id(((Network) assets.get(network)).physicalAccess)};
+            ttc = new GraphSolver(graph).solve(attackPoints).clone();
+        }
+
+        /**
+         * Checks that {@code solver} gives every step of an asset once, with the TTC of the whole
+         * solve.
+         */
+        void check(PartitionedSolver solver) {
+            var seen = new boolean[ttc.length];
+            solver.solve(
+                    new int[] {network},
+                    new String[] {"physicalAccess"},
+                    (asset, step, value) -> {
+                        Integer id = ids.get(asset + " " + step);
+                        assertNotNull(id, asset + " " + step);
+                        assertFalse(seen[id], asset + " " + step);
+                        seen[id] = true;
+                        assertEquals(ttc[id], value, catalog.fullName(id));
+                    });
+            for (int i = 0; i < seen.length; i++) {
+                assertTrue(seen[i] || catalog.assetOf(i) < 0, catalog.fullName(i));
+            }
+        }
+    }
+
+    @Test
+    public void testWorkersOpenTheirOwnPartitions(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var spec = MalSpec.load();
+        Path file = directory.resolve("estate.bin");
+        writeEstateChain(spec, file, 12);
+        var model = new WholeModel(spec, file);
+        List<Path> files = new ModelPartitioner(spec).split(file, 3, directory);
+        assertEquals(3, files.size());
+        for (Path partition : files) {
+            assertTrue(new BulkModelLoader(spec).load(partition, new ModelContext()).size() < model.assetCount);
+        }
+
+        try (var solver = PartitionedSolver.open(files, PartitionedSolver.Mode.PROCESSES)) {
+            assertNull(solver.graph());
+            assertEquals(3, solver.partitionCount());
+            for (int repeat = 0; repeat < 2; repeat++) {
+                model.check(solver);
+            }
+            assertTrue(solver.rounds() > 1);
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> solver.solve(new int[] {model.network}, new String[] {"noSuchStep"}, (a, s, t) -> {}));
+        }
+    }
+
+    @Test
+    public void testScatteredAssetsNeedManyGhosts(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var spec = MalSpec.load();
+        Path file = directory.resolve("generated.bin");
+        try (var writer = new BulkModelWriter(file)) {
+            new ModelGenerator(spec, new ModelGenerator.Parameters()).generate(writer);
+        }
+        var model = new WholeModel(spec, file);
+        var partition = new int[model.assetCount];
+        for (int a = 0; a < partition.length; a++) {
+            partition[a] = a % 4;
+        }
+        List<Path> files = new ModelPartitioner(spec).split(file, partition, directory);
+
+        try (var solver = PartitionedSolver.open(files, PartitionedSolver.Mode.THREADS)) {
+            assertEquals(4, solver.partitionCount());
+            model.check(solver);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.mal_lang.corelang.test;
+
+import core.AttackStep;
+import core.AttackStepMax;
+import core.AttackStepMin;
+import core.Defense;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+
+/**
+ * A seeded random attack graph, for checking the graph passes against a plain solve.
+ *
+ * <p>The steps are bare {@code core} steps whose parents are given through an {@link
+ * AttackGraph.ParentSource} as lists, so the graph holds what generated models do not: the same
+ * edge twice, steps that are their own parent and zero-TTC {@code |} steps whose only parent is an
+ * {@code &} step that is also their child. Groups of steps share most of their parents, like the
+ * hosts of one product, and some {@code &} groups count one of their own steps among the shared
+ * parents.
+ */
+final class RandomAttackGraph {
+    final AttackGraph graph;
+    final int[] attackPoints;
+    private final Random random;
+
+    private RandomAttackGraph(AttackGraph graph, int[] attackPoints, Random random) {
+        this.graph = graph;
+        this.attackPoints = attackPoints;
+        this.random = random;
+    }
+
+    /** A graph of about {@code size} steps with a tenth as many defenses. */
+    static RandomAttackGraph generate(long seed, int size) {
+        var random = new Random(seed);
+        var steps = new ArrayList<AttackStep>();
+        var parents = new IdentityHashMap<AttackStep, List<AttackStep>>();
+        for (int i = 0; i < size; i++) {
+            addStep(steps, parents, random, random.nextInt(3) == 0);
+        }
+        for (int e = 0; e < size * 2; e++) {
+            AttackStep parent = steps.get(random.nextInt(size));
+            AttackStep child = steps.get(random.nextInt(size));
+            parents.get(child).add(parent);
+            if (random.nextInt(8) == 0) {
+                parents.get(child).add(parent);
+            }
+        }
+        for (int c = 0; c < size / 10; c++) {
+            AttackStep and = addStep(steps, parents, random, true);
+            var or = new Or("step" + steps.size(), 0);
+            steps.add(or);
+            parents.put(or, new ArrayList<>(List.of(and)));
+            parents.get(and).add(steps.get(random.nextInt(size)));
+            parents.get(and).add(or);
+            parents.get(steps.get(random.nextInt(size))).add(or);
+        }
+        for (int g = 0; g < 3; g++) {
+            var shared = new ArrayList<AttackStep>();
+            for (int p = 4 + random.nextInt(5); p > 0; p--) {
+                shared.add(steps.get(random.nextInt(size)));
+            }
+            boolean and = random.nextBoolean();
+            int first = steps.size();
+            for (int m = 3 + random.nextInt(6); m > 0; m--) {
+                AttackStep member = addStep(steps, parents, random, and);
+                parents.get(member).addAll(shared);
+                if (random.nextBoolean()) {
+                    parents.get(member).add(steps.get(random.nextInt(size)));
+                }
+            }
+            if (and && random.nextBoolean()) {
+                AttackStep member = steps.get(first);
+                for (int m = first; m < steps.size(); m++) {
+                    parents.get(steps.get(m)).add(member);
+                }
+            }
+        }
+        var defenses = new ArrayList<Defense>();
+        for (int d = 0; d < size / 10; d++) {
+            var defense = new Defense("defense" + d);
+            defense.disable = new Or("defense" + d + ".disable", 0);
+            steps.add(defense.disable);
+            parents.put(defense.disable, new ArrayList<>());
+            parents.get(steps.get(random.nextInt(size))).add(defense.disable);
+            defenses.add(defense);
+        }
+        var graph = AttackGraph.compile(steps, defenses, parents::get);
+        var attackPoints = new int[1 + random.nextInt(3)];
+        for (int i = 0; i < attackPoints.length; i++) {
+            attackPoints[i] = random.nextInt(size);
+        }
+        return new RandomAttackGraph(graph, attackPoints, random);
+    }
+
+    private static AttackStep addStep(
+            List<AttackStep> steps, Map<AttackStep, List<AttackStep>> parents, Random random, boolean and) {
+        String name = "step" + steps.size();
+        double localTtc = random.nextInt(3) == 0 ? 0 : random.nextInt(5);
+        AttackStep step = and ? new And(name, localTtc) : new Or(name, localTtc);
+        steps.add(step);
+        parents.put(step, new ArrayList<>());
+        return step;
+    }
+
+    /** Random defense states, drawn from the seed of the graph. */
+    boolean[] defenseStates() {
+        var defenseEnabled = new boolean[graph.defenseCount()];
+        for (int d = 0; d < defenseEnabled.length; d++) {
+            defenseEnabled[d] = random.nextBoolean();
+        }
+        return defenseEnabled;
+    }
+
+    private static final class Or extends AttackStepMin {
+        private final double localTtc;
+
+        Or(String name, double localTtc) {
+            super(name);
+            this.localTtc = localTtc;
+        }
+
+        @Override
+        public double localTtc() {
+            return localTtc;
+        }
+    }
+
+    private static final class And extends AttackStepMax {
+        private final double localTtc;
+
+        And(String name, double localTtc) {
+            super(name);
+            this.localTtc = localTtc;
+        }
+
+        @Override
+        public double localTtc() {
+            return localTtc;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.mal_lang.corelang.test;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.MalSpec;
+import org.mal_lang.corelang.test.engine.MonteCarloResult;
+import org.mal_lang.corelang.test.engine.MonteCarloSampler;
+import org.mal_lang.corelang.test.engine.SampleColumnStore;
+import org.mal_lang.corelang.test.engine.SamplingPlan;
+import org.mal_lang.corelang.test.engine.StepCatalog;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mal_lang.corelang.test.engine.GraphSolver.UNREACHED;
+
+public class SampleColumnStoreTest extends CoreLangTest {
+    private static class PhishingTestModel {
+        public final User user = new User("user");
+        public final Identity identity = new Identity("identity");
+        public final Credentials credentials = new Credentials("credentials");
+        public final Application application = new Application("application");
+
+        public PhishingTestModel() {
+            user.addUserIds(identity);
+            identity.addCredentials(credentials);
+            identity.addExecPrivApps(application);
+        }
+    }
+
+    @Test
+    public void testStoreMatchesInMemoryResult(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new PhishingTestModel();
+        var graph = AttackGraph.compile();
+        var sampler = new MonteCarloSampler(SamplingPlan.of(StepCatalog.of(graph), MalSpec.load()));
+        int[] attackPoints = {graph.id(model.user.attemptSocialEngineering)};
+        int target = graph.id(model.identity.assume);
+        Path file = directory.resolve("samples.columns");
+
+        MonteCarloResult result;
+        try (var store = SampleColumnStore.create(file, graph.stepCount(), 1000)) {
+            result = sampler.run(attackPoints, new int[] {target}, 1000, 11L, 3, store);
+        }
+
+        try (var store = SampleColumnStore.open(file)) {
+            assertEquals(graph.stepCount(), store.steps());
+            assertEquals(1000, store.samples());
+            assertArrayEquals(result.samplesOf(target), store.column(target));
+            for (int step = 0; step < graph.stepCount(); step++) {
+                assertEquals(result.compromiseProbability(step), store.compromiseProbability(step));
+            }
+            for (double q : new double[] {0, 0.1, 0.5, 0.9, 1}) {
+                assertEquals(result.percentile(target, q), store.percentile(target, q));
+            }
+            assertThrows(IllegalArgumentException.class, () -> store.percentile(target, 1.5));
+        }
+    }
+
+    @Test
+    public void testUnreachedStepsAreInfinite(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        try (var store = SampleColumnStore.create(directory.resolve("samples.columns"), 3, 4)) {
+            for (int sample = 0; sample < 4; sample++) {
+                store.put(sample, new double[] {sample, UNREACHED, sample < 2 ? 1 : UNREACHED});
+            }
+            assertArrayEquals(new float[] {0, 1, 2, 3}, store.column(0));
+            assertEquals(Float.POSITIVE_INFINITY, store.get(1, 3));
+            assertEquals(0.0, store.compromiseProbability(1));
+            assertEquals(0.5, store.compromiseProbability(2));
+            assertEquals(1.0, store.percentile(2, 0.5));
+            assertEquals(Double.POSITIVE_INFINITY, store.percentile(2, 0.75));
+        }
+    }
+
+    @Test
+    public void testSamplesOutsideTheStoreAreRejected(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new PhishingTestModel();
+        var graph = AttackGraph.compile();
+        var sampler = new MonteCarloSampler(SamplingPlan.of(StepCatalog.of(graph), MalSpec.load()));
+        int[] attackPoints = {graph.id(model.user.attemptSocialEngineering)};
+        int target = graph.id(model.identity.assume);
+
+        try (var store = SampleColumnStore.create(directory.resolve("samples.columns"), graph.stepCount(), 100)) {
+            var ttc = new double[graph.stepCount()];
+            assertThrows(IndexOutOfBoundsException.class, () -> store.put(-1, ttc));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.put(100, ttc));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.get(0, 100));
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> sampler.run(attackPoints, new int[] {target}, 200, 11L, 2, store));
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> sampler.run(attackPoints, new int[] {target}, 50, 11L, 2, store));
+        }
+    }
+
+    @Test
+    public void testColumnsSpanSegments(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        Path file = directory.resolve("samples.columns");
+        int steps = 7;
+        int samples = 10;
+        // Two columns of 40 bytes per 96 byte segment: segments of 2, 2, 2 and 1 columns.
+        try (var store = SampleColumnStore.create(file, steps, samples, 96)) {
+            var ttc = new double[steps];
+            for (int sample = 0; sample < samples; sample++) {
+                for (int step = 0; step < steps; step++) {
+                    ttc[step] = step == 4 && sample % 2 == 0 ? UNREACHED : 100 * step + sample;
+                }
+                store.put(sample, ttc);
+            }
+            assertEquals(609f, store.get(6, 9));
+            assertEquals(0.5, store.compromiseProbability(4));
+        }
+
+        try (var single = SampleColumnStore.open(file);
+                var segmented = SampleColumnStore.open(file, 40)) {
+            for (int step = 0; step < steps; step++) {
+                var expected = new float[samples];
+                for (int sample = 0; sample < samples; sample++) {
+                    expected[sample] =
+                            step == 4 && sample % 2 == 0 ? Float.POSITIVE_INFINITY : 100 * step + sample;
+                }
+                assertArrayEquals(expected, single.column(step));
+                assertArrayEquals(expected, segmented.column(step));
+                assertEquals(single.percentile(step, 0.5), segmented.percentile(step, 0.5));
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.mal_lang.corelang.test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.AttackPath;
+import org.mal_lang.corelang.test.engine.AttackPathFinder;
+import org.mal_lang.corelang.test.engine.GraphSnapshot;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import org.mal_lang.corelang.test.engine.SharedParentHubs;
+import org.mal_lang.corelang.test.engine.SimulationMetrics;
+import org.mal_lang.corelang.test.engine.StepCatalog;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SharedParentHubsTest extends CoreLangTest {
+    private static class ProductFleetModel {
+        /*
+        Network Office --> Application App0 .. App11 --> SoftwareProduct Product
+                                                                |
+                                       SoftwareVulnerability Remote, Local, Interactive
+
+        Attacker's entry point: Office.physicalAccess
+        */
+        public final Network office = new Network("Office");
+        public final SoftwareProduct product = new SoftwareProduct("Product");
+        public final SoftwareVulnerability remote =
+                new SoftwareVulnerability("Remote", false, false, true, true, false, false, false, false, false, false, false);
+        public final SoftwareVulnerability local =
+                new SoftwareVulnerability("Local", false, true, false, true, true, false, false, false, false, false, false);
+        public final SoftwareVulnerability interactive =
+                new SoftwareVulnerability("Interactive", false, true, true, true, false, false, true, false, false, false, true);
+        public final List<Application> apps = new ArrayList<>();
+
+        public ProductFleetModel() {
+            product.addSoftProductVulnerabilities(remote);
+            product.addSoftProductVulnerabilities(local);
+            product.addSoftProductVulnerabilities(interactive);
+            for (int i = 0; i < 12; i++) {
+                var app = new Application("App" + i);
+                office.addApplications(app);
+                product.addSoftApplications(app);
+                apps.add(app);
+            }
+        }
+    }
+
+    @Test
+    public void testSharedVulnerabilitiesKeepEveryTtc() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new ProductFleetModel();
+        var graph = AttackGraph.compile();
+        int[] attackPoints = {graph.id(model.office.physicalAccess)};
+        var hubs = SharedParentHubs.of(graph);
+
+        assertTrue(hubs.hubCount() > 0);
+        assertTrue(hubs.graph().edgeCount() < graph.edgeCount());
+        for (boolean required : new boolean[] {true, false}) {
+            var defenseEnabled = graph.defenseStates();
+            defenseEnabled[graph.defenseIndex(model.remote.networkAccessRequired)] = required;
+            double[] expected = new GraphSolver(graph).solve(attackPoints, defenseEnabled);
+            double[] ttc = new GraphSolver(hubs.graph()).solve(attackPoints, defenseEnabled);
+            assertArrayEquals(expected, hubs.expand(ttc));
+        }
+    }
+
+    @Test
+    public void testHubsFollowTheOriginalSteps() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new ProductFleetModel();
+        var graph = AttackGraph.compile();
+        int[] attackPoints = {graph.id(model.office.physicalAccess)};
+        var hubs = SharedParentHubs.of(graph);
+        var shared = hubs.graph();
+
+        for (int step = 0; step < shared.stepCount(); step++) {
+            if (hubs.isHub(step)) {
+                assertNull(shared.step(step));
+                assertEquals(0, shared.localTtc(step));
+            } else {
+                assertSame(graph.step(step), shared.step(step));
+            }
+        }
+        var localTtc = new double[graph.stepCount()];
+        Arrays.fill(localTtc, 1);
+        double[] expected = new GraphSolver(graph).solve(attackPoints, graph.defenseStates(), localTtc);
+        double[] ttc =
+                new GraphSolver(shared)
+                        .solve(attackPoints, graph.defenseStates(), Arrays.copyOf(localTtc, shared.stepCount()));
+        assertArrayEquals(expected, hubs.expand(ttc));
+    }
+
+    @Test
+    public void testHubsHaveNoNames(@TempDir Path directory) {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new ProductFleetModel();
+        var graph = AttackGraph.compile();
+        var hubs = SharedParentHubs.of(graph);
+        var shared = hubs.graph();
+        int hub = graph.stepCount();
+        assertTrue(hubs.isHub(hub));
+
+        var catalog = StepCatalog.of(shared);
+        assertThrows(IllegalArgumentException.class, () -> catalog.fullName(hub));
+        assertNull(catalog.typeName(hub));
+        int physicalAccess = graph.id(model.office.physicalAccess);
+        assertEquals(physicalAccess, catalog.idOf(catalog.fullName(physicalAccess)));
+        var ttc = new GraphSolver(shared).solve(new int[] {physicalAccess});
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> GraphSnapshot.write(directory.resolve("shared.snapshot"), shared, ttc));
+
+        var metrics = new SimulationMetrics(shared);
+        var solver = new GraphSolver(shared, metrics);
+        solver.solve(new int[] {physicalAccess});
+        assertTrue(metrics.stepSettled(hub) > 0);
+        assertTrue(metrics.nanosByStep(catalog).containsKey("?"));
+        assertTrue(metrics.toJson(catalog).contains("\"?\":{\"settled\":"));
+        metrics.commitEvents(catalog);
+        var finder = new AttackPathFinder(solver);
+        int throughHubs = 0;
+        for (int step = 0; step < graph.stepCount(); step++) {
+            AttackPath path = finder.shortestPath(step);
+            if (path == null) {
+                continue;
+            }
+            for (int id : path.steps()) {
+                if (hubs.isHub(id)) {
+                    assertTrue(path.toString().contains("#" + id), path.toString());
+                    throughHubs++;
+                }
+            }
+        }
+        assertTrue(throughHubs > 0);
+    }
+}
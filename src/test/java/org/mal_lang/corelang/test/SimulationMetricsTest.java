@@ -0,0 +1,130 @@
+package org.mal_lang.corelang.test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import org.mal_lang.corelang.test.engine.SimulationMetrics;
+import org.mal_lang.corelang.test.engine.StepCatalog;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SimulationMetricsTest extends CoreLangTest {
+    private static class NetworkModel {
+        /*
+        Network A <--> Connection <--> Network B <--> Application
+
+        Attacker's entry point: NetworkA.physicalAccess
+        */
+        public final Network netA = new Network("NetworkA");
+        public final Network netB = new Network("NetworkB");
+        public final ConnectionRule conn = new ConnectionRule("Connection");
+        public final Application app = new Application("Application");
+
+        public NetworkModel() {
+            conn.addNetworks(netA);
+            conn.addNetworks(netB);
+            netB.addApplications(app);
+        }
+    }
+
+    @Test
+    public void testCountersMatchSolve() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new NetworkModel();
+        var graph = AttackGraph.compile();
+        var metrics = new SimulationMetrics(graph);
+        var solver = new GraphSolver(graph, metrics);
+        int[] attackPoints = {graph.id(model.netA.physicalAccess)};
+
+        double[] ttc = solver.solve(attackPoints);
+        int reached = 0;
+        for (int i = 0; i < ttc.length; i++) {
+            boolean isReached = ttc[i] != GraphSolver.UNREACHED;
+            reached += isReached ? 1 : 0;
+            assertEquals(isReached ? 1 : 0, metrics.stepSettled(i));
+        }
+        assertEquals(1, metrics.solves());
+        assertEquals(reached, metrics.settled());
+        assertTrue(metrics.queueHighWater() >= 1);
+
+        solver.solve(attackPoints);
+        assertEquals(2, metrics.solves());
+        assertEquals(2L * reached, metrics.settled());
+    }
+
+    @Test
+    public void testSolveEventsCountOneSolveEach(@TempDir Path directory) throws IOException {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new NetworkModel();
+        var graph = AttackGraph.compile();
+        var metrics = new SimulationMetrics(graph);
+        var solver = new GraphSolver(graph, metrics);
+        int[] attackPoints = {graph.id(model.netA.physicalAccess)};
+
+        Path file = directory.resolve("solves.jfr");
+        try (var recording = new Recording()) {
+            recording.enable("org.mal_lang.corelang.Solve");
+            recording.start();
+            solver.solve(attackPoints);
+            solver.solve(attackPoints);
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(2, events.size());
+        for (String field : List.of("settled", "edgesRelaxed", "andChecks", "queueHighWater")) {
+            assertEquals(events.get(0).getLong(field), events.get(1).getLong(field), field);
+        }
+        assertEquals(metrics.settled(), 2 * events.get(0).getLong("settled"));
+        assertEquals(metrics.queueHighWater(), events.get(1).getLong("queueHighWater"));
+    }
+
+    @Test
+    public void testSummaryGroupsByMalNames() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new NetworkModel();
+        var graph = AttackGraph.compile();
+        var catalog = StepCatalog.of(graph);
+        var metrics = new SimulationMetrics(graph);
+        new GraphSolver(graph, metrics).solve(new int[] {graph.id(model.netA.physicalAccess)});
+
+        assertTrue(metrics.nanosByAssetType(catalog).containsKey("Network"));
+        assertTrue(metrics.nanosByStep(catalog).containsKey("Network.physicalAccess"));
+        long total = 0;
+        for (long nanos : metrics.nanosByStep(catalog).values()) {
+            total += nanos;
+        }
+        assertEquals(total, (long) metrics.nanosByAssetType(catalog).values().stream()
+                .mapToLong(Long::longValue).sum());
+
+        String json = metrics.toJson(catalog);
+        assertTrue(json.startsWith("{\"solves\":1,\"settled\":" + metrics.settled() + ","));
+        assertTrue(json.contains("\"Network.physicalAccess\":{\"settled\":1,"));
+        metrics.commitEvents(catalog);
+
+        var merged = new SimulationMetrics(graph);
+        merged.add(metrics);
+        merged.add(metrics);
+        assertEquals(2 * metrics.settled(), merged.settled());
+        metrics.reset();
+        assertEquals(0, metrics.settled());
+    }
+
+    @Test
+    public void testSolverIsUninstrumentedByDefault() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        new NetworkModel();
+        var solver = new GraphSolver(AttackGraph.compile());
+        if (!SimulationMetrics.ENABLED) {
+            assertNull(solver.metrics());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.mal_lang.corelang.test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import org.mal_lang.corelang.test.engine.SimulationServer;
+import org.mal_lang.corelang.test.engine.StepCatalog;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SimulationServerTest extends CoreLangTest {
+    private static URI ttcQuery(SimulationServer server, String from, String target, String enable) {
+        String query = "from=" + encode(from) + "&target=" + encode(target);
+        if (enable != null) {
+            query += "&enable=" + encode(enable);
+        }
+        return URI.create("http://127.0.0.1:" + server.port() + "/models/office/ttc?" + query);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static HttpResponse<String> get(HttpClient client, URI uri)
+            throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String expectedResult(double ttc) {
+        return ttc == GraphSolver.UNREACHED
+                ? "\"reached\":false,\"ttc\":null"
+                : "\"reached\":true,\"ttc\":" + ttc;
+    }
+
+    @Test
+    public void testQueriesMatchTheSolver() throws IOException, InterruptedException {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new OfficeNetworkModel();
+        var graph = AttackGraph.compile();
+        var catalog = StepCatalog.of(graph);
+        int attackPoint = graph.id(model.office.physicalAccess);
+        int target = graph.id(model.pages.read);
+        int defense = graph.defenseIndex(model.servers.eavesdropDefense);
+        var defenseEnabled = graph.defenseStates();
+        defenseEnabled[defense] = true;
+        double plain = new GraphSolver(graph).solve(new int[] {attackPoint})[target];
+        double defended = new GraphSolver(graph).solve(new int[] {attackPoint}, defenseEnabled)[target];
+
+        var client = HttpClient.newHttpClient();
+        try (var server = SimulationServer.start(0)) {
+            server.register("office", catalog);
+            String from = catalog.fullName(attackPoint);
+            String to = catalog.fullName(target);
+
+            var response = get(client, ttcQuery(server, from, to, null));
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains(expectedResult(plain)), response.body());
+
+            response = get(client, ttcQuery(server, from, to, catalog.defenseFullName(defense)));
+            assertTrue(response.body().contains(expectedResult(defended)), response.body());
+
+            response = get(client, ttcQuery(server, from, "Nowhere.read", null));
+            assertEquals(400, response.statusCode());
+
+            response = get(client, URI.create("http://127.0.0.1:" + server.port() + "/models/lab/ttc"));
+            assertEquals(404, response.statusCode());
+        }
+    }
+
+    @Test
+    public void testConcurrentQueries() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new OfficeNetworkModel();
+        var graph = AttackGraph.compile();
+        var catalog = StepCatalog.of(graph);
+        int attackPoint = graph.id(model.office.physicalAccess);
+        int target = graph.id(model.web.fullAccess);
+        double expected = new GraphSolver(graph).solve(new int[] {attackPoint})[target];
+
+        var client = HttpClient.newHttpClient();
+        try (var server = SimulationServer.start(0)) {
+            server.register("office", catalog);
+            var uri = ttcQuery(server, catalog.fullName(attackPoint), catalog.fullName(target), null);
+            var request = HttpRequest.newBuilder(uri).build();
+            var responses = new ArrayList<CompletableFuture<HttpResponse<String>>>();
+            for (int i = 0; i < 64; i++) {
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (var response : responses) {
+                assertEquals(200, response.join().statusCode());
+                assertTrue(response.join().body().contains(expectedResult(expected)));
+            }
+        }
+    }
+
+    @Test
+    public void testSolvesPerModelAreBounded() throws IOException, InterruptedException {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = RandomAttackGraph.generate(1, 20_000);
+        var graph = model.graph;
+        var catalog = StepCatalog.of(graph);
+        int attackPoint = model.attackPoints[0];
+        var ttc = new GraphSolver(graph).solve(new int[] {attackPoint});
+
+        var client = HttpClient.newHttpClient();
+        try (var server = SimulationServer.start(0)) {
+            assertThrows(IllegalArgumentException.class, () -> server.register("random", catalog, 0));
+            server.register("random", catalog, 2);
+            var responses = new ArrayList<CompletableFuture<HttpResponse<String>>>();
+            var expected = new ArrayList<String>();
+            for (int i = 0; i < 64; i++) {
+                int target = (i * 311) % graph.stepCount();
+                String query =
+                        "from=" + encode(catalog.fullName(attackPoint)) + "&target=" + encode(catalog.fullName(target));
+                var uri = URI.create("http://127.0.0.1:" + server.port() + "/models/random/ttc?" + query);
+                var request = HttpRequest.newBuilder(uri).build();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+                expected.add(expectedResult(ttc[target]));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                assertEquals(200, responses.get(i).join().statusCode());
+                assertTrue(responses.get(i).join().body().contains(expected.get(i)));
+            }
+
+            var models = get(client, URI.create("http://127.0.0.1:" + server.port() + "/models"));
+            Matcher solvers = Pattern.compile("\"solvers\":(\\d+)").matcher(models.body());
+            assertTrue(solvers.find(), models.body());
+            int created = Integer.parseInt(solvers.group(1));
+            assertTrue(created >= 1 && created <= 2, models.body());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.mal_lang.corelang.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import org.mal_lang.corelang.test.engine.StepCatalog;
+import org.mal_lang.corelang.test.engine.TtcStreamWriter;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TtcStreamWriterTest extends CoreLangTest {
+    private static int reachedCount(double[] ttc) {
+        int count = 0;
+        for (double value : ttc) {
+            if (value != GraphSolver.UNREACHED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testTextFormats() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new OfficeNetworkModel();
+        var graph = AttackGraph.compile();
+        var catalog = StepCatalog.of(graph);
+        var solver = new GraphSolver(graph);
+        int[] attackPoints = {graph.id(model.office.physicalAccess)};
+
+        var ndjson = new ByteArrayOutputStream();
+        double[] ttc;
+        // A single batch in flight makes the solver wait for the writer thread.
+        try (var writer = new TtcStreamWriter(ndjson, TtcStreamWriter.Format.NDJSON, catalog, 1)) {
+            solver.setSettleListener(writer);
+            ttc = solver.solve(attackPoints).clone();
+        }
+        String[] lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(reachedCount(ttc), lines.length);
+        int first = graph.id(model.office.physicalAccess);
+        assertEquals("{\"step\":" + first + ",\"name\":\"" + catalog.fullName(first) + "\",\"ttc\":0.0}",
+                lines[0]);
+
+        var csv = new ByteArrayOutputStream();
+        try (var writer = new TtcStreamWriter(csv, TtcStreamWriter.Format.CSV, catalog)) {
+            solver.setSettleListener(writer);
+            solver.solve(attackPoints);
+        }
+        lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("step,name,ttc", lines[0]);
+        assertEquals(reachedCount(ttc) + 1, lines.length);
+        double previous = 0;
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].split(",");
+            int step = Integer.parseInt(fields[0]);
+            assertEquals(catalog.fullName(step), fields[1]);
+            assertEquals(ttc[step], Double.parseDouble(fields[2]));
+            assertTrue(ttc[step] >= previous);
+            previous = ttc[step];
+        }
+    }
+
+    @Test
+    public void testBinaryFormat() throws IOException {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new OfficeNetworkModel();
+        var graph = AttackGraph.compile();
+        var solver = new GraphSolver(graph);
+
+        var bytes = new ByteArrayOutputStream();
+        double[] ttc;
+        try (var writer = new TtcStreamWriter(bytes, TtcStreamWriter.Format.BINARY, null)) {
+            solver.setSettleListener(writer);
+            ttc = solver.solve(new int[] {graph.id(model.office.physicalAccess)}).clone();
+        }
+        var in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        in.readInt();
+        assertEquals(1, in.readInt());
+        int records = (bytes.size() - 8) / 12;
+        assertEquals(reachedCount(ttc), records);
+        for (int i = 0; i < records; i++) {
+            int step = in.readInt();
+            assertEquals(ttc[step], in.readDouble());
+        }
+    }
+
+    @Test
+    public void testWriterThreadFailuresAreThrown() throws InterruptedException {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        new OfficeNetworkModel();
+        var graph = AttackGraph.compile();
+        var catalog = StepCatalog.of(graph);
+
+        // With one batch, flushing waits for the writer thread to hand the batch back.
+        var writer = new TtcStreamWriter(new ByteArrayOutputStream(), TtcStreamWriter.Format.NDJSON, catalog, 1);
+        // The catalog has no name for a step past the graph and throws on the writer thread.
+        writer.settled(graph.stepCount(), 0.0);
+        writer.flush();
+        IllegalStateException failure = null;
+        while (failure == null) {
+            try {
+                writer.flush();
+                Thread.sleep(1);
+            } catch (IllegalStateException e) {
+                failure = e;
+            }
+        }
+        assertTrue(failure.getCause() instanceof IndexOutOfBoundsException);
+        assertThrows(IllegalStateException.class, () -> writer.settled(0, 0.0));
+        var closing = assertThrows(IllegalStateException.class, writer::close);
+        assertSame(failure.getCause(), closing.getCause());
+    }
+}
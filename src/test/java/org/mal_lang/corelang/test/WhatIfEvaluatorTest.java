@@ -0,0 +1,95 @@
+package org.mal_lang.corelang.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.mal_lang.corelang.test.engine.AttackGraph;
+import org.mal_lang.corelang.test.engine.GraphSolver;
+import org.mal_lang.corelang.test.engine.StepCatalog;
+import org.mal_lang.corelang.test.engine.WhatIfEvaluator;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WhatIfEvaluatorTest extends CoreLangTest {
+    private static class FirewalledNetworkModel {
+        /*
+        Network A <--> Connection 1 <--> Network B <--> Connection 2 --> Application
+                                                                              |
+                                                                            Data
+
+        Attacker's entry point: NetworkA.physicalAccess
+        */
+        public final Network netA = new Network("NetworkA");
+        public final Network netB = new Network("NetworkB");
+        public final ConnectionRule conn1 = new ConnectionRule("Connection1");
+        public final ConnectionRule conn2 = new ConnectionRule("Connection2");
+        public final Application app = new Application("Application");
+        public final Data data = new Data("data");
+
+        public FirewalledNetworkModel() {
+            conn1.addNetworks(netA);
+            conn1.addNetworks(netB);
+            conn2.addNetworks(netB);
+            conn2.addApplications(app);
+            app.addContainedData(data);
+        }
+    }
+
+    @Test
+    public void testParallelEvaluationMatchesSequentialSolves() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new FirewalledNetworkModel();
+        var graph = AttackGraph.compile();
+        var evaluator = new WhatIfEvaluator(graph);
+        int[] attackPoints = {graph.id(model.netA.physicalAccess)};
+        int[] targets = {graph.id(model.app.networkConnect), graph.id(model.data.read)};
+
+        var random = new Random(3);
+        var configurations = new ArrayList<boolean[]>();
+        for (int c = 0; c < 200; c++) {
+            var states = new boolean[graph.defenseCount()];
+            for (int d = 0; d < states.length; d++) {
+                states[d] = random.nextBoolean();
+            }
+            configurations.add(states);
+        }
+
+        double[][] result = evaluator.evaluate(attackPoints, targets, configurations, 4);
+
+        var solver = new GraphSolver(graph);
+        for (int c = 0; c < configurations.size(); c++) {
+            double[] ttc = solver.solve(attackPoints, configurations.get(c));
+            assertArrayEquals(new double[] {ttc[targets[0]], ttc[targets[1]]}, result[c]);
+        }
+    }
+
+    @Test
+    public void testEnablingDefensesNeverLowersTtc() {
+        printTestName(Thread.currentThread().getStackTrace()[1].getMethodName());
+        var model = new FirewalledNetworkModel();
+        var graph = AttackGraph.compile();
+        var catalog = StepCatalog.of(graph);
+        var evaluator = new WhatIfEvaluator(graph);
+        int[] attackPoints = {graph.id(model.netA.physicalAccess)};
+        int[] targets = {graph.id(model.app.networkConnect)};
+        String restricted = catalog.defenseFullName(graph.defenseIndex(model.conn1.restricted));
+
+        var configurations =
+                List.of(
+                        evaluator.configuration(Map.of()),
+                        evaluator.configuration(catalog, Map.of(restricted, true)),
+                        evaluator.configuration(
+                                Map.of(model.conn1.restricted, true, model.conn2.restricted, true)));
+
+        double[][] result = evaluator.evaluate(attackPoints, targets, configurations);
+
+        assertTrue(result[0][0] <= result[1][0]);
+        assertTrue(result[1][0] <= result[2][0]);
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> evaluator.configuration(catalog, Map.of("Connection3.restricted", true)));
+    }
+}
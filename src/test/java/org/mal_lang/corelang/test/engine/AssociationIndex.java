@@ -0,0 +1,226 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.Asset;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of the associations of a set of assets, stored as one compressed adjacency array per
+ * role.
+ *
+ * <p>The generated asset classes hold one field per association end, named after the role: a
+ * {@code Set} for {@code *} and {@code 1..*} ends and a plain reference for {@code 0..1} ends. The
+ * index reads those fields once, numbers the assets in iteration order, and keeps for every role
+ * an offsets array over asset ids and a sorted array of neighbour ids.
+ *
+ * <p>The generated {@code add<Role>} methods cannot notify the index, so whoever adds an
+ * association reports it through {@link #associationAdded()}, which only counts the modification.
+ * A {@link LiveModelSink} the index is {@link LiveModelSink#track tracked} by does so on every
+ * association it adds. {@link #refresh()} rebuilds the index if modifications were reported since
+ * the last build; {@link #version()} changes on every rebuild, which lets caches built on top of
+ * the index, such as {@link LetEvaluator}, drop stale results.
+ */
+public final class AssociationIndex {
+    private static final Map<Class<?>, Field[]> ROLE_FIELDS = new HashMap<>();
+    private static final int[] EMPTY = new int[0];
+
+    private final Asset[] assets;
+    private final Map<Asset, Integer> ids = new IdentityHashMap<>();
+    private final Map<String, int[]> offsets = new HashMap<>();
+    private final Map<String, int[]> targets = new HashMap<>();
+    private long modifications;
+    private long builtAt;
+    private int version;
+
+    private AssociationIndex(Asset[] assets) {
+        this.assets = assets;
+        for (int i = 0; i < assets.length; i++) {
+            ids.put(assets[i], i);
+        }
+    }
+
+    /** Indexes the assets currently held in the global {@code core} registry. */
+    public static AssociationIndex of() {
+        return of(Asset.allAssets);
+    }
+
+    public static AssociationIndex of(Collection<? extends Asset> allAssets) {
+        var index = new AssociationIndex(allAssets.toArray(new Asset[0]));
+        index.rebuild();
+        return index;
+    }
+
+    /** Records that an association was added to the model; the next {@link #refresh()} rebuilds. */
+    public void associationAdded() {
+        modifications++;
+    }
+
+    /**
+     * Rebuilds the index if associations were reported added since the last build. Returns whether
+     * it did. Assets created after the index cannot be added this way and need a new index.
+     */
+    public boolean refresh() {
+        if (modifications == builtAt) {
+            return false;
+        }
+        rebuild();
+        return true;
+    }
+
+    /** Rebuilds the index unconditionally. */
+    public void invalidate() {
+        rebuild();
+    }
+
+    /** Incremented on every rebuild. */
+    public int version() {
+        return version;
+    }
+
+    public int assetCount() {
+        return assets.length;
+    }
+
+    public Asset asset(int id) {
+        return assets[id];
+    }
+
+    /** Id of an asset, or -1 if it is not part of the index. */
+    public int id(Asset asset) {
+        Integer id = ids.get(asset);
+        return id == null ? -1 : id;
+    }
+
+    /** Every role name that occurs in the model. */
+    public Collection<String> roles() {
+        return offsets.keySet();
+    }
+
+    /** Number of assets associated with {@code asset} through {@code role}. */
+    public int degree(int asset, String role) {
+        int[] start = offsets.get(role);
+        return start == null ? 0 : start[asset + 1] - start[asset];
+    }
+
+    /** Sorted ids of the assets associated with {@code asset} through {@code role}. */
+    public int[] neighbors(int asset, String role) {
+        int[] start = offsets.get(role);
+        if (start == null || start[asset] == start[asset + 1]) {
+            return EMPTY;
+        }
+        return Arrays.copyOfRange(targets.get(role), start[asset], start[asset + 1]);
+    }
+
+    /** Offsets into {@link #targets(String)} by asset id, or {@code null} for an unused role. */
+    int[] offsets(String role) {
+        return offsets.get(role);
+    }
+
+    int[] targets(String role) {
+        return targets.get(role);
+    }
+
+    private void rebuild() {
+        var lists = new HashMap<String, List<int[]>>();
+        for (int a = 0; a < assets.length; a++) {
+            for (Field field : roleFields(assets[a].getClass())) {
+                var neighbors = new ArrayList<Integer>();
+                for (Asset other : values(assets[a], field)) {
+                    Integer id = ids.get(other);
+                    if (id != null) {
+                        neighbors.add(id);
+                    }
+                }
+                if (neighbors.isEmpty()) {
+                    continue;
+                }
+                var row = new int[neighbors.size() + 1];
+                row[0] = a;
+                for (int i = 0; i < neighbors.size(); i++) {
+                    row[i + 1] = neighbors.get(i);
+                }
+                Arrays.sort(row, 1, row.length);
+                lists.computeIfAbsent(field.getName(), k -> new ArrayList<>()).add(row);
+            }
+        }
+        offsets.clear();
+        targets.clear();
+        for (var entry : lists.entrySet()) {
+            var start = new int[assets.length + 1];
+            int total = 0;
+            for (int[] row : entry.getValue()) {
+                start[row[0] + 1] = row.length - 1;
+                total += row.length - 1;
+            }
+            for (int a = 0; a < assets.length; a++) {
+                start[a + 1] += start[a];
+            }
+            var ends = new int[total];
+            for (int[] row : entry.getValue()) {
+                System.arraycopy(row, 1, ends, start[row[0]], row.length - 1);
+            }
+            offsets.put(entry.getKey(), start);
+            targets.put(entry.getKey(), ends);
+        }
+        builtAt = modifications;
+        version++;
+    }
+
+    private static Collection<? extends Asset> values(Asset asset, Field field) {
+        Object value;
+        try {
+            value = field.get(asset);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        if (value == null) {
+            return List.of();
+        }
+        if (value instanceof Asset) {
+            return List.of((Asset) value);
+        }
+        var result = new ArrayList<Asset>();
+        for (Object element : (Collection<?>) value) {
+            if (element instanceof Asset) {
+                result.add((Asset) element);
+            }
+        }
+        return result;
+    }
+
+    /** Non-static association fields of an asset class and its superclasses. */
+    static synchronized Field[] roleFields(Class<?> type) {
+        Field[] cached = ROLE_FIELDS.get(type);
+        if (cached != null) {
+            return cached;
+        }
+        List<Field> fields = new ArrayList<>();
+        var seen = new HashSet<String>();
+        for (Class<?> c = type; c != null && c != Asset.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                if (!Asset.class.isAssignableFrom(field.getType())
+                        && !Collection.class.isAssignableFrom(field.getType())) {
+                    continue;
+                }
+                if (seen.add(field.getName())) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        cached = fields.toArray(new Field[0]);
+        ROLE_FIELDS.put(type, cached);
+        return cached;
+    }
+}
@@ -0,0 +1,344 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.AttackStep;
+import core.AttackStepMax;
+import core.Defense;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Array-based form of an instantiated coreLang model.
+ *
+ * <p>Every {@link AttackStep} gets a dense int id. Parent and child relations are stored in CSR
+ * form: the children of step {@code i} are {@code children[childOffsets[i] .. childOffsets[i + 1])}
+ * and likewise for parents. The step kind ({@link #OR} for {@code |}, {@link #AND} for {@code &})
+ * and the local TTC of each step are kept in parallel primitive arrays, so solvers never touch the
+ * generated step objects.
+ *
+ * <p>Edges are read from a {@link ParentSource}. By default that is {@code expectedParents} after
+ * calling {@code setExpectedParents()} on every step, which is exactly the information the
+ * reference {@code Attacker} relies on; {@link SpecParents} derives the same edges from the .mal
+ * reaches over the shared {@code let} values of a {@link LetEvaluator}.
+ */
+public final class AttackGraph {
+    public static final byte OR = 0;
+    public static final byte AND = 1;
+
+    final AttackStep[] steps;
+    final byte[] kind;
+    final double[] localTtc;
+    final int[] childOffsets;
+    final int[] children;
+    final int[] parentOffsets;
+    final int[] parents;
+
+    final Defense[] defenses;
+    final int[] defenseSteps;
+    final boolean[] defenseEnabled;
+
+    private final Map<AttackStep, Integer> ids;
+    private final Map<Defense, Integer> defenseIndices;
+
+    /** Supplies the parents of every step of a model being compiled. */
+    public interface ParentSource {
+        /** The parents of {@code step}, which must not change until the compilation is done. */
+        Collection<? extends AttackStep> parents(AttackStep step);
+    }
+
+    /** The parents the generated code records in {@code expectedParents}. */
+    public static final ParentSource EXPECTED_PARENTS =
+            step -> {
+                step.setExpectedParents();
+                return step.expectedParents;
+            };
+
+    private AttackGraph(
+            AttackStep[] steps,
+            byte[] kind,
+            double[] localTtc,
+            int[] childOffsets,
+            int[] children,
+            int[] parentOffsets,
+            int[] parents,
+            Defense[] defenses,
+            int[] defenseSteps,
+            boolean[] defenseEnabled,
+            Map<AttackStep, Integer> ids) {
+        this.steps = steps;
+        this.kind = kind;
+        this.localTtc = localTtc;
+        this.childOffsets = childOffsets;
+        this.children = children;
+        this.parentOffsets = parentOffsets;
+        this.parents = parents;
+        this.defenses = defenses;
+        this.defenseSteps = defenseSteps;
+        this.defenseEnabled = defenseEnabled;
+        this.ids = ids;
+        this.defenseIndices = new IdentityHashMap<>(defenses.length * 2);
+        for (int d = 0; d < defenses.length; d++) {
+            defenseIndices.put(defenses[d], d);
+        }
+    }
+
+    /** Compiles the model currently held in the global {@code core} registries. */
+    public static AttackGraph compile() {
+        return compile(AttackStep.allAttackSteps, Defense.allDefenses);
+    }
+
+    public static AttackGraph compile(
+            Collection<? extends AttackStep> attackSteps, Collection<? extends Defense> allDefenses) {
+        return compile(attackSteps, allDefenses, EXPECTED_PARENTS);
+    }
+
+    public static AttackGraph compile(
+            Collection<? extends AttackStep> attackSteps,
+            Collection<? extends Defense> allDefenses,
+            ParentSource parentSource) {
+        int n = attackSteps.size();
+        var steps = new AttackStep[n];
+        var ids = new IdentityHashMap<AttackStep, Integer>(n * 2);
+        int next = 0;
+        for (AttackStep attackStep : attackSteps) {
+            steps[next] = attackStep;
+            ids.put(attackStep, next);
+            next++;
+        }
+
+        var kind = new byte[n];
+        var localTtc = new double[n];
+        var parentOffsets = new int[n + 1];
+        var parentLists = new ArrayList<Collection<? extends AttackStep>>(n);
+        for (int i = 0; i < n; i++) {
+            parentLists.add(parentSource.parents(steps[i]));
+            kind[i] = steps[i] instanceof AttackStepMax ? AND : OR;
+            localTtc[i] = steps[i].localTtc();
+            parentOffsets[i + 1] = parentOffsets[i] + parentLists.get(i).size();
+        }
+
+        var parents = new int[parentOffsets[n]];
+        for (int i = 0; i < n; i++) {
+            int at = parentOffsets[i];
+            for (AttackStep parent : parentLists.get(i)) {
+                Integer id = ids.get(parent);
+                if (id == null) {
+                    throw new IllegalStateException(
+                            String.format(
+                                    "Parent %s of %s is not part of the compiled model",
+                                    parent.fullName(), steps[i].fullName()));
+                }
+                parents[at++] = id;
+            }
+        }
+
+        var defenses = allDefenses.toArray(new Defense[0]);
+        var defenseSteps = new int[defenses.length];
+        var defenseEnabled = new boolean[defenses.length];
+        for (int d = 0; d < defenses.length; d++) {
+            Integer id = defenses[d].disable == null ? null : ids.get(defenses[d].disable);
+            defenseSteps[d] = id == null ? -1 : id;
+            defenseEnabled[d] = defenses[d].isEnabled();
+        }
+
+        return of(steps, kind, localTtc, parentOffsets, parents, defenses, defenseSteps, defenseEnabled);
+    }
+
+    /**
+     * Builds a graph from its parent lists, deriving the child lists and step ids. Steps that stand
+     * for no {@code AttackStep}, such as the hubs of {@link SharedParentHubs}, are null.
+     */
+    static AttackGraph of(
+            AttackStep[] steps,
+            byte[] kind,
+            double[] localTtc,
+            int[] parentOffsets,
+            int[] parents,
+            Defense[] defenses,
+            int[] defenseSteps,
+            boolean[] defenseEnabled) {
+        int n = steps.length;
+        var ids = new IdentityHashMap<AttackStep, Integer>(n * 2);
+        for (int i = 0; i < n; i++) {
+            if (steps[i] != null) {
+                ids.put(steps[i], i);
+            }
+        }
+        var childOffsets = new int[n + 1];
+        for (int parent : parents) {
+            childOffsets[parent + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            childOffsets[i + 1] += childOffsets[i];
+        }
+        var children = new int[childOffsets[n]];
+        var fill = new int[n];
+        System.arraycopy(childOffsets, 0, fill, 0, n);
+        for (int i = 0; i < n; i++) {
+            for (int e = parentOffsets[i]; e < parentOffsets[i + 1]; e++) {
+                children[fill[parents[e]]++] = i;
+            }
+        }
+        return new AttackGraph(
+                steps,
+                kind,
+                localTtc,
+                childOffsets,
+                children,
+                parentOffsets,
+                parents,
+                defenses,
+                defenseSteps,
+                defenseEnabled,
+                ids);
+    }
+
+    /**
+     * The subgraph induced by the steps with {@code newIds[id] >= 0}, which must number them densely
+     * in increasing order. Edges to dropped steps are dropped, and so are the disable steps of
+     * defenses; defense indices stay the same. Dropping a parent of a kept {@code &} step would make
+     * that step easier to reach, so callers keep all of their parents.
+     */
+    AttackGraph induced(int[] newIds) {
+        int kept = 0;
+        for (int id : newIds) {
+            if (id >= 0) {
+                kept++;
+            }
+        }
+        var keptSteps = new AttackStep[kept];
+        var keptKind = new byte[kept];
+        var keptLocalTtc = new double[kept];
+        var keptParentOffsets = new int[kept + 1];
+        int edges = 0;
+        for (int i = 0; i < steps.length; i++) {
+            if (newIds[i] >= 0) {
+                for (int e = parentOffsets[i]; e < parentOffsets[i + 1]; e++) {
+                    if (newIds[parents[e]] >= 0) {
+                        edges++;
+                    }
+                }
+            }
+        }
+        var keptParents = new int[edges];
+        edges = 0;
+        for (int i = 0; i < steps.length; i++) {
+            int id = newIds[i];
+            if (id < 0) {
+                continue;
+            }
+            keptSteps[id] = steps[i];
+            keptKind[id] = kind[i];
+            keptLocalTtc[id] = localTtc[i];
+            for (int e = parentOffsets[i]; e < parentOffsets[i + 1]; e++) {
+                if (newIds[parents[e]] >= 0) {
+                    keptParents[edges++] = newIds[parents[e]];
+                }
+            }
+            keptParentOffsets[id + 1] = edges;
+        }
+        var keptDefenseSteps = new int[defenseSteps.length];
+        for (int d = 0; d < defenseSteps.length; d++) {
+            keptDefenseSteps[d] = defenseSteps[d] < 0 ? -1 : newIds[defenseSteps[d]];
+        }
+        return of(
+                keptSteps,
+                keptKind,
+                keptLocalTtc,
+                keptParentOffsets,
+                keptParents,
+                defenses,
+                keptDefenseSteps,
+                defenseEnabled);
+    }
+
+    public int stepCount() {
+        return steps.length;
+    }
+
+    public int edgeCount() {
+        return children.length;
+    }
+
+    /** The {@code AttackStep} of step {@code id}, or null for a step that stands for none. */
+    public AttackStep step(int id) {
+        return steps[id];
+    }
+
+    /** Like {@link #step}, for callers that need a name and cannot use steps without one. */
+    AttackStep requireStep(int id) {
+        AttackStep step = steps[id];
+        if (step == null) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Step %d stands for no attack step, like the hubs of SharedParentHubs;"
+                                    + " use the original graph",
+                            id));
+        }
+        return step;
+    }
+
+    public int id(AttackStep attackStep) {
+        Integer id = ids.get(attackStep);
+        if (id == null) {
+            throw new IllegalArgumentException(
+                    String.format("Attack step %s is not part of the compiled model", attackStep.fullName()));
+        }
+        return id;
+    }
+
+    Integer idOrNull(AttackStep attackStep) {
+        return ids.get(attackStep);
+    }
+
+    public int[] ids(List<? extends AttackStep> attackSteps) {
+        var result = new int[attackSteps.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = id(attackSteps.get(i));
+        }
+        return result;
+    }
+
+    public boolean isAnd(int id) {
+        return kind[id] == AND;
+    }
+
+    public double localTtc(int id) {
+        return localTtc[id];
+    }
+
+    public int defenseCount() {
+        return defenses.length;
+    }
+
+    public Defense defense(int index) {
+        return defenses[index];
+    }
+
+    /** Index of {@code defense} in this graph, or -1 if it is not part of the compiled model. */
+    public int defenseIndex(Defense defense) {
+        Integer index = defenseIndices.get(defense);
+        return index == null ? -1 : index;
+    }
+
+    /** Id of the {@code disable} step of a defense, or -1 if it has none. */
+    public int defenseStep(int index) {
+        return defenseSteps[index];
+    }
+
+    /** Returns a copy of the defense states captured when the graph was compiled. */
+    public boolean[] defenseStates() {
+        return defenseEnabled.clone();
+    }
+
+    /** Copies solved TTCs back into {@code AttackStep.ttc} so the usual assertions apply. */
+    public void writeBack(double[] ttc) {
+        for (int i = 0; i < steps.length; i++) {
+            if (steps[i] != null) {
+                steps[i].ttc = ttc[i];
+            }
+        }
+    }
+}
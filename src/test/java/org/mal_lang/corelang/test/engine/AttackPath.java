@@ -0,0 +1,98 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.AttackStep;
+import java.util.Arrays;
+
+/**
+ * A chain of attack steps from an attack point (or a disabled defense) to a target, with the TTC
+ * of reaching the target along it.
+ *
+ * <p>An {@code &} step on the path also needs its other parents; they are not part of the chain
+ * but are listed by {@link #requiredParents(int)}, and the TTC accounts for them.
+ */
+public final class AttackPath {
+    private final AttackGraph graph;
+    private final int[] steps;
+    private final double ttc;
+
+    AttackPath(AttackGraph graph, int[] steps, double ttc) {
+        this.graph = graph;
+        this.steps = steps;
+        this.ttc = ttc;
+    }
+
+    public int length() {
+        return steps.length;
+    }
+
+    /** Step ids from the entry point to the target. */
+    public int[] steps() {
+        return steps.clone();
+    }
+
+    public int step(int index) {
+        return steps[index];
+    }
+
+    public double ttc() {
+        return ttc;
+    }
+
+    /**
+     * Parents of the {@code &} step at {@code index} other than the previous step of the path, all
+     * of which had to be reached as well. Empty for {@code |} steps and the first step.
+     */
+    public int[] requiredParents(int index) {
+        int step = steps[index];
+        if (index == 0 || graph.kind[step] != AttackGraph.AND) {
+            return new int[0];
+        }
+        int previous = steps[index - 1];
+        var parents = new int[graph.parentOffsets[step + 1] - graph.parentOffsets[step]];
+        int count = 0;
+        for (int e = graph.parentOffsets[step]; e < graph.parentOffsets[step + 1]; e++) {
+            if (graph.parents[e] != previous) {
+                parents[count++] = graph.parents[e];
+            }
+        }
+        return Arrays.copyOf(parents, count);
+    }
+
+    /** The path as full step names, for example {@code NetworkA.accessUninspected -> ...}. */
+    public String describe(StepCatalog catalog) {
+        var description = new StringBuilder();
+        for (int i = 0; i < steps.length; i++) {
+            if (i > 0) {
+                description.append(" -> ");
+            }
+            description.append(catalog.fullName(steps[i]));
+        }
+        return description.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof AttackPath
+                && ((AttackPath) other).graph == graph
+                && Arrays.equals(((AttackPath) other).steps, steps);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(steps);
+    }
+
+    /** The path as full step names, with {@code #id} for steps without a name such as hubs. */
+    @Override
+    public String toString() {
+        var description = new StringBuilder();
+        for (int i = 0; i < steps.length; i++) {
+            if (i > 0) {
+                description.append(" -> ");
+            }
+            AttackStep step = graph.step(steps[i]);
+            description.append(step == null ? "#" + steps[i] : step.fullName());
+        }
+        return description.append(" (ttc ").append(ttc).append(')').toString();
+    }
+}
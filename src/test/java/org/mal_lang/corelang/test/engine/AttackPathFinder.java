@@ -0,0 +1,159 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Rebuilds the cheapest attack paths to a target from the result of a {@link GraphSolver} run,
+ * without solving again.
+ *
+ * <p>{@link #shortestPath} follows the predecessors the solver recorded. {@link #shortestPaths}
+ * ranks the K cheapest simple paths with a backward A* search from the target: a partial path from
+ * some step to the target is summarized as a function {@code x -> max(x, a) + b} that maps the TTC
+ * of reaching its first step to the TTC of the target, where {@code a} carries the other parents
+ * of the {@code &} steps on the path. Extending the path by one parent composes another function
+ * of the same form, and the solved TTC of the first step is an exact lower bound for completing
+ * it, so partial paths leave the queue in the order of their final TTC and the first K that reach
+ * an attack point or disabled defense are the K best.
+ *
+ * <p>The finder copies what it needs from the solver, which can be reused right away. A finder is
+ * not thread safe.
+ */
+public final class AttackPathFinder {
+    private final AttackGraph graph;
+    private final double[] ttc;
+    private final double[] localTtc;
+    private final int[] predecessor;
+    private final int[] expandedFor;
+    private int expansion;
+
+    public AttackPathFinder(GraphSolver solver) {
+        this.graph = solver.graph();
+        this.ttc = solver.lastTtc().clone();
+        this.localTtc = solver.lastLocalTtc().clone();
+        this.predecessor = solver.predecessors().clone();
+        this.expandedFor = new int[graph.stepCount()];
+    }
+
+    private boolean isEntry(int step) {
+        return ttc[step] == 0 && predecessor[step] < 0;
+    }
+
+    /** The path the solver found to {@code target}, or null if the target was not reached. */
+    public AttackPath shortestPath(int target) {
+        if (ttc[target] == GraphSolver.UNREACHED) {
+            return null;
+        }
+        int length = 1;
+        for (int step = target; predecessor[step] >= 0; step = predecessor[step]) {
+            length++;
+        }
+        var steps = new int[length];
+        for (int step = target, i = length - 1; i >= 0; step = predecessor[step], i--) {
+            steps[i] = step;
+        }
+        return new AttackPath(graph, steps, ttc[target]);
+    }
+
+    /** A path from some step to the target, linked towards the target. */
+    private static final class Partial {
+        final int step;
+        final Partial next;
+        final int length;
+        final double a;
+        final double b;
+        final double priority;
+
+        Partial(int step, Partial next, double a, double b, double reach) {
+            this.step = step;
+            this.next = next;
+            this.length = next == null ? 1 : next.length + 1;
+            this.a = a;
+            this.b = b;
+            this.priority = Math.max(reach, a) + b;
+        }
+
+        boolean contains(int other) {
+            for (Partial p = this; p != null; p = p.next) {
+                if (p.step == other) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Up to {@code k} simple paths to {@code target} in order of increasing TTC; ties are broken
+     * towards shorter paths. The first has the TTC the solver computed for the target.
+     */
+    public List<AttackPath> shortestPaths(int target, int k) {
+        var paths = new ArrayList<AttackPath>();
+        if (k <= 0 || ttc[target] == GraphSolver.UNREACHED) {
+            return paths;
+        }
+        var queue =
+                new PriorityQueue<Partial>(
+                        (x, y) ->
+                                x.priority != y.priority
+                                        ? Double.compare(x.priority, y.priority)
+                                        : Integer.compare(x.length, y.length));
+        queue.add(new Partial(target, null, Double.NEGATIVE_INFINITY, 0, ttc[target]));
+        while (!queue.isEmpty() && paths.size() < k) {
+            Partial partial = queue.poll();
+            int step = partial.step;
+            if (isEntry(step)) {
+                paths.add(toPath(partial));
+                continue;
+            }
+            boolean and = graph.kind[step] == AttackGraph.AND;
+            // A parent listed twice would extend the path twice; expand each parent once.
+            expansion++;
+            for (int e = graph.parentOffsets[step]; e < graph.parentOffsets[step + 1]; e++) {
+                int parent = graph.parents[e];
+                if (ttc[parent] == GraphSolver.UNREACHED
+                        || expandedFor[parent] == expansion
+                        || partial.contains(parent)) {
+                    continue;
+                }
+                expandedFor[parent] = expansion;
+                double others = Double.NEGATIVE_INFINITY;
+                if (and) {
+                    for (int o = graph.parentOffsets[step]; o < graph.parentOffsets[step + 1]; o++) {
+                        if (graph.parents[o] != parent) {
+                            others = Math.max(others, ttc[graph.parents[o]]);
+                        }
+                    }
+                }
+                // max(max(x, others) + local, a) + b = max(x, others, a - local) + local + b
+                double local = localTtc[step];
+                double a = Math.max(others, partial.a - local);
+                queue.add(new Partial(parent, partial, a, local + partial.b, ttc[parent]));
+            }
+        }
+        return paths;
+    }
+
+    /** Turns a complete partial path into a path, evaluating its TTC forwards like the solver. */
+    private AttackPath toPath(Partial partial) {
+        var steps = new int[partial.length];
+        int i = 0;
+        for (Partial p = partial; p != null; p = p.next) {
+            steps[i++] = p.step;
+        }
+        double reach = 0;
+        for (i = 1; i < steps.length; i++) {
+            int step = steps[i];
+            if (graph.kind[step] == AttackGraph.AND) {
+                for (int e = graph.parentOffsets[step]; e < graph.parentOffsets[step + 1]; e++) {
+                    if (graph.parents[e] != steps[i - 1]) {
+                        reach = Math.max(reach, ttc[graph.parents[e]]);
+                    }
+                }
+            }
+            reach += localTtc[step];
+        }
+        return new AttackPath(graph, steps, reach);
+    }
+}
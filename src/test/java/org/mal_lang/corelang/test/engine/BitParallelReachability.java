@@ -0,0 +1,209 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.Arrays;
+
+/**
+ * Reachability of every step from many entry points at once.
+ *
+ * <p>Each step holds one bit per entry point, packed into {@code long} words, so 64 entry points
+ * share one word and N * 64 entry points take N words per step. Attack points set their own bit and
+ * the {@code disable} steps of disabled defenses set every bit. Bits then flow along the edges of
+ * the {@link AttackGraph} until nothing changes: an {@code |} step is the union of its parents and
+ * an {@code &} step the intersection of its parents. Masks only ever grow, so this least fixpoint
+ * is exactly the set of steps a {@link GraphSolver} reaches from each entry point on its own, at
+ * roughly the cost of a single run.
+ *
+ * <p>Bits only ever flow forward as deltas: a dequeued step passes on the bits it gained since it
+ * was last dequeued. An {@code |} child takes them as they are. An {@code &} child keeps, for every
+ * entry point, the number of parent edges that do not carry its bit yet, as a bit-sliced binary
+ * counter: plane {@code j} of word {@code w} holds bit {@code j} of the 64 counts of that word. A
+ * delta subtracts one from the counts of its bits with a ripple borrow across the planes, and the
+ * bits whose count reaches zero join the child. A parent update therefore costs {@code O(words *
+ * log(parents))} per {@code &} child rather than a pass over all of its parents.
+ *
+ * <p>Only whether a step is reached is computed, not its TTC. A solver owns its masks and is not
+ * thread safe, but any number of solvers can share one graph.
+ */
+public final class BitParallelReachability {
+    private final AttackGraph graph;
+    private long[] masks = new long[0];
+    /** Bits each step gained since it was last dequeued. */
+    private long[] pending = new long[0];
+    /** Countdown planes of the {@code &} steps, {@code levels[step]} per word. */
+    private long[] counters = new long[0];
+    private final int[] levels;
+    private final int[] counterOffsets;
+    private int words;
+    private int entryCount;
+    /** Ring buffer of steps whose masks changed; a step is queued at most once at a time. */
+    private final int[] queue;
+    private final boolean[] queued;
+
+    public BitParallelReachability(AttackGraph graph) {
+        this.graph = graph;
+        int n = graph.stepCount();
+        this.queue = new int[n];
+        this.queued = new boolean[n];
+        this.levels = new int[n];
+        this.counterOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int parentCount = graph.parentOffsets[i + 1] - graph.parentOffsets[i];
+            if (graph.kind[i] == AttackGraph.AND) {
+                levels[i] = 32 - Integer.numberOfLeadingZeros(parentCount);
+            }
+            counterOffsets[i + 1] = counterOffsets[i] + levels[i];
+        }
+    }
+
+    public AttackGraph graph() {
+        return graph;
+    }
+
+    /** Solves with the defense states captured at compile time. */
+    public long[] solve(int[] entryPoints) {
+        return solve(entryPoints, graph.defenseEnabled);
+    }
+
+    /**
+     * Computes for every step which of {@code entryPoints} reach it. Bit {@code e % 64} of {@code
+     * masks[step * words() + e / 64]} is set if entry point {@code e} reaches {@code step}. The
+     * returned array is owned by this solver and overwritten by the next call.
+     */
+    public long[] solve(int[] entryPoints, boolean[] defenseEnabled) {
+        int n = graph.stepCount();
+        entryCount = entryPoints.length;
+        words = Math.max(1, (entryCount + 63) >>> 6);
+        if (masks.length != n * words) {
+            masks = new long[n * words];
+            pending = new long[n * words];
+            counters = new long[counterOffsets[n] * words];
+        } else {
+            Arrays.fill(masks, 0);
+            Arrays.fill(pending, 0);
+        }
+        int[] parentOffsets = graph.parentOffsets;
+        for (int step = 0; step < n; step++) {
+            int parentCount = parentOffsets[step + 1] - parentOffsets[step];
+            int base = counterOffsets[step] * words;
+            for (int j = 0; j < levels[step]; j++) {
+                long plane = ((parentCount >>> j) & 1) != 0 ? -1L : 0;
+                for (int w = 0; w < words; w++) {
+                    counters[base + w * levels[step] + j] = plane;
+                }
+            }
+        }
+        int head = 0;
+        int size = 0;
+
+        for (int e = 0; e < entryPoints.length; e++) {
+            masks[entryPoints[e] * words + (e >>> 6)] |= 1L << e;
+        }
+        for (int d = 0; d < graph.defenseSteps.length; d++) {
+            int step = graph.defenseSteps[d];
+            if (!defenseEnabled[d] && step >= 0) {
+                fillEntries(masks, step * words);
+            }
+        }
+        for (int step = 0; step < n; step++) {
+            if (!isZero(step)) {
+                System.arraycopy(masks, step * words, pending, step * words, words);
+                queued[step] = true;
+                queue[size++] = step;
+            }
+        }
+
+        int[] childOffsets = graph.childOffsets;
+        int[] children = graph.children;
+        byte[] kind = graph.kind;
+        var delta = new long[words];
+        while (size > 0) {
+            int step = queue[head];
+            head = head + 1 == n ? 0 : head + 1;
+            size--;
+            queued[step] = false;
+            int from = step * words;
+            // Taken before the children, since a step can be its own parent.
+            System.arraycopy(pending, from, delta, 0, words);
+            Arrays.fill(pending, from, from + words, 0);
+            for (int e = childOffsets[step]; e < childOffsets[step + 1]; e++) {
+                int child = children[e];
+                int to = child * words;
+                boolean changed = false;
+                if (kind[child] == AttackGraph.AND) {
+                    int planes = levels[child];
+                    int base = counterOffsets[child] * words;
+                    for (int w = 0; w < words; w++) {
+                        long borrow = delta[w];
+                        if (borrow == 0) {
+                            continue;
+                        }
+                        long missing = 0;
+                        for (int j = base + w * planes, end = j + planes; j < end; j++) {
+                            long plane = counters[j];
+                            counters[j] = plane ^ borrow;
+                            borrow &= ~plane;
+                            missing |= counters[j];
+                        }
+                        long gained = delta[w] & ~missing & ~masks[to + w];
+                        if (gained != 0) {
+                            masks[to + w] |= gained;
+                            pending[to + w] |= gained;
+                            changed = true;
+                        }
+                    }
+                } else {
+                    for (int w = 0; w < words; w++) {
+                        long gained = delta[w] & ~masks[to + w];
+                        if (gained != 0) {
+                            masks[to + w] |= gained;
+                            pending[to + w] |= gained;
+                            changed = true;
+                        }
+                    }
+                }
+                if (changed && !queued[child]) {
+                    queued[child] = true;
+                    int tail = head + size;
+                    queue[tail >= n ? tail - n : tail] = child;
+                    size++;
+                }
+            }
+        }
+        return masks;
+    }
+
+    private boolean isZero(int step) {
+        for (int w = 0; w < words; w++) {
+            if (masks[step * words + w] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void fillEntries(long[] target, int offset) {
+        for (int w = 0; w < words; w++) {
+            int bits = Math.min(64, entryCount - 64 * w);
+            target[offset + w] = bits >= 64 ? -1L : bits <= 0 ? 0 : (1L << bits) - 1;
+        }
+    }
+
+    /** Number of words per step in the masks of the last solve. */
+    public int words() {
+        return words;
+    }
+
+    /** Whether entry point {@code entry} of the last solve reaches {@code step}. */
+    public boolean reached(int step, int entry) {
+        return (masks[step * words + (entry >>> 6)] & (1L << entry)) != 0;
+    }
+
+    /** Number of entry points of the last solve that reach {@code step}. */
+    public int reachedCount(int step) {
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(masks[step * words + w]);
+        }
+        return count;
+    }
+}
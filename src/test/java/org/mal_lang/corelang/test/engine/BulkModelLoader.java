@@ -0,0 +1,212 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.Asset;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Reads models written by {@link BulkModelWriter}.
+ *
+ * <p>The file is memory-mapped and its columns are read in place, so the only heap the loader
+ * needs beyond the model itself is the string table and the {@link HostTemplate}s. Files are
+ * limited to 2 GB, the size of one mapping. Associations are resolved against the {@link MalSpec}
+ * once per association group or template rather than once per link. Copies of a template are
+ * stamped into the sink again, so a file replayed into another {@link BulkModelWriter} still keeps
+ * each template once.
+ */
+public final class BulkModelLoader {
+    static final int MAGIC = 0x4D414C4D;
+    static final int VERSION = 3;
+
+    private final MalSpec spec;
+
+    public BulkModelLoader(MalSpec spec) {
+        this.spec = spec;
+    }
+
+    /** Loads a model into new instances of the generated asset classes. */
+    public List<Asset> load(Path file) {
+        var sink = new LiveModelSink();
+        load(file, sink);
+        return sink.assets();
+    }
+
+    /** Loads a model into a {@link ModelContext} and returns its assets in file order. */
+    public List<Asset> load(Path file, ModelContext context) {
+        return context.build(() -> load(file));
+    }
+
+    /** Replays a model file into {@code sink}. */
+    public void load(Path file, ModelSink sink) {
+        MappedByteBuffer buffer;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException(file + " is not a model file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException(
+                    String.format("%s has version %d, expected %d", file, version, VERSION));
+        }
+
+        var strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            var bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int assets = buffer.getInt();
+        int types = buffer.position();
+        int offsets = types + 4 * assets;
+        int names = offsets + 4 * (assets + 1);
+        buffer.position(names + buffer.getInt(offsets + 4 * assets));
+
+        var templates = new HostTemplate[buffer.getInt()];
+        for (int t = 0; t < templates.length; t++) {
+            templates[t] = template(buffer, strings);
+        }
+        int instances = buffer.getInt();
+        int instanceTemplates = buffer.position();
+        int firsts = instanceTemplates + 4 * instances;
+        int instanceOffsets = firsts + 4 * instances;
+        int instanceNames = instanceOffsets + 4 * (instances + 1);
+        int bindings = instanceNames + buffer.getInt(instanceOffsets + 4 * instances) + 4;
+        int overrideOffsets = bindings + 4 * buffer.getInt(bindings - 4);
+        int overrides = buffer.getInt(overrideOffsets + 4 * instances);
+        int overrideAssets = overrideOffsets + 4 * (instances + 1);
+        int overrideNames = overrideAssets + 4 * overrides;
+        int overrideStates = overrideNames + 4 * overrides;
+
+        // Copies of templates take the numbers recorded for them, other assets fill the gaps.
+        var scratch = new byte[256];
+        int next = 0;
+        int binding = bindings;
+        for (int a = 0, i = 0; a < assets || i < instances; ) {
+            if (i < instances && buffer.getInt(firsts + 4 * i) == next) {
+                HostTemplate template = templates[buffer.getInt(instanceTemplates + 4 * i)];
+                var instance = template.instance(name(buffer, instanceOffsets, instanceNames, i, scratch));
+                for (int port = -1; port >= -template.portCount(); port--) {
+                    instance.bind(port, buffer.getInt(binding));
+                    binding += 4;
+                }
+                int end = buffer.getInt(overrideOffsets + 4 * i + 4);
+                for (int o = buffer.getInt(overrideOffsets + 4 * i); o < end; o++) {
+                    instance.setDefense(
+                            buffer.getInt(overrideAssets + 4 * o),
+                            strings[buffer.getInt(overrideNames + 4 * o)],
+                            buffer.get(overrideStates + o) != 0);
+                }
+                checkNumber(next, instance.stamp(sink));
+                next += template.assetCount();
+                i++;
+            } else if (a < assets) {
+                checkNumber(
+                        next,
+                        sink.addAsset(
+                                strings[buffer.getInt(types + 4 * a)],
+                                name(buffer, offsets, names, a, scratch)));
+                next++;
+                a++;
+            } else {
+                throw new IllegalArgumentException(
+                        String.format("%s numbers copy %d of a template past its assets", file, i));
+            }
+        }
+        buffer.position(overrideStates + overrides);
+
+        int groups = buffer.getInt();
+        for (int g = 0; g < groups; g++) {
+            MalSpec.Association association =
+                    association(strings[buffer.getInt()], strings[buffer.getInt()], strings[buffer.getInt()]);
+            int links = buffer.getInt();
+            int left = buffer.position();
+            int right = left + 4 * links;
+            for (int i = 0; i < links; i++) {
+                sink.addAssociation(
+                        association, buffer.getInt(left + 4 * i), buffer.getInt(right + 4 * i));
+            }
+            buffer.position(right + 4 * links);
+        }
+
+        int defenses = buffer.getInt();
+        int defenseAssets = buffer.position();
+        int defenseNames = defenseAssets + 4 * defenses;
+        int defenseStates = defenseNames + 4 * defenses;
+        for (int i = 0; i < defenses; i++) {
+            sink.setDefense(
+                    buffer.getInt(defenseAssets + 4 * i),
+                    strings[buffer.getInt(defenseNames + 4 * i)],
+                    buffer.get(defenseStates + i) != 0);
+        }
+    }
+
+    /** Reads a template stored by {@link BulkModelWriter#addInstance} and records it again. */
+    private HostTemplate template(MappedByteBuffer buffer, String[] strings) {
+        var builder = HostTemplate.builder();
+        int assets = buffer.getInt();
+        int types = buffer.position();
+        int names = types + 4 * assets;
+        for (int a = 0; a < assets; a++) {
+            builder.addAsset(strings[buffer.getInt(types + 4 * a)], strings[buffer.getInt(names + 4 * a)]);
+        }
+        buffer.position(names + 4 * assets);
+        int ports = buffer.getInt();
+        for (int p = 0; p < ports; p++) {
+            builder.addPort(strings[buffer.getInt()]);
+        }
+        int associations = buffer.getInt();
+        for (int i = 0; i < associations; i++) {
+            MalSpec.Association association =
+                    association(strings[buffer.getInt()], strings[buffer.getInt()], strings[buffer.getInt()]);
+            builder.addAssociation(association, buffer.getInt(), buffer.getInt());
+        }
+        int defenses = buffer.getInt();
+        int defenseAssets = buffer.position();
+        int defenseNames = defenseAssets + 4 * defenses;
+        int defenseStates = defenseNames + 4 * defenses;
+        for (int i = 0; i < defenses; i++) {
+            builder.setDefense(
+                    buffer.getInt(defenseAssets + 4 * i),
+                    strings[buffer.getInt(defenseNames + 4 * i)],
+                    buffer.get(defenseStates + i) != 0);
+        }
+        buffer.position(defenseStates + defenses);
+        return builder.build();
+    }
+
+    private MalSpec.Association association(String name, String leftType, String rightType) {
+        MalSpec.Association association = spec.association(name, leftType, rightType);
+        if (association == null) {
+            throw new IllegalArgumentException(
+                    String.format("No association %s between %s and %s", name, leftType, rightType));
+        }
+        return association;
+    }
+
+    /** Name {@code index} of a block of name offsets followed by the UTF-8 names. */
+    private static String name(MappedByteBuffer buffer, int offsets, int names, int index, byte[] scratch) {
+        int start = buffer.getInt(offsets + 4 * index);
+        int length = buffer.getInt(offsets + 4 * index + 4) - start;
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.position(names + start);
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void checkNumber(int expected, int number) {
+        if (number != expected) {
+            throw new IllegalStateException("Sink numbered asset " + expected + " as " + number);
+        }
+    }
+}
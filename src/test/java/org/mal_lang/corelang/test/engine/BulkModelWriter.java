@@ -0,0 +1,413 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a model in the columnar format read by {@link BulkModelLoader}.
+ *
+ * <p>Type, association and defense names are stored once in a string table; asset names, which
+ * are mostly unique, are concatenated into one UTF-8 block. Assets, the associations of every
+ * {@link MalSpec.Association}, and defense overrides are collected in primitive columns while the
+ * model is streamed in. A column keeps only its last block on the heap and appends every full block
+ * to a temporary file next to {@code file}; {@link #close()} writes the file below, copying each
+ * column from its temporary file followed by its last block, and deletes the temporary files. The
+ * heap a writer needs is therefore a few blocks per column, the string table and the templates,
+ * however large the model:
+ *
+ * <pre>
+ * int magic, int version
+ * int strings, { int length, UTF-8 bytes } per string
+ * int assets, int[assets] type, int[assets + 1] name offset, UTF-8 names
+ * int templates, per template {
+ *     int assets, int[assets] type, int[assets] name, int ports, int[ports] name,
+ *     int associations, { int name, int leftType, int rightType, int left, int right } per association,
+ *     int defenses, int[defenses] asset, int[defenses] name, byte[defenses] enabled }
+ * int instances, int[instances] template, int[instances] first asset,
+ *     int[instances + 1] name offset, UTF-8 names, int bindings, int[bindings] asset,
+ *     int[instances + 1] override offset, int[overrides] asset, int[overrides] name, byte[overrides] enabled
+ * int groups, per group { int name, int leftType, int rightType, int n, int[n] left, int[n] right }
+ * int defenses, int[defenses] asset, int[defenses] name, byte[defenses] enabled
+ * </pre>
+ *
+ * All numbers are big-endian, and names are indices into the string table. A {@link HostTemplate}
+ * stamped into the writer is stored once, and each copy as an instance row with the number of its
+ * first asset, its name, port bindings and overrides, so the writer and the file grow by one row
+ * per copy. The other assets fill the numbers between the copies in the order they were added.
+ */
+public final class BulkModelWriter implements ModelSink, Closeable {
+    /** Values a column keeps on the heap before it spills them to its temporary file. */
+    private static final int BLOCK = 1 << 14;
+
+    private final Path file;
+    private final List<Spill> spills = new ArrayList<>();
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private int assetCount;
+    private final IntColumn assetTypes = new IntColumn();
+    private final NameColumn assetNames = new NameColumn();
+    private final Map<HostTemplate, Integer> templateIds = new IdentityHashMap<>();
+    private final List<HostTemplate> templates = new ArrayList<>();
+    private final IntColumn instanceTemplates = new IntColumn();
+    private final IntColumn instanceFirsts = new IntColumn();
+    private final NameColumn instanceNames = new NameColumn();
+    private final IntColumn bindings = new IntColumn();
+    private final IntColumn overrideOffsets = new IntColumn();
+    private final IntColumn overrideAssets = new IntColumn();
+    private final IntColumn overrideNames = new IntColumn();
+    private final ByteColumn overrideStates = new ByteColumn();
+    private final Map<MalSpec.Association, IntColumn[]> associations = new LinkedHashMap<>();
+    private final IntColumn defenseAssets = new IntColumn();
+    private final IntColumn defenseNames = new IntColumn();
+    private final ByteColumn defenseStates = new ByteColumn();
+
+    public BulkModelWriter(Path file) {
+        this.file = file;
+        overrideOffsets.add(0);
+    }
+
+    @Override
+    public int addAsset(String type, String name) {
+        assetTypes.add(string(type));
+        assetNames.add(name);
+        return assetCount++;
+    }
+
+    /** Stores the template of {@code instance} with its first copy, and every copy as a row. */
+    @Override
+    public int addInstance(HostTemplate.Instance instance) {
+        for (int binding : instance.bindings) {
+            if (binding >= assetCount) {
+                throw new IllegalArgumentException(
+                        String.format(
+                                "%s is bound to asset %d, which is not added yet", instance.name(), binding));
+            }
+        }
+        HostTemplate template = instance.template();
+        Integer id = templateIds.get(template);
+        if (id == null) {
+            id = templates.size();
+            templates.add(template);
+            templateIds.put(template, id);
+            for (int a = 0; a < template.types.length; a++) {
+                string(template.types[a]);
+                string(template.names[a]);
+            }
+            for (String port : template.portNames) {
+                string(port);
+            }
+            for (MalSpec.Association association : template.associations) {
+                string(association.name);
+                string(association.leftType);
+                string(association.rightType);
+            }
+            for (String defense : template.defenses) {
+                string(defense);
+            }
+        }
+        int first = assetCount;
+        instanceTemplates.add(id);
+        instanceFirsts.add(first);
+        instanceNames.add(instance.name());
+        for (int binding : instance.bindings) {
+            bindings.add(binding);
+        }
+        for (int i = 0; i < instance.overrideCount; i++) {
+            overrideAssets.add(instance.overrideAssets[i]);
+            overrideNames.add(string(instance.overrides[i]));
+            overrideStates.add(instance.overrideValues[i] ? 1 : 0);
+        }
+        overrideOffsets.add(overrideAssets.size());
+        assetCount += template.assetCount();
+        return first;
+    }
+
+    @Override
+    public void addAssociation(MalSpec.Association association, int left, int right) {
+        IntColumn[] columns =
+                associations.computeIfAbsent(
+                        association, key -> new IntColumn[] {new IntColumn(), new IntColumn()});
+        columns[0].add(left);
+        columns[1].add(right);
+    }
+
+    @Override
+    public void setDefense(int asset, String defense, boolean enabled) {
+        defenseAssets.add(asset);
+        defenseNames.add(string(defense));
+        defenseStates.add(enabled ? 1 : 0);
+    }
+
+    /** Writes the file and deletes the temporary column files, also when writing fails. */
+    @Override
+    public void close() {
+        try {
+            write();
+        } finally {
+            for (Spill spill : spills) {
+                spill.delete();
+            }
+        }
+    }
+
+    private void write() {
+        for (MalSpec.Association association : associations.keySet()) {
+            string(association.name);
+            string(association.leftType);
+            string(association.rightType);
+        }
+        try (var out =
+                new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(BulkModelLoader.MAGIC);
+            out.writeInt(BulkModelLoader.VERSION);
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(assetTypes.size());
+            assetTypes.writeTo(out);
+            assetNames.writeTo(out);
+            out.writeInt(templates.size());
+            for (HostTemplate template : templates) {
+                writeTemplate(out, template);
+            }
+            out.writeInt(instanceTemplates.size());
+            instanceTemplates.writeTo(out);
+            instanceFirsts.writeTo(out);
+            instanceNames.writeTo(out);
+            out.writeInt(bindings.size());
+            bindings.writeTo(out);
+            overrideOffsets.writeTo(out);
+            overrideAssets.writeTo(out);
+            overrideNames.writeTo(out);
+            overrideStates.writeTo(out);
+            out.writeInt(associations.size());
+            for (var entry : associations.entrySet()) {
+                MalSpec.Association association = entry.getKey();
+                out.writeInt(stringIds.get(association.name));
+                out.writeInt(stringIds.get(association.leftType));
+                out.writeInt(stringIds.get(association.rightType));
+                out.writeInt(entry.getValue()[0].size());
+                entry.getValue()[0].writeTo(out);
+                entry.getValue()[1].writeTo(out);
+            }
+            out.writeInt(defenseAssets.size());
+            defenseAssets.writeTo(out);
+            defenseNames.writeTo(out);
+            defenseStates.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeTemplate(DataOutputStream out, HostTemplate template) throws IOException {
+        out.writeInt(template.types.length);
+        for (String type : template.types) {
+            out.writeInt(stringIds.get(type));
+        }
+        for (String name : template.names) {
+            out.writeInt(stringIds.get(name));
+        }
+        out.writeInt(template.portNames.length);
+        for (String port : template.portNames) {
+            out.writeInt(stringIds.get(port));
+        }
+        out.writeInt(template.associations.length);
+        for (int i = 0; i < template.associations.length; i++) {
+            MalSpec.Association association = template.associations[i];
+            out.writeInt(stringIds.get(association.name));
+            out.writeInt(stringIds.get(association.leftType));
+            out.writeInt(stringIds.get(association.rightType));
+            out.writeInt(template.lefts[i]);
+            out.writeInt(template.rights[i]);
+        }
+        out.writeInt(template.defenses.length);
+        for (int asset : template.defenseAssets) {
+            out.writeInt(asset);
+        }
+        for (String defense : template.defenses) {
+            out.writeInt(stringIds.get(defense));
+        }
+        for (boolean enabled : template.defenseValues) {
+            out.writeByte(enabled ? 1 : 0);
+        }
+    }
+
+    private int string(String value) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value);
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+
+    /** Temporary file holding the spilled blocks of one column. */
+    private final class Spill {
+        private final Path path;
+        private final DataOutputStream out;
+
+        Spill() {
+            try {
+                Path directory = file.toAbsolutePath().getParent();
+                path = Files.createTempFile(directory, file.getFileName() + ".", ".column");
+                spills.add(this);
+                out =
+                        new DataOutputStream(
+                                new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeInts(int[] values, int count) {
+            try {
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(values[i]);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeBytes(byte[] values, int count) {
+            try {
+                out.write(values, 0, count);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void copyTo(DataOutputStream target) throws IOException {
+            out.close();
+            Files.copy(path, target);
+        }
+
+        void delete() {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** Column of ints, of which full blocks are spilled. */
+    private final class IntColumn {
+        private final int[] block = new int[BLOCK];
+        private int filled;
+        private long size;
+        private Spill spill;
+
+        void add(int value) {
+            if (filled == block.length) {
+                if (spill == null) {
+                    spill = new Spill();
+                }
+                spill.writeInts(block, filled);
+                filled = 0;
+            }
+            block[filled++] = value;
+            size++;
+        }
+
+        int size() {
+            return Math.toIntExact(size);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            if (spill != null) {
+                spill.copyTo(out);
+            }
+            for (int i = 0; i < filled; i++) {
+                out.writeInt(block[i]);
+            }
+        }
+    }
+
+    /** Column of bytes, of which full blocks are spilled. */
+    private final class ByteColumn {
+        private final byte[] block = new byte[4 * BLOCK];
+        private int filled;
+        private long size;
+        private Spill spill;
+
+        void add(int value) {
+            if (filled == block.length) {
+                spillBlock();
+            }
+            block[filled++] = (byte) value;
+            size++;
+        }
+
+        void add(byte[] values, int from, int count) {
+            while (count > 0) {
+                if (filled == block.length) {
+                    spillBlock();
+                }
+                int n = Math.min(count, block.length - filled);
+                System.arraycopy(values, from, block, filled, n);
+                filled += n;
+                from += n;
+                count -= n;
+                size += n;
+            }
+        }
+
+        private void spillBlock() {
+            if (spill == null) {
+                spill = new Spill();
+            }
+            spill.writeBytes(block, filled);
+            filled = 0;
+        }
+
+        int size() {
+            return Math.toIntExact(size);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            if (spill != null) {
+                spill.copyTo(out);
+            }
+            out.write(block, 0, filled);
+        }
+    }
+
+    /** Names concatenated into one UTF-8 block, written as their offsets, the end and the block. */
+    private final class NameColumn {
+        final IntColumn offsets = new IntColumn();
+        final ByteColumn bytes = new ByteColumn();
+
+        void add(String name) {
+            offsets.add(bytes.size());
+            byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+            bytes.add(utf8, 0, utf8.length);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            offsets.writeTo(out);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+    }
+}
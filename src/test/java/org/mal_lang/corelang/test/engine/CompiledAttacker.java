@@ -0,0 +1,64 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.AttackStep;
+import core.Attacker;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drop-in replacement for {@link Attacker} that compiles the model into an {@link AttackGraph}
+ * and solves it with a {@link GraphSolver}.
+ *
+ * <p>Results are written back into {@code AttackStep.ttc}, so the assertions used by the tests
+ * behave exactly as with the reference attacker. An attacker created for a {@link ModelContext}
+ * only compiles the steps of that context; otherwise it uses the static {@code core} registries.
+ *
+ * <p>With {@code -Dmal.metrics=true} every attack also records {@link SimulationMetrics}, and
+ * {@code metrics().toJson(catalog())} summarizes where the time went.
+ */
+public class CompiledAttacker extends Attacker {
+    protected final List<AttackStep> attackPoints = new ArrayList<>();
+    private final ModelContext context;
+    private AttackGraph graph;
+    private SimulationMetrics metrics;
+
+    public CompiledAttacker() {
+        this(null);
+    }
+
+    public CompiledAttacker(ModelContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void addAttackPoint(AttackStep attackPoint) {
+        attackPoint.ttc = 0;
+        attackPoints.add(attackPoint);
+    }
+
+    @Override
+    public void attack() {
+        graph = context == null ? AttackGraph.compile() : context.compile();
+        var solver = new GraphSolver(graph);
+        graph.writeBack(solver.solve(graph.ids(attackPoints)));
+        metrics = solver.metrics();
+        if (metrics != null) {
+            metrics.commitEvents(catalog());
+        }
+    }
+
+    /** The graph compiled by the last call to {@link #attack()}. */
+    public AttackGraph graph() {
+        return graph;
+    }
+
+    /** Metrics of the last call to {@link #attack()}, or null if metrics are disabled. */
+    public SimulationMetrics metrics() {
+        return metrics;
+    }
+
+    /** Catalog of the graph compiled by the last call to {@link #attack()}. */
+    public StepCatalog catalog() {
+        return context == null ? StepCatalog.of(graph) : context.catalog(graph);
+    }
+}
@@ -0,0 +1,104 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.Arrays;
+
+/**
+ * Immutable bit set that stores only its non-zero 64-bit words, as a sorted array of word
+ * indices and a parallel array of words.
+ *
+ * <p>Sets over numberings where related elements get nearby ids, such as the components of a
+ * hierarchy in topological order, fall into a few dense words and stay small however large the
+ * universe is. Lookups are a binary search over the word indices.
+ */
+final class CompressedBitSet {
+    static final CompressedBitSet EMPTY = new CompressedBitSet(new int[0], new long[0]);
+
+    private final int[] keys;
+    private final long[] words;
+
+    private CompressedBitSet(int[] keys, long[] words) {
+        this.keys = keys;
+        this.words = words;
+    }
+
+    boolean contains(int bit) {
+        int i = Arrays.binarySearch(keys, bit >>> 6);
+        return i >= 0 && (words[i] & (1L << bit)) != 0;
+    }
+
+    int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /** Number of stored words, a measure of the memory the set takes. */
+    int wordCount() {
+        return words.length;
+    }
+
+    int[] toArray() {
+        var bits = new int[cardinality()];
+        int next = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                bits[next++] = (keys[i] << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Accumulates a union in a dense word array and compresses it. Only the words touched since
+     * the last {@link #build()} are visited, so one builder can be reused for many small sets over
+     * a large universe.
+     */
+    static final class Builder {
+        private final long[] dense;
+        private int[] touched = new int[16];
+        private int touchedCount;
+
+        Builder(int universe) {
+            dense = new long[(universe + 63) >>> 6];
+        }
+
+        void add(int bit) {
+            int key = bit >>> 6;
+            touch(key);
+            dense[key] |= 1L << bit;
+        }
+
+        void addAll(CompressedBitSet set) {
+            for (int i = 0; i < set.keys.length; i++) {
+                touch(set.keys[i]);
+                dense[set.keys[i]] |= set.words[i];
+            }
+        }
+
+        private void touch(int key) {
+            if (dense[key] != 0) {
+                return;
+            }
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = key;
+        }
+
+        CompressedBitSet build() {
+            Arrays.sort(touched, 0, touchedCount);
+            var keys = Arrays.copyOf(touched, touchedCount);
+            var words = new long[touchedCount];
+            for (int i = 0; i < touchedCount; i++) {
+                words[i] = dense[keys[i]];
+                dense[keys[i]] = 0;
+            }
+            touchedCount = 0;
+            return new CompressedBitSet(keys, words);
+        }
+    }
+}
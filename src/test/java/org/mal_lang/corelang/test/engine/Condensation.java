@@ -0,0 +1,136 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of a graph in compressed form, and sets gathered along the
+ * resulting DAG.
+ *
+ * <p>Components are numbered in the order Tarjan's algorithm completes them, so every edge between
+ * two components goes from a higher to a lower number and a single pass in ascending order sees
+ * every component after all components it reaches.
+ */
+final class Condensation {
+    private final int[] edgeOffsets;
+    private final int[] edges;
+    final int[] component;
+    final int count;
+    final int[] memberOffsets;
+    final int[] members;
+
+    Condensation(int[] edgeOffsets, int[] edges) {
+        this.edgeOffsets = edgeOffsets;
+        this.edges = edges;
+        this.component = stronglyConnectedComponents(edgeOffsets, edges);
+        int count = 0;
+        for (int c : component) {
+            count = Math.max(count, c + 1);
+        }
+        this.count = count;
+        this.memberOffsets = new int[count + 1];
+        for (int c : component) {
+            memberOffsets[c + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        this.members = new int[component.length];
+        var fill = Arrays.copyOf(memberOffsets, count);
+        for (int v = 0; v < component.length; v++) {
+            members[fill[component[v]]++] = v;
+        }
+    }
+
+    /** For every component, the set of components it reaches, including itself. */
+    CompressedBitSet[] closures() {
+        var labelOffsets = new int[component.length + 1];
+        for (int v = 0; v < component.length; v++) {
+            labelOffsets[v + 1] = v + 1;
+        }
+        return gather(labelOffsets, component, count);
+    }
+
+    /**
+     * For every component, the union of the labels of all vertices it reaches. The labels of
+     * vertex {@code v} are {@code labels[labelOffsets[v]]} up to {@code labels[labelOffsets[v +
+     * 1]]}, all below {@code universe}.
+     */
+    CompressedBitSet[] gather(int[] labelOffsets, int[] labels, int universe) {
+        var sets = new CompressedBitSet[count];
+        var builder = new CompressedBitSet.Builder(universe);
+        for (int c = 0; c < count; c++) {
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                int v = members[m];
+                for (int l = labelOffsets[v]; l < labelOffsets[v + 1]; l++) {
+                    builder.add(labels[l]);
+                }
+                for (int e = edgeOffsets[v]; e < edgeOffsets[v + 1]; e++) {
+                    int target = component[edges[e]];
+                    if (target != c) {
+                        builder.addAll(sets[target]);
+                    }
+                }
+            }
+            sets[c] = builder.build();
+        }
+        return sets;
+    }
+
+    /** Iterative Tarjan, so deep hierarchies do not overflow the call stack. */
+    static int[] stronglyConnectedComponents(int[] edgeOffsets, int[] edges) {
+        int n = edgeOffsets.length - 1;
+        var component = new int[n];
+        var index = new int[n];
+        var low = new int[n];
+        var onStack = new boolean[n];
+        var stack = new int[n];
+        var callStack = new int[n];
+        var edgeCursor = new int[n];
+        Arrays.fill(index, -1);
+        int nextIndex = 0;
+        int stackSize = 0;
+        int components = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = low[root] = nextIndex++;
+            edgeCursor[root] = edgeOffsets[root];
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                if (edgeCursor[v] < edgeOffsets[v + 1]) {
+                    int w = edges[edgeCursor[v]++];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = nextIndex++;
+                        edgeCursor[w] = edgeOffsets[w];
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        callStack[depth++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        component[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+            }
+        }
+        return component;
+    }
+}
@@ -0,0 +1,178 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.Arrays;
+
+/**
+ * The live part of an {@link AttackGraph} for one set of attack points and defense states.
+ *
+ * <p>A forward pass from the attack points and the {@code disable} steps of disabled defenses marks
+ * every step the attacker can reach at all, with the same rules as {@link GraphSolver} but without
+ * TTCs: an {@code |} step is live once one parent is, an {@code &} step once all of its parents
+ * are. Everything else, such as the steps behind an enabled {@code notPresent} or a {@code
+ * restricted} connection rule, is dead and dropped. When targets are given, a backward pass from
+ * them also drops live steps that no target depends on. A kept {@code &} step keeps all of its
+ * parents in both cases, so solving the pruned graph gives every kept step its full TTC.
+ *
+ * <p>The pruned graph is only valid for the attack points and defense states it was pruned for;
+ * {@link #expand} reports dropped steps as {@link GraphSolver#UNREACHED}.
+ */
+public final class DeadStepPruning {
+    private final AttackGraph original;
+    private final AttackGraph graph;
+    private final int[] prunedIds;
+    private final int[] attackPoints;
+    private final boolean[] defenseEnabled;
+
+    private DeadStepPruning(
+            AttackGraph original,
+            AttackGraph graph,
+            int[] prunedIds,
+            int[] attackPoints,
+            boolean[] defenseEnabled) {
+        this.original = original;
+        this.graph = graph;
+        this.prunedIds = prunedIds;
+        this.attackPoints = attackPoints;
+        this.defenseEnabled = defenseEnabled;
+    }
+
+    /** Drops the steps that cannot be reached from {@code attackPoints}. */
+    public static DeadStepPruning of(AttackGraph graph, int[] attackPoints, boolean[] defenseEnabled) {
+        return of(graph, attackPoints, defenseEnabled, null);
+    }
+
+    /**
+     * Drops the steps that cannot be reached from {@code attackPoints} and, unless {@code targets}
+     * is null, the steps that none of {@code targets} depends on.
+     */
+    public static DeadStepPruning of(
+            AttackGraph graph, int[] attackPoints, boolean[] defenseEnabled, int[] targets) {
+        boolean[] keep = live(graph, attackPoints, defenseEnabled);
+        if (targets != null) {
+            boolean[] needed = ancestors(graph, targets);
+            for (int i = 0; i < keep.length; i++) {
+                keep[i] &= needed[i];
+            }
+        }
+        var prunedIds = new int[graph.stepCount()];
+        int kept = 0;
+        for (int i = 0; i < prunedIds.length; i++) {
+            prunedIds[i] = keep[i] ? kept++ : -1;
+        }
+        // Attack points are always live but may be dropped when no target depends on them.
+        var prunedAttackPoints = new int[attackPoints.length];
+        int count = 0;
+        for (int attackPoint : attackPoints) {
+            if (prunedIds[attackPoint] >= 0) {
+                prunedAttackPoints[count++] = prunedIds[attackPoint];
+            }
+        }
+        return new DeadStepPruning(
+                graph,
+                graph.induced(prunedIds),
+                prunedIds,
+                Arrays.copyOf(prunedAttackPoints, count),
+                defenseEnabled.clone());
+    }
+
+    /** Steps reachable from the attack points and disabled defenses. */
+    static boolean[] live(AttackGraph graph, int[] attackPoints, boolean[] defenseEnabled) {
+        int n = graph.stepCount();
+        var live = new boolean[n];
+        var remaining = new int[n];
+        for (int i = 0; i < n; i++) {
+            remaining[i] = graph.parentOffsets[i + 1] - graph.parentOffsets[i];
+        }
+        var queue = new int[n];
+        int tail = 0;
+        for (int attackPoint : attackPoints) {
+            if (!live[attackPoint]) {
+                live[attackPoint] = true;
+                queue[tail++] = attackPoint;
+            }
+        }
+        for (int d = 0; d < graph.defenseSteps.length; d++) {
+            int step = graph.defenseSteps[d];
+            if (!defenseEnabled[d] && step >= 0 && !live[step]) {
+                live[step] = true;
+                queue[tail++] = step;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int step = queue[head];
+            for (int e = graph.childOffsets[step]; e < graph.childOffsets[step + 1]; e++) {
+                int child = graph.children[e];
+                if (live[child]) {
+                    continue;
+                }
+                if (graph.kind[child] == AttackGraph.AND && --remaining[child] > 0) {
+                    continue;
+                }
+                live[child] = true;
+                queue[tail++] = child;
+            }
+        }
+        return live;
+    }
+
+    /** {@code targets} and every step they depend on. */
+    static boolean[] ancestors(AttackGraph graph, int[] targets) {
+        var needed = new boolean[graph.stepCount()];
+        var stack = new int[graph.stepCount()];
+        int size = 0;
+        for (int target : targets) {
+            if (!needed[target]) {
+                needed[target] = true;
+                stack[size++] = target;
+            }
+        }
+        while (size > 0) {
+            int step = stack[--size];
+            for (int e = graph.parentOffsets[step]; e < graph.parentOffsets[step + 1]; e++) {
+                int parent = graph.parents[e];
+                if (!needed[parent]) {
+                    needed[parent] = true;
+                    stack[size++] = parent;
+                }
+            }
+        }
+        return needed;
+    }
+
+    /** The graph that was pruned. */
+    public AttackGraph original() {
+        return original;
+    }
+
+    /** The pruned graph; defense indices are the same as in the original. */
+    public AttackGraph graph() {
+        return graph;
+    }
+
+    /** Number of steps that were dropped. */
+    public int prunedCount() {
+        return original.stepCount() - graph.stepCount();
+    }
+
+    /** Id of an original step in the pruned graph, or -1 if it was dropped. */
+    public int prunedId(int id) {
+        return prunedIds[id];
+    }
+
+    /** Solves the pruned graph from the attack points and defense states it was pruned for. */
+    public double[] solve(GraphSolver solver) {
+        if (solver.graph() != graph) {
+            throw new IllegalArgumentException("Solver does not belong to the pruned graph");
+        }
+        return expand(solver.solve(attackPoints, defenseEnabled));
+    }
+
+    /** Expands TTCs of the pruned graph into a new array of TTCs of every original step. */
+    public double[] expand(double[] prunedTtc) {
+        var ttc = new double[original.stepCount()];
+        for (int i = 0; i < ttc.length; i++) {
+            ttc[i] = prunedIds[i] < 0 ? GraphSolver.UNREACHED : prunedTtc[prunedIds[i]];
+        }
+        return ttc;
+    }
+}
@@ -0,0 +1,335 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.AttackStep;
+import java.util.Arrays;
+
+/**
+ * A smaller {@link AttackGraph} with the plumbing steps of the model contracted away, and the
+ * bookkeeping to recover the TTCs of the removed steps after solving it.
+ *
+ * <p>Much of coreLang is chains of {@code @hidden} steps such as {@code attemptEavesdrop ->
+ * successfulEavesdrop -> eavesdrop} that only pass a TTC on. A {@code |} step with local TTC 0 has
+ * exactly the TTC of its cheapest parent, so it can be removed without changing any other TTC when
+ *
+ * <ul>
+ *   <li>it has a single parent: its children take that parent instead, or
+ *   <li>it has a single child, an {@code |} step: that child takes all of its parents instead.
+ * </ul>
+ *
+ * Both cases remove one step and at least one edge. Steps are contracted until no step qualifies,
+ * so whole chains collapse into single edges. Attack points and the {@code disable} steps of
+ * defenses seed a solve and are never removed; attack points must be named when compacting.
+ *
+ * <p>A removed step has the smallest TTC among the parents it had when it was removed, and those
+ * parents were either kept or removed after it. {@link #expand} therefore fills in removed steps in
+ * reverse order of removal, and the result is exactly what solving the full graph gives. That holds
+ * for the compiled local TTCs; samples that give a removed step a nonzero TTC need the full graph.
+ */
+public final class GraphCompaction {
+    private final AttackGraph original;
+    private final AttackGraph graph;
+    private final int[] compactIds;
+    private final int[] removed;
+    private final int[] removedParentOffsets;
+    private final int[] removedParents;
+
+    private GraphCompaction(
+            AttackGraph original,
+            AttackGraph graph,
+            int[] compactIds,
+            int[] removed,
+            int[] removedParentOffsets,
+            int[] removedParents) {
+        this.original = original;
+        this.graph = graph;
+        this.compactIds = compactIds;
+        this.removed = removed;
+        this.removedParentOffsets = removedParentOffsets;
+        this.removedParents = removedParents;
+    }
+
+    /** Compacts {@code graph}, keeping {@code attackPoints} so that they can still seed a solve. */
+    public static GraphCompaction of(AttackGraph graph, int[] attackPoints) {
+        int n = graph.stepCount();
+        var contraction = new Contraction(graph);
+        var pinned = new boolean[n];
+        for (int attackPoint : attackPoints) {
+            pinned[attackPoint] = true;
+        }
+        for (int step : graph.defenseSteps) {
+            if (step >= 0) {
+                pinned[step] = true;
+            }
+        }
+
+        var candidate = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            candidate[i] = !pinned[i] && graph.kind[i] == AttackGraph.OR && graph.localTtc[i] == 0;
+        }
+        var work = new int[n];
+        var queued = new boolean[n];
+        int size = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            if (candidate[i]) {
+                work[size++] = i;
+                queued[i] = true;
+            }
+        }
+        var removed = new int[n];
+        int removedCount = 0;
+        var removedParentOffsets = new int[n + 1];
+        var removedParents = new IntList();
+        var touched = new IntList();
+        while (size > 0) {
+            int step = work[--size];
+            queued[step] = false;
+            touched.size = 0;
+            if (!contraction.tryRemove(step, touched)) {
+                continue;
+            }
+            removed[removedCount] = step;
+            for (int p = 0; p < contraction.parentCounts[step]; p++) {
+                removedParents.add(contraction.parents[step][p]);
+            }
+            removedParentOffsets[++removedCount] = removedParents.size;
+            contraction.detach(step);
+            for (int t = 0; t < touched.size; t++) {
+                int other = touched.values[t];
+                if (candidate[other] && !contraction.removed[other] && !queued[other]) {
+                    work[size++] = other;
+                    queued[other] = true;
+                }
+            }
+        }
+
+        var compactIds = new int[n];
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            compactIds[i] = contraction.removed[i] ? -1 : kept++;
+        }
+        var steps = new AttackStep[kept];
+        var kind = new byte[kept];
+        var localTtc = new double[kept];
+        var parentOffsets = new int[kept + 1];
+        var parents = new IntList();
+        for (int i = 0; i < n; i++) {
+            int id = compactIds[i];
+            if (id < 0) {
+                continue;
+            }
+            steps[id] = graph.steps[i];
+            kind[id] = graph.kind[i];
+            localTtc[id] = graph.localTtc[i];
+            for (int p = 0; p < contraction.parentCounts[i]; p++) {
+                parents.add(compactIds[contraction.parents[i][p]]);
+            }
+            parentOffsets[id + 1] = parents.size;
+        }
+        var defenseSteps = new int[graph.defenseSteps.length];
+        for (int d = 0; d < defenseSteps.length; d++) {
+            defenseSteps[d] = graph.defenseSteps[d] < 0 ? -1 : compactIds[graph.defenseSteps[d]];
+        }
+        var compact =
+                AttackGraph.of(
+                        steps,
+                        kind,
+                        localTtc,
+                        parentOffsets,
+                        parents.toArray(),
+                        graph.defenses,
+                        defenseSteps,
+                        graph.defenseEnabled);
+        return new GraphCompaction(
+                graph,
+                compact,
+                compactIds,
+                Arrays.copyOf(removed, removedCount),
+                Arrays.copyOf(removedParentOffsets, removedCount + 1),
+                removedParents.toArray());
+    }
+
+    /** The graph that was compacted. */
+    public AttackGraph original() {
+        return original;
+    }
+
+    /** The compacted graph to solve; defense indices are the same as in the original. */
+    public AttackGraph graph() {
+        return graph;
+    }
+
+    public int removedCount() {
+        return removed.length;
+    }
+
+    /** Id of an original step in the compacted graph, or -1 if it was removed. */
+    public int compactId(int id) {
+        return compactIds[id];
+    }
+
+    /** Maps original step ids, for example attack points, to compacted ones. */
+    public int[] toCompact(int[] ids) {
+        var result = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = compactIds[ids[i]];
+            if (result[i] < 0) {
+                throw new IllegalArgumentException(
+                        String.format(
+                                "Attack step %s was removed by compaction", original.step(ids[i]).fullName()));
+            }
+        }
+        return result;
+    }
+
+    /** Expands TTCs of the compacted graph into a new array of TTCs of every original step. */
+    public double[] expand(double[] compactTtc) {
+        var ttc = new double[original.stepCount()];
+        for (int i = 0; i < ttc.length; i++) {
+            if (compactIds[i] >= 0) {
+                ttc[i] = compactTtc[compactIds[i]];
+            }
+        }
+        for (int r = removed.length - 1; r >= 0; r--) {
+            double min = GraphSolver.UNREACHED;
+            for (int e = removedParentOffsets[r]; e < removedParentOffsets[r + 1]; e++) {
+                min = Math.min(min, ttc[removedParents[e]]);
+            }
+            ttc[removed[r]] = min;
+        }
+        return ttc;
+    }
+
+    /** Mutable parent and child lists of the graph being contracted. */
+    private static final class Contraction {
+        final byte[] kind;
+        final int[][] parents;
+        final int[] parentCounts;
+        final int[][] children;
+        final int[] childCounts;
+        final boolean[] removed;
+
+        Contraction(AttackGraph graph) {
+            int n = graph.stepCount();
+            this.kind = graph.kind;
+            this.parents = new int[n][];
+            this.parentCounts = new int[n];
+            this.children = new int[n][];
+            this.childCounts = new int[n];
+            this.removed = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                // Duplicate edges make no difference to either kind of step, so they are dropped.
+                for (int e = graph.parentOffsets[i]; e < graph.parentOffsets[i + 1]; e++) {
+                    if (parents[i] == null) {
+                        parents[i] = new int[graph.parentOffsets[i + 1] - graph.parentOffsets[i]];
+                    }
+                    if (indexOf(parents[i], parentCounts[i], graph.parents[e]) < 0) {
+                        addParent(i, graph.parents[e]);
+                    }
+                }
+                if (parents[i] == null) {
+                    parents[i] = new int[0];
+                }
+                children[i] = new int[graph.childOffsets[i + 1] - graph.childOffsets[i]];
+            }
+            for (int i = 0; i < n; i++) {
+                for (int p = 0; p < parentCounts[i]; p++) {
+                    int parent = parents[i][p];
+                    children[parent][childCounts[parent]++] = i;
+                }
+            }
+        }
+
+        /**
+         * Rewires the neighbours of {@code step} around it if it can be removed, adding every step
+         * whose edges changed to {@code touched}. The caller records the parents of the step and then
+         * calls {@link #detach}.
+         */
+        boolean tryRemove(int step, IntList touched) {
+            if (indexOf(parents[step], parentCounts[step], step) >= 0) {
+                return false;
+            }
+            if (parentCounts[step] == 1) {
+                int parent = parents[step][0];
+                for (int c = 0; c < childCounts[step]; c++) {
+                    if (children[step][c] == parent && kind[parent] == AttackGraph.AND) {
+                        return false;
+                    }
+                }
+                for (int c = 0; c < childCounts[step]; c++) {
+                    int child = children[step][c];
+                    if (child != parent) {
+                        link(parent, child);
+                        touched.add(child);
+                    }
+                }
+                touched.add(parent);
+                return true;
+            }
+            if (childCounts[step] == 1 && kind[children[step][0]] == AttackGraph.OR) {
+                int child = children[step][0];
+                for (int p = 0; p < parentCounts[step]; p++) {
+                    int parent = parents[step][p];
+                    if (parent != child) {
+                        link(parent, child);
+                        touched.add(parent);
+                    }
+                }
+                touched.add(child);
+                return true;
+            }
+            return false;
+        }
+
+        /** Removes {@code step} and all of its edges. */
+        void detach(int step) {
+            for (int p = 0; p < parentCounts[step]; p++) {
+                int parent = parents[step][p];
+                childCounts[parent] = remove(children[parent], childCounts[parent], step);
+            }
+            for (int c = 0; c < childCounts[step]; c++) {
+                int child = children[step][c];
+                parentCounts[child] = remove(parents[child], parentCounts[child], step);
+            }
+            parentCounts[step] = 0;
+            childCounts[step] = 0;
+            removed[step] = true;
+        }
+
+        private void link(int parent, int child) {
+            if (indexOf(parents[child], parentCounts[child], parent) < 0) {
+                addParent(child, parent);
+                if (childCounts[parent] == children[parent].length) {
+                    children[parent] =
+                            Arrays.copyOf(children[parent], Math.max(4, childCounts[parent] * 2));
+                }
+                children[parent][childCounts[parent]++] = child;
+            }
+        }
+
+        private void addParent(int step, int parent) {
+            if (parentCounts[step] == parents[step].length) {
+                parents[step] = Arrays.copyOf(parents[step], Math.max(4, parentCounts[step] * 2));
+            }
+            parents[step][parentCounts[step]++] = parent;
+        }
+
+        private static int indexOf(int[] values, int count, int value) {
+            for (int i = 0; i < count; i++) {
+                if (values[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /** Removes {@code value} from the first {@code count} entries and returns the new count. */
+        private static int remove(int[] values, int count, int value) {
+            int i = indexOf(values, count, value);
+            if (i < 0) {
+                return count;
+            }
+            values[i] = values[count - 1];
+            return count - 1;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A compiled {@link AttackGraph}, its defense states and solved TTCs, saved to a file and read back
+ * in place.
+ *
+ * <p>{@link #open(Path)} memory-maps the file and only reads its header, so reopening a snapshot
+ * costs neither a model rebuild nor a solve, and its size does not show up on the heap. Every
+ * accessor reads straight from the mapping. The file layout is
+ *
+ * <pre>
+ * int magic, int version, int steps, int edges, int defenses
+ * byte[steps] kind
+ * double[steps] local TTC, double[steps] TTC
+ * int[steps + 1] parent offset, int[edges] parent
+ * int[steps + 1] child offset, int[edges] child
+ * int[defenses] disable step, byte[defenses] enabled
+ * int[steps + 1] name offset, int[steps] ids sorted by name, UTF-8 full step names
+ * </pre>
+ *
+ * All numbers are big-endian. Like {@link BulkModelLoader}, files are limited to 2 GB.
+ */
+public final class GraphSnapshot {
+    static final int MAGIC = 0x4D414C53;
+    static final int VERSION = 1;
+    private static final int HEADER = 20;
+
+    private final MappedByteBuffer buffer;
+    private final int steps;
+    private final int edges;
+    private final int defenses;
+    private final int localTtcAt;
+    private final int ttcAt;
+    private final int parentOffsetsAt;
+    private final int parentsAt;
+    private final int childOffsetsAt;
+    private final int childrenAt;
+    private final int defenseStepsAt;
+    private final int defenseEnabledAt;
+    private final int nameOffsetsAt;
+    private final int sortedIdsAt;
+    private final int namesAt;
+
+    private GraphSnapshot(MappedByteBuffer buffer, int steps, int edges, int defenses) {
+        this.buffer = buffer;
+        this.steps = steps;
+        this.edges = edges;
+        this.defenses = defenses;
+        this.localTtcAt = HEADER + steps;
+        this.ttcAt = localTtcAt + 8 * steps;
+        this.parentOffsetsAt = ttcAt + 8 * steps;
+        this.parentsAt = parentOffsetsAt + 4 * (steps + 1);
+        this.childOffsetsAt = parentsAt + 4 * edges;
+        this.childrenAt = childOffsetsAt + 4 * (steps + 1);
+        this.defenseStepsAt = childrenAt + 4 * edges;
+        this.defenseEnabledAt = defenseStepsAt + 4 * defenses;
+        this.nameOffsetsAt = defenseEnabledAt + defenses;
+        this.sortedIdsAt = nameOffsetsAt + 4 * (steps + 1);
+        this.namesAt = sortedIdsAt + 4 * steps;
+    }
+
+    /** Writes {@code graph} with the defense states it was compiled with. */
+    public static void write(Path file, AttackGraph graph, double[] ttc) {
+        write(file, graph, graph.defenseEnabled, ttc);
+    }
+
+    /**
+     * Writes {@code graph} together with the defense states and TTCs of one solve. Every step needs
+     * a name, so graphs with hubs, such as those of {@link SharedParentHubs}, are rejected.
+     */
+    public static void write(Path file, AttackGraph graph, boolean[] defenseEnabled, double[] ttc) {
+        int n = graph.stepCount();
+        if (ttc.length != n || defenseEnabled.length != graph.defenseCount()) {
+            throw new IllegalArgumentException("TTCs or defense states do not match the graph");
+        }
+        var names = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            names[i] = graph.requireStep(i).fullName().getBytes(StandardCharsets.UTF_8);
+        }
+        var sorted = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, Comparator.comparing(i -> graph.step(i).fullName()));
+
+        try (var out =
+                new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(graph.edgeCount());
+            out.writeInt(graph.defenseCount());
+            out.write(graph.kind);
+            for (int i = 0; i < n; i++) {
+                out.writeDouble(graph.localTtc[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeDouble(ttc[i]);
+            }
+            writeInts(out, graph.parentOffsets);
+            writeInts(out, graph.parents);
+            writeInts(out, graph.childOffsets);
+            writeInts(out, graph.children);
+            writeInts(out, graph.defenseSteps);
+            for (boolean enabled : defenseEnabled) {
+                out.writeByte(enabled ? 1 : 0);
+            }
+            int offset = 0;
+            for (int i = 0; i < n; i++) {
+                out.writeInt(offset);
+                offset += names[i].length;
+            }
+            out.writeInt(offset);
+            for (int i = 0; i < n; i++) {
+                out.writeInt(sorted[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                out.write(names[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /** Maps a snapshot written by {@link #write}. */
+    public static GraphSnapshot open(Path file) {
+        MappedByteBuffer buffer;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(file + " is not a graph snapshot");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IllegalArgumentException(
+                    String.format("%s has version %d, expected %d", file, version, VERSION));
+        }
+        var snapshot = new GraphSnapshot(buffer, buffer.getInt(8), buffer.getInt(12), buffer.getInt(16));
+        if (snapshot.namesAt > buffer.limit()
+                || snapshot.namesAt + snapshot.nameOffset(snapshot.steps) != buffer.limit()) {
+            throw new IllegalArgumentException(file + " is truncated");
+        }
+        return snapshot;
+    }
+
+    public int stepCount() {
+        return steps;
+    }
+
+    public int edgeCount() {
+        return edges;
+    }
+
+    public int defenseCount() {
+        return defenses;
+    }
+
+    public boolean isAnd(int id) {
+        return buffer.get(HEADER + id) == AttackGraph.AND;
+    }
+
+    public double localTtc(int id) {
+        return buffer.getDouble(localTtcAt + 8 * id);
+    }
+
+    /** Solved TTC of a step, {@link GraphSolver#UNREACHED} if the attacker never reached it. */
+    public double ttc(int id) {
+        return buffer.getDouble(ttcAt + 8 * id);
+    }
+
+    /** Copies all solved TTCs, indexed by step id. */
+    public double[] ttcs() {
+        var ttc = new double[steps];
+        buffer.asReadOnlyBuffer().position(ttcAt).asDoubleBuffer().get(ttc);
+        return ttc;
+    }
+
+    public int parentCount(int id) {
+        return buffer.getInt(parentOffsetsAt + 4 * (id + 1)) - buffer.getInt(parentOffsetsAt + 4 * id);
+    }
+
+    public int parent(int id, int index) {
+        return buffer.getInt(parentsAt + 4 * (buffer.getInt(parentOffsetsAt + 4 * id) + index));
+    }
+
+    public int childCount(int id) {
+        return buffer.getInt(childOffsetsAt + 4 * (id + 1)) - buffer.getInt(childOffsetsAt + 4 * id);
+    }
+
+    public int child(int id, int index) {
+        return buffer.getInt(childrenAt + 4 * (buffer.getInt(childOffsetsAt + 4 * id) + index));
+    }
+
+    /** Id of the {@code disable} step of a defense, or -1 if it has none. */
+    public int defenseStep(int index) {
+        return buffer.getInt(defenseStepsAt + 4 * index);
+    }
+
+    public boolean defenseEnabled(int index) {
+        return buffer.get(defenseEnabledAt + index) != 0;
+    }
+
+    /** Full name of a step, for example {@code NetworkA.accessUninspected}. */
+    public String fullName(int id) {
+        int start = nameOffset(id);
+        var bytes = new byte[nameOffset(id + 1) - start];
+        buffer.asReadOnlyBuffer().position(namesAt + start).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int nameOffset(int id) {
+        return buffer.getInt(nameOffsetsAt + 4 * id);
+    }
+
+    /**
+     * Id of the step with the given full name, or -1, by binary search over the name index. If
+     * several steps share the name, any one of them is returned.
+     */
+    public int idOf(String fullName) {
+        int low = 0;
+        int high = steps - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = buffer.getInt(sortedIdsAt + 4 * middle);
+            int order = fullName(id).compareTo(fullName);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /** Whether the snapshot was taken from a graph with the same steps, edges and defenses. */
+    public boolean matches(AttackGraph graph) {
+        if (graph.stepCount() != steps
+                || graph.edgeCount() != edges
+                || graph.defenseCount() != defenses) {
+            return false;
+        }
+        for (int i = 0; i < steps; i++) {
+            if (graph.kind[i] != buffer.get(HEADER + i)
+                    || graph.parentOffsets[i + 1] != buffer.getInt(parentOffsetsAt + 4 * (i + 1))) {
+                return false;
+            }
+        }
+        for (int e = 0; e < edges; e++) {
+            if (graph.parents[e] != buffer.getInt(parentsAt + 4 * e)) {
+                return false;
+            }
+        }
+        for (int d = 0; d < defenses; d++) {
+            if (graph.defenseSteps[d] != defenseStep(d)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,229 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.Arrays;
+
+/**
+ * Shortest-TTC solver over an {@link AttackGraph}.
+ *
+ * <p>This is the same computation as the reference {@code Attacker.attack()}: attack points and the
+ * {@code disable} steps of disabled defenses start at TTC 0, an {@code |} step is reached through
+ * its cheapest parent and an {@code &} step once all of its parents are reached. Instead of scanning
+ * a set of active steps for the minimum it uses a binary heap over step ids.
+ *
+ * <p>Every {@code &} step keeps a count of parents still to be settled and the largest TTC among
+ * the settled ones, so settling a parent costs O(1) per outgoing edge instead of a scan over all
+ * parents of the child. When the count reaches zero the child is reached at that maximum plus its
+ * local TTC.
+ *
+ * <p>The solver also records for every step the parent that reached it, for an {@code &} step the
+ * parent that settled last. {@link AttackPathFinder} rebuilds attack paths from that without
+ * solving again.
+ *
+ * <p>A {@link SettleListener} sees every step the moment its TTC becomes final, in increasing TTC
+ * order, so results can be streamed out while the solve is still running.
+ *
+ * <p>A solver owns its scratch arrays and is not thread safe, but any number of solvers can share
+ * one graph. A solver records {@link SimulationMetrics} when it is given a metrics object or when
+ * metrics are enabled for the JVM.
+ */
+public final class GraphSolver {
+    public static final double UNREACHED = Double.MAX_VALUE;
+
+    /** Called on the solving thread each time a step is settled. */
+    public interface SettleListener {
+        void settled(int step, double ttc);
+    }
+
+    private final AttackGraph graph;
+    private final double[] ttc;
+    private final boolean[] settled;
+    private final int[] parentCounts;
+    private final int[] remainingParents;
+    private final double[] parentMax;
+    private final int[] predecessor;
+    private double[] lastLocalTtc;
+    private final StepQueue queue;
+    private final SimulationMetrics metrics;
+    private SettleListener listener;
+
+    public GraphSolver(AttackGraph graph) {
+        this(graph, SimulationMetrics.ENABLED ? new SimulationMetrics(graph) : null);
+    }
+
+    /** A solver that records into {@code metrics}, or records nothing if it is null. */
+    public GraphSolver(AttackGraph graph, SimulationMetrics metrics) {
+        this.graph = graph;
+        this.ttc = new double[graph.stepCount()];
+        this.settled = new boolean[graph.stepCount()];
+        this.parentCounts = new int[graph.stepCount()];
+        for (int i = 0; i < parentCounts.length; i++) {
+            parentCounts[i] = graph.parentOffsets[i + 1] - graph.parentOffsets[i];
+        }
+        this.remainingParents = new int[graph.stepCount()];
+        this.parentMax = new double[graph.stepCount()];
+        this.predecessor = new int[graph.stepCount()];
+        this.queue = new StepQueue(graph.stepCount());
+        this.metrics = metrics;
+    }
+
+    public AttackGraph graph() {
+        return graph;
+    }
+
+    /**
+     * For every step, the parent through which the last solve reached it, or -1 for attack points,
+     * disabled defenses and unreached steps. The array is overwritten by the next call.
+     */
+    public int[] predecessors() {
+        return predecessor;
+    }
+
+    /** TTCs computed by the last solve. */
+    double[] lastTtc() {
+        return ttc;
+    }
+
+    /** Local TTCs used by the last solve. */
+    double[] lastLocalTtc() {
+        return lastLocalTtc;
+    }
+
+    /** Reports settled steps of later solves to {@code listener}, or to nobody if it is null. */
+    public void setSettleListener(SettleListener listener) {
+        this.listener = listener;
+    }
+
+    /** Metrics of all solves so far, or null if this solver is not instrumented. */
+    public SimulationMetrics metrics() {
+        return metrics;
+    }
+
+    /** Solves with the defense states captured at compile time. */
+    public double[] solve(int[] attackPoints) {
+        return solve(attackPoints, graph.defenseEnabled);
+    }
+
+    /**
+     * Solves the graph and returns the TTC of every step, {@link #UNREACHED} if it cannot be reached.
+     * The returned array is owned by this solver and overwritten by the next call.
+     */
+    public double[] solve(int[] attackPoints, boolean[] defenseEnabled) {
+        return solve(attackPoints, defenseEnabled, graph.localTtc);
+    }
+
+    /** Solves with per-step local TTCs other than the compiled ones, for example sampled ones. */
+    public double[] solve(int[] attackPoints, boolean[] defenseEnabled, double[] localTtc) {
+        SimulationMetrics metrics = this.metrics;
+        SimulationMetrics.SolveEvent event = null;
+        long start = 0;
+        if (metrics != null) {
+            event = new SimulationMetrics.SolveEvent();
+            event.begin();
+            start = System.nanoTime();
+        }
+        Arrays.fill(ttc, UNREACHED);
+        Arrays.fill(settled, false);
+        Arrays.fill(predecessor, -1);
+        lastLocalTtc = localTtc;
+        System.arraycopy(parentCounts, 0, remainingParents, 0, parentCounts.length);
+        Arrays.fill(parentMax, 0);
+        queue.clear();
+        for (int attackPoint : attackPoints) {
+            seed(attackPoint);
+        }
+        for (int d = 0; d < graph.defenseSteps.length; d++) {
+            if (!defenseEnabled[d] && graph.defenseSteps[d] >= 0) {
+                seed(graph.defenseSteps[d]);
+            }
+        }
+        // Counted per solve and added to the metrics at the end, so the event describes one solve.
+        long settledCount = 0;
+        long relaxed = 0;
+        long andChecks = 0;
+        int highWater = queue.size();
+
+        int[] childOffsets = graph.childOffsets;
+        int[] children = graph.children;
+        byte[] kind = graph.kind;
+        SettleListener listener = this.listener;
+        while (!queue.isEmpty()) {
+            double current = queue.peekKey();
+            int step = queue.pop();
+            if (settled[step]) {
+                continue;
+            }
+            settled[step] = true;
+            if (listener != null) {
+                listener.settled(step, current);
+            }
+            long stepStart = metrics == null ? 0 : System.nanoTime();
+            for (int e = childOffsets[step]; e < childOffsets[step + 1]; e++) {
+                int child = children[e];
+                if (settled[child]) {
+                    continue;
+                }
+                double candidate;
+                if (kind[child] == AttackGraph.AND) {
+                    andChecks++;
+                    if (current > parentMax[child]) {
+                        parentMax[child] = current;
+                    }
+                    if (--remainingParents[child] > 0) {
+                        continue;
+                    }
+                    candidate = parentMax[child] + localTtc[child];
+                } else {
+                    candidate = current + localTtc[child];
+                }
+                if (candidate < ttc[child]) {
+                    ttc[child] = candidate;
+                    predecessor[child] = step;
+                    queue.push(child, candidate);
+                    relaxed++;
+                    if (metrics != null) {
+                        highWater = Math.max(highWater, queue.size());
+                    }
+                }
+            }
+            settledCount++;
+            if (metrics != null) {
+                metrics.stepSettled[step]++;
+                metrics.stepNanos[step] += System.nanoTime() - stepStart;
+            }
+        }
+        if (metrics != null) {
+            finish(metrics, event, start, settledCount, relaxed, andChecks, highWater);
+        }
+        return ttc;
+    }
+
+    private void finish(
+            SimulationMetrics metrics,
+            SimulationMetrics.SolveEvent event,
+            long start,
+            long settledCount,
+            long relaxed,
+            long andChecks,
+            int highWater) {
+        metrics.solves++;
+        metrics.nanos += System.nanoTime() - start;
+        metrics.settled += settledCount;
+        metrics.edgesRelaxed += relaxed;
+        metrics.andChecks += andChecks;
+        metrics.queueHighWater = Math.max(metrics.queueHighWater, highWater);
+        event.end();
+        if (event.shouldCommit()) {
+            event.steps = graph.stepCount();
+            event.settled = settledCount;
+            event.edgesRelaxed = relaxed;
+            event.andChecks = andChecks;
+            event.queueHighWater = highWater;
+            event.commit();
+        }
+    }
+
+    private void seed(int step) {
+        ttc[step] = 0;
+        queue.push(step, 0);
+    }
+}
@@ -0,0 +1,178 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.Asset;
+import core.Defense;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Transitive closure of the IAM hierarchies: which Identities and Groups are assumed once a given
+ * one is.
+ *
+ * <p>In coreLang, assuming any IAM object leads to {@code attemptAssume} on the objects it
+ * manages ({@code managedIAMs}) and on its {@code subprivileges}; assuming an Identity also leads
+ * to its {@code parentId} Identities and the Groups it is a member of ({@code memberOf}), and
+ * assuming a Group to its {@code parentGroup}s. An IAM object whose {@code notPresent} defense is
+ * enabled is never assumed that way, so edges into it are dropped; its own edges are kept, since
+ * such an object that is assumed directly, as an attack point, still passes its privileges on. The
+ * index takes those edges from an {@link AssociationIndex}, collapses cycles into strongly
+ * connected components, and stores for every component the set of components it reaches as a
+ * {@link CompressedBitSet}. Components are numbered in topological order, ancestors first, so a
+ * closure along a deep chain is a few dense words.
+ *
+ * <p>Whether assuming one object leads to another is then one lookup instead of a step-by-step
+ * expansion of the hierarchy. The index is a snapshot of the associations and defense states at
+ * the time it was built.
+ */
+public final class HierarchyClosureIndex {
+    /** Roles along which assuming an IAM object leads to assuming another. */
+    static final String[] ROLES = {
+        "parentId", "memberOf", "parentGroup", "managedIAMs", "subprivileges"
+    };
+
+    private final AssociationIndex associations;
+    private final int[] component;
+    private final int[] memberOffsets;
+    private final int[] members;
+    private final CompressedBitSet[] closure;
+
+    private HierarchyClosureIndex(
+            AssociationIndex associations,
+            int[] component,
+            int[] memberOffsets,
+            int[] members,
+            CompressedBitSet[] closure) {
+        this.associations = associations;
+        this.component = component;
+        this.memberOffsets = memberOffsets;
+        this.members = members;
+        this.closure = closure;
+    }
+
+    /** Indexes the hierarchies of the assets currently held in the global {@code core} registry. */
+    public static HierarchyClosureIndex of() {
+        return of(AssociationIndex.of());
+    }
+
+    public static HierarchyClosureIndex of(AssociationIndex associations) {
+        int n = associations.assetCount();
+        var present = new boolean[n];
+        for (int a = 0; a < n; a++) {
+            present[a] = isPresent(associations.asset(a));
+        }
+
+        // Edges into objects that are not present are dropped.
+        var edgeOffsets = new int[n + 1];
+        for (int a = 0; a < n; a++) {
+            for (String role : ROLES) {
+                int[] offsets = associations.offsets(role);
+                if (offsets == null) {
+                    continue;
+                }
+                int[] targets = associations.targets(role);
+                for (int e = offsets[a]; e < offsets[a + 1]; e++) {
+                    if (present[targets[e]]) {
+                        edgeOffsets[a + 1]++;
+                    }
+                }
+            }
+            edgeOffsets[a + 1] += edgeOffsets[a];
+        }
+        var edges = new int[edgeOffsets[n]];
+        for (int a = 0, next = 0; a < n; a++) {
+            for (String role : ROLES) {
+                int[] offsets = associations.offsets(role);
+                if (offsets == null) {
+                    continue;
+                }
+                int[] targets = associations.targets(role);
+                for (int e = offsets[a]; e < offsets[a + 1]; e++) {
+                    if (present[targets[e]]) {
+                        edges[next++] = targets[e];
+                    }
+                }
+            }
+        }
+
+        // Components are completed sinks first, that is ancestors before descendants.
+        var condensation = new Condensation(edgeOffsets, edges);
+        return new HierarchyClosureIndex(
+                associations,
+                condensation.component,
+                condensation.memberOffsets,
+                condensation.members,
+                condensation.closures());
+    }
+
+    private static boolean isPresent(Asset asset) {
+        Defense notPresent = StepCatalog.defense(asset, "notPresent");
+        return notPresent == null || !notPresent.isEnabled();
+    }
+
+    public AssociationIndex associations() {
+        return associations;
+    }
+
+    public int componentCount() {
+        return closure.length;
+    }
+
+    /** Strongly connected component of an asset; objects that assume each other share one. */
+    public int component(int asset) {
+        return component[asset];
+    }
+
+    /** Whether assuming {@code from} leads to assuming {@code to}; every asset leads to itself. */
+    public boolean reaches(int from, int to) {
+        return closure[component[from]].contains(component[to]);
+    }
+
+    public boolean reaches(Asset from, Asset to) {
+        int a = associations.id(from);
+        int b = associations.id(to);
+        if (a < 0 || b < 0) {
+            throw new IllegalArgumentException("Asset is not part of the index");
+        }
+        return reaches(a, b);
+    }
+
+    /** Ids of every asset that is assumed once {@code asset} is, including itself, in ascending order. */
+    public int[] closure(int asset) {
+        int[] reached = closure[component[asset]].toArray();
+        int size = 0;
+        for (int c : reached) {
+            size += memberOffsets[c + 1] - memberOffsets[c];
+        }
+        var ids = new int[size];
+        int next = 0;
+        for (int c : reached) {
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                ids[next++] = members[m];
+            }
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    public List<Asset> closure(Asset asset) {
+        int id = associations.id(asset);
+        if (id < 0) {
+            throw new IllegalArgumentException("Asset is not part of the index");
+        }
+        var assets = new ArrayList<Asset>();
+        for (int a : closure(id)) {
+            assets.add(associations.asset(a));
+        }
+        return assets;
+    }
+
+    /** Total number of words stored by all closures. */
+    public long closureWords() {
+        long words = 0;
+        for (CompressedBitSet set : closure) {
+            words += set.wordCount();
+        }
+        return words;
+    }
+}
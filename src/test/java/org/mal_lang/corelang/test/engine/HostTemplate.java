@@ -0,0 +1,243 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A stack of assets, such as {@code Hardware} with an OS {@code Application}, a container {@code
+ * Application}, an {@code Identity} and local {@code Data}, defined once and stamped into a {@link
+ * ModelSink} any number of times.
+ *
+ * <p>A template is recorded through its {@link Builder}, which is itself a {@link ModelSink}, so
+ * code that writes a stack into a sink can record it just as well. Assets outside the stack, such
+ * as the network a host is exposed on, are declared as ports and bound per {@link Instance}. The
+ * recorded assets, associations and defense settings are kept in flat arrays that every instance
+ * shares; an instance only holds its name, its port bindings and the defense overrides written to
+ * it, and allocates the latter on the first write. Stamping replays the template with the assets
+ * of a copy numbered consecutively, so asset {@code a} of the template is asset {@code first + a}
+ * of the sink.
+ *
+ * <p>A {@link BulkModelWriter} keeps each template once and a row per copy with its name, port
+ * bindings and overrides, in memory and in the file, so writing N hosts costs N rows rather than N
+ * stacks of assets, associations and defenses. Stamped into a {@link LiveModelSink}, or loaded
+ * into one from a file, every copy still gets its own generated objects, since those allocate
+ * their attack steps when constructed.
+ */
+public final class HostTemplate {
+    final String[] types;
+    final String[] names;
+    final String[] portNames;
+    final MalSpec.Association[] associations;
+    final int[] lefts;
+    final int[] rights;
+    final int[] defenseAssets;
+    final String[] defenses;
+    final boolean[] defenseValues;
+
+    private HostTemplate(Builder builder) {
+        this.types = builder.types.toArray(new String[0]);
+        this.names = builder.names.toArray(new String[0]);
+        this.portNames = builder.portNames.toArray(new String[0]);
+        this.associations = builder.associations.toArray(new MalSpec.Association[0]);
+        this.lefts = Arrays.copyOf(builder.lefts, associations.length);
+        this.rights = Arrays.copyOf(builder.rights, associations.length);
+        this.defenseAssets = Arrays.copyOf(builder.defenseAssets, builder.defenses.size());
+        this.defenses = builder.defenses.toArray(new String[0]);
+        this.defenseValues = Arrays.copyOf(builder.defenseValues, defenses.length);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Records a template. Assets are numbered from 0 and ports from -1 down, in the order they are
+     * added, so that an asset number is also the offset of the asset in a stamped copy.
+     */
+    public static final class Builder implements ModelSink {
+        private final List<String> types = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<String> portNames = new ArrayList<>();
+        private final List<MalSpec.Association> associations = new ArrayList<>();
+        private int[] lefts = new int[16];
+        private int[] rights = new int[16];
+        private final List<String> defenses = new ArrayList<>();
+        private int[] defenseAssets = new int[16];
+        private boolean[] defenseValues = new boolean[16];
+
+        private Builder() {}
+
+        /** Adds an asset of the stack; stamped copies are named {@code <instance>.<name>}. */
+        @Override
+        public int addAsset(String type, String name) {
+            types.add(type);
+            names.add(name);
+            return types.size() - 1;
+        }
+
+        /** Declares an asset outside the stack, such as its network, that every instance binds. */
+        public int addPort(String name) {
+            portNames.add(name);
+            return -portNames.size();
+        }
+
+        @Override
+        public void addAssociation(MalSpec.Association association, int left, int right) {
+            check(left);
+            check(right);
+            if (left < 0 && right < 0) {
+                throw new IllegalArgumentException(
+                        String.format("%s connects two ports, which no copy owns", association));
+            }
+            int at = associations.size();
+            if (at == lefts.length) {
+                lefts = Arrays.copyOf(lefts, at * 2);
+                rights = Arrays.copyOf(rights, at * 2);
+            }
+            associations.add(association);
+            lefts[at] = left;
+            rights[at] = right;
+        }
+
+        @Override
+        public void setDefense(int asset, String defense, boolean enabled) {
+            check(asset);
+            if (asset < 0) {
+                throw new IllegalArgumentException(
+                        "Defenses of port " + portNames.get(-asset - 1) + " belong to its owner");
+            }
+            int at = defenses.size();
+            if (at == defenseAssets.length) {
+                defenseAssets = Arrays.copyOf(defenseAssets, at * 2);
+                defenseValues = Arrays.copyOf(defenseValues, at * 2);
+            }
+            defenses.add(defense);
+            defenseAssets[at] = asset;
+            defenseValues[at] = enabled;
+        }
+
+        private void check(int asset) {
+            if (asset >= types.size() || -asset > portNames.size()) {
+                throw new IllegalArgumentException("No asset or port " + asset + " in the template");
+            }
+        }
+
+        public HostTemplate build() {
+            if (types.isEmpty()) {
+                throw new IllegalStateException("A template needs at least one asset");
+            }
+            return new HostTemplate(this);
+        }
+    }
+
+    /** Number of assets in one copy. */
+    public int assetCount() {
+        return types.length;
+    }
+
+    public int portCount() {
+        return portNames.length;
+    }
+
+    public int associationCount() {
+        return associations.length;
+    }
+
+    /** A copy named {@code name}, with no ports bound and no defense overrides. */
+    public Instance instance(String name) {
+        return new Instance(name);
+    }
+
+    /** One copy of the template: its name, port bindings and defense overrides. */
+    public final class Instance {
+        private final String name;
+        final int[] bindings;
+        int[] overrideAssets;
+        String[] overrides;
+        boolean[] overrideValues;
+        int overrideCount;
+
+        private Instance(String name) {
+            this.name = name;
+            this.bindings = new int[portNames.length];
+            Arrays.fill(bindings, -1);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        HostTemplate template() {
+            return HostTemplate.this;
+        }
+
+        /** Binds {@code port} of the template to asset {@code asset} of the sink. */
+        public Instance bind(int port, int asset) {
+            if (port >= 0 || -port > bindings.length) {
+                throw new IllegalArgumentException("No port " + port + " in the template");
+            }
+            bindings[-port - 1] = asset;
+            return this;
+        }
+
+        /** Overrides a defense of this copy only, on top of the settings of the template. */
+        public Instance setDefense(int asset, String defense, boolean enabled) {
+            if (asset < 0 || asset >= types.length) {
+                throw new IllegalArgumentException("No asset " + asset + " in the template");
+            }
+            if (overrides == null) {
+                overrideAssets = new int[4];
+                overrides = new String[4];
+                overrideValues = new boolean[4];
+            } else if (overrideCount == overrides.length) {
+                overrideAssets = Arrays.copyOf(overrideAssets, overrideCount * 2);
+                overrides = Arrays.copyOf(overrides, overrideCount * 2);
+                overrideValues = Arrays.copyOf(overrideValues, overrideCount * 2);
+            }
+            overrideAssets[overrideCount] = asset;
+            overrides[overrideCount] = defense;
+            overrideValues[overrideCount] = enabled;
+            overrideCount++;
+            return this;
+        }
+
+        /** Adds this copy to {@code sink} and returns the sink number of its first asset. */
+        public int stamp(ModelSink sink) {
+            for (int p = 0; p < bindings.length; p++) {
+                if (bindings[p] < 0) {
+                    throw new IllegalStateException(
+                            String.format("Port %s of %s is not bound", portNames[p], name));
+                }
+            }
+            return sink.addInstance(this);
+        }
+
+        /** Adds this copy to {@code sink} asset by asset, as {@link ModelSink#addInstance} does. */
+        int replay(ModelSink sink) {
+            int first = -1;
+            for (int a = 0; a < types.length; a++) {
+                int number = sink.addAsset(types[a], name + "." + names[a]);
+                if (first < 0) {
+                    first = number;
+                } else if (number != first + a) {
+                    throw new IllegalStateException("Sink does not number assets consecutively");
+                }
+            }
+            for (int i = 0; i < associations.length; i++) {
+                sink.addAssociation(associations[i], resolve(first, lefts[i]), resolve(first, rights[i]));
+            }
+            for (int i = 0; i < defenses.length; i++) {
+                sink.setDefense(first + defenseAssets[i], defenses[i], defenseValues[i]);
+            }
+            for (int i = 0; i < overrideCount; i++) {
+                sink.setDefense(first + overrideAssets[i], overrides[i], overrideValues[i]);
+            }
+            return first;
+        }
+
+        private int resolve(int first, int number) {
+            return number >= 0 ? first + number : bindings[-number - 1];
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.AttackStep;
+import core.Defense;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the last solved state of a model and re-settles only the steps affected by an edit.
+ *
+ * <p>An edit (flipping a defense, adding or removing an attack point, or adding assets and
+ * associations followed by {@link #modelChanged()}) yields a set of root steps whose inputs
+ * changed. Every step whose current TTC is tight on a root, directly or transitively, may get
+ * more expensive and is invalidated; an {@code &} step is invalidated as soon as any reached parent
+ * is. Invalidated steps are reset and re-seeded from their settled parents, and a label-correcting
+ * pass over a heap then settles them and pushes any decrease further down the graph. The result
+ * is the same fixpoint a full {@link GraphSolver} run computes, bit for bit, because every TTC is
+ * the same sum of local TTCs along its cheapest derivation.
+ *
+ * <p>During a repair every {@code &} step counts its parents that are not final yet (invalidated,
+ * queued or unreached) and is only evaluated once that count drops to zero. Settling a parent
+ * costs O(1) per {@code &} child rather than a scan over all of the child's parents. This matters
+ * for hubs such as {@code Information.attemptWriteFromReplica}, whose parents are the {@code write}
+ * steps of every replica.
+ *
+ * <p>Steps whose TTC changed are written back into {@code AttackStep.ttc} after every edit.
+ */
+public final class IncrementalSolver {
+    private final Supplier<AttackGraph> compiler;
+    private final List<AttackStep> attackPoints = new ArrayList<>();
+    private final Map<Defense, Boolean> defenseOverrides = new IdentityHashMap<>();
+
+    private AttackGraph graph;
+    private double[] ttc;
+    private boolean[] seed;
+    private boolean[] defenseEnabled;
+    private boolean[] affected;
+    private boolean[] pending;
+    private boolean[] queued;
+    private int[] openParents;
+    private int[] openParentsEpoch;
+    private int epoch;
+    private final StepQueue queue = new StepQueue(1024);
+    private int[] stack = new int[1024];
+    private int lastAffected;
+
+    public IncrementalSolver(Supplier<AttackGraph> compiler) {
+        this.compiler = compiler;
+    }
+
+    /** A solver over the model held in the static {@code core} registries. */
+    public static IncrementalSolver forGlobalModel() {
+        return new IncrementalSolver(AttackGraph::compile);
+    }
+
+    public static IncrementalSolver forContext(ModelContext context) {
+        return new IncrementalSolver(context::compile);
+    }
+
+    public AttackGraph graph() {
+        return graph;
+    }
+
+    /** Current TTC of every step, indexed by the ids of {@link #graph()}. */
+    public double[] ttc() {
+        return ttc;
+    }
+
+    public double ttc(AttackStep attackStep) {
+        return ttc[graph.id(attackStep)];
+    }
+
+    /** Defense states in effect, indexed like {@link AttackGraph#defense(int)}. */
+    public boolean[] defenseStates() {
+        return defenseEnabled.clone();
+    }
+
+    /** Number of steps invalidated by the last edit, or all steps after a full solve. */
+    public int lastAffectedCount() {
+        return lastAffected;
+    }
+
+    public void addAttackPoint(AttackStep attackPoint) {
+        attackPoints.add(attackPoint);
+        if (graph != null) {
+            reseed();
+        }
+    }
+
+    public void removeAttackPoint(AttackStep attackPoint) {
+        attackPoints.remove(attackPoint);
+        if (graph != null) {
+            reseed();
+        }
+    }
+
+    /** Compiles and fully solves the model. */
+    public void solve() {
+        graph = compiler.get();
+        allocate();
+        applyDefenseOverrides();
+        updateSeeds(null);
+        var solver = new GraphSolver(graph);
+        System.arraycopy(solver.solve(graph.ids(attackPoints), defenseEnabled), 0, ttc, 0, ttc.length);
+        lastAffected = ttc.length;
+        graph.writeBack(ttc);
+    }
+
+    /**
+     * Overrides the state of a defense for this solver. The {@code Defense} object itself is not
+     * modified.
+     */
+    public void setDefense(Defense defense, boolean enabled) {
+        defenseOverrides.put(defense, enabled);
+        if (graph == null) {
+            return;
+        }
+        int index = graph.defenseIndex(defense);
+        if (index < 0 || defenseEnabled[index] == enabled) {
+            return;
+        }
+        defenseEnabled[index] = enabled;
+        reseed();
+    }
+
+    /**
+     * Picks up assets and associations added since the last solve. The model is recompiled, which
+     * is linear in its size, but only steps whose parents changed (and what depends on them) are
+     * re-settled.
+     */
+    public void modelChanged() {
+        AttackGraph previous = graph;
+        double[] previousTtc = ttc;
+        boolean[] previousSeed = seed;
+        graph = compiler.get();
+        allocate();
+        applyDefenseOverrides();
+
+        var roots = new IntList();
+        var mapped = new int[previous.stepCount()];
+        for (int i = 0; i < previous.stepCount(); i++) {
+            Integer id = graph.idOrNull(previous.step(i));
+            mapped[i] = id == null ? -1 : id;
+        }
+        var known = new boolean[graph.stepCount()];
+        for (int i = 0; i < previous.stepCount(); i++) {
+            int id = mapped[i];
+            if (id < 0) {
+                continue;
+            }
+            known[id] = true;
+            ttc[id] = previousTtc[i];
+            if (graph.kind[id] != previous.kind[i]
+                    || graph.localTtc[id] != previous.localTtc[i]
+                    || !sameParents(previous, i, id, mapped)) {
+                roots.add(id);
+            }
+        }
+        for (int id = 0; id < graph.stepCount(); id++) {
+            if (!known[id]) {
+                ttc[id] = GraphSolver.UNREACHED;
+                roots.add(id);
+            }
+        }
+        updateSeeds(null);
+        for (int i = 0; i < previous.stepCount(); i++) {
+            if (mapped[i] >= 0 && previousSeed[i] != seed[mapped[i]]) {
+                roots.add(mapped[i]);
+            }
+        }
+        repair(roots);
+    }
+
+    private boolean sameParents(AttackGraph previous, int oldId, int newId, int[] mapped) {
+        int oldCount = previous.parentOffsets[oldId + 1] - previous.parentOffsets[oldId];
+        int newCount = graph.parentOffsets[newId + 1] - graph.parentOffsets[newId];
+        if (oldCount != newCount) {
+            return false;
+        }
+        var oldParents = new int[oldCount];
+        for (int e = 0; e < oldCount; e++) {
+            oldParents[e] = mapped[previous.parents[previous.parentOffsets[oldId] + e]];
+        }
+        var newParents =
+                Arrays.copyOfRange(graph.parents, graph.parentOffsets[newId], graph.parentOffsets[newId + 1]);
+        Arrays.sort(oldParents);
+        Arrays.sort(newParents);
+        return Arrays.equals(oldParents, newParents);
+    }
+
+    private void allocate() {
+        int n = graph.stepCount();
+        ttc = new double[n];
+        seed = new boolean[n];
+        affected = new boolean[n];
+        pending = new boolean[n];
+        queued = new boolean[n];
+        openParents = new int[n];
+        openParentsEpoch = new int[n];
+        defenseEnabled = graph.defenseStates();
+    }
+
+    private void applyDefenseOverrides() {
+        for (var entry : defenseOverrides.entrySet()) {
+            int index = graph.defenseIndex(entry.getKey());
+            if (index >= 0) {
+                defenseEnabled[index] = entry.getValue();
+            }
+        }
+    }
+
+    /** Recomputes the seed flags; steps whose flag flipped are added to {@code roots}. */
+    private void updateSeeds(IntList roots) {
+        var next = new boolean[graph.stepCount()];
+        for (AttackStep attackPoint : attackPoints) {
+            next[graph.id(attackPoint)] = true;
+        }
+        for (int d = 0; d < graph.defenseCount(); d++) {
+            if (!defenseEnabled[d] && graph.defenseSteps[d] >= 0) {
+                next[graph.defenseSteps[d]] = true;
+            }
+        }
+        if (roots != null) {
+            for (int i = 0; i < next.length; i++) {
+                if (next[i] != seed[i]) {
+                    roots.add(i);
+                }
+            }
+        }
+        seed = next;
+    }
+
+    private void reseed() {
+        var roots = new IntList();
+        updateSeeds(roots);
+        repair(roots);
+    }
+
+    private void repair(IntList roots) {
+        int[] childOffsets = graph.childOffsets;
+        int[] children = graph.children;
+        byte[] kind = graph.kind;
+        double[] localTtc = graph.localTtc;
+
+        // Mark every step whose TTC may increase, using the TTCs from before the edit.
+        var invalidated = new IntList();
+        int top = 0;
+        for (int r = 0; r < roots.size; r++) {
+            int root = roots.values[r];
+            if (!affected[root]) {
+                affected[root] = true;
+                invalidated.add(root);
+                top = push(top, root);
+            }
+        }
+        while (top > 0) {
+            int step = stack[--top];
+            if (ttc[step] == GraphSolver.UNREACHED) {
+                continue;
+            }
+            for (int e = childOffsets[step]; e < childOffsets[step + 1]; e++) {
+                int child = children[e];
+                if (affected[child] || ttc[child] == GraphSolver.UNREACHED || seed[child]) {
+                    continue;
+                }
+                if (kind[child] == AttackGraph.AND || ttc[step] + localTtc[child] == ttc[child]) {
+                    affected[child] = true;
+                    invalidated.add(child);
+                    top = push(top, child);
+                }
+            }
+        }
+        lastAffected = invalidated.size;
+
+        var touched = new IntList();
+        for (int i = 0; i < invalidated.size; i++) {
+            int step = invalidated.values[i];
+            ttc[step] = GraphSolver.UNREACHED;
+            pending[step] = true;
+            touched.add(step);
+        }
+
+        // Re-seed invalidated steps from the parents that kept their TTC.
+        queue.clear();
+        epoch++;
+        for (int i = 0; i < invalidated.size; i++) {
+            int step = invalidated.values[i];
+            double candidate = seed[step] ? 0 : fromParents(step);
+            if (candidate < ttc[step]) {
+                ttc[step] = candidate;
+                queued[step] = true;
+                queue.push(step, candidate);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            double current = queue.peekKey();
+            int step = queue.pop();
+            if (current > ttc[step]) {
+                continue;
+            }
+            pending[step] = false;
+            queued[step] = false;
+            for (int e = childOffsets[step]; e < childOffsets[step + 1]; e++) {
+                int child = children[e];
+                double candidate;
+                if (kind[child] == AttackGraph.AND) {
+                    if (openParentsEpoch[child] != epoch) {
+                        countOpenParents(child);
+                    } else {
+                        openParents[child]--;
+                    }
+                    if (openParents[child] > 0) {
+                        continue;
+                    }
+                    candidate = fromParents(child);
+                } else {
+                    candidate = current + localTtc[child];
+                }
+                if (candidate < ttc[child]) {
+                    if (!affected[child]) {
+                        affected[child] = true;
+                        touched.add(child);
+                    }
+                    if (!queued[child] && !pending[child] && ttc[child] != GraphSolver.UNREACHED) {
+                        reopen(child);
+                    }
+                    ttc[child] = candidate;
+                    queued[child] = true;
+                    queue.push(child, candidate);
+                }
+            }
+        }
+
+        for (int i = 0; i < touched.size; i++) {
+            int step = touched.values[i];
+            affected[step] = false;
+            pending[step] = false;
+            graph.steps[step].ttc = ttc[step];
+        }
+    }
+
+    /** Counts the parents of an {@code &} step that are invalidated, queued or unreached. */
+    private void countOpenParents(int step) {
+        int open = 0;
+        for (int e = graph.parentOffsets[step]; e < graph.parentOffsets[step + 1]; e++) {
+            int parent = graph.parents[e];
+            if (pending[parent] || queued[parent] || ttc[parent] == GraphSolver.UNREACHED) {
+                open++;
+            }
+        }
+        openParents[step] = open;
+        openParentsEpoch[step] = epoch;
+    }
+
+    /** A final step is about to get a lower TTC, so its counted {@code &} children wait for it again. */
+    private void reopen(int step) {
+        for (int e = graph.childOffsets[step]; e < graph.childOffsets[step + 1]; e++) {
+            int child = graph.children[e];
+            if (graph.kind[child] == AttackGraph.AND && openParentsEpoch[child] == epoch) {
+                openParents[child]++;
+            }
+        }
+    }
+
+    /** TTC of a step computed from its parents that are settled, ignoring pending ones. */
+    private double fromParents(int step) {
+        double localTtc = graph.localTtc[step];
+        if (graph.kind[step] == AttackGraph.AND) {
+            double max = 0;
+            for (int e = graph.parentOffsets[step]; e < graph.parentOffsets[step + 1]; e++) {
+                int parent = graph.parents[e];
+                if (pending[parent] || ttc[parent] == GraphSolver.UNREACHED) {
+                    return GraphSolver.UNREACHED;
+                }
+                max = Math.max(max, ttc[parent]);
+            }
+            return graph.parentOffsets[step] == graph.parentOffsets[step + 1]
+                    ? GraphSolver.UNREACHED
+                    : max + localTtc;
+        }
+        double min = GraphSolver.UNREACHED;
+        for (int e = graph.parentOffsets[step]; e < graph.parentOffsets[step + 1]; e++) {
+            int parent = graph.parents[e];
+            if (!pending[parent] && ttc[parent] != GraphSolver.UNREACHED) {
+                min = Math.min(min, ttc[parent] + localTtc);
+            }
+        }
+        return min;
+    }
+
+    private int push(int top, int step) {
+        if (top == stack.length) {
+            stack = Arrays.copyOf(stack, top * 2);
+        }
+        stack[top] = step;
+        return top + 1;
+    }
+}
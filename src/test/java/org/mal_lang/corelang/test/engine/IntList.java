@@ -0,0 +1,20 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.Arrays;
+
+/** Growable list of ints, with its array and size open to the passes of this package. */
+final class IntList {
+    int[] values = new int[16];
+    int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
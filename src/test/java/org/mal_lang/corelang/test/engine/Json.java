@@ -0,0 +1,22 @@
+package org.mal_lang.corelang.test.engine;
+
+/** JSON text written by the server, result streams and metrics of this package. */
+final class Json {
+    private Json() {}
+
+    /** Appends {@code value} as a JSON string, escaping quotes, backslashes and control characters. */
+    static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,581 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.Asset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evaluates the {@code let} set expressions of a model over an {@link AssociationIndex} and keeps
+ * the results.
+ *
+ * <p>Expressions such as {@code netConnections \/ outgoingNetConnections} or {@code
+ * allNetConnections().applications} are parsed once per expression text. The value of a {@code
+ * let} for an asset is computed the first time it is asked for and stored as a sorted array of
+ * asset ids, which every later lookup, including lookups from other {@code let}s, returns as is.
+ * Every lookup first {@link AssociationIndex#refresh() refreshes} the index, and all stored values
+ * are dropped when its {@link AssociationIndex#version() version} changes, so an association
+ * reported to the index is seen by the next lookup.
+ *
+ * <p>Supported operators are union {@code \/}, intersection {@code /\}, difference {@code -},
+ * navigation {@code .}, transitive closure {@code *} (one or more steps), type filters {@code
+ * [Type]} and calls to other {@code let}s. Arrays returned by this class are shared and must not be
+ * modified. Instances are not thread-safe.
+ */
+public final class LetEvaluator {
+    private static final int[] EMPTY = new int[0];
+
+    private final MalSpec spec;
+    private final AssociationIndex index;
+    private final Map<String, Node> parsed = new HashMap<>();
+    private final Map<String, int[][]> values = new HashMap<>();
+    private final Map<String, int[][]> expressionValues = new HashMap<>();
+    private int version;
+
+    public LetEvaluator(MalSpec spec, AssociationIndex index) {
+        this.spec = spec;
+        this.index = index;
+        this.version = index.version();
+    }
+
+    public MalSpec spec() {
+        return spec;
+    }
+
+    public AssociationIndex index() {
+        return index;
+    }
+
+    public int[] evaluate(Asset asset, String let) {
+        int id = index.id(asset);
+        if (id < 0) {
+            throw new IllegalArgumentException("Asset is not part of the index: " + asset.name);
+        }
+        return evaluate(id, let);
+    }
+
+    /** Ids of the assets in {@code let} evaluated for asset {@code id}. */
+    public int[] evaluate(int id, String let) {
+        refresh();
+        String type = index.asset(id).getClass().getSimpleName();
+        int[][] cached =
+                values.computeIfAbsent(type + "." + let, key -> new int[index.assetCount()][]);
+        if (cached[id] != null) {
+            return cached[id];
+        }
+        String expression = spec.let(type, let);
+        if (expression == null) {
+            throw new IllegalArgumentException("No let " + let + " in " + type);
+        }
+        int[] result = parse(expression).apply(new int[] {id});
+        cached[id] = result;
+        return result;
+    }
+
+    /**
+     * Evaluates an arbitrary set expression for asset {@code id}. The result is kept per asset type
+     * and expression text, like the value of a {@code let}.
+     */
+    public int[] evaluateExpression(int id, String expression) {
+        refresh();
+        String type = index.asset(id).getClass().getSimpleName();
+        int[][] cached =
+                expressionValues.computeIfAbsent(
+                        type + "." + expression, key -> new int[index.assetCount()][]);
+        if (cached[id] == null) {
+            cached[id] = parse(expression).apply(new int[] {id});
+        }
+        return cached[id];
+    }
+
+    /**
+     * Roles navigated under a transitive closure {@code *} in any reach of the spec, including the
+     * roles of the {@code let}s such a closure calls.
+     */
+    public Set<String> closureRoles() {
+        var roles = new HashSet<String>();
+        for (String expression : reachExpressions()) {
+            parse(expression).addClosureRoles(roles, false);
+        }
+        return roles;
+    }
+
+    /**
+     * Largest number of association links any reach of the spec follows from the asset of the
+     * reaching step to the assets it reaches, expanding calls to {@code let}s. A link of an
+     * association with one of the {@link #closureRoles()} is not counted, since a closure follows any
+     * number of them. A step whose parents are derived from these reaches thus has them all within
+     * that many counted links of its asset.
+     */
+    public int reachHops() {
+        Set<String> free = closureRoles();
+        int hops = 0;
+        for (String expression : reachExpressions()) {
+            hops = Math.max(hops, parse(expression).hops(free));
+        }
+        return hops;
+    }
+
+    /** The set expressions of all reaches of the spec, without their step names. */
+    private Set<String> reachExpressions() {
+        var expressions = new HashSet<String>();
+        for (MalSpec.AssetSpec asset : spec.assets().values()) {
+            for (MalSpec.Step step : asset.steps.values()) {
+                for (String reach : step.reaches) {
+                    int dot = SpecParents.lastTopLevelDot(reach);
+                    if (dot >= 0) {
+                        expressions.add(reach.substring(0, dot));
+                    }
+                }
+            }
+        }
+        return expressions;
+    }
+
+    /** Refreshes the index and drops all stored values if its version changed. */
+    private void refresh() {
+        index.refresh();
+        if (version != index.version()) {
+            values.clear();
+            expressionValues.clear();
+            version = index.version();
+        }
+    }
+
+    private Node parse(String expression) {
+        Node node = parsed.get(expression);
+        if (node == null) {
+            node = new Parser(expression).parse();
+            parsed.put(expression, node);
+        }
+        return node;
+    }
+
+    /** A set expression, applied to a sorted set of source assets. */
+    private abstract static class Node {
+        abstract int[] apply(int[] from);
+
+        /** Largest number of links an evaluation follows, not counting links of {@code free} roles. */
+        abstract int hops(Set<String> free);
+
+        /** Adds the roles navigated under a closure to {@code roles}; {@code closed} if this is one. */
+        abstract void addClosureRoles(Set<String> roles, boolean closed);
+    }
+
+    private final class Navigate extends Node {
+        private final String role;
+
+        Navigate(String role) {
+            this.role = role;
+        }
+
+        @Override
+        int[] apply(int[] from) {
+            int[] offsets = index.offsets(role);
+            if (offsets == null) {
+                return EMPTY;
+            }
+            int[] targets = index.targets(role);
+            if (from.length == 1) {
+                return Arrays.copyOfRange(targets, offsets[from[0]], offsets[from[0] + 1]);
+            }
+            int size = 0;
+            for (int a : from) {
+                size += offsets[a + 1] - offsets[a];
+            }
+            var result = new int[size];
+            int n = 0;
+            for (int a : from) {
+                int length = offsets[a + 1] - offsets[a];
+                System.arraycopy(targets, offsets[a], result, n, length);
+                n += length;
+            }
+            return sortedDistinct(result, n);
+        }
+
+        @Override
+        int hops(Set<String> free) {
+            return free.contains(role) ? 0 : 1;
+        }
+
+        @Override
+        void addClosureRoles(Set<String> roles, boolean closed) {
+            if (closed) {
+                roles.add(role);
+            }
+        }
+    }
+
+    private final class Call extends Node {
+        private final String let;
+
+        Call(String let) {
+            this.let = let;
+        }
+
+        @Override
+        int[] apply(int[] from) {
+            int[] result = EMPTY;
+            for (int a : from) {
+                result = union(result, evaluate(a, let));
+            }
+            return result;
+        }
+
+        @Override
+        int hops(Set<String> free) {
+            int hops = 0;
+            for (MalSpec.AssetSpec asset : spec.assets().values()) {
+                String expression = asset.lets.get(let);
+                if (expression != null) {
+                    hops = Math.max(hops, parse(expression).hops(free));
+                }
+            }
+            return hops;
+        }
+
+        @Override
+        void addClosureRoles(Set<String> roles, boolean closed) {
+            for (MalSpec.AssetSpec asset : spec.assets().values()) {
+                String expression = asset.lets.get(let);
+                if (expression != null) {
+                    parse(expression).addClosureRoles(roles, closed);
+                }
+            }
+        }
+    }
+
+    private final class TypeFilter extends Node {
+        private final String type;
+
+        TypeFilter(String type) {
+            this.type = type;
+        }
+
+        @Override
+        int[] apply(int[] from) {
+            var result = new int[from.length];
+            int n = 0;
+            for (int a : from) {
+                if (isInstance(index.asset(a), type)) {
+                    result[n++] = a;
+                }
+            }
+            return n == result.length ? from : Arrays.copyOf(result, n);
+        }
+
+        @Override
+        int hops(Set<String> free) {
+            return 0;
+        }
+
+        @Override
+        void addClosureRoles(Set<String> roles, boolean closed) {}
+    }
+
+    private static final class Chain extends Node {
+        private final Node first;
+        private final Node then;
+
+        Chain(Node first, Node then) {
+            this.first = first;
+            this.then = then;
+        }
+
+        @Override
+        int[] apply(int[] from) {
+            return then.apply(first.apply(from));
+        }
+
+        @Override
+        int hops(Set<String> free) {
+            return first.hops(free) + then.hops(free);
+        }
+
+        @Override
+        void addClosureRoles(Set<String> roles, boolean closed) {
+            first.addClosureRoles(roles, closed);
+            then.addClosureRoles(roles, closed);
+        }
+    }
+
+    private static final class Transitive extends Node {
+        private final Node step;
+
+        Transitive(Node step) {
+            this.step = step;
+        }
+
+        @Override
+        int[] apply(int[] from) {
+            int[] result = step.apply(from);
+            int[] frontier = result;
+            while (frontier.length > 0) {
+                int[] next = difference(step.apply(frontier), result);
+                result = union(result, next);
+                frontier = next;
+            }
+            return result;
+        }
+
+        @Override
+        int hops(Set<String> free) {
+            return step.hops(free);
+        }
+
+        @Override
+        void addClosureRoles(Set<String> roles, boolean closed) {
+            step.addClosureRoles(roles, true);
+        }
+    }
+
+    private static final class SetOperation extends Node {
+        private final char operator;
+        private final Node left;
+        private final Node right;
+
+        SetOperation(char operator, Node left, Node right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int[] apply(int[] from) {
+            int[] a = left.apply(from);
+            int[] b = right.apply(from);
+            switch (operator) {
+                case '|':
+                    return union(a, b);
+                case '&':
+                    return intersection(a, b);
+                default:
+                    return difference(a, b);
+            }
+        }
+
+        @Override
+        int hops(Set<String> free) {
+            return Math.max(left.hops(free), right.hops(free));
+        }
+
+        @Override
+        void addClosureRoles(Set<String> roles, boolean closed) {
+            left.addClosureRoles(roles, closed);
+            right.addClosureRoles(roles, closed);
+        }
+    }
+
+    private static boolean isInstance(Asset asset, String type) {
+        for (Class<?> c = asset.getClass(); c != null && c != Asset.class; c = c.getSuperclass()) {
+            if (c.getSimpleName().equals(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] sortedDistinct(int[] values, int size) {
+        Arrays.sort(values, 0, size);
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (n == 0 || values[n - 1] != values[i]) {
+                values[n++] = values[i];
+            }
+        }
+        return n == values.length ? values : Arrays.copyOf(values, n);
+    }
+
+    static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        var result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[n++] = b[j++];
+            } else {
+                result[n++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[n++] = a[i++];
+        }
+        while (j < b.length) {
+            result[n++] = b[j++];
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    static int[] intersection(int[] a, int[] b) {
+        var result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i++];
+                j++;
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    static int[] difference(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return a;
+        }
+        var result = new int[a.length];
+        int j = 0;
+        int n = 0;
+        for (int value : a) {
+            while (j < b.length && b[j] < value) {
+                j++;
+            }
+            if (j == b.length || b[j] != value) {
+                result[n++] = value;
+            }
+        }
+        return n == result.length ? a : Arrays.copyOf(result, n);
+    }
+
+    /** Recursive-descent parser for the set expressions used in {@code let} declarations. */
+    private final class Parser {
+        private final List<String> tokens = new ArrayList<>();
+        private int position;
+
+        Parser(String expression) {
+            int i = 0;
+            while (i < expression.length()) {
+                char c = expression.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (expression.startsWith("\\/", i) || expression.startsWith("/\\", i)) {
+                    tokens.add(expression.substring(i, i + 2));
+                    i += 2;
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    int end = i + 1;
+                    while (end < expression.length()
+                            && Character.isJavaIdentifierPart(expression.charAt(end))) {
+                        end++;
+                    }
+                    tokens.add(expression.substring(i, end));
+                    i = end;
+                } else if ("().*[]-".indexOf(c) >= 0) {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else {
+                    throw new IllegalArgumentException(
+                            "Unexpected '" + c + "' in set expression: " + expression);
+                }
+            }
+        }
+
+        Node parse() {
+            Node node = expression();
+            if (position != tokens.size()) {
+                throw error();
+            }
+            return node;
+        }
+
+        private Node expression() {
+            Node node = chain();
+            while (position < tokens.size()) {
+                String token = tokens.get(position);
+                char operator;
+                if (token.equals("\\/")) {
+                    operator = '|';
+                } else if (token.equals("/\\")) {
+                    operator = '&';
+                } else if (token.equals("-")) {
+                    operator = '-';
+                } else {
+                    break;
+                }
+                position++;
+                node = new SetOperation(operator, node, chain());
+            }
+            return node;
+        }
+
+        private Node chain() {
+            Node node = step();
+            while (true) {
+                if (!accept(".")) {
+                    break;
+                }
+                node = new Chain(node, step());
+            }
+            return node;
+        }
+
+        private Node step() {
+            Node node;
+            if (accept("(")) {
+                node = expression();
+                expect(")");
+            } else {
+                String name = identifier();
+                if (accept("(")) {
+                    expect(")");
+                    node = new Call(name);
+                } else {
+                    node = new Navigate(name);
+                }
+            }
+            while (accept("*")) {
+                node = new Transitive(node);
+            }
+            while (accept("[")) {
+                node = new Chain(node, new TypeFilter(identifier()));
+                expect("]");
+            }
+            return node;
+        }
+
+        private String identifier() {
+            if (position == tokens.size()
+                    || !Character.isJavaIdentifierStart(tokens.get(position).charAt(0))) {
+                throw error();
+            }
+            return tokens.get(position++);
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equals(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw error();
+            }
+        }
+
+        private IllegalArgumentException error() {
+            return new IllegalArgumentException(
+                    "Malformed set expression " + String.join(" ", tokens) + " at token " + position);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.Asset;
+import core.Defense;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds a model out of the generated asset classes.
+ *
+ * <p>The constructor {@code (String name)} of every asset class and the {@code add<Role>} method
+ * of every association are looked up once, as {@link MethodHandle}s adapted to take plain {@link
+ * Asset}s, and shared by all sinks. Adding an asset or an association after that is one exact
+ * handle invocation, without reflection or name lookups. An association {@code A [roleA] <-- Name
+ * --> [roleB] B} is added by calling {@code b.addRoleA(a)}, which the generated code mirrors into
+ * {@code a.roleB}.
+ *
+ * <p>New assets register themselves in the static {@code core} lists as usual; run the sink inside
+ * {@link ModelContext#build} to keep the model separate.
+ */
+public final class LiveModelSink implements ModelSink {
+    /** Package of the classes generated from coreLang for the tests. */
+    public static final String DEFAULT_PACKAGE = "org.mal_lang.corelang.test";
+
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(Asset.class, String.class);
+    private static final MethodType ADDER = MethodType.methodType(void.class, Asset.class, Asset.class);
+    private static final Map<String, MethodHandle> CONSTRUCTORS = new ConcurrentHashMap<>();
+    private static final Map<String, MethodHandle> ADDERS = new ConcurrentHashMap<>();
+
+    private final String packageName;
+    private final List<Asset> assets = new ArrayList<>();
+    private final Map<String, MethodHandle> constructors = new HashMap<>();
+    private final Map<MalSpec.Association, MethodHandle> adders = new HashMap<>();
+    private final Map<Class<?>, Map<String, Field>> defenseFields = new HashMap<>();
+    private final List<AssociationIndex> indexes = new ArrayList<>();
+
+    public LiveModelSink() {
+        this(DEFAULT_PACKAGE);
+    }
+
+    public LiveModelSink(String packageName) {
+        this.packageName = packageName;
+    }
+
+    /** The assets added so far, indexed by their number. */
+    public List<Asset> assets() {
+        return Collections.unmodifiableList(assets);
+    }
+
+    /** Reports every association added from now on to {@code index}. */
+    public void track(AssociationIndex index) {
+        indexes.add(index);
+    }
+
+    @Override
+    public int addAsset(String type, String name) {
+        MethodHandle constructor = constructors.get(type);
+        if (constructor == null) {
+            constructor = CONSTRUCTORS.computeIfAbsent(packageName + "." + type, LiveModelSink::constructor);
+            constructors.put(type, constructor);
+        }
+        try {
+            assets.add((Asset) constructor.invokeExact(name));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create " + type + " " + name, e);
+        }
+        return assets.size() - 1;
+    }
+
+    @Override
+    public void addAssociation(MalSpec.Association association, int left, int right) {
+        MethodHandle adder = adders.get(association);
+        if (adder == null) {
+            adder =
+                    ADDERS.computeIfAbsent(
+                            packageName + ":" + association,
+                            key -> adder(packageName, association));
+            adders.put(association, adder);
+        }
+        try {
+            adder.invokeExact(assets.get(right), assets.get(left));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not add " + association, e);
+        }
+        for (AssociationIndex index : indexes) {
+            index.associationAdded();
+        }
+    }
+
+    @Override
+    public void setDefense(int asset, String defense, boolean enabled) {
+        Asset owner = assets.get(asset);
+        Field field =
+                defenseFields
+                        .computeIfAbsent(owner.getClass(), LiveModelSink::defenseFields)
+                        .get(defense);
+        if (field == null) {
+            throw new IllegalArgumentException(
+                    owner.getClass().getSimpleName() + " has no defense " + defense);
+        }
+        try {
+            ((Defense) field.get(owner)).defaultValue = enabled;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle constructor(String className) {
+        try {
+            Class<?> type = Class.forName(className);
+            return MethodHandles.publicLookup()
+                    .findConstructor(type, MethodType.methodType(void.class, String.class))
+                    .asType(CONSTRUCTOR);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("No asset class " + className, e);
+        }
+    }
+
+    private static MethodHandle adder(String packageName, MalSpec.Association association) {
+        String role = association.leftRole;
+        String method = "add" + Character.toUpperCase(role.charAt(0)) + role.substring(1);
+        try {
+            Class<?> right = Class.forName(packageName + "." + association.rightType);
+            Class<?> left = Class.forName(packageName + "." + association.leftType);
+            return MethodHandles.publicLookup()
+                    .findVirtual(right, method, MethodType.methodType(void.class, left))
+                    .asType(ADDER);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("No method " + method + " for " + association, e);
+        }
+    }
+
+    private static Map<String, Field> defenseFields(Class<?> type) {
+        var fields = new HashMap<String, Field>();
+        for (Field field : StepCatalog.memberFields(type)) {
+            if (Defense.class.isAssignableFrom(field.getType())) {
+                fields.put(field.getName(), field);
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,337 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal reader for the parts of the coreLang .mal sources that the engine needs at run time,
+ * such as the TTC distributions of attack steps, the default values of defenses, {@code let}
+ * expressions, the steps each step reaches and associations.
+ *
+ * <p>This is not a MAL parser: it recognizes asset headers and step declarations line by line and
+ * relies on the formatting used in {@code src/main/mal}.
+ */
+public final class MalSpec {
+    private static final Pattern INCLUDE = Pattern.compile("^\\s*include\\s+\"([^\"]+)\"");
+    private static final Pattern ASSET =
+            Pattern.compile("^\\s*(?:abstract\\s+)?asset\\s+(\\w+)(?:\\s+extends\\s+(\\w+))?");
+    private static final Pattern STEP =
+            Pattern.compile(
+                    "^\\s*(\\||&|#|!E|E)\\s+(\\w+)((?:\\s+@\\w+)*)\\s*(?:\\{[^}]*\\})?\\s*(?:\\[([^\\]]+)\\])?");
+    private static final Pattern ASSOCIATION =
+            Pattern.compile(
+                    "^\\s*(\\w+)\\s*\\[(\\w+)\\]\\s*([\\d.*]+)\\s*<--\\s*(\\w+)\\s*-->\\s*([\\d.*]+)\\s*\\[(\\w+)\\]\\s*(\\w+)");
+    private static final Pattern LET = Pattern.compile("^\\s*let\\s+(\\w+)\\s*=\\s*(.+?)\\s*$");
+
+    public static final class Step {
+        public final String type;
+        public final String name;
+        public final Set<String> tags;
+        public final String ttc;
+        /**
+         * The expressions after {@code ->} or {@code +>}, such as {@code applications.attemptDeny},
+         * as written.
+         */
+        public final List<String> reaches = new ArrayList<>();
+        /** Whether the reaches were declared with {@code +>} and add to the inherited ones. */
+        boolean appendsReaches;
+
+        Step(String type, String name, Set<String> tags, String ttc) {
+            this.type = type;
+            this.name = name;
+            this.tags = tags;
+            this.ttc = ttc;
+        }
+
+        public boolean isDefense() {
+            return type.equals("#");
+        }
+    }
+
+    public static final class AssetSpec {
+        public final String name;
+        public final String superAsset;
+        public final Map<String, Step> steps = new LinkedHashMap<>();
+        /** Set expressions declared with {@code let}, by name. */
+        public final Map<String, String> lets = new LinkedHashMap<>();
+
+        AssetSpec(String name, String superAsset) {
+            this.name = name;
+            this.superAsset = superAsset;
+        }
+    }
+
+    /**
+     * An association {@code LeftType [leftRole] m <-- Name --> m [rightRole] RightType}. Assets of
+     * the right type reach the left ones through {@code leftRole}, and the other way round.
+     */
+    public static final class Association {
+        public final String name;
+        public final String leftType;
+        public final String leftRole;
+        public final String leftMultiplicity;
+        public final String rightType;
+        public final String rightRole;
+        public final String rightMultiplicity;
+
+        Association(
+                String name,
+                String leftType,
+                String leftRole,
+                String leftMultiplicity,
+                String rightType,
+                String rightRole,
+                String rightMultiplicity) {
+            this.name = name;
+            this.leftType = leftType;
+            this.leftRole = leftRole;
+            this.leftMultiplicity = leftMultiplicity;
+            this.rightType = rightType;
+            this.rightRole = rightRole;
+            this.rightMultiplicity = rightMultiplicity;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%s [%s] %s <-- %s --> %s [%s] %s",
+                    leftType, leftRole, leftMultiplicity, name, rightMultiplicity, rightRole, rightType);
+        }
+    }
+
+    private final Map<String, AssetSpec> assets = new LinkedHashMap<>();
+    private final List<Association> associations = new ArrayList<>();
+
+    private MalSpec() {}
+
+    /** Loads {@code src/main/mal/main.mal}, or the file named by the {@code mal.file} property. */
+    public static MalSpec load() {
+        return load(Paths.get(System.getProperty("mal.file", "src/main/mal/main.mal")));
+    }
+
+    public static MalSpec load(Path mainFile) {
+        var spec = new MalSpec();
+        spec.read(mainFile, new HashSet<>());
+        return spec;
+    }
+
+    private void read(Path file, Set<Path> seen) {
+        Path normalized = file.toAbsolutePath().normalize();
+        if (!seen.add(normalized)) {
+            return;
+        }
+        String text;
+        try {
+            text = Files.readString(normalized, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        AssetSpec current = null;
+        Step step = null;
+        boolean continued = false;
+        for (String line : stripComments(text).split("\n")) {
+            String trimmed = line.trim();
+            if (step != null && (continued || trimmed.startsWith("->") || trimmed.startsWith("+>"))) {
+                if (!continued) {
+                    step.appendsReaches = trimmed.startsWith("+>");
+                    trimmed = trimmed.substring(2);
+                }
+                for (String reach : splitTopLevel(trimmed)) {
+                    step.reaches.add(reach);
+                }
+                continued = trimmed.endsWith(",");
+                continue;
+            }
+            Matcher m = INCLUDE.matcher(line);
+            if (m.find()) {
+                read(normalized.resolveSibling(m.group(1)), seen);
+                continue;
+            }
+            m = ASSET.matcher(line);
+            if (m.find()) {
+                current = new AssetSpec(m.group(1), m.group(2));
+                assets.put(current.name, current);
+                step = null;
+                continue;
+            }
+            if (trimmed.startsWith("associations")) {
+                current = null;
+                step = null;
+                continue;
+            }
+            m = ASSOCIATION.matcher(line);
+            if (current == null && m.find()) {
+                associations.add(
+                        new Association(
+                                m.group(4), m.group(1), m.group(2), m.group(3), m.group(7), m.group(6),
+                                m.group(5)));
+                continue;
+            }
+            m = LET.matcher(line);
+            if (current != null && m.find()) {
+                current.lets.put(m.group(1), m.group(2));
+                step = null;
+                continue;
+            }
+            m = STEP.matcher(line);
+            if (current != null && m.find()) {
+                var tags = new HashSet<String>();
+                for (String tag : m.group(3).trim().split("\\s+")) {
+                    if (!tag.isEmpty()) {
+                        tags.add(tag.substring(1));
+                    }
+                }
+                String ttc = m.group(4) == null ? null : m.group(4).trim();
+                step = new Step(m.group(1), m.group(2), tags, ttc);
+                current.steps.put(step.name, step);
+            }
+        }
+    }
+
+    /** Splits a list of reaches on the commas outside parentheses and brackets. */
+    private static List<String> splitTopLevel(String text) {
+        var result = new ArrayList<String>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ',';
+            if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                String reach = text.substring(start, i).trim();
+                if (!reach.isEmpty()) {
+                    result.add(reach);
+                }
+                start = i + 1;
+            }
+        }
+        return result;
+    }
+
+    private static String stripComments(String text) {
+        var result = new StringBuilder(text.length());
+        int i = 0;
+        while (i < text.length()) {
+            if (text.startsWith("/*", i)) {
+                int end = text.indexOf("*/", i + 2);
+                i = end < 0 ? text.length() : end + 2;
+            } else if (text.startsWith("//", i)) {
+                int end = text.indexOf('\n', i);
+                i = end < 0 ? text.length() : end;
+            } else if (text.charAt(i) == '"') {
+                int end = text.indexOf('"', i + 1);
+                end = end < 0 ? text.length() : end + 1;
+                result.append(text, i, end);
+                i = end;
+            } else {
+                result.append(text.charAt(i++));
+            }
+        }
+        return result.toString();
+    }
+
+    public Map<String, AssetSpec> assets() {
+        return assets;
+    }
+
+    public AssetSpec asset(String name) {
+        return assets.get(name);
+    }
+
+    /** Looks up a step or defense, following {@code extends} so overriding assets win. */
+    public Step step(String asset, String step) {
+        for (AssetSpec spec = assets.get(asset); spec != null; spec = assets.get(spec.superAsset)) {
+            Step result = spec.steps.get(step);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the TTC expression of a step as written in the .mal file, or {@code null}. A step
+     * redeclared in a sub-asset without a TTC keeps the inherited one.
+     */
+    public String ttc(String asset, String step) {
+        for (AssetSpec spec = assets.get(asset); spec != null; spec = assets.get(spec.superAsset)) {
+            Step result = spec.steps.get(step);
+            if (result != null && result.ttc != null) {
+                return result.ttc;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns what a step or defense reaches, following {@code extends}: a redeclaration with
+     * {@code ->} replaces the inherited reaches and one with {@code +>} adds to them.
+     */
+    public List<String> reaches(String asset, String step) {
+        for (AssetSpec spec = assets.get(asset); spec != null; spec = assets.get(spec.superAsset)) {
+            Step result = spec.steps.get(step);
+            if (result != null) {
+                if (!result.appendsReaches || spec.superAsset == null) {
+                    return result.reaches;
+                }
+                var combined = new ArrayList<>(reaches(spec.superAsset, step));
+                combined.addAll(result.reaches);
+                return combined;
+            }
+        }
+        return List.of();
+    }
+
+    public List<Association> associations() {
+        return associations;
+    }
+
+    /**
+     * Looks up an association by name and end types. Some names, such as {@code MemberOf}, are
+     * declared several times with different types, so the name alone is not a key.
+     */
+    public Association association(String name, String leftType, String rightType) {
+        for (Association association : associations) {
+            if (association.name.equals(name)
+                    && association.leftType.equals(leftType)
+                    && association.rightType.equals(rightType)) {
+                return association;
+            }
+        }
+        return null;
+    }
+
+    /** Returns the expression of a {@code let} visible in an asset, following {@code extends}. */
+    public String let(String asset, String name) {
+        for (AssetSpec spec = assets.get(asset); spec != null; spec = assets.get(spec.superAsset)) {
+            String result = spec.lets.get(name);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    public boolean isSubtype(String asset, String superAsset) {
+        for (AssetSpec spec = assets.get(asset); spec != null; spec = assets.get(spec.superAsset)) {
+            if (spec.name.equals(superAsset)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,85 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.Asset;
+import core.AttackStep;
+import core.Defense;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Owns the assets, attack steps and defenses of one model, so several models can live in the same
+ * JVM and be attacked concurrently.
+ *
+ * <p>The generated constructors always register new objects in the static {@code allAssets},
+ * {@code allAttackSteps} and {@code allDefenses} lists. {@link #build(Supplier)} therefore runs the
+ * construction code under a global lock and then moves everything it registered out of the static
+ * lists and into the context, leaving the lists as they were before. Only construction is
+ * serialized: associations can be added, and contexts compiled and attacked, on any thread
+ * without locking, since no two contexts share an object.
+ *
+ * <p>Code that uses the static registries directly, such as the reference {@code Attacker}, must
+ * not run while another thread is building a context.
+ */
+public final class ModelContext {
+    private static final Object CONSTRUCTION_LOCK = new Object();
+
+    private final List<Asset> assets = new ArrayList<>();
+    private final List<AttackStep> attackSteps = new ArrayList<>();
+    private final List<Defense> defenses = new ArrayList<>();
+
+    /**
+     * Runs {@code builder} and adopts every asset, attack step and defense it creates. Can be called
+     * several times to grow the model.
+     */
+    public <T> T build(Supplier<T> builder) {
+        synchronized (CONSTRUCTION_LOCK) {
+            var previousAssets = new ArrayList<>(Asset.allAssets);
+            var previousAttackSteps = new ArrayList<>(AttackStep.allAttackSteps);
+            var previousDefenses = new ArrayList<>(Defense.allDefenses);
+            Asset.allAssets.clear();
+            AttackStep.allAttackSteps.clear();
+            Defense.allDefenses.clear();
+            try {
+                T result = builder.get();
+                assets.addAll(Asset.allAssets);
+                attackSteps.addAll(AttackStep.allAttackSteps);
+                defenses.addAll(Defense.allDefenses);
+                return result;
+            } finally {
+                Asset.allAssets.clear();
+                AttackStep.allAttackSteps.clear();
+                Defense.allDefenses.clear();
+                Asset.allAssets.addAll(previousAssets);
+                AttackStep.allAttackSteps.addAll(previousAttackSteps);
+                Defense.allDefenses.addAll(previousDefenses);
+            }
+        }
+    }
+
+    public List<Asset> assets() {
+        return Collections.unmodifiableList(assets);
+    }
+
+    public List<AttackStep> attackSteps() {
+        return Collections.unmodifiableList(attackSteps);
+    }
+
+    public List<Defense> defenses() {
+        return Collections.unmodifiableList(defenses);
+    }
+
+    public AttackGraph compile() {
+        return AttackGraph.compile(attackSteps, defenses);
+    }
+
+    public StepCatalog catalog(AttackGraph graph) {
+        return StepCatalog.of(graph, assets);
+    }
+
+    /** An attacker that only sees the steps of this context. */
+    public CompiledAttacker attacker() {
+        return new CompiledAttacker(this);
+    }
+}
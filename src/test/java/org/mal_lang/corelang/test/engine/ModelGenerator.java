@@ -0,0 +1,232 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic enterprise models of a given shape and streams them into a {@link ModelSink},
+ * either {@link LiveModelSink} for generated Java objects or {@link BulkModelWriter} for a file.
+ *
+ * <p>Assets are emitted in blocks (software products, their vulnerabilities, the group hierarchy,
+ * identities, information, networks, and then the contents of one network at a time), so the id of
+ * any asset follows from the start of its block and the generator itself keeps no per-asset
+ * state. The same parameters and seed always produce the same model.
+ *
+ * <p>Every network gets a routing firewall, a host, applications exposed on the network and run
+ * on the host, and connection rules to other networks. Every application runs a random software
+ * product, grants low privileges to a random identity, and contains data that replicates
+ * information and can be read by random identities.
+ */
+public final class ModelGenerator {
+    /** Shape of the generated model. */
+    public static final class Parameters {
+        public int networks = 10;
+        public int connectionsPerNetwork = 2;
+        public int applicationsPerNetwork = 4;
+        public int dataPerApplication = 2;
+        public int replicasPerInformation = 3;
+        public int identities = 50;
+        public int groupDepth = 3;
+        public int groupBranching = 2;
+        public int softwareProducts = 5;
+        public int vulnerabilitiesPerProduct = 2;
+        public long seed = 1;
+
+        /** Parameters with the default proportions, scaled to roughly {@code assets} assets. */
+        public static Parameters forAssetCount(long assets) {
+            var parameters = new Parameters();
+            long perNetwork = parameters.assetsPerNetwork();
+            parameters.networks = (int) Math.max(1, assets / (perNetwork + 2));
+            parameters.identities = Math.max(1, parameters.networks * 5 / 2);
+            parameters.softwareProducts = Math.max(1, parameters.networks / 4);
+            return parameters;
+        }
+
+        long assetsPerNetwork() {
+            return 2L
+                    + connectionsPerNetwork
+                    + applicationsPerNetwork * (1L + dataPerApplication);
+        }
+
+        long groupCount() {
+            long count = 0;
+            long level = 1;
+            for (int d = 0; d < groupDepth; d++) {
+                count += level;
+                level *= groupBranching;
+            }
+            return count;
+        }
+
+        long leafGroupCount() {
+            long level = groupDepth == 0 ? 0 : 1;
+            for (int d = 1; d < groupDepth; d++) {
+                level *= groupBranching;
+            }
+            return level;
+        }
+
+        long dataCount() {
+            return (long) networks * applicationsPerNetwork * dataPerApplication;
+        }
+
+        long informationCount() {
+            return (dataCount() + replicasPerInformation - 1) / replicasPerInformation;
+        }
+
+        /** Exact number of assets the generator emits. */
+        public long assetCount() {
+            return softwareProducts * (1L + vulnerabilitiesPerProduct)
+                    + groupCount()
+                    + identities
+                    + informationCount()
+                    + networks * (1 + assetsPerNetwork());
+        }
+    }
+
+    private final Parameters parameters;
+    private final MalSpec.Association applicationVulnerability;
+    private final MalSpec.Association groupMembership;
+    private final MalSpec.Association identityMembership;
+    private final MalSpec.Association networkConnection;
+    private final MalSpec.Association firewallConnectionRule;
+    private final MalSpec.Association networkExposure;
+    private final MalSpec.Association sysExecution;
+    private final MalSpec.Association appSoftwareProduct;
+    private final MalSpec.Association lowPrivilegeApplicationAccess;
+    private final MalSpec.Association appContainment;
+    private final MalSpec.Association replica;
+    private final MalSpec.Association readPrivileges;
+
+    public ModelGenerator(MalSpec spec, Parameters parameters) {
+        if (parameters.networks < 1 || parameters.identities < 1 || parameters.softwareProducts < 1) {
+            throw new IllegalArgumentException(
+                    "At least one network, identity and software product are required");
+        }
+        if (parameters.replicasPerInformation < 1) {
+            throw new IllegalArgumentException("replicasPerInformation must be at least 1");
+        }
+        this.parameters = parameters;
+        applicationVulnerability =
+                association(spec, "ApplicationVulnerability", "SoftwareVulnerability", "SoftwareProduct");
+        groupMembership = association(spec, "MemberOf", "Group", "Group");
+        identityMembership = association(spec, "MemberOf", "Group", "Identity");
+        networkConnection = association(spec, "NetworkConnection", "Network", "ConnectionRule");
+        firewallConnectionRule =
+                association(spec, "FirewallConnectionRule", "RoutingFirewall", "ConnectionRule");
+        networkExposure = association(spec, "NetworkExposure", "Network", "Application");
+        sysExecution = association(spec, "SysExecution", "Hardware", "Application");
+        appSoftwareProduct = association(spec, "AppSoftwareProduct", "SoftwareProduct", "Application");
+        lowPrivilegeApplicationAccess =
+                association(spec, "LowPrivilegeApplicationAccess", "IAMObject", "Application");
+        appContainment = association(spec, "AppContainment", "Data", "Application");
+        replica = association(spec, "Replica", "Data", "Information");
+        readPrivileges = association(spec, "ReadPrivileges", "IAMObject", "Data");
+    }
+
+    private static MalSpec.Association association(
+            MalSpec spec, String name, String leftType, String rightType) {
+        MalSpec.Association association = spec.association(name, leftType, rightType);
+        if (association == null) {
+            throw new IllegalArgumentException(
+                    String.format("No association %s between %s and %s", name, leftType, rightType));
+        }
+        return association;
+    }
+
+    public Parameters parameters() {
+        return parameters;
+    }
+
+    public void generate(ModelSink sink) {
+        Parameters p = parameters;
+        var random = new SplittableRandom(p.seed);
+
+        int products = sink.addAsset("SoftwareProduct", "Product0");
+        for (int i = 1; i < p.softwareProducts; i++) {
+            sink.addAsset("SoftwareProduct", "Product" + i);
+        }
+        for (int i = 0; i < p.softwareProducts * p.vulnerabilitiesPerProduct; i++) {
+            int vulnerability = sink.addAsset("SoftwareVulnerability", "Vulnerability" + i);
+            sink.addAssociation(
+                    applicationVulnerability, vulnerability, products + i / p.vulnerabilitiesPerProduct);
+        }
+
+        int leafGroups = -1;
+        int previousLevel = -1;
+        long levelSize = 1;
+        for (int d = 0; d < p.groupDepth; d++) {
+            int level = -1;
+            for (long g = 0; g < levelSize; g++) {
+                int group = sink.addAsset("Group", "Group" + d + "." + g);
+                if (level < 0) {
+                    level = group;
+                }
+                if (previousLevel >= 0) {
+                    sink.addAssociation(
+                            groupMembership, previousLevel + (int) (g / p.groupBranching), group);
+                }
+            }
+            previousLevel = level;
+            leafGroups = level;
+            levelSize *= p.groupBranching;
+        }
+        long leafGroupCount = p.leafGroupCount();
+
+        int identities = -1;
+        for (int i = 0; i < p.identities; i++) {
+            int identity = sink.addAsset("Identity", "Identity" + i);
+            if (identities < 0) {
+                identities = identity;
+            }
+            if (leafGroups >= 0) {
+                sink.addAssociation(
+                        identityMembership, leafGroups + (int) random.nextLong(leafGroupCount), identity);
+            }
+        }
+
+        int information = -1;
+        for (long i = 0; i < p.informationCount(); i++) {
+            int id = sink.addAsset("Information", "Information" + i);
+            if (information < 0) {
+                information = id;
+            }
+        }
+
+        int networks = sink.addAsset("Network", "Network0");
+        for (int i = 1; i < p.networks; i++) {
+            sink.addAsset("Network", "Network" + i);
+        }
+
+        long data = 0;
+        for (int n = 0; n < p.networks; n++) {
+            int network = networks + n;
+            int firewall = sink.addAsset("RoutingFirewall", "Firewall" + n);
+            for (int c = 0; c < p.connectionsPerNetwork; c++) {
+                int conn = sink.addAsset("ConnectionRule", "Connection" + n + "." + c);
+                int other =
+                        p.networks == 1
+                                ? network
+                                : networks + (n + 1 + random.nextInt(p.networks - 1)) % p.networks;
+                sink.addAssociation(networkConnection, network, conn);
+                sink.addAssociation(networkConnection, other, conn);
+                sink.addAssociation(firewallConnectionRule, firewall, conn);
+            }
+            int host = sink.addAsset("Hardware", "Host" + n);
+            for (int a = 0; a < p.applicationsPerNetwork; a++) {
+                int app = sink.addAsset("Application", "Application" + n + "." + a);
+                sink.addAssociation(networkExposure, network, app);
+                sink.addAssociation(sysExecution, host, app);
+                sink.addAssociation(appSoftwareProduct, products + random.nextInt(p.softwareProducts), app);
+                sink.addAssociation(
+                        lowPrivilegeApplicationAccess, identities + random.nextInt(p.identities), app);
+                for (int d = 0; d < p.dataPerApplication; d++) {
+                    int datum = sink.addAsset("Data", "Data" + n + "." + a + "." + d);
+                    sink.addAssociation(appContainment, datum, app);
+                    sink.addAssociation(
+                            replica, datum, information + (int) (data++ / p.replicasPerInformation));
+                    sink.addAssociation(readPrivileges, identities + random.nextInt(p.identities), datum);
+                }
+            }
+        }
+    }
+}
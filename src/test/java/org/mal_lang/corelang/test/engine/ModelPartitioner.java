@@ -0,0 +1,376 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits a model file written by {@link BulkModelWriter} into one model file per partition, which
+ * the workers of a {@link PartitionedSolver} {@link PartitionedSolver#open open} on their own, so
+ * that no process ever holds the whole model.
+ *
+ * <p>Every asset is owned by one partition. A partition file holds the assets it owns and a halo of
+ * the assets around them, with all associations among those and their defense settings. A step
+ * reaches only assets within {@link LetEvaluator#reachHops()} counted links of its own, so the
+ * parents of an owned step, and whatever is needed to derive them from either end of a reach, lie
+ * within twice that many links of the owned assets; the halo is every asset that close. Links of
+ * associations with a {@link LetEvaluator#closureRoles() closure role} are not counted, so a halo
+ * takes in whole chains of such links. Next to each partition file an {@code .owners} file lists,
+ * for every asset of the partition in order, its number in the whole model and its owner.
+ *
+ * <p>Splitting reads the model file twice and keeps only the types and links of the assets, never
+ * the generated objects.
+ */
+public final class ModelPartitioner {
+    /** Types whose assets key the default partitioning. */
+    private static final String[] ZONE_TYPES = {"Network", "PhysicalZone"};
+
+    private final MalSpec spec;
+    private final Set<String> closureRoles;
+    private final int radius;
+
+    public ModelPartitioner(MalSpec spec) {
+        this.spec = spec;
+        var lets = new LetEvaluator(spec, AssociationIndex.of(List.of()));
+        this.closureRoles = lets.closureRoles();
+        this.radius = 2 * lets.reachHops();
+    }
+
+    /** Number of counted links the halo of a partition reaches out from its assets. */
+    public int haloRadius() {
+        return radius;
+    }
+
+    /** The {@code .owners} file that goes with partition file {@code file}. */
+    public static Path ownersFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".owners");
+    }
+
+    /**
+     * Splits {@code model} into {@code parts} partitions keyed by {@code Network} and {@code
+     * PhysicalZone}, see {@link #partitionByZone}, and writes them into {@code directory}.
+     */
+    public List<Path> split(Path model, int parts, Path directory) {
+        var structure = Structure.load(spec, model, closureRoles);
+        return split(model, structure, structure.partitionByZone(spec, parts), parts, directory);
+    }
+
+    /**
+     * Splits {@code model} so that asset {@code a} is owned by partition {@code assetPartition[a]}
+     * and writes the partitions, numbered from 0, into {@code directory}.
+     */
+    public List<Path> split(Path model, int[] assetPartition, Path directory) {
+        var structure = Structure.load(spec, model, closureRoles);
+        if (assetPartition.length != structure.assetCount) {
+            throw new IllegalArgumentException("Partition does not match the model");
+        }
+        int parts = 1;
+        for (int p : assetPartition) {
+            if (p < 0) {
+                throw new IllegalArgumentException("Negative partition " + p);
+            }
+            parts = Math.max(parts, p + 1);
+        }
+        return split(model, structure, assetPartition.clone(), parts, directory);
+    }
+
+    /**
+     * Assigns every asset of {@code model} the nearest asset of type {@code Network} or {@code
+     * PhysicalZone}, counting any link as one, and gives the {@code k}th of those {@code n} zones
+     * partition {@code k * parts / n}, so neighbouring zones in file order share a partition. Assets
+     * that reach no zone go to partition 0.
+     */
+    public int[] partitionByZone(Path model, int parts) {
+        return Structure.load(spec, model, closureRoles).partitionByZone(spec, parts);
+    }
+
+    private List<Path> split(
+            Path model, Structure structure, int[] owner, int parts, Path directory) {
+        int[][] members = new int[parts][];
+        for (int p = 0; p < parts; p++) {
+            members[p] = structure.halo(owner, p, radius);
+        }
+        var files = new ArrayList<Path>();
+        for (int p = 0; p < parts; p++) {
+            Path file = directory.resolve(model.getFileName() + "." + p);
+            writeOwners(ownersFile(file), members[p], owner);
+            files.add(file);
+        }
+        var router = new Router(structure.assetCount, members, files);
+        try {
+            new BulkModelLoader(spec).load(model, router);
+        } finally {
+            router.close();
+        }
+        return files;
+    }
+
+    private static void writeOwners(Path file, int[] members, int[] owner) {
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(members.length);
+            for (int asset : members) {
+                out.writeInt(asset);
+                out.writeInt(owner[asset]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads an {@code .owners} file as two arrays: the number of each asset in the whole model, and
+     * its owner.
+     */
+    static int[][] readOwners(Path file) {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int count = in.readInt();
+            var global = new int[count];
+            var owner = new int[count];
+            for (int a = 0; a < count; a++) {
+                global[a] = in.readInt();
+                owner[a] = in.readInt();
+            }
+            return new int[][] {global, owner};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Types and links of the assets of a model, as an adjacency array over asset numbers. */
+    private static final class Structure implements ModelSink {
+        private final Set<String> closureRoles;
+        private final List<String> typeNames = new ArrayList<>();
+        private final IntList types = new IntList();
+        private IntList lefts = new IntList();
+        private IntList rights = new IntList();
+        private IntList costs = new IntList();
+        private int assetCount;
+        // Neighbours of each asset, as neighbour << 1 | cost of the link.
+        private int[] offsets;
+        private int[] links;
+
+        private Structure(Set<String> closureRoles) {
+            this.closureRoles = closureRoles;
+        }
+
+        static Structure load(MalSpec spec, Path model, Set<String> closureRoles) {
+            var structure = new Structure(closureRoles);
+            new BulkModelLoader(spec).load(model, structure);
+            structure.index();
+            return structure;
+        }
+
+        @Override
+        public int addAsset(String type, String name) {
+            int id = typeNames.indexOf(type);
+            if (id < 0) {
+                id = typeNames.size();
+                typeNames.add(type);
+            }
+            types.add(id);
+            return assetCount++;
+        }
+
+        @Override
+        public void addAssociation(MalSpec.Association association, int left, int right) {
+            lefts.add(left);
+            rights.add(right);
+            boolean free =
+                    closureRoles.contains(association.leftRole)
+                            || closureRoles.contains(association.rightRole);
+            costs.add(free ? 0 : 1);
+        }
+
+        @Override
+        public void setDefense(int asset, String defense, boolean enabled) {}
+
+        private void index() {
+            offsets = new int[assetCount + 1];
+            for (int e = 0; e < lefts.size; e++) {
+                offsets[lefts.values[e] + 1]++;
+                offsets[rights.values[e] + 1]++;
+            }
+            for (int a = 0; a < assetCount; a++) {
+                offsets[a + 1] += offsets[a];
+            }
+            links = new int[offsets[assetCount]];
+            var fill = Arrays.copyOf(offsets, assetCount);
+            for (int e = 0; e < lefts.size; e++) {
+                int left = lefts.values[e];
+                int right = rights.values[e];
+                links[fill[left]++] = right << 1 | costs.values[e];
+                links[fill[right]++] = left << 1 | costs.values[e];
+            }
+            lefts = rights = costs = null;
+        }
+
+        int[] partitionByZone(MalSpec spec, int parts) {
+            var zone = new int[assetCount];
+            Arrays.fill(zone, -1);
+            var queue = new int[assetCount];
+            int tail = 0;
+            for (int a = 0; a < assetCount; a++) {
+                String type = typeNames.get(types.values[a]);
+                for (String zoneType : ZONE_TYPES) {
+                    if (spec.isSubtype(type, zoneType)) {
+                        zone[a] = tail;
+                        queue[tail++] = a;
+                        break;
+                    }
+                }
+            }
+            int zones = tail;
+            for (int head = 0; head < tail; head++) {
+                int asset = queue[head];
+                for (int l = offsets[asset]; l < offsets[asset + 1]; l++) {
+                    int next = links[l] >>> 1;
+                    if (zone[next] < 0) {
+                        zone[next] = zone[asset];
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            var partition = new int[assetCount];
+            for (int a = 0; a < assetCount; a++) {
+                partition[a] = zone[a] < 0 ? 0 : (int) ((long) zone[a] * parts / zones);
+            }
+            return partition;
+        }
+
+        /**
+         * The assets owned by partition {@code p} and those within {@code radius} counted links of
+         * them, in increasing order.
+         */
+        int[] halo(int[] owner, int p, int radius) {
+            var distance = new int[assetCount];
+            Arrays.fill(distance, -1);
+            var level = new IntList();
+            for (int a = 0; a < assetCount; a++) {
+                if (owner[a] == p) {
+                    distance[a] = 0;
+                    level.add(a);
+                }
+            }
+            var members = new IntList();
+            for (int d = 0; level.size > 0; d++) {
+                // Free links keep to this level, counted ones lead to the next.
+                var next = new IntList();
+                for (int i = 0; i < level.size; i++) {
+                    int asset = level.values[i];
+                    if (distance[asset] < d) {
+                        continue;
+                    }
+                    members.add(asset);
+                    for (int l = offsets[asset]; l < offsets[asset + 1]; l++) {
+                        int neighbour = links[l] >>> 1;
+                        boolean free = (links[l] & 1) == 0;
+                        int through = free ? d : d + 1;
+                        if (through > radius
+                                || distance[neighbour] >= 0 && distance[neighbour] <= through) {
+                            continue;
+                        }
+                        distance[neighbour] = through;
+                        (free ? level : next).add(neighbour);
+                    }
+                }
+                level = next;
+            }
+            int[] result = members.toArray();
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    /** Writes every asset, link and defense setting to the partitions that hold it. */
+    private static final class Router implements ModelSink {
+        private final int[][] members;
+        // Partitions holding each asset, and its number in each of them.
+        private final int[] holderOffsets;
+        private final int[] holders;
+        private final int[] localNumbers;
+        private final BulkModelWriter[] writers;
+        private int next;
+
+        Router(int assetCount, int[][] members, List<Path> files) {
+            this.members = members;
+            holderOffsets = new int[assetCount + 1];
+            for (int[] partition : members) {
+                for (int asset : partition) {
+                    holderOffsets[asset + 1]++;
+                }
+            }
+            for (int a = 0; a < assetCount; a++) {
+                holderOffsets[a + 1] += holderOffsets[a];
+            }
+            holders = new int[holderOffsets[assetCount]];
+            localNumbers = new int[holders.length];
+            var fill = Arrays.copyOf(holderOffsets, assetCount);
+            for (int p = 0; p < members.length; p++) {
+                for (int local = 0; local < members[p].length; local++) {
+                    int at = fill[members[p][local]]++;
+                    holders[at] = p;
+                    localNumbers[at] = local;
+                }
+            }
+            writers = new BulkModelWriter[members.length];
+            for (int p = 0; p < writers.length; p++) {
+                writers[p] = new BulkModelWriter(files.get(p));
+            }
+        }
+
+        @Override
+        public int addAsset(String type, String name) {
+            int asset = next++;
+            for (int h = holderOffsets[asset]; h < holderOffsets[asset + 1]; h++) {
+                writers[holders[h]].addAsset(type, name);
+            }
+            return asset;
+        }
+
+        @Override
+        public void addAssociation(MalSpec.Association association, int left, int right) {
+            for (int h = holderOffsets[left]; h < holderOffsets[left + 1]; h++) {
+                int p = holders[h];
+                int localRight = Arrays.binarySearch(members[p], right);
+                if (localRight >= 0) {
+                    writers[p].addAssociation(association, localNumbers[h], localRight);
+                }
+            }
+        }
+
+        @Override
+        public void setDefense(int asset, String defense, boolean enabled) {
+            for (int h = holderOffsets[asset]; h < holderOffsets[asset + 1]; h++) {
+                writers[holders[h]].setDefense(localNumbers[h], defense, enabled);
+            }
+        }
+
+        /** Writes the partition files; all of them are closed even if one fails. */
+        void close() {
+            RuntimeException failure = null;
+            for (BulkModelWriter writer : writers) {
+                try {
+                    writer.close();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
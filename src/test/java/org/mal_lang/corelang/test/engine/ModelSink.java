@@ -0,0 +1,28 @@
+package org.mal_lang.corelang.test.engine;
+
+/**
+ * Receives a model as a stream of assets, associations and defense settings. Assets are numbered
+ * from 0 in the order they are added, and associations and defenses refer to them by that number.
+ *
+ * <p>{@link LiveModelSink} instantiates the generated asset classes; {@link BulkModelWriter} writes
+ * the model to a file that {@link BulkModelLoader} can replay into any sink, keeping each {@link
+ * HostTemplate} once.
+ */
+public interface ModelSink {
+    /** Adds an asset of the given MAL type and returns its number. */
+    int addAsset(String type, String name);
+
+    /** Associates asset {@code left}, of the left type of {@code association}, with {@code right}. */
+    void addAssociation(MalSpec.Association association, int left, int right);
+
+    /** Overrides the default value of defense {@code defense} of asset {@code asset}. */
+    void setDefense(int asset, String defense, boolean enabled);
+
+    /**
+     * Adds a copy of a {@link HostTemplate}, whose ports are all bound, and returns the number of
+     * its first asset. The copy is replayed asset by asset unless the sink can keep the template.
+     */
+    default int addInstance(HostTemplate.Instance instance) {
+        return instance.replay(this);
+    }
+}
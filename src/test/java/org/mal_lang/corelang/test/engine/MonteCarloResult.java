@@ -0,0 +1,58 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.Arrays;
+
+/**
+ * Aggregated outcome of a {@link MonteCarloSampler} run.
+ *
+ * <p>Compromise probabilities are kept for every step. Full TTC samples are only kept for the
+ * target steps requested when sampling, since a samples-by-steps matrix does not fit on the heap
+ * for large models.
+ */
+public final class MonteCarloResult {
+    private final int samples;
+    private final long[] reached;
+    private final int[] targets;
+    private final float[][] targetSamples;
+
+    MonteCarloResult(int samples, long[] reached, int[] targets, float[][] targetSamples) {
+        this.samples = samples;
+        this.reached = reached;
+        this.targets = targets;
+        this.targetSamples = targetSamples;
+    }
+
+    public int samples() {
+        return samples;
+    }
+
+    /** Fraction of samples in which step {@code id} was reached. */
+    public double compromiseProbability(int id) {
+        return (double) reached[id] / samples;
+    }
+
+    /**
+     * TTC at quantile {@code q} (between 0 and 1) of a target step, using the nearest-rank method.
+     * Samples in which the step was not reached count as infinite, so high quantiles of rarely
+     * reached steps are {@link Double#POSITIVE_INFINITY}.
+     */
+    public double percentile(int target, double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+        }
+        float[] sorted = samplesOf(target).clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(rank - 1, 0)];
+    }
+
+    /** The raw TTC samples of a target step, in sample order. */
+    public float[] samplesOf(int target) {
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] == target) {
+                return targetSamples[i];
+            }
+        }
+        throw new IllegalArgumentException("Step " + target + " was not sampled as a target");
+    }
+}
@@ -0,0 +1,131 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Samples the TTC distributions of a model many times and solves each sample.
+ *
+ * <p>All worker threads share one read-only {@link AttackGraph}; each owns a {@link GraphSolver}
+ * and its scratch arrays, so workers never write to shared state until their counts are merged.
+ * Samples are handed out in fixed-size chunks, and every chunk gets its own stream split from a
+ * {@link SplittableRandom} seeded with the run seed. The random numbers a sample sees therefore do
+ * not depend on the number of threads or on scheduling, and a run is reproducible from its seed.
+ */
+public final class MonteCarloSampler {
+    static final int CHUNK_SIZE = 64;
+
+    private final SamplingPlan plan;
+
+    public MonteCarloSampler(SamplingPlan plan) {
+        this.plan = plan;
+    }
+
+    public MonteCarloResult run(int[] attackPoints, int[] targets, int samples, long seed) {
+        return run(attackPoints, targets, samples, seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    public MonteCarloResult run(
+            int[] attackPoints, int[] targets, int samples, long seed, int threads) {
+        return run(attackPoints, targets, samples, seed, threads, null);
+    }
+
+    /**
+     * Like {@link #run(int[], int[], int, long, int)}, and also hands the TTCs of every step in every
+     * sample to {@code sink}, for example a {@link SampleColumnStore}, which must have been created
+     * for the steps of the graph and exactly {@code samples} samples.
+     */
+    public MonteCarloResult run(
+            int[] attackPoints, int[] targets, int samples, long seed, int threads, SampleSink sink) {
+        AttackGraph graph = plan.graph();
+        if (sink instanceof SampleColumnStore) {
+            var store = (SampleColumnStore) sink;
+            if (store.samples() != samples || store.steps() != graph.stepCount()) {
+                throw new IllegalArgumentException(
+                        String.format(
+                                "Store holds %d samples of %d steps, the run has %d samples of %d",
+                                store.samples(), store.steps(), samples, graph.stepCount()));
+            }
+        }
+        int chunks = (samples + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        var root = new SplittableRandom(seed);
+        var chunkRandoms = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) {
+            chunkRandoms[c] = root.split();
+        }
+        var targetSamples = new float[targets.length][samples];
+        var nextChunk = new AtomicInteger();
+
+        var workers = new ArrayList<Callable<long[]>>();
+        for (int t = 0; t < Math.max(1, threads); t++) {
+            workers.add(
+                    () -> {
+                        var solver = new GraphSolver(graph);
+                        var localTtc = new double[graph.stepCount()];
+                        var defenseEnabled = new boolean[graph.defenseCount()];
+                        var reached = new long[graph.stepCount()];
+                        int c;
+                        while ((c = nextChunk.getAndIncrement()) < chunks) {
+                            SplittableRandom random = chunkRandoms[c];
+                            int end = Math.min(samples, (c + 1) * CHUNK_SIZE);
+                            for (int s = c * CHUNK_SIZE; s < end; s++) {
+                                System.arraycopy(graph.localTtc, 0, localTtc, 0, localTtc.length);
+                                System.arraycopy(
+                                        graph.defenseEnabled, 0, defenseEnabled, 0, defenseEnabled.length);
+                                plan.sample(random, localTtc, defenseEnabled);
+                                double[] ttc = solver.solve(attackPoints, defenseEnabled, localTtc);
+                                if (sink != null) {
+                                    sink.accept(s, ttc);
+                                }
+                                for (int i = 0; i < ttc.length; i++) {
+                                    if (ttc[i] != GraphSolver.UNREACHED) {
+                                        reached[i]++;
+                                    }
+                                }
+                                for (int i = 0; i < targets.length; i++) {
+                                    double value = ttc[targets[i]];
+                                    targetSamples[i][s] =
+                                            value == GraphSolver.UNREACHED ? Float.POSITIVE_INFINITY : (float) value;
+                                }
+                            }
+                        }
+                        return reached;
+                    });
+        }
+
+        var reached = new long[graph.stepCount()];
+        for (long[] partial : invokeAll(workers)) {
+            for (int i = 0; i < reached.length; i++) {
+                reached[i] += partial[i];
+            }
+        }
+        return new MonteCarloResult(samples, reached, targets.clone(), targetSamples);
+    }
+
+    static <T> ArrayList<T> invokeAll(ArrayList<Callable<T>> tasks) {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            var results = new ArrayList<T>();
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sampling", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.Asset;
+import core.Defense;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Which Networks and Applications an attacker can reach from a Network by forwarding over
+ * ConnectionRules, without expanding attack steps.
+ *
+ * <p>Every Network contributes four states: {@code accessUninspected}, {@code accessInspected},
+ * {@code networkForwardingUninspected} and {@code networkForwardingInspected}. Forwarding follows
+ * the outbound connections of a Network ({@code netConnections} and {@code
+ * outgoingNetConnections}) to the Networks a rule delivers to ({@code networks}, {@code
+ * inNetworks} and {@code diodeInNetworks}), so one-way and diode rules are only crossed in their
+ * direction. A rule with {@code restricted} enabled is not crossed at all, and one with {@code
+ * payloadInspection} enabled is only crossed inspected. Applications are reached directly through
+ * {@code applications} of a Network, or through {@code applications} and {@code inApplications}
+ * of an outbound rule.
+ *
+ * <p>The {@code bypassRestricted} and {@code bypassPayloadInspection} attack steps are not taken
+ * into account, so the index answers whether a target is reachable without defeating a defense.
+ * States are condensed into strongly connected components and every component stores the states
+ * and applications it reaches as {@link CompressedBitSet}s. The index is a snapshot of the
+ * associations and defense states at the time it was built.
+ */
+public final class NetworkReachabilityIndex {
+    public enum Access {
+        UNINSPECTED,
+        INSPECTED
+    }
+
+    private static final int ACCESS_UNINSPECTED = 0;
+    private static final int ACCESS_INSPECTED = 1;
+    private static final int FORWARDING_UNINSPECTED = 2;
+    private static final int FORWARDING_INSPECTED = 3;
+    private static final int STATES = 4;
+
+    private final AssociationIndex associations;
+    private final int[] networkIndex;
+    private final int[] applicationIndex;
+    private final int[] networks;
+    private final int[] applications;
+    private final int[] component;
+    private final CompressedBitSet[] reachedStates;
+    private final CompressedBitSet[] reachedApplications;
+
+    private NetworkReachabilityIndex(AssociationIndex associations) {
+        this.associations = associations;
+        this.networkIndex = new int[associations.assetCount()];
+        this.applicationIndex = new int[associations.assetCount()];
+        int networkCount = 0;
+        int applicationCount = 0;
+        for (int a = 0; a < associations.assetCount(); a++) {
+            Class<?> type = associations.asset(a).getClass();
+            networkIndex[a] = isA(type, "Network") ? networkCount++ : -1;
+            applicationIndex[a] = isA(type, "Application") ? applicationCount++ : -1;
+        }
+        this.networks = new int[networkCount];
+        this.applications = new int[applicationCount];
+        for (int a = 0; a < associations.assetCount(); a++) {
+            if (networkIndex[a] >= 0) {
+                networks[networkIndex[a]] = a;
+            }
+            if (applicationIndex[a] >= 0) {
+                applications[applicationIndex[a]] = a;
+            }
+        }
+
+        var edges = new EdgeList(networks.length * STATES);
+        var labels = new EdgeList(networks.length * STATES);
+        for (int n = 0; n < networks.length; n++) {
+            int network = networks[n];
+            edges.add(state(n, ACCESS_UNINSPECTED), state(n, FORWARDING_UNINSPECTED));
+            edges.add(state(n, ACCESS_INSPECTED), state(n, FORWARDING_INSPECTED));
+            edges.add(state(n, FORWARDING_UNINSPECTED), state(n, FORWARDING_INSPECTED));
+            for (int app : neighbors(network, "applications", applicationIndex)) {
+                labels.add(state(n, ACCESS_UNINSPECTED), 2 * app);
+                labels.add(state(n, ACCESS_INSPECTED), 2 * app + 1);
+            }
+            for (int rule : outboundRules(network)) {
+                Asset ruleAsset = associations.asset(rule);
+                if (isEnabled(ruleAsset, "restricted")) {
+                    continue;
+                }
+                boolean uninspected = !isEnabled(ruleAsset, "payloadInspection");
+                for (String role : new String[] {"networks", "inNetworks", "diodeInNetworks"}) {
+                    for (int target : neighbors(rule, role, networkIndex)) {
+                        if (uninspected) {
+                            edges.add(state(n, FORWARDING_UNINSPECTED), state(target, ACCESS_UNINSPECTED));
+                        }
+                        edges.add(state(n, FORWARDING_INSPECTED), state(target, ACCESS_INSPECTED));
+                    }
+                }
+                for (String role : new String[] {"applications", "inApplications"}) {
+                    for (int app : neighbors(rule, role, applicationIndex)) {
+                        if (uninspected) {
+                            labels.add(state(n, FORWARDING_UNINSPECTED), 2 * app);
+                        }
+                        labels.add(state(n, FORWARDING_INSPECTED), 2 * app + 1);
+                    }
+                }
+            }
+        }
+
+        int[] edgeOffsets = edges.offsets();
+        var condensation = new Condensation(edgeOffsets, edges.targets(edgeOffsets));
+        int[] labelOffsets = labels.offsets();
+        this.component = condensation.component;
+        this.reachedStates = condensation.closures();
+        this.reachedApplications =
+                condensation.gather(labelOffsets, labels.targets(labelOffsets), 2 * applications.length);
+    }
+
+    /** Indexes the networks of the assets currently held in the global {@code core} registry. */
+    public static NetworkReachabilityIndex of() {
+        return of(AssociationIndex.of());
+    }
+
+    public static NetworkReachabilityIndex of(AssociationIndex associations) {
+        return new NetworkReachabilityIndex(associations);
+    }
+
+    private static boolean isA(Class<?> type, String name) {
+        for (Class<?> c = type; c != null && c != Asset.class; c = c.getSuperclass()) {
+            if (c.getSimpleName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEnabled(Asset asset, String defense) {
+        Defense value = StepCatalog.defense(asset, defense);
+        return value != null && value.isEnabled();
+    }
+
+    private static int state(int network, int state) {
+        return network * STATES + state;
+    }
+
+    private int[] outboundRules(int network) {
+        int[] shared = associations.neighbors(network, "netConnections");
+        int[] outgoing = associations.neighbors(network, "outgoingNetConnections");
+        var rules = Arrays.copyOf(shared, shared.length + outgoing.length);
+        System.arraycopy(outgoing, 0, rules, shared.length, outgoing.length);
+        return rules;
+    }
+
+    /** Neighbours of {@code asset} through {@code role} that are in {@code index}, by their index. */
+    private int[] neighbors(int asset, String role, int[] index) {
+        int[] ids = associations.neighbors(asset, role);
+        var result = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            if (index[id] >= 0) {
+                result[count++] = index[id];
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    public AssociationIndex associations() {
+        return associations;
+    }
+
+    private int network(Asset asset) {
+        int id = associations.id(asset);
+        int n = id < 0 ? -1 : networkIndex[id];
+        if (n < 0) {
+            throw new IllegalArgumentException(asset.name + " is not an indexed Network");
+        }
+        return n;
+    }
+
+    private int application(Asset asset) {
+        int id = associations.id(asset);
+        int a = id < 0 ? -1 : applicationIndex[id];
+        if (a < 0) {
+            throw new IllegalArgumentException(asset.name + " is not an indexed Application");
+        }
+        return a;
+    }
+
+    private static int accessState(Access access) {
+        return access == Access.UNINSPECTED ? ACCESS_UNINSPECTED : ACCESS_INSPECTED;
+    }
+
+    /** Whether access to {@code from} leads to access to {@code to}, in the given modes. */
+    public boolean reachesNetwork(Asset from, Access fromAccess, Asset to, Access toAccess) {
+        int source = component[state(network(from), accessState(fromAccess))];
+        return reachedStates[source].contains(component[state(network(to), accessState(toAccess))]);
+    }
+
+    /**
+     * Whether access to {@code from} leads to {@code networkConnectUninspected} or {@code
+     * networkConnectInspected} on {@code application}.
+     */
+    public boolean reachesApplication(Asset from, Access fromAccess, Asset application, Access toAccess) {
+        int source = component[state(network(from), accessState(fromAccess))];
+        int app = application(application);
+        return reachedApplications[source].contains(toAccess == Access.UNINSPECTED ? 2 * app : 2 * app + 1);
+    }
+
+    /** Networks that access to {@code from} leads to in mode {@code toAccess}, including itself. */
+    public List<Asset> networks(Asset from, Access fromAccess, Access toAccess) {
+        var reached = reachedStates[component[state(network(from), accessState(fromAccess))]];
+        var result = new ArrayList<Asset>();
+        for (int n = 0; n < networks.length; n++) {
+            if (reached.contains(component[state(n, accessState(toAccess))])) {
+                result.add(associations.asset(networks[n]));
+            }
+        }
+        return result;
+    }
+
+    /** Applications that access to {@code from} leads to in mode {@code toAccess}. */
+    public List<Asset> applications(Asset from, Access fromAccess, Access toAccess) {
+        var reached = reachedApplications[component[state(network(from), accessState(fromAccess))]];
+        var result = new ArrayList<Asset>();
+        for (int bit : reached.toArray()) {
+            if ((bit & 1) == (toAccess == Access.UNINSPECTED ? 0 : 1)) {
+                result.add(associations.asset(applications[bit >>> 1]));
+            }
+        }
+        return result;
+    }
+
+    /** Unsorted (source, target) pairs turned into compressed adjacency arrays. */
+    private static final class EdgeList {
+        private final int vertices;
+        private int[] sources = new int[64];
+        private int[] targets = new int[64];
+        private int size;
+
+        EdgeList(int vertices) {
+            this.vertices = vertices;
+        }
+
+        void add(int source, int target) {
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            size++;
+        }
+
+        int[] offsets() {
+            var offsets = new int[vertices + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[sources[i] + 1]++;
+            }
+            for (int v = 0; v < vertices; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            return offsets;
+        }
+
+        int[] targets(int[] offsets) {
+            var sorted = new int[size];
+            var fill = Arrays.copyOf(offsets, vertices);
+            for (int i = 0; i < size; i++) {
+                sorted[fill[sources[i]]++] = targets[i];
+            }
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.AttackStep;
+import core.Defense;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Solves one partition of a {@link PartitionedSolver}, in its own JVM or on a thread.
+ *
+ * <p>The worker receives its part of the graph once: the steps it owns, followed by one ghost step
+ * for every parent owned by another partition. Ghosts have no parents; the coordinator sets their
+ * TTCs. A solve starts from the seeds the worker is given and settles its partition like {@link
+ * GraphSolver}. The worker keeps its TTCs between rounds: each round the coordinator sends the
+ * ghosts whose TTCs dropped, the worker pushes just those and settles again from them, and a step
+ * whose TTC drops passes the drop on to its children. An {@code &} step is reached once each of its
+ * parents was settled at least once, at the largest of their current TTCs plus its local TTC. The
+ * worker replies with the TTCs of its exported steps that changed. A worker keeps nothing but its
+ * partition and scratch arrays.
+ *
+ * <p>Instead of receiving its part of a graph, a worker can open a partition file written by {@link
+ * ModelPartitioner}. It loads the file into a {@link ModelContext}, compiles it, keeps the steps of
+ * the assets it owns and a ghost of every parent of those on an asset owned by another partition,
+ * and drops the model. Ghosts, exports, attack points and results are then named by the number of
+ * the asset in the whole model and the step name, for example {@code 17 accessUninspected}.
+ *
+ * <p>The protocol is a stream of big-endian messages, each starting with an int opcode.
+ */
+public final class PartitionWorker {
+    static final int GRAPH = 1;
+    static final int BEGIN = 2;
+    static final int ROUND = 3;
+    static final int RESULT = 4;
+    static final int CLOSE = 5;
+    static final int OPEN = 6;
+    static final int EXPORTS = 7;
+    static final int BEGIN_NAMED = 8;
+    static final int RESULT_NAMED = 9;
+
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private int owned;
+    private int stepCount;
+    private byte[] kind;
+    private double[] localTtc;
+    private int[] parentOffsets;
+    private int[] parents;
+    private int[] childOffsets;
+    private int[] children;
+    private int[] exports;
+    private double[] exportTtc;
+    private double[] ttc;
+    private boolean[] reached;
+    private int[] remainingParents;
+    private StepQueue queue;
+    // Set when the partition was opened from a file: the owned assets by their number in the whole
+    // model, the first owned step of each, the name of every owned step as an index into the step
+    // names, and the disable steps of the owned defenses that are disabled.
+    private int[] ownedAssets;
+    private int[] assetSteps;
+    private int[] stepNames;
+    private String[] names;
+    private int[] defenseSeeds;
+
+    private PartitionWorker(Socket socket) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+    }
+
+    /** Connects to the coordinator on the loopback port {@code args[0]} and serves it. */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: PartitionWorker <port>");
+            System.exit(2);
+        }
+        try (var socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]))) {
+            serve(socket);
+        }
+    }
+
+    /** Serves the coordinator on {@code socket} until it closes the partition. */
+    static void serve(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        new PartitionWorker(socket).run();
+    }
+
+    private void run() throws IOException {
+        while (true) {
+            int opcode;
+            try {
+                opcode = in.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            switch (opcode) {
+                case GRAPH:
+                    readGraph();
+                    break;
+                case BEGIN:
+                    begin();
+                    break;
+                case ROUND:
+                    round();
+                    break;
+                case RESULT:
+                    for (int i = 0; i < owned; i++) {
+                        out.writeDouble(ttc[i]);
+                    }
+                    out.flush();
+                    break;
+                case OPEN:
+                    open();
+                    break;
+                case EXPORTS:
+                    readExports();
+                    break;
+                case BEGIN_NAMED:
+                    beginNamed();
+                    break;
+                case RESULT_NAMED:
+                    writeNamedResult();
+                    break;
+                case CLOSE:
+                    return;
+                default:
+                    throw new IOException("Unknown opcode " + opcode);
+            }
+        }
+    }
+
+    private void readGraph() throws IOException {
+        owned = in.readInt();
+        int ghosts = in.readInt();
+        int n = owned + ghosts;
+        var kind = new byte[n];
+        in.readFully(kind, 0, owned);
+        var localTtc = new double[n];
+        for (int i = 0; i < owned; i++) {
+            localTtc[i] = in.readDouble();
+        }
+        var parentOffsets = new int[n + 1];
+        for (int i = 1; i <= owned; i++) {
+            parentOffsets[i] = in.readInt();
+        }
+        Arrays.fill(parentOffsets, owned + 1, n + 1, parentOffsets[owned]);
+        var parents = new int[parentOffsets[owned]];
+        for (int e = 0; e < parents.length; e++) {
+            parents[e] = in.readInt();
+        }
+        exports = new int[in.readInt()];
+        for (int x = 0; x < exports.length; x++) {
+            exports[x] = in.readInt();
+        }
+        exportTtc = new double[exports.length];
+        setUp(kind, localTtc, parentOffsets, parents);
+    }
+
+    private void open() throws IOException {
+        int partition = in.readInt();
+        Path file = Path.of(in.readUTF());
+        int[][] owners = ModelPartitioner.readOwners(ModelPartitioner.ownersFile(file));
+        int[] global = owners[0];
+        int[] owner = owners[1];
+        var context = new ModelContext();
+        new BulkModelLoader(MalSpec.load()).load(file, context);
+        AttackGraph graph = context.compile();
+        StepCatalog catalog = context.catalog(graph);
+
+        // Owned steps are numbered by asset, in file order; the other steps are -1.
+        int n = graph.stepCount();
+        var firstStep = new int[global.length + 1];
+        for (int i = 0; i < n; i++) {
+            int asset = catalog.assetOf(i);
+            if (asset >= 0 && owner[asset] == partition) {
+                firstStep[asset + 1]++;
+            }
+        }
+        int assetCount = 0;
+        for (int a = 0; a < global.length; a++) {
+            if (owner[a] == partition) {
+                assetCount++;
+            }
+            firstStep[a + 1] += firstStep[a];
+        }
+        owned = firstStep[global.length];
+        var local = new int[n];
+        var fill = Arrays.copyOf(firstStep, global.length);
+        var nameIds = new HashMap<String, Integer>();
+        stepNames = new int[owned];
+        for (int i = 0; i < n; i++) {
+            int asset = catalog.assetOf(i);
+            if (asset >= 0 && owner[asset] == partition) {
+                local[i] = fill[asset]++;
+                stepNames[local[i]] = nameIds.computeIfAbsent(catalog.stepName(i), k -> nameIds.size());
+            } else {
+                local[i] = -1;
+            }
+        }
+        names = new String[nameIds.size()];
+        for (Map.Entry<String, Integer> entry : nameIds.entrySet()) {
+            names[entry.getValue()] = entry.getKey();
+        }
+        ownedAssets = new int[assetCount];
+        assetSteps = new int[assetCount + 1];
+        for (int a = 0, k = 0; a < global.length; a++) {
+            if (owner[a] == partition) {
+                ownedAssets[k] = global[a];
+                assetSteps[++k] = firstStep[a + 1];
+            }
+        }
+
+        // Parents on assets of other partitions become ghosts, numbered in order of first use. A
+        // parent on no asset, such as a step hidden by one of the same name in a subclass, cannot be
+        // named to other partitions; it gets a step after the ghosts that is never reached.
+        var steps = new int[owned];
+        for (int i = 0; i < n; i++) {
+            if (local[i] >= 0) {
+                steps[local[i]] = i;
+            }
+        }
+        var ghostIndex = new int[n];
+        Arrays.fill(ghostIndex, -1);
+        var ghosts = new IntList();
+        var unnamed = new IntList();
+        var kind = new byte[owned];
+        var localTtc = new double[owned];
+        var parentOffsets = new int[owned + 1];
+        var parents = new IntList();
+        for (int k = 0; k < owned; k++) {
+            int step = steps[k];
+            kind[k] = graph.kind[step];
+            localTtc[k] = graph.localTtc[step];
+            for (int e = graph.parentOffsets[step]; e < graph.parentOffsets[step + 1]; e++) {
+                int parent = graph.parents[e];
+                if (local[parent] >= 0) {
+                    parents.add(local[parent]);
+                    continue;
+                }
+                IntList list = catalog.assetOf(parent) < 0 ? unnamed : ghosts;
+                if (ghostIndex[parent] < 0) {
+                    ghostIndex[parent] = list.size;
+                    list.add(parent);
+                }
+                // Unnamed parents count down from -1 until the ghosts are all known.
+                parents.add(list == ghosts ? owned + ghostIndex[parent] : -1 - ghostIndex[parent]);
+            }
+            parentOffsets[k + 1] = parents.size;
+        }
+        for (int e = 0; e < parents.size; e++) {
+            if (parents.values[e] < 0) {
+                parents.values[e] = owned + ghosts.size - 1 - parents.values[e];
+            }
+        }
+        int total = owned + ghosts.size + unnamed.size;
+        parentOffsets = Arrays.copyOf(parentOffsets, total + 1);
+        Arrays.fill(parentOffsets, owned + 1, total + 1, parents.size);
+        var defenses = new IntList();
+        for (int d = 0; d < graph.defenseCount(); d++) {
+            int disable = graph.defenseSteps[d];
+            if (disable >= 0 && local[disable] >= 0 && !graph.defenseEnabled[d]) {
+                defenses.add(local[disable]);
+            }
+        }
+        defenseSeeds = defenses.toArray();
+        exports = new int[0];
+        exportTtc = new double[0];
+        setUp(Arrays.copyOf(kind, total), Arrays.copyOf(localTtc, total), parentOffsets, parents.toArray());
+
+        out.writeInt(ghosts.size);
+        for (int g = 0; g < ghosts.size; g++) {
+            int parent = ghosts.values[g];
+            int asset = catalog.assetOf(parent);
+            out.writeInt(owner[asset]);
+            out.writeInt(global[asset]);
+            out.writeUTF(catalog.stepName(parent));
+        }
+        out.flush();
+    }
+
+    /** Takes the steps the coordinator routes to ghosts of other partitions, and acknowledges them. */
+    private void readExports() throws IOException {
+        exports = new int[in.readInt()];
+        for (int x = 0; x < exports.length; x++) {
+            int asset = in.readInt();
+            String name = in.readUTF();
+            exports[x] = ownedStep(asset, name);
+            if (exports[x] < 0) {
+                throw new IOException(String.format("No step %s on owned asset %d", name, asset));
+            }
+        }
+        exportTtc = new double[exports.length];
+        out.writeInt(exports.length);
+        out.flush();
+    }
+
+    /** Owned step {@code name} of the asset numbered {@code asset} in the whole model, or -1. */
+    private int ownedStep(int asset, String name) {
+        int k = Arrays.binarySearch(ownedAssets, asset);
+        if (k < 0) {
+            return -1;
+        }
+        for (int step = assetSteps[k]; step < assetSteps[k + 1]; step++) {
+            if (names[stepNames[step]].equals(name)) {
+                return step;
+            }
+        }
+        return -1;
+    }
+
+    private void setUp(byte[] kind, double[] localTtc, int[] parentOffsets, int[] parents) {
+        int n = kind.length;
+        var graph =
+                AttackGraph.of(
+                        new AttackStep[n],
+                        kind,
+                        localTtc,
+                        parentOffsets,
+                        parents,
+                        new Defense[0],
+                        new int[0],
+                        new boolean[0]);
+        this.kind = kind;
+        this.localTtc = localTtc;
+        this.parentOffsets = parentOffsets;
+        this.parents = parents;
+        stepCount = n;
+        childOffsets = graph.childOffsets;
+        children = graph.children;
+        ttc = new double[n];
+        reached = new boolean[n];
+        remainingParents = new int[n];
+        queue = new StepQueue(n);
+        Arrays.fill(ttc, GraphSolver.UNREACHED);
+    }
+
+    private void begin() throws IOException {
+        reset();
+        int count = in.readInt();
+        for (int s = 0; s < count; s++) {
+            seed(in.readInt());
+        }
+    }
+
+    /**
+     * Seeds the attack points, given by asset number and step name, that this partition owns, and
+     * the disabled defenses it owns, and tells the coordinator which attack points it found.
+     */
+    private void beginNamed() throws IOException {
+        reset();
+        int count = in.readInt();
+        for (int s = 0; s < count; s++) {
+            int asset = in.readInt();
+            int step = ownedStep(asset, in.readUTF());
+            if (step >= 0) {
+                seed(step);
+            }
+            out.writeBoolean(step >= 0);
+        }
+        for (int step : defenseSeeds) {
+            seed(step);
+        }
+        out.flush();
+    }
+
+    private void reset() {
+        Arrays.fill(ttc, GraphSolver.UNREACHED);
+        Arrays.fill(reached, false);
+        for (int i = 0; i < stepCount; i++) {
+            remainingParents[i] = parentOffsets[i + 1] - parentOffsets[i];
+        }
+        Arrays.fill(exportTtc, GraphSolver.UNREACHED);
+        queue.clear();
+    }
+
+    private void seed(int step) {
+        ttc[step] = 0;
+        queue.push(step, 0);
+    }
+
+    /**
+     * Writes the step names, then for every owned asset its number in the whole model, its number of
+     * steps and the name and TTC of each.
+     */
+    private void writeNamedResult() throws IOException {
+        out.writeInt(names.length);
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+        out.writeInt(ownedAssets.length);
+        for (int k = 0; k < ownedAssets.length; k++) {
+            out.writeInt(ownedAssets[k]);
+            out.writeInt(assetSteps[k + 1] - assetSteps[k]);
+            for (int step = assetSteps[k]; step < assetSteps[k + 1]; step++) {
+                out.writeInt(stepNames[step]);
+                out.writeDouble(ttc[step]);
+            }
+        }
+        out.flush();
+    }
+
+    private void round() throws IOException {
+        int updates = in.readInt();
+        for (int u = 0; u < updates; u++) {
+            int ghost = owned + in.readInt();
+            double value = in.readDouble();
+            if (value < ttc[ghost]) {
+                ttc[ghost] = value;
+                queue.push(ghost, value);
+            }
+        }
+        settle();
+        int changed = 0;
+        for (int x = 0; x < exports.length; x++) {
+            if (ttc[exports[x]] != exportTtc[x]) {
+                changed++;
+            }
+        }
+        out.writeInt(changed);
+        for (int x = 0; x < exports.length; x++) {
+            double value = ttc[exports[x]];
+            if (value != exportTtc[x]) {
+                exportTtc[x] = value;
+                out.writeInt(x);
+                out.writeDouble(value);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Settles the queued steps. A step is settled again each time its TTC drops; entries left from
+     * higher TTCs are skipped.
+     */
+    private void settle() {
+        while (!queue.isEmpty()) {
+            double current = queue.peekKey();
+            int step = queue.pop();
+            if (current != ttc[step]) {
+                continue;
+            }
+            boolean first = !reached[step];
+            reached[step] = true;
+            for (int e = childOffsets[step]; e < childOffsets[step + 1]; e++) {
+                int child = children[e];
+                double candidate;
+                if (kind[child] == AttackGraph.AND) {
+                    if (first) {
+                        remainingParents[child]--;
+                    }
+                    if (remainingParents[child] > 0) {
+                        continue;
+                    }
+                    double parentMax = 0;
+                    for (int p = parentOffsets[child]; p < parentOffsets[child + 1]; p++) {
+                        if (ttc[parents[p]] > parentMax) {
+                            parentMax = ttc[parents[p]];
+                        }
+                    }
+                    candidate = parentMax + localTtc[child];
+                } else {
+                    candidate = current + localTtc[child];
+                }
+                if (candidate < ttc[child]) {
+                    ttc[child] = candidate;
+                    queue.push(child, candidate);
+                }
+            }
+        }
+    }
+}
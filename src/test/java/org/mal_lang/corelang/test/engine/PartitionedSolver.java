@@ -0,0 +1,672 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.Asset;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Solves an {@link AttackGraph} split into partitions, each held and solved by its own {@link
+ * PartitionWorker}, in separate JVMs or on threads, talking to this coordinator over loopback
+ * sockets.
+ *
+ * <p>Every step belongs to one partition, for example the partition of the {@code Network} or
+ * {@code PhysicalZone} its asset sits in. An edge whose parent lies in another partition becomes a
+ * ghost of that parent in the child's partition. A solve runs in rounds: every worker whose ghosts
+ * changed settles its partition again from just those ghosts, and the TTCs of steps with children
+ * in other partitions that changed are routed to those ghosts for the next round. Ghosts start out
+ * unreached and their TTCs only decrease, each TTC a worker computes is that of an actual attack,
+ * and an optimal attack that crosses partitions {@code k} times is found by round {@code k + 1}, so
+ * the rounds stop after finitely many and the merged TTCs are exactly those of {@link GraphSolver}
+ * on the whole graph. Ghost TTCs are passed on as doubles and added to like in a single solve, so
+ * the results are bit for bit the same.
+ *
+ * <p>{@link #start} hands out the partitions of a graph compiled in this JVM, so the coordinator
+ * holds the whole graph. To solve a model that exceeds one heap, split its model file with {@link
+ * ModelPartitioner} and {@link #open} the partition files instead: each worker loads and compiles
+ * its own partition, ghosts and exports are matched up by asset number and step name, and the
+ * coordinator keeps only the routes from exports to ghosts and the ghost TTCs still to be sent.
+ * Results are then streamed to a {@link TtcVisitor} one partition at a time. Cutting along network
+ * boundaries keeps the number of ghosts and rounds small.
+ */
+public final class PartitionedSolver implements Closeable {
+    /** Where the workers run. */
+    public enum Mode {
+        PROCESSES,
+        THREADS
+    }
+
+    /** Receives the TTC of a step of a model opened from partition files. */
+    public interface TtcVisitor {
+        /** Step {@code step} of the asset numbered {@code asset} in the whole model has TTC {@code ttc}. */
+        void visit(int asset, String step, double ttc);
+    }
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 60_000;
+
+    private final int parts;
+    // The graph and how it is split, for solvers started on a graph; null for opened ones.
+    private final AttackGraph graph;
+    private final int[] partition;
+    private final int[] localIds;
+    private final int[][] owned;
+    private final int[][] ghosts;
+    private final int[][] exports;
+    private final int[] ghostCounts;
+    private final int[][] routeOffsets;
+    private final long[][] routes;
+    private final Process[] processes;
+    private final Thread[] threads;
+    private final Socket[] sockets;
+    private final DataInputStream[] in;
+    private final DataOutputStream[] out;
+    private int rounds;
+    private boolean closed;
+
+    private PartitionedSolver(AttackGraph graph, int[] partition, int parts) {
+        this.graph = graph;
+        this.parts = parts;
+        this.partition = partition;
+        int n = graph.stepCount();
+        this.localIds = new int[n];
+        var ownedCounts = new int[parts];
+        for (int i = 0; i < n; i++) {
+            localIds[i] = ownedCounts[partition[i]]++;
+        }
+        this.owned = new int[parts][];
+        for (int p = 0; p < parts; p++) {
+            owned[p] = new int[ownedCounts[p]];
+        }
+        for (int i = 0; i < n; i++) {
+            owned[partition[i]][localIds[i]] = i;
+        }
+
+        // Ghosts of each partition, in order of first use, and the exported steps of each.
+        var ghostIndex = new int[n];
+        Arrays.fill(ghostIndex, -1);
+        this.ghosts = new int[parts][];
+        var exportIndex = new int[n];
+        Arrays.fill(exportIndex, -1);
+        var exportCounts = new int[parts];
+        for (int p = 0; p < parts; p++) {
+            int count = 0;
+            var list = new int[16];
+            for (int child : owned[p]) {
+                for (int e = graph.parentOffsets[child]; e < graph.parentOffsets[child + 1]; e++) {
+                    int parent = graph.parents[e];
+                    if (partition[parent] != p && ghostIndex[parent] < 0) {
+                        if (count == list.length) {
+                            list = Arrays.copyOf(list, count * 2);
+                        }
+                        ghostIndex[parent] = count;
+                        list[count++] = parent;
+                        if (exportIndex[parent] < 0) {
+                            exportIndex[parent] = exportCounts[partition[parent]]++;
+                        }
+                    }
+                }
+            }
+            ghosts[p] = Arrays.copyOf(list, count);
+            for (int ghost : ghosts[p]) {
+                ghostIndex[ghost] = -1;
+            }
+        }
+        this.exports = new int[parts][];
+        for (int p = 0; p < parts; p++) {
+            exports[p] = new int[exportCounts[p]];
+        }
+        for (int i = 0; i < n; i++) {
+            if (exportIndex[i] >= 0) {
+                exports[partition[i]][exportIndex[i]] = i;
+            }
+        }
+        // Routes of each export: (partition << 32 | ghost index) of every ghost of it.
+        this.routeOffsets = new int[parts][];
+        this.routes = new long[parts][];
+        var routeCounts = new int[n];
+        for (int p = 0; p < parts; p++) {
+            for (int ghost : ghosts[p]) {
+                routeCounts[ghost]++;
+            }
+        }
+        for (int p = 0; p < parts; p++) {
+            routeOffsets[p] = new int[exports[p].length + 1];
+            for (int x = 0; x < exports[p].length; x++) {
+                routeOffsets[p][x + 1] = routeOffsets[p][x] + routeCounts[exports[p][x]];
+            }
+            routes[p] = new long[routeOffsets[p][exports[p].length]];
+        }
+        var fill = new int[n];
+        for (int p = 0; p < parts; p++) {
+            for (int g = 0; g < ghosts[p].length; g++) {
+                int ghost = ghosts[p][g];
+                int q = partition[ghost];
+                routes[q][routeOffsets[q][exportIndex[ghost]] + fill[ghost]++] = ((long) p << 32) | g;
+            }
+        }
+
+        this.ghostCounts = new int[parts];
+        for (int p = 0; p < parts; p++) {
+            ghostCounts[p] = ghosts[p].length;
+        }
+        this.processes = new Process[parts];
+        this.threads = new Thread[parts];
+        this.sockets = new Socket[parts];
+        this.in = new DataInputStream[parts];
+        this.out = new DataOutputStream[parts];
+    }
+
+    private PartitionedSolver(int parts) {
+        this.parts = parts;
+        this.graph = null;
+        this.partition = null;
+        this.localIds = null;
+        this.owned = null;
+        this.ghosts = null;
+        this.exports = null;
+        this.ghostCounts = new int[parts];
+        this.routeOffsets = new int[parts][];
+        this.routes = new long[parts][];
+        this.processes = new Process[parts];
+        this.threads = new Thread[parts];
+        this.sockets = new Socket[parts];
+        this.in = new DataInputStream[parts];
+        this.out = new DataOutputStream[parts];
+    }
+
+    /**
+     * Starts one worker per partition and sends each its part of {@code graph}. Step {@code i}
+     * belongs to partition {@code partition[i]}; partitions are numbered from 0.
+     */
+    public static PartitionedSolver start(AttackGraph graph, int[] partition, Mode mode) {
+        if (partition.length != graph.stepCount()) {
+            throw new IllegalArgumentException("Partition does not match the graph");
+        }
+        int parts = 0;
+        for (int p : partition) {
+            if (p < 0) {
+                throw new IllegalArgumentException("Negative partition " + p);
+            }
+            parts = Math.max(parts, p + 1);
+        }
+        var solver = new PartitionedSolver(graph, partition.clone(), Math.max(1, parts));
+        try {
+            solver.connect(mode);
+            for (int p = 0; p < solver.parts; p++) {
+                solver.sendGraph(p);
+            }
+        } catch (IOException e) {
+            solver.close();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            solver.close();
+            throw e;
+        }
+        return solver;
+    }
+
+    /**
+     * Starts one worker per partition file written by {@link ModelPartitioner}; the worker of {@code
+     * files.get(p)} loads and solves partition {@code p}. Fails if a worker cannot load its file.
+     */
+    public static PartitionedSolver open(List<Path> files, Mode mode) {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No partition files");
+        }
+        var solver = new PartitionedSolver(files.size());
+        try {
+            solver.connect(mode);
+            solver.openFiles(files);
+        } catch (IOException e) {
+            solver.close();
+            throw new UncheckedIOException("Partition worker failed", e);
+        } catch (RuntimeException e) {
+            solver.close();
+            throw e;
+        }
+        return solver;
+    }
+
+    /**
+     * Has every worker open its file and name its ghosts, tells each owner which of its steps to
+     * export, and routes every export to the ghosts of it.
+     */
+    private void openFiles(List<Path> files) throws IOException {
+        for (int p = 0; p < parts; p++) {
+            out[p].writeInt(PartitionWorker.OPEN);
+            out[p].writeInt(p);
+            out[p].writeUTF(files.get(p).toAbsolutePath().toString());
+            out[p].flush();
+        }
+        // Exports of each partition, numbered by "asset step" key, and the ghosts each export is
+        // routed to as (partition, ghost index) pairs.
+        var exportIds = new ArrayList<Map<String, Integer>>();
+        var exportKeys = new ArrayList<List<String>>();
+        var exportRoutes = new ArrayList<List<IntList>>();
+        for (int q = 0; q < parts; q++) {
+            exportIds.add(new HashMap<>());
+            exportKeys.add(new ArrayList<>());
+            exportRoutes.add(new ArrayList<>());
+        }
+        for (int p = 0; p < parts; p++) {
+            ghostCounts[p] = in[p].readInt();
+            for (int g = 0; g < ghostCounts[p]; g++) {
+                int q = in[p].readInt();
+                String key = in[p].readInt() + " " + in[p].readUTF();
+                if (q < 0 || q >= parts || q == p) {
+                    throw new IllegalStateException(
+                            String.format("Partition %d has a ghost of %s on partition %d", p, key, q));
+                }
+                Integer x = exportIds.get(q).get(key);
+                if (x == null) {
+                    x = exportKeys.get(q).size();
+                    exportIds.get(q).put(key, x);
+                    exportKeys.get(q).add(key);
+                    exportRoutes.get(q).add(new IntList());
+                }
+                IntList ghostsOfExport = exportRoutes.get(q).get(x);
+                ghostsOfExport.add(p);
+                ghostsOfExport.add(g);
+            }
+        }
+        for (int q = 0; q < parts; q++) {
+            List<String> keys = exportKeys.get(q);
+            out[q].writeInt(PartitionWorker.EXPORTS);
+            out[q].writeInt(keys.size());
+            for (String key : keys) {
+                int space = key.indexOf(' ');
+                out[q].writeInt(Integer.parseInt(key.substring(0, space)));
+                out[q].writeUTF(key.substring(space + 1));
+            }
+            out[q].flush();
+            routeOffsets[q] = new int[keys.size() + 1];
+            for (int x = 0; x < keys.size(); x++) {
+                routeOffsets[q][x + 1] = routeOffsets[q][x] + exportRoutes.get(q).get(x).size / 2;
+            }
+            routes[q] = new long[routeOffsets[q][keys.size()]];
+            for (int x = 0; x < keys.size(); x++) {
+                IntList ghostsOfExport = exportRoutes.get(q).get(x);
+                for (int r = 0; r < ghostsOfExport.size; r += 2) {
+                    routes[q][routeOffsets[q][x] + r / 2] =
+                            ((long) ghostsOfExport.values[r] << 32) | ghostsOfExport.values[r + 1];
+                }
+            }
+        }
+        for (int q = 0; q < parts; q++) {
+            in[q].readInt();
+        }
+    }
+
+    /**
+     * Assigns every step the partition {@code partitionOf} gives its asset; steps that belong to no
+     * asset go to partition 0.
+     */
+    public static int[] partitionByAsset(StepCatalog catalog, ToIntFunction<Asset> partitionOf) {
+        var assetPartition = new int[catalog.assetCount()];
+        for (int a = 0; a < assetPartition.length; a++) {
+            assetPartition[a] = partitionOf.applyAsInt(catalog.asset(a));
+        }
+        var partition = new int[catalog.graph().stepCount()];
+        for (int i = 0; i < partition.length; i++) {
+            int asset = catalog.assetOf(i);
+            partition[i] = asset < 0 ? 0 : assetPartition[asset];
+        }
+        return partition;
+    }
+
+    private void connect(Mode mode) throws IOException {
+        try (var server = new ServerSocket(0, parts, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            String port = Integer.toString(server.getLocalPort());
+            for (int p = 0; p < parts; p++) {
+                if (mode == Mode.PROCESSES) {
+                    String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+                    processes[p] =
+                            new ProcessBuilder(
+                                            java,
+                                            "-cp",
+                                            System.getProperty("java.class.path"),
+                                            PartitionWorker.class.getName(),
+                                            port)
+                                    .inheritIO()
+                                    .start();
+                } else {
+                    threads[p] = new Thread(() -> serveLocally(port), "partition-worker-" + p);
+                    threads[p].setDaemon(true);
+                    threads[p].start();
+                }
+            }
+            // Workers connect in any order; each is assigned the next partition.
+            for (int p = 0; p < parts; p++) {
+                sockets[p] = server.accept();
+                sockets[p].setTcpNoDelay(true);
+                in[p] =
+                        new DataInputStream(
+                                new BufferedInputStream(sockets[p].getInputStream(), 1 << 16));
+                out[p] =
+                        new DataOutputStream(
+                                new BufferedOutputStream(sockets[p].getOutputStream(), 1 << 16));
+            }
+        }
+    }
+
+    private static void serveLocally(String port) {
+        try (var socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(port))) {
+            PartitionWorker.serve(socket);
+        } catch (IOException e) {
+            // The coordinator sees the closed socket and reports the failure.
+        }
+    }
+
+    private void sendGraph(int p) throws IOException {
+        var data = out[p];
+        int[] steps = owned[p];
+        int ghostBase = steps.length;
+        var ghostLocal = new int[graph.stepCount()];
+        for (int g = 0; g < ghosts[p].length; g++) {
+            ghostLocal[ghosts[p][g]] = ghostBase + g;
+        }
+        data.writeInt(PartitionWorker.GRAPH);
+        data.writeInt(steps.length);
+        data.writeInt(ghosts[p].length);
+        for (int step : steps) {
+            data.writeByte(graph.kind[step]);
+        }
+        for (int step : steps) {
+            data.writeDouble(graph.localTtc[step]);
+        }
+        int edges = 0;
+        for (int step : steps) {
+            edges += graph.parentOffsets[step + 1] - graph.parentOffsets[step];
+            data.writeInt(edges);
+        }
+        for (int step : steps) {
+            for (int e = graph.parentOffsets[step]; e < graph.parentOffsets[step + 1]; e++) {
+                int parent = graph.parents[e];
+                data.writeInt(partition[parent] == p ? localIds[parent] : ghostLocal[parent]);
+            }
+        }
+        data.writeInt(exports[p].length);
+        for (int step : exports[p]) {
+            data.writeInt(localIds[step]);
+        }
+        data.flush();
+    }
+
+    /** The graph the solver was started on, or null if it was opened from partition files. */
+    public AttackGraph graph() {
+        return graph;
+    }
+
+    public int partitionCount() {
+        return parts;
+    }
+
+    /** Number of steps owned by other partitions that partition {@code p} holds a ghost of. */
+    public int ghostCount(int p) {
+        return ghostCounts[p];
+    }
+
+    /** Number of rounds the last solve took. */
+    public int rounds() {
+        return rounds;
+    }
+
+    /** Solves with the defense states captured at compile time. */
+    public double[] solve(int[] attackPoints) {
+        return solve(attackPoints, graph.defenseEnabled);
+    }
+
+    /** Solves the whole graph and returns a new array with the TTC of every step. */
+    public double[] solve(int[] attackPoints, boolean[] defenseEnabled) {
+        checkOpen();
+        if (graph == null) {
+            throw new IllegalStateException("Solver was opened from partition files");
+        }
+        try {
+            return run(attackPoints, defenseEnabled);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Partition worker failed", e);
+        }
+    }
+
+    /**
+     * Solves a model opened from partition files, with the defense states in the files, and passes
+     * the TTC of every step of an asset to {@code visitor}, one partition at a time. Attack point {@code i} is
+     * step {@code attackSteps[i]} of the asset numbered {@code attackAssets[i]} in the whole model.
+     */
+    public void solve(int[] attackAssets, String[] attackSteps, TtcVisitor visitor) {
+        checkOpen();
+        if (graph != null) {
+            throw new IllegalStateException("Solver was started on a graph");
+        }
+        if (attackAssets.length != attackSteps.length) {
+            throw new IllegalArgumentException("Attack point assets and steps differ in length");
+        }
+        try {
+            run(attackAssets, attackSteps, visitor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Partition worker failed", e);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Solver is closed");
+        }
+    }
+
+    private double[] run(int[] attackPoints, boolean[] defenseEnabled) throws IOException {
+        var seeds = new int[parts][];
+        var seedCounts = new int[parts];
+        var seedList = new int[attackPoints.length + graph.defenseSteps.length];
+        int seedCount = 0;
+        for (int attackPoint : attackPoints) {
+            seedList[seedCount++] = attackPoint;
+        }
+        for (int d = 0; d < graph.defenseSteps.length; d++) {
+            if (!defenseEnabled[d] && graph.defenseSteps[d] >= 0) {
+                seedList[seedCount++] = graph.defenseSteps[d];
+            }
+        }
+        for (int s = 0; s < seedCount; s++) {
+            seedCounts[partition[seedList[s]]]++;
+        }
+        for (int p = 0; p < parts; p++) {
+            seeds[p] = new int[seedCounts[p]];
+            seedCounts[p] = 0;
+        }
+        for (int s = 0; s < seedCount; s++) {
+            int p = partition[seedList[s]];
+            seeds[p][seedCounts[p]++] = localIds[seedList[s]];
+        }
+        for (int p = 0; p < parts; p++) {
+            out[p].writeInt(PartitionWorker.BEGIN);
+            out[p].writeInt(seeds[p].length);
+            for (int seed : seeds[p]) {
+                out[p].writeInt(seed);
+            }
+        }
+
+        runRounds();
+
+        var ttc = new double[graph.stepCount()];
+        for (int p = 0; p < parts; p++) {
+            out[p].writeInt(PartitionWorker.RESULT);
+            out[p].flush();
+        }
+        for (int p = 0; p < parts; p++) {
+            for (int step : owned[p]) {
+                ttc[step] = in[p].readDouble();
+            }
+        }
+        return ttc;
+    }
+
+    private void run(int[] attackAssets, String[] attackSteps, TtcVisitor visitor) throws IOException {
+        for (int p = 0; p < parts; p++) {
+            out[p].writeInt(PartitionWorker.BEGIN_NAMED);
+            out[p].writeInt(attackAssets.length);
+            for (int i = 0; i < attackAssets.length; i++) {
+                out[p].writeInt(attackAssets[i]);
+                out[p].writeUTF(attackSteps[i]);
+            }
+            out[p].flush();
+        }
+        var found = new boolean[attackAssets.length];
+        for (int p = 0; p < parts; p++) {
+            for (int i = 0; i < attackAssets.length; i++) {
+                found[i] |= in[p].readBoolean();
+            }
+        }
+        for (int i = 0; i < attackAssets.length; i++) {
+            if (!found[i]) {
+                throw new IllegalArgumentException(
+                        String.format("No step %s on asset %d", attackSteps[i], attackAssets[i]));
+            }
+        }
+        runRounds();
+
+        for (int p = 0; p < parts; p++) {
+            out[p].writeInt(PartitionWorker.RESULT_NAMED);
+            out[p].flush();
+            var names = new String[in[p].readInt()];
+            for (int n = 0; n < names.length; n++) {
+                names[n] = in[p].readUTF();
+            }
+            int assets = in[p].readInt();
+            for (int a = 0; a < assets; a++) {
+                int asset = in[p].readInt();
+                int steps = in[p].readInt();
+                for (int step = 0; step < steps; step++) {
+                    String name = names[in[p].readInt()];
+                    visitor.visit(asset, name, in[p].readDouble());
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs rounds until no export changes. Every partition settles in the first round, and from then
+     * on only those with ghosts whose TTCs dropped.
+     */
+    private void runRounds() throws IOException {
+        // Pending ghost updates per partition.
+        var pendingGhosts = new int[parts][];
+        var pendingTtcs = new double[parts][];
+        var pendingCounts = new int[parts];
+        var active = new boolean[parts];
+        Arrays.fill(active, true);
+        for (int p = 0; p < parts; p++) {
+            pendingGhosts[p] = new int[Math.max(1, ghostCounts[p])];
+            pendingTtcs[p] = new double[pendingGhosts[p].length];
+        }
+        // Index of a ghost in the pending list of its partition, or -1.
+        var pendingIndex = new int[parts][];
+        for (int p = 0; p < parts; p++) {
+            pendingIndex[p] = new int[ghostCounts[p]];
+            Arrays.fill(pendingIndex[p], -1);
+        }
+        rounds = 0;
+        boolean any = true;
+        while (any) {
+            rounds++;
+            for (int p = 0; p < parts; p++) {
+                if (!active[p]) {
+                    continue;
+                }
+                out[p].writeInt(PartitionWorker.ROUND);
+                out[p].writeInt(pendingCounts[p]);
+                for (int u = 0; u < pendingCounts[p]; u++) {
+                    out[p].writeInt(pendingGhosts[p][u]);
+                    out[p].writeDouble(pendingTtcs[p][u]);
+                    pendingIndex[p][pendingGhosts[p][u]] = -1;
+                }
+                pendingCounts[p] = 0;
+                out[p].flush();
+            }
+            var solved = active.clone();
+            Arrays.fill(active, false);
+            any = false;
+            for (int p = 0; p < parts; p++) {
+                if (!solved[p]) {
+                    continue;
+                }
+                int changed = in[p].readInt();
+                for (int c = 0; c < changed; c++) {
+                    int x = in[p].readInt();
+                    double ttc = in[p].readDouble();
+                    for (int r = routeOffsets[p][x]; r < routeOffsets[p][x + 1]; r++) {
+                        int q = (int) (routes[p][r] >>> 32);
+                        int ghost = (int) routes[p][r];
+                        int at = pendingIndex[q][ghost];
+                        if (at < 0) {
+                            at = pendingCounts[q]++;
+                            pendingIndex[q][ghost] = at;
+                            pendingGhosts[q][at] = ghost;
+                        }
+                        pendingTtcs[q][at] = ttc;
+                        active[q] = true;
+                        any = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Shuts the workers down. */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (int p = 0; p < parts; p++) {
+            try {
+                if (out[p] != null) {
+                    out[p].writeInt(PartitionWorker.CLOSE);
+                    out[p].flush();
+                }
+            } catch (IOException e) {
+                // The worker is gone already.
+            }
+            try {
+                if (sockets[p] != null) {
+                    sockets[p].close();
+                }
+            } catch (IOException e) {
+                // Nothing left to release.
+            }
+        }
+        for (int p = 0; p < parts; p++) {
+            try {
+                if (processes[p] != null && !processes[p].waitFor(10, TimeUnit.SECONDS)) {
+                    processes[p].destroyForcibly();
+                }
+                if (threads[p] != null) {
+                    threads[p].join(10_000);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (processes[p] != null) {
+                    processes[p].destroyForcibly();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Monte Carlo TTC samples of every step, kept in a memory-mapped file instead of on the heap.
+ *
+ * <p>The file holds one column of {@code float} TTCs per step, each {@code samples} long, after a
+ * 16 byte header ({@code int magic, int version, int steps, int samples}). Unreached steps are
+ * stored as {@link Float#POSITIVE_INFINITY}, as in {@link MonteCarloResult}. Since a mapping is
+ * limited to 2 GB, the columns are mapped in segments of at most 1 GB each, which puts no limit on
+ * the number of steps. The segment size is not part of the file, so a store can be opened with
+ * segments of any size.
+ *
+ * <p>As a {@link SampleSink}, a store is filled while sampling: every sample writes one value into
+ * each column, and workers writing different samples never touch the same bytes. Queries read a
+ * single column, so a percentile costs one column on the heap however large the store is.
+ */
+public final class SampleColumnStore implements SampleSink, Closeable {
+    static final int MAGIC = 0x4D414C43;
+    static final int VERSION = 1;
+    private static final int HEADER = 16;
+    static final long SEGMENT_BYTES = 1L << 30;
+
+    private final int steps;
+    private final int samples;
+    private final int columnsPerSegment;
+    private final MappedByteBuffer[] mappings;
+    private final FloatBuffer[] segments;
+
+    private SampleColumnStore(
+            FileChannel channel, FileChannel.MapMode mode, int steps, int samples, long segmentBytes)
+            throws IOException {
+        if (steps < 0 || samples <= 0 || 4L * samples > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot store %d samples of %d steps", samples, steps));
+        }
+        this.steps = steps;
+        this.samples = samples;
+        this.columnsPerSegment = (int) Math.max(1, segmentBytes / (4L * samples));
+        int count = (steps + columnsPerSegment - 1) / columnsPerSegment;
+        this.mappings = new MappedByteBuffer[count];
+        this.segments = new FloatBuffer[count];
+        for (int s = 0; s < count; s++) {
+            int columns = Math.min(columnsPerSegment, steps - s * columnsPerSegment);
+            long offset = HEADER + 4L * samples * s * columnsPerSegment;
+            mappings[s] = channel.map(mode, offset, 4L * samples * columns);
+            segments[s] = mappings[s].asFloatBuffer();
+        }
+    }
+
+    /** Creates a store for {@code samples} samples of {@code steps} steps, replacing {@code file}. */
+    public static SampleColumnStore create(Path file, int steps, int samples) {
+        return create(file, steps, samples, SEGMENT_BYTES);
+    }
+
+    /** Like {@link #create(Path, int, int)}, mapping the columns in segments of {@code segmentBytes}. */
+    public static SampleColumnStore create(Path file, int steps, int samples, long segmentBytes) {
+        try (var channel =
+                FileChannel.open(
+                        file,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+            var header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(steps).putInt(samples);
+            header.force();
+            return new SampleColumnStore(
+                    channel, FileChannel.MapMode.READ_WRITE, steps, samples, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Opens a store written earlier, read-only. */
+    public static SampleColumnStore open(Path file) {
+        return open(file, SEGMENT_BYTES);
+    }
+
+    /** Like {@link #open(Path)}, mapping the columns in segments of {@code segmentBytes}. */
+    public static SampleColumnStore open(Path file, long segmentBytes) {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER) {
+                throw new IllegalArgumentException(file + " is not a sample store");
+            }
+            var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException(file + " is not a sample store");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException(
+                        String.format("%s has version %d, expected %d", file, version, VERSION));
+            }
+            int steps = header.getInt();
+            int samples = header.getInt();
+            if (channel.size() != HEADER + 4L * steps * samples) {
+                throw new IllegalArgumentException(file + " is truncated");
+            }
+            return new SampleColumnStore(
+                    channel, FileChannel.MapMode.READ_ONLY, steps, samples, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int steps() {
+        return steps;
+    }
+
+    public int samples() {
+        return samples;
+    }
+
+    @Override
+    public void accept(int sample, double[] ttc) {
+        put(sample, ttc);
+    }
+
+    /** Writes the TTCs of one sample, one value per column. */
+    public void put(int sample, double[] ttc) {
+        Objects.checkIndex(sample, samples);
+        if (ttc.length != steps) {
+            throw new IllegalArgumentException(
+                    String.format("Expected %d TTCs, got %d", steps, ttc.length));
+        }
+        int step = 0;
+        for (FloatBuffer segment : segments) {
+            for (int at = sample; at < segment.limit(); at += samples) {
+                double value = ttc[step++];
+                segment.put(at, value == GraphSolver.UNREACHED ? Float.POSITIVE_INFINITY : (float) value);
+            }
+        }
+    }
+
+    /** TTC of {@code step} in sample {@code sample}. */
+    public float get(int step, int sample) {
+        Objects.checkIndex(step, steps);
+        Objects.checkIndex(sample, samples);
+        return segments[step / columnsPerSegment].get(
+                (step % columnsPerSegment) * samples + sample);
+    }
+
+    /** Copies the column of {@code step}, in sample order. */
+    public float[] column(int step) {
+        var column = new float[samples];
+        segments[step / columnsPerSegment]
+                .duplicate()
+                .position((step % columnsPerSegment) * samples)
+                .get(column);
+        return column;
+    }
+
+    /** Fraction of samples in which {@code step} was reached. */
+    public double compromiseProbability(int step) {
+        FloatBuffer segment = segments[step / columnsPerSegment];
+        int start = (step % columnsPerSegment) * samples;
+        int reached = 0;
+        for (int i = start; i < start + samples; i++) {
+            if (segment.get(i) != Float.POSITIVE_INFINITY) {
+                reached++;
+            }
+        }
+        return (double) reached / samples;
+    }
+
+    /**
+     * TTC at quantile {@code q} (between 0 and 1) of {@code step}, by the nearest-rank method used
+     * by {@link MonteCarloResult#percentile}.
+     */
+    public double percentile(int step, double q) {
+        return percentiles(step, q)[0];
+    }
+
+    /** Several quantiles of {@code step}, sorting its column once. */
+    public double[] percentiles(int step, double... quantiles) {
+        float[] sorted = column(step);
+        Arrays.sort(sorted);
+        var result = new double[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            double q = quantiles[i];
+            if (q < 0 || q > 1) {
+                throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+            }
+            int rank = (int) Math.ceil(q * sorted.length);
+            result[i] = sorted[Math.max(rank - 1, 0)];
+        }
+        return result;
+    }
+
+    /** Flushes written samples to the file. */
+    public void force() {
+        for (MappedByteBuffer mapping : mappings) {
+            if (!mapping.isReadOnly()) {
+                mapping.force();
+            }
+        }
+    }
+
+    /**
+     * Flushes the store. The mappings themselves are released when the store is garbage
+     * collected, as Java offers no way to unmap a buffer explicitly.
+     */
+    @Override
+    public void close() {
+        force();
+    }
+}
@@ -0,0 +1,16 @@
+package org.mal_lang.corelang.test.engine;
+
+/**
+ * Receives the solved TTCs of every sample of a {@link MonteCarloSampler} run.
+ *
+ * <p>The sampler calls a sink from all of its worker threads, each time for a different sample,
+ * so implementations must tolerate concurrent calls. {@link SampleColumnStore} writes the samples
+ * to a memory-mapped file.
+ */
+public interface SampleSink {
+    /**
+     * Accepts sample {@code sample}, with TTCs indexed by step id and {@link GraphSolver#UNREACHED}
+     * for steps that were not reached. The array is reused once the call returns.
+     */
+    void accept(int sample, double[] ttc);
+}
@@ -0,0 +1,100 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * The stochastic part of a compiled model: which steps have a TTC distribution in the .mal files
+ * and which defenses have a probabilistic default.
+ *
+ * <p>Steps without a distribution keep the local TTC of the compiled graph. Defenses whose default
+ * is {@code Enabled} or {@code Disabled} keep the state of the model, since the constructors of
+ * the generated assets may override it; only a {@code Bernoulli(p)} default with {@code 0 < p < 1}
+ * is sampled.
+ */
+public final class SamplingPlan {
+    private final AttackGraph graph;
+    private final int[] steps;
+    private final TtcDistribution[] distributions;
+    private final int[] defenses;
+    private final double[] defenseProbabilities;
+
+    private SamplingPlan(
+            AttackGraph graph,
+            int[] steps,
+            TtcDistribution[] distributions,
+            int[] defenses,
+            double[] defenseProbabilities) {
+        this.graph = graph;
+        this.steps = steps;
+        this.distributions = distributions;
+        this.defenses = defenses;
+        this.defenseProbabilities = defenseProbabilities;
+    }
+
+    public static SamplingPlan of(StepCatalog catalog, MalSpec spec) {
+        AttackGraph graph = catalog.graph();
+        var steps = new ArrayList<Integer>();
+        var distributions = new ArrayList<TtcDistribution>();
+        for (int i = 0; i < graph.stepCount(); i++) {
+            if (catalog.assetType(i) == null || catalog.stepName(i) == null) {
+                continue;
+            }
+            String ttc = spec.ttc(catalog.assetType(i), catalog.stepName(i));
+            MalSpec.Step step = spec.step(catalog.assetType(i), catalog.stepName(i));
+            if (ttc != null && step != null && !step.isDefense()) {
+                steps.add(i);
+                distributions.add(TtcDistribution.parse(ttc));
+            }
+        }
+
+        var defenses = new ArrayList<Integer>();
+        var probabilities = new ArrayList<Double>();
+        for (int d = 0; d < graph.defenseCount(); d++) {
+            if (catalog.defenseType(d) == null) {
+                continue;
+            }
+            String ttc = spec.ttc(catalog.defenseType(d), catalog.defenseName(d));
+            if (ttc == null) {
+                continue;
+            }
+            double p = TtcDistribution.parse(ttc).probability();
+            if (p > 0 && p < 1) {
+                defenses.add(d);
+                probabilities.add(p);
+            }
+        }
+
+        return new SamplingPlan(
+                graph,
+                steps.stream().mapToInt(Integer::intValue).toArray(),
+                distributions.toArray(new TtcDistribution[0]),
+                defenses.stream().mapToInt(Integer::intValue).toArray(),
+                probabilities.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    public AttackGraph graph() {
+        return graph;
+    }
+
+    public int stochasticStepCount() {
+        return steps.length;
+    }
+
+    public int stochasticDefenseCount() {
+        return defenses.length;
+    }
+
+    /**
+     * Draws one sample into {@code localTtc} and {@code defenseEnabled}, which must start out as
+     * copies of the compiled values; entries that are not stochastic are left untouched.
+     */
+    public void sample(SplittableRandom random, double[] localTtc, boolean[] defenseEnabled) {
+        for (int i = 0; i < steps.length; i++) {
+            localTtc[steps[i]] = distributions[i].sample(random);
+        }
+        for (int i = 0; i < defenses.length; i++) {
+            defenseEnabled[defenses[i]] = random.nextDouble() < defenseProbabilities[i];
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An {@link AttackGraph} in which parents shared by many steps are wired through one hub step
+ * instead of to every step separately.
+ *
+ * <p>coreLang attaches the vulnerabilities of a {@code SoftwareProduct} to every application of the
+ * product through {@code allVulnerabilities()} and {@code softProductVulnerabilities}. The
+ * vulnerability steps themselves exist once per product, but each step such as {@code
+ * networkAccessAchieved} gets the same steps of all applications as parents, and every product
+ * defense such as {@code networkAccessRequired} feeds a step of every application, so a fleet of
+ * {@code A} applications on a product with {@code V} vulnerabilities carries {@code A * V} edges
+ * per step kind. Here a group of steps of the same kind whose parent sets have a large common part
+ * {@code S} gets a hub of that kind with local TTC 0 and the parents {@code S}, and the steps take
+ * the hub in place of {@code S}: {@code |S| * group} edges become {@code |S| + group}. The hub of an
+ * {@code |} group has the smallest TTC in {@code S} and the hub of an {@code &} group the largest,
+ * so every original step gets exactly the TTC it has in the original graph, for any attack points,
+ * defense states and local TTCs of the original steps.
+ *
+ * <p>Groups are found by hashing: every step with at least {@value #MIN_SHARED} parents is filed
+ * under the two parents with the smallest hash, so steps whose parent sets differ by a private
+ * parent, such as the {@code disable} step of their own defense, still meet. Each group keeps the
+ * parents most of its steps have, takes the steps that have all of those, and shares whatever
+ * these steps have in common.
+ *
+ * <p>Original steps keep their ids and hubs are appended after them, so attack points, defense
+ * indices, sampled local TTCs and a {@link StepCatalog} carry over unchanged. Hubs have no {@code
+ * AttackStep}: {@link AttackGraph#step} returns null for them, and paths and snapshots should be
+ * taken from the original graph.
+ */
+public final class SharedParentHubs {
+    static final int MIN_SHARED = 4;
+
+    private final AttackGraph original;
+    private final AttackGraph graph;
+
+    private SharedParentHubs(AttackGraph original, AttackGraph graph) {
+        this.original = original;
+        this.graph = graph;
+    }
+
+    public static SharedParentHubs of(AttackGraph graph) {
+        int n = graph.stepCount();
+        var parents = new int[n][];
+        var mark = new int[n];
+        Arrays.fill(mark, -1);
+        for (int i = 0; i < n; i++) {
+            parents[i] = distinctParents(graph, i, mark);
+        }
+
+        // File every candidate under its two smallest-hash parents, keyed by parent and kind.
+        var groups = new HashMap<Long, IntList>();
+        for (int i = 0; i < n; i++) {
+            if (parents[i].length < MIN_SHARED) {
+                continue;
+            }
+            int first = -1;
+            int second = -1;
+            for (int parent : parents[i]) {
+                if (first < 0 || hash(parent) < hash(first)) {
+                    second = first;
+                    first = parent;
+                } else if (second < 0 || hash(parent) < hash(second)) {
+                    second = parent;
+                }
+            }
+            groups.computeIfAbsent(key(first, graph.kind[i]), k -> new IntList()).add(i);
+            groups.computeIfAbsent(key(second, graph.kind[i]), k -> new IntList()).add(i);
+        }
+        var order = new ArrayList<Map.Entry<Long, IntList>>();
+        for (var group : groups.entrySet()) {
+            if (group.getValue().size >= 2) {
+                order.add(group);
+            }
+        }
+        order.sort(
+                (x, y) ->
+                        x.getValue().size != y.getValue().size
+                                ? Integer.compare(y.getValue().size, x.getValue().size)
+                                : Long.compare(x.getKey(), y.getKey()));
+
+        var hubOf = new int[n];
+        Arrays.fill(hubOf, -1);
+        var hubParents = new ArrayList<int[]>();
+        var hubKinds = new IntList();
+        var count = new int[n];
+        var flag = new boolean[n];
+        var members = new IntList();
+        for (var entry : order) {
+            members.size = 0;
+            IntList group = entry.getValue();
+            for (int m = 0; m < group.size; m++) {
+                if (hubOf[group.values[m]] < 0) {
+                    members.add(group.values[m]);
+                }
+            }
+            if (members.size < 2) {
+                continue;
+            }
+            int[] shared = sharedParents(parents, members, count, flag);
+            if (shared.length < MIN_SHARED
+                    || (long) shared.length * members.size <= shared.length + members.size) {
+                continue;
+            }
+            int hub = n + hubParents.size();
+            hubParents.add(shared);
+            hubKinds.add(graph.kind[members.values[0]]);
+            for (int m = 0; m < members.size; m++) {
+                hubOf[members.values[m]] = hub;
+            }
+        }
+        if (hubParents.isEmpty()) {
+            return new SharedParentHubs(graph, graph);
+        }
+
+        int total = n + hubParents.size();
+        var steps = Arrays.copyOf(graph.steps, total);
+        var kind = Arrays.copyOf(graph.kind, total);
+        var localTtc = Arrays.copyOf(graph.localTtc, total);
+        var parentOffsets = new int[total + 1];
+        var edges = new IntList();
+        for (int i = 0; i < n; i++) {
+            int hub = hubOf[i];
+            if (hub < 0) {
+                for (int e = graph.parentOffsets[i]; e < graph.parentOffsets[i + 1]; e++) {
+                    edges.add(graph.parents[e]);
+                }
+            } else {
+                int[] shared = hubParents.get(hub - n);
+                for (int parent : shared) {
+                    flag[parent] = true;
+                }
+                for (int parent : parents[i]) {
+                    if (!flag[parent]) {
+                        edges.add(parent);
+                    }
+                }
+                edges.add(hub);
+                for (int parent : shared) {
+                    flag[parent] = false;
+                }
+            }
+            parentOffsets[i + 1] = edges.size;
+        }
+        for (int h = 0; h < hubParents.size(); h++) {
+            kind[n + h] = (byte) hubKinds.values[h];
+            for (int parent : hubParents.get(h)) {
+                edges.add(parent);
+            }
+            parentOffsets[n + h + 1] = edges.size;
+        }
+        var shared =
+                AttackGraph.of(
+                        steps,
+                        kind,
+                        localTtc,
+                        parentOffsets,
+                        edges.toArray(),
+                        graph.defenses,
+                        graph.defenseSteps,
+                        graph.defenseEnabled);
+        return new SharedParentHubs(graph, shared);
+    }
+
+    private static int[] distinctParents(AttackGraph graph, int step, int[] mark) {
+        var result = new int[graph.parentOffsets[step + 1] - graph.parentOffsets[step]];
+        int size = 0;
+        for (int e = graph.parentOffsets[step]; e < graph.parentOffsets[step + 1]; e++) {
+            int parent = graph.parents[e];
+            if (mark[parent] != step) {
+                mark[parent] = step;
+                result[size++] = parent;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * The parents shared by the members that have every parent most members have. Members without
+     * them are dropped from {@code members}. {@code count} and {@code flag} are all zero and false
+     * on entry and left that way.
+     */
+    private static int[] sharedParents(int[][] parents, IntList members, int[] count, boolean[] flag) {
+        countParents(parents, members, count);
+        var core = new IntList();
+        for (int m = 0; m < members.size; m++) {
+            for (int parent : parents[members.values[m]]) {
+                if (!flag[parent] && 2 * count[parent] > members.size) {
+                    flag[parent] = true;
+                    core.add(parent);
+                }
+            }
+        }
+        clearParents(parents, members, count);
+
+        int kept = 0;
+        for (int m = 0; m < members.size; m++) {
+            int member = members.values[m];
+            int found = 0;
+            for (int parent : parents[member]) {
+                if (flag[parent]) {
+                    found++;
+                }
+            }
+            if (found == core.size) {
+                members.values[kept++] = member;
+            }
+        }
+        members.size = kept;
+        for (int c = 0; c < core.size; c++) {
+            flag[core.values[c]] = false;
+        }
+        if (kept < 2) {
+            return new int[0];
+        }
+
+        countParents(parents, members, count);
+        var shared = new IntList();
+        for (int parent : parents[members.values[0]]) {
+            if (count[parent] == members.size) {
+                shared.add(parent);
+            }
+        }
+        clearParents(parents, members, count);
+        return shared.toArray();
+    }
+
+    private static void countParents(int[][] parents, IntList members, int[] count) {
+        for (int m = 0; m < members.size; m++) {
+            for (int parent : parents[members.values[m]]) {
+                count[parent]++;
+            }
+        }
+    }
+
+    private static void clearParents(int[][] parents, IntList members, int[] count) {
+        for (int m = 0; m < members.size; m++) {
+            for (int parent : parents[members.values[m]]) {
+                count[parent] = 0;
+            }
+        }
+    }
+
+    private static long key(int parent, byte kind) {
+        return ((long) parent << 1) | kind;
+    }
+
+    private static long hash(int step) {
+        long z = (step + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** The graph that was factored. */
+    public AttackGraph original() {
+        return original;
+    }
+
+    /** The graph to solve: the original steps under their own ids, followed by the hubs. */
+    public AttackGraph graph() {
+        return graph;
+    }
+
+    public int hubCount() {
+        return graph.stepCount() - original.stepCount();
+    }
+
+    /** Whether step {@code id} of {@link #graph()} is a hub rather than an original step. */
+    public boolean isHub(int id) {
+        return id >= original.stepCount();
+    }
+
+    /** Drops the TTCs of the hubs, leaving the TTC of every original step. */
+    public double[] expand(double[] ttc) {
+        return Arrays.copyOf(ttc, original.stepCount());
+    }
+}
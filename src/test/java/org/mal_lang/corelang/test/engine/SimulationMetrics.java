@@ -0,0 +1,215 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Counters and timers collected by an instrumented {@link GraphSolver}.
+ *
+ * <p>Solvers are instrumented when the JVM runs with {@code -Dmal.metrics=true}, or when a metrics
+ * object is passed to {@link GraphSolver#GraphSolver(AttackGraph, SimulationMetrics)}. An
+ * uninstrumented solver only bumps a few local counters and tests a local for null, a branch that
+ * is never taken, so leaving metrics off costs nothing measurable.
+ *
+ * <p>Per-step time is the time spent relaxing the edges of a step after it was settled, and is
+ * kept by step id; {@link #nanosByAssetType} and {@link #nanosByStep} group it by MAL names using
+ * a {@link StepCatalog}. Every instrumented solve is also committed as a {@code
+ * org.mal_lang.corelang.Solve} JFR event carrying the counts of that solve alone, and {@link
+ * #commitEvents} emits one {@code org.mal_lang.corelang.StepTime} event per step name, so a flight
+ * recording shows both.
+ *
+ * <p>A metrics object belongs to one solver and is not thread safe; use {@link #add} to combine
+ * the metrics of several solvers.
+ */
+public final class SimulationMetrics {
+    public static final boolean ENABLED = Boolean.getBoolean("mal.metrics");
+
+    @Name("org.mal_lang.corelang.Solve")
+    @Label("Attack Graph Solve")
+    @Category("MAL")
+    static final class SolveEvent extends Event {
+        @Label("Steps")
+        int steps;
+
+        @Label("Steps Settled")
+        long settled;
+
+        @Label("Edges Relaxed")
+        long edgesRelaxed;
+
+        @Label("AND Checks")
+        @Description("Parent countdowns of & steps")
+        long andChecks;
+
+        @Label("Queue High-Water Mark")
+        int queueHighWater;
+    }
+
+    @Name("org.mal_lang.corelang.StepTime")
+    @Label("Attack Step Time")
+    @Category("MAL")
+    static final class StepTimeEvent extends Event {
+        @Label("Step")
+        @Description("Type-level step name, for example Network.accessUninspected")
+        String step;
+
+        @Label("Steps Settled")
+        long settled;
+
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    private final int stepCount;
+    long solves;
+    long settled;
+    long edgesRelaxed;
+    long andChecks;
+    int queueHighWater;
+    long nanos;
+    final long[] stepNanos;
+    final long[] stepSettled;
+
+    public SimulationMetrics(AttackGraph graph) {
+        this.stepCount = graph.stepCount();
+        this.stepNanos = new long[stepCount];
+        this.stepSettled = new long[stepCount];
+    }
+
+    public long solves() {
+        return solves;
+    }
+
+    public long settled() {
+        return settled;
+    }
+
+    /** Number of times a step got a lower TTC and was pushed onto the queue. */
+    public long edgesRelaxed() {
+        return edgesRelaxed;
+    }
+
+    public long andChecks() {
+        return andChecks;
+    }
+
+    /** Largest number of entries the queue held during any solve, including stale ones. */
+    public int queueHighWater() {
+        return queueHighWater;
+    }
+
+    /** Total wall-clock time of all solves. */
+    public long nanos() {
+        return nanos;
+    }
+
+    public long stepNanos(int id) {
+        return stepNanos[id];
+    }
+
+    public long stepSettled(int id) {
+        return stepSettled[id];
+    }
+
+    /** Adds the metrics of another solver on the same graph to these. */
+    public void add(SimulationMetrics other) {
+        if (other.stepCount != stepCount) {
+            throw new IllegalArgumentException("Metrics of a different graph");
+        }
+        solves += other.solves;
+        settled += other.settled;
+        edgesRelaxed += other.edgesRelaxed;
+        andChecks += other.andChecks;
+        queueHighWater = Math.max(queueHighWater, other.queueHighWater);
+        nanos += other.nanos;
+        for (int i = 0; i < stepCount; i++) {
+            stepNanos[i] += other.stepNanos[i];
+            stepSettled[i] += other.stepSettled[i];
+        }
+    }
+
+    public void reset() {
+        solves = settled = edgesRelaxed = andChecks = nanos = 0;
+        queueHighWater = 0;
+        Arrays.fill(stepNanos, 0);
+        Arrays.fill(stepSettled, 0);
+    }
+
+    /** Step time grouped by asset type, for example {@code Network}. */
+    public Map<String, Long> nanosByAssetType(StepCatalog catalog) {
+        return group(catalog::assetType, stepNanos);
+    }
+
+    /** Step time grouped by type-level step name, for example {@code Network.accessUninspected}. */
+    public Map<String, Long> nanosByStep(StepCatalog catalog) {
+        return group(catalog::typeName, stepNanos);
+    }
+
+    private Map<String, Long> group(IntFunction<String> name, long[] values) {
+        var grouped = new TreeMap<String, Long>();
+        for (int i = 0; i < stepCount; i++) {
+            if (stepSettled[i] > 0) {
+                String key = name.apply(i);
+                grouped.merge(key == null ? "?" : key, values[i], Long::sum);
+            }
+        }
+        return grouped;
+    }
+
+    /** Emits one JFR event per type-level step name with the time spent in its steps. */
+    public void commitEvents(StepCatalog catalog) {
+        Map<String, Long> settledByStep = group(catalog::typeName, stepSettled);
+        for (Map.Entry<String, Long> entry : nanosByStep(catalog).entrySet()) {
+            var event = new StepTimeEvent();
+            if (event.isEnabled()) {
+                event.step = entry.getKey();
+                event.settled = settledByStep.get(entry.getKey());
+                event.time = entry.getValue();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Summary of these metrics as a JSON object: the totals, then settled steps and time per asset
+     * type and per step name, keyed by name.
+     */
+    public String toJson(StepCatalog catalog) {
+        var json = new StringBuilder();
+        json.append("{\"solves\":").append(solves)
+                .append(",\"settled\":").append(settled)
+                .append(",\"edgesRelaxed\":").append(edgesRelaxed)
+                .append(",\"andChecks\":").append(andChecks)
+                .append(",\"queueHighWater\":").append(queueHighWater)
+                .append(",\"nanos\":").append(nanos);
+        appendGroups(json, "assetTypes", group(catalog::assetType, stepSettled),
+                nanosByAssetType(catalog));
+        appendGroups(json, "steps", group(catalog::typeName, stepSettled), nanosByStep(catalog));
+        return json.append('}').toString();
+    }
+
+    private static void appendGroups(
+            StringBuilder json, String field, Map<String, Long> settled, Map<String, Long> nanos) {
+        json.append(",\"").append(field).append("\":{");
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : nanos.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            Json.appendString(json, entry.getKey());
+            json.append(":{\"settled\":").append(settled.get(entry.getKey()))
+                    .append(",\"nanos\":").append(entry.getValue()).append('}');
+        }
+        json.append('}');
+    }
+}
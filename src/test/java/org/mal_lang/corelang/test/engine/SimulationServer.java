@@ -0,0 +1,313 @@
+package org.mal_lang.corelang.test.engine;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A resident HTTP service on the loopback interface that keeps compiled models in memory and
+ * answers TTC queries against them.
+ *
+ * <p>Models are registered under a name with their {@link StepCatalog}, so queries use the full
+ * names of steps and defenses. A query
+ *
+ * <pre>
+ * GET /models/office/ttc?from=Office.physicalAccess&amp;target=Pages.read&amp;enable=Office.eavesdropDefense
+ * </pre>
+ *
+ * solves the model from the {@code from} steps with the compiled defense states, overridden by
+ * every {@code enable} and {@code disable} defense, and answers
+ *
+ * <pre>
+ * {"model":"office","micros":85,"results":[{"target":"Pages.read","reached":true,"ttc":12.0}]}
+ * </pre>
+ *
+ * {@code from}, {@code target}, {@code enable} and {@code disable} may all be repeated. {@code GET
+ * /models} lists the registered models with their sizes and the number of solvers they created.
+ * Unknown names are answered with 400, unknown models and paths with 404.
+ *
+ * <p>Requests are handled on virtual threads when the JVM has them and on a cached thread pool
+ * otherwise. Each model keeps a pool of {@link GraphSolver}s, created as queries need them, and
+ * runs at most as many solves at once as it was registered with, by default one per processor.
+ * Further queries wait for a solver, so the scratch memory and CPU of a model stay bounded however
+ * many queries arrive, and a query costs one solve of an already compiled graph.
+ */
+public final class SimulationServer implements Closeable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, HotModel> models = new ConcurrentHashMap<>();
+
+    private SimulationServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /** Starts a server on loopback port {@code port}, or on a free port if it is 0. */
+    public static SimulationServer start(int port) {
+        HttpServer server;
+        try {
+            server =
+                    HttpServer.create(
+                            new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var simulation = new SimulationServer(server, newExecutor());
+        server.createContext("/models", simulation::handle);
+        server.setExecutor(simulation.executor);
+        server.start();
+        return simulation;
+    }
+
+    /** A virtual thread per task on JVMs that have them, looked up reflectively for Java 11. */
+    static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(
+                    task -> {
+                        var thread = new Thread(task, "simulation-server");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    /** Port the server listens on. */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Registers a compiled model under {@code name}, replacing any model of that name. */
+    public void register(String name, StepCatalog catalog) {
+        register(name, catalog, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Registers a model that runs at most {@code concurrentSolves} solves at once. */
+    public void register(String name, StepCatalog catalog, int concurrentSolves) {
+        if (name.isEmpty() || name.indexOf('/') >= 0) {
+            throw new IllegalArgumentException("Invalid model name '" + name + "'");
+        }
+        if (concurrentSolves < 1) {
+            throw new IllegalArgumentException("A model needs at least one solver");
+        }
+        models.put(name, new HotModel(catalog, concurrentSolves));
+    }
+
+    /** Drops the model registered under {@code name}; queries already running finish. */
+    public void unregister(String name) {
+        models.remove(name);
+    }
+
+    /** Stops accepting queries and waits up to a second for running ones. */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    /** A registered model with its name indexes, idle solvers and a permit per solver. */
+    private static final class HotModel {
+        final StepCatalog catalog;
+        final AttackGraph graph;
+        final Map<String, Integer> defenses = new HashMap<>();
+        final ConcurrentLinkedQueue<GraphSolver> solvers = new ConcurrentLinkedQueue<>();
+        final Semaphore permits;
+        final AtomicInteger created = new AtomicInteger();
+
+        HotModel(StepCatalog catalog, int concurrentSolves) {
+            this.catalog = catalog;
+            this.graph = catalog.graph();
+            this.permits = new Semaphore(concurrentSolves);
+            for (int d = 0; d < graph.defenseCount(); d++) {
+                defenses.put(catalog.defenseFullName(d), d);
+            }
+        }
+
+        int step(String fullName) {
+            int id = catalog.idOf(fullName);
+            if (id < 0) {
+                throw new IllegalArgumentException("Unknown attack step " + fullName);
+            }
+            return id;
+        }
+
+        int defense(String fullName) {
+            Integer index = defenses.get(fullName);
+            if (index == null) {
+                throw new IllegalArgumentException("Unknown defense " + fullName);
+            }
+            return index;
+        }
+
+        /** TTCs of {@code targets}, solved on an idle solver once a permit is free. */
+        double[] solve(int[] attackPoints, boolean[] defenseEnabled, int[] targets) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a solver", e);
+            }
+            GraphSolver solver = solvers.poll();
+            try {
+                if (solver == null) {
+                    solver = new GraphSolver(graph);
+                    created.incrementAndGet();
+                }
+                double[] ttc = solver.solve(attackPoints, defenseEnabled);
+                var result = new double[targets.length];
+                for (int t = 0; t < targets.length; t++) {
+                    result[t] = ttc[targets[t]];
+                }
+                return result;
+            } finally {
+                if (solver != null) {
+                    solvers.add(solver);
+                }
+                permits.release();
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("Only GET is supported"));
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/models") || path.equals("/models/")) {
+                respond(exchange, 200, listModels());
+                return;
+            }
+            String[] parts = path.startsWith("/models/") ? path.substring(8).split("/") : new String[0];
+            HotModel model = parts.length == 2 && parts[1].equals("ttc") ? models.get(parts[0]) : null;
+            if (model == null) {
+                respond(exchange, 404, error("No such model or query: " + path));
+                return;
+            }
+            try {
+                var parameters = parameters(exchange.getRequestURI().getRawQuery());
+                respond(exchange, 200, query(parts[0], model, parameters));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, error(e.getMessage()));
+            }
+        } catch (RuntimeException e) {
+            respond(exchange, 500, error(String.valueOf(e)));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String listModels() {
+        var json = new StringBuilder("{\"models\":[");
+        var sorted = new TreeMap<>(models);
+        boolean first = true;
+        for (var entry : sorted.entrySet()) {
+            HotModel model = entry.getValue();
+            AttackGraph graph = model.graph;
+            json.append(first ? "" : ",").append("{\"name\":");
+            Json.appendString(json, entry.getKey());
+            json.append(",\"steps\":").append(graph.stepCount());
+            json.append(",\"edges\":").append(graph.edgeCount());
+            json.append(",\"defenses\":").append(graph.defenseCount());
+            json.append(",\"solvers\":").append(model.created.get()).append('}');
+            first = false;
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String query(String name, HotModel model, Map<String, List<String>> parameters) {
+        long start = System.nanoTime();
+        List<String> from = parameters.getOrDefault("from", List.of());
+        List<String> targetNames = parameters.getOrDefault("target", List.of());
+        if (from.isEmpty() || targetNames.isEmpty()) {
+            throw new IllegalArgumentException("A query needs at least one from and one target");
+        }
+        var attackPoints = new int[from.size()];
+        for (int i = 0; i < attackPoints.length; i++) {
+            attackPoints[i] = model.step(from.get(i));
+        }
+        var targets = new int[targetNames.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = model.step(targetNames.get(i));
+        }
+        boolean[] defenseEnabled = model.graph.defenseStates();
+        for (String defense : parameters.getOrDefault("enable", List.of())) {
+            defenseEnabled[model.defense(defense)] = true;
+        }
+        for (String defense : parameters.getOrDefault("disable", List.of())) {
+            defenseEnabled[model.defense(defense)] = false;
+        }
+
+        double[] ttc = model.solve(attackPoints, defenseEnabled, targets);
+        var json = new StringBuilder("{\"model\":");
+        Json.appendString(json, name);
+        json.append(",\"micros\":").append((System.nanoTime() - start) / 1000).append(",\"results\":[");
+        for (int t = 0; t < targets.length; t++) {
+            json.append(t == 0 ? "" : ",").append("{\"target\":");
+            Json.appendString(json, targetNames.get(t));
+            boolean reached = ttc[t] != GraphSolver.UNREACHED;
+            json.append(",\"reached\":").append(reached);
+            json.append(",\"ttc\":").append(reached ? Double.toString(ttc[t]) : "null").append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /** Decodes a query string into its parameters, keeping repeated ones in order. */
+    static Map<String, List<String>> parameters(String rawQuery) {
+        var parameters = new HashMap<String, List<String>>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String key = decode(equals < 0 ? pair : pair.substring(0, equals));
+            String value = equals < 0 ? "" : decode(pair.substring(equals + 1));
+            parameters.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+        return parameters;
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String error(String message) {
+        var json = new StringBuilder("{\"error\":");
+        Json.appendString(json, message);
+        return json.append('}').toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.Asset;
+import core.AttackStep;
+import core.Defense;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parents of the steps of a model derived from the reaches declared in the .mal files, as an
+ * alternative to the generated {@code setExpectedParents()}.
+ *
+ * <p>The generated code evaluates a {@code let} such as {@code outboundAllowedConnections()} again
+ * for every step that fans out through it. Here every reach {@code expression.step} of every step
+ * and defense of every asset in the {@link AssociationIndex} is evaluated through a {@link
+ * LetEvaluator}, which keeps the value of every {@code let} and reach expression per asset, so all
+ * steps that reach through the same {@code let} or expression of an asset share one id array, and
+ * the reach is recorded as a parent of {@code step} on each target. A defense reaches
+ * through its {@code disable} step. The parents are derived again when the version of the index
+ * changes, that is after an association was reported and the index refreshed.
+ *
+ * <pre>
+ * var parents = new SpecParents(new LetEvaluator(MalSpec.load(), AssociationIndex.of()));
+ * var graph = AttackGraph.compile(AttackStep.allAttackSteps, Defense.allDefenses, parents);
+ * </pre>
+ */
+public final class SpecParents implements AttackGraph.ParentSource {
+    private final MalSpec spec;
+    private final LetEvaluator lets;
+    private final Map<AttackStep, Set<AttackStep>> parents = new IdentityHashMap<>();
+    private final Map<String, String[][]> reaches = new HashMap<>();
+    private final Map<Class<?>, Map<String, Field>> stepFields = new HashMap<>();
+    private int version = -1;
+
+    public SpecParents(LetEvaluator lets) {
+        this.spec = lets.spec();
+        this.lets = lets;
+    }
+
+    @Override
+    public Collection<AttackStep> parents(AttackStep step) {
+        AssociationIndex index = lets.index();
+        index.refresh();
+        if (version != index.version()) {
+            derive(index);
+            version = index.version();
+        }
+        Set<AttackStep> result = parents.get(step);
+        return result == null ? List.of() : result;
+    }
+
+    private void derive(AssociationIndex index) {
+        parents.clear();
+        var self = new int[1];
+        for (int a = 0; a < index.assetCount(); a++) {
+            Asset asset = index.asset(a);
+            String type = asset.getClass().getSimpleName();
+            for (Field field : StepCatalog.memberFields(asset.getClass())) {
+                AttackStep from = member(asset, field);
+                if (from == null) {
+                    continue;
+                }
+                for (String[] reach : reaches(type, field.getName())) {
+                    int[] targets;
+                    if (reach[0] == null) {
+                        self[0] = a;
+                        targets = self;
+                    } else {
+                        targets = lets.evaluateExpression(a, reach[0]);
+                    }
+                    for (int target : targets) {
+                        AttackStep to = step(index.asset(target), reach[1]);
+                        if (to == null) {
+                            throw new IllegalStateException(
+                                    String.format(
+                                            "%s.%s reaches %s, which %s does not have",
+                                            type, field.getName(), reach[1],
+                                            index.asset(target).getClass().getSimpleName()));
+                        }
+                        parents.computeIfAbsent(to, k -> new LinkedHashSet<>()).add(from);
+                    }
+                }
+            }
+        }
+    }
+
+    /** The reaches of a step as {set expression or null for the asset itself, step name}. */
+    private String[][] reaches(String type, String step) {
+        String key = type + "." + step;
+        String[][] cached = reaches.get(key);
+        if (cached == null) {
+            List<String> expressions = spec.reaches(type, step);
+            cached = new String[expressions.size()][];
+            for (int r = 0; r < cached.length; r++) {
+                String expression = expressions.get(r);
+                int dot = lastTopLevelDot(expression);
+                cached[r] =
+                        dot < 0
+                                ? new String[] {null, expression}
+                                : new String[] {
+                                    expression.substring(0, dot), expression.substring(dot + 1).trim()
+                                };
+            }
+            reaches.put(key, cached);
+        }
+        return cached;
+    }
+
+    static int lastTopLevelDot(String expression) {
+        int depth = 0;
+        for (int i = expression.length() - 1; i >= 0; i--) {
+            char c = expression.charAt(i);
+            if (c == ')' || c == ']') {
+                depth++;
+            } else if (c == '(' || c == '[') {
+                depth--;
+            } else if (c == '.' && depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** The step a member field reaches from: the step itself, or the disable step of a defense. */
+    private static AttackStep member(Asset asset, Field field) {
+        Object value;
+        try {
+            value = field.get(asset);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        if (value instanceof AttackStep) {
+            return (AttackStep) value;
+        }
+        return value instanceof Defense ? ((Defense) value).disable : null;
+    }
+
+    private AttackStep step(Asset asset, String name) {
+        Field field = stepFields.computeIfAbsent(asset.getClass(), SpecParents::stepFields).get(name);
+        if (field == null) {
+            return null;
+        }
+        try {
+            return (AttackStep) field.get(asset);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, Field> stepFields(Class<?> type) {
+        var fields = new HashMap<String, Field>();
+        for (Field field : StepCatalog.memberFields(type)) {
+            if (AttackStep.class.isAssignableFrom(field.getType())) {
+                fields.put(field.getName(), field);
+            }
+        }
+        return fields;
+    }
+}
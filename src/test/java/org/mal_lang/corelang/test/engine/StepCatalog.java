@@ -0,0 +1,224 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.Asset;
+import core.AttackStep;
+import core.Defense;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps compiled step ids and defense indices back to the MAL names they were declared with.
+ *
+ * <p>The generated asset classes hold one field per attack step and defense, named like the step
+ * in the .mal file. The catalog reads those fields once per asset class, so for every step it
+ * knows the owning asset, the asset type (for example {@code Network}) and the step name (for
+ * example {@code accessUninspected}).
+ */
+public final class StepCatalog {
+    private static final Map<Class<?>, Field[]> MEMBER_FIELDS = new HashMap<>();
+
+    private final AttackGraph graph;
+    private final Asset[] assets;
+    private final String[] assetNames;
+    private final int[] stepAsset;
+    private final String[] stepNames;
+    private final int[] defenseAsset;
+    private final String[] defenseNames;
+    private final Map<String, Integer> idsByFullName = new HashMap<>();
+
+    private StepCatalog(AttackGraph graph, Asset[] assets) {
+        this.graph = graph;
+        this.assets = assets;
+        this.assetNames = new String[assets.length];
+        this.stepAsset = new int[graph.stepCount()];
+        this.stepNames = new String[graph.stepCount()];
+        this.defenseAsset = new int[graph.defenseCount()];
+        this.defenseNames = new String[graph.defenseCount()];
+    }
+
+    /** Catalogs the assets currently held in the global {@code core} registry. */
+    public static StepCatalog of(AttackGraph graph) {
+        return of(graph, Asset.allAssets);
+    }
+
+    public static StepCatalog of(AttackGraph graph, Collection<? extends Asset> allAssets) {
+        var catalog = new StepCatalog(graph, allAssets.toArray(new Asset[0]));
+        Arrays.fill(catalog.stepAsset, -1);
+        Arrays.fill(catalog.defenseAsset, -1);
+        var defenseIndex = new IdentityHashMap<Defense, Integer>();
+        for (int d = 0; d < graph.defenseCount(); d++) {
+            defenseIndex.put(graph.defense(d), d);
+        }
+        for (int a = 0; a < catalog.assets.length; a++) {
+            Asset asset = catalog.assets[a];
+            for (Field field : memberFields(asset.getClass())) {
+                Object value;
+                try {
+                    value = field.get(asset);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (value instanceof AttackStep) {
+                    Integer id = graph.idOrNull((AttackStep) value);
+                    if (id != null && catalog.stepAsset[id] < 0) {
+                        catalog.stepAsset[id] = a;
+                        catalog.stepNames[id] = field.getName();
+                        if (catalog.assetNames[a] == null) {
+                            catalog.assetNames[a] = assetName((AttackStep) value, field.getName());
+                        }
+                    }
+                } else if (value instanceof Defense) {
+                    Integer d = defenseIndex.get(value);
+                    if (d != null && catalog.defenseAsset[d] < 0) {
+                        catalog.defenseAsset[d] = a;
+                        catalog.defenseNames[d] = field.getName();
+                        int disable = graph.defenseSteps[d];
+                        if (disable >= 0 && catalog.stepAsset[disable] < 0) {
+                            catalog.stepAsset[disable] = a;
+                            catalog.stepNames[disable] = field.getName() + ".disable";
+                        }
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < graph.stepCount(); i++) {
+            if (graph.step(i) != null) {
+                catalog.idsByFullName.putIfAbsent(catalog.fullName(i), i);
+            }
+        }
+        return catalog;
+    }
+
+    private static String assetName(AttackStep attackStep, String stepName) {
+        String fullName = attackStep.fullName();
+        String suffix = "." + stepName;
+        return fullName.endsWith(suffix)
+                ? fullName.substring(0, fullName.length() - suffix.length())
+                : fullName;
+    }
+
+    /** Non-static attack step and defense fields of an asset class and its superclasses. */
+    static synchronized Field[] memberFields(Class<?> type) {
+        Field[] cached = MEMBER_FIELDS.get(type);
+        if (cached != null) {
+            return cached;
+        }
+        List<Field> fields = new ArrayList<>();
+        var seen = new HashSet<String>();
+        for (Class<?> c = type; c != null && c != Asset.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                if (!AttackStep.class.isAssignableFrom(field.getType())
+                        && !Defense.class.isAssignableFrom(field.getType())) {
+                    continue;
+                }
+                if (seen.add(field.getName())) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        cached = fields.toArray(new Field[0]);
+        MEMBER_FIELDS.put(type, cached);
+        return cached;
+    }
+
+    /** Defense field {@code name} of an asset, or null if its class declares none. */
+    static Defense defense(Asset asset, String name) {
+        for (Field field : memberFields(asset.getClass())) {
+            if (field.getName().equals(name) && Defense.class.isAssignableFrom(field.getType())) {
+                try {
+                    return (Defense) field.get(asset);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return null;
+    }
+
+    public AttackGraph graph() {
+        return graph;
+    }
+
+    public int assetCount() {
+        return assets.length;
+    }
+
+    public Asset asset(int index) {
+        return assets[index];
+    }
+
+    /** Instance name of an asset, as used in the full names of its steps. */
+    public String assetName(int index) {
+        return assetNames[index] == null ? assets[index].getClass().getSimpleName() : assetNames[index];
+    }
+
+    /** Index of the asset owning step {@code id}, or -1 if the step is not a field of any asset. */
+    public int assetOf(int id) {
+        return stepAsset[id];
+    }
+
+    /** MAL asset type of step {@code id}, for example {@code Network}. */
+    public String assetType(int id) {
+        return stepAsset[id] < 0 ? null : assets[stepAsset[id]].getClass().getSimpleName();
+    }
+
+    /** MAL step name of step {@code id}, for example {@code accessUninspected}. */
+    public String stepName(int id) {
+        return stepNames[id];
+    }
+
+    /**
+     * Type-level name of step {@code id}, for example {@code Network.accessUninspected}, or null
+     * for steps that stand for no {@code AttackStep}, such as hubs.
+     */
+    public String typeName(int id) {
+        if (stepNames[id] != null) {
+            return assetType(id) + "." + stepNames[id];
+        }
+        AttackStep step = graph.step(id);
+        return step == null ? null : step.fullName();
+    }
+
+    /** Instance-level name of step {@code id}, as reported by {@code AttackStep.fullName()}. */
+    public String fullName(int id) {
+        return graph.requireStep(id).fullName();
+    }
+
+    /** Step id for a name returned by {@link #fullName(int)}, or -1. */
+    public int idOf(String fullName) {
+        Integer id = idsByFullName.get(fullName);
+        return id == null ? -1 : id;
+    }
+
+    public int assetOfDefense(int index) {
+        return defenseAsset[index];
+    }
+
+    public String defenseType(int index) {
+        return defenseAsset[index] < 0 ? null : assets[defenseAsset[index]].getClass().getSimpleName();
+    }
+
+    /** MAL defense name, for example {@code eavesdropDefense}. */
+    public String defenseName(int index) {
+        return defenseNames[index];
+    }
+
+    /** Instance-level defense name, for example {@code NetworkA.eavesdropDefense}. */
+    public String defenseFullName(int index) {
+        return defenseAsset[index] < 0
+                ? graph.defense(index).getClass().getSimpleName()
+                : assetName(defenseAsset[index]) + "." + defenseNames[index];
+    }
+}
@@ -0,0 +1,82 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of (ttc, step id) pairs kept in two primitive arrays.
+ *
+ * <p>Decrease-key is handled lazily: a step may be pushed several times and callers skip entries
+ * for steps that are already settled.
+ */
+final class StepQueue {
+    private double[] keys;
+    private int[] steps;
+    private int size;
+
+    StepQueue(int capacity) {
+        keys = new double[Math.max(capacity, 16)];
+        steps = new int[keys.length];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void push(int step, double key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            steps = Arrays.copyOf(steps, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[i] = keys[parent];
+            steps[i] = steps[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        steps[i] = step;
+    }
+
+    double peekKey() {
+        return keys[0];
+    }
+
+    /** Removes the minimum entry and returns its step id; read its key with {@link #peekKey()} first. */
+    int pop() {
+        int top = steps[0];
+        size--;
+        if (size > 0) {
+            double key = keys[size];
+            int step = steps[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                keys[i] = keys[child];
+                steps[i] = steps[child];
+                i = child;
+            }
+            keys[i] = key;
+            steps[i] = step;
+        }
+        return top;
+    }
+}
@@ -0,0 +1,313 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A MAL TTC expression such as {@code Exponential(0.01)} or {@code VeryHardAndUncertain}.
+ *
+ * <p>Expressions are sums of products of distributions. A {@code Bernoulli(p)} factor succeeds with
+ * probability {@code p}; when it fails the step cannot be performed and the sample is infinite.
+ * The named distributions expand to their MAL definitions, for example {@code HardAndUncertain} is
+ * {@code Bernoulli(0.5) * Exponential(0.1)}. TTCs are in days, like in the .mal files.
+ */
+public final class TtcDistribution {
+    private static final Pattern FACTOR = Pattern.compile("(\\w+)(?:\\(([^)]*)\\))?");
+
+    private enum Kind {
+        BERNOULLI,
+        BINOMIAL,
+        EXPONENTIAL,
+        GAMMA,
+        LOG_NORMAL,
+        PARETO,
+        TRUNCATED_NORMAL,
+        UNIFORM,
+        CONSTANT
+    }
+
+    private static final class Factor {
+        final Kind kind;
+        final double a;
+        final double b;
+
+        Factor(Kind kind, double a, double b) {
+            this.kind = kind;
+            this.a = a;
+            this.b = b;
+        }
+    }
+
+    private final String expression;
+    private final Factor[][] terms;
+
+    private TtcDistribution(String expression, Factor[][] terms) {
+        this.expression = expression;
+        this.terms = terms;
+    }
+
+    public static TtcDistribution parse(String expression) {
+        var terms = new ArrayList<Factor[]>();
+        for (String term : expression.split("\\+")) {
+            var factors = new ArrayList<Factor>();
+            for (String factor : term.split("\\*")) {
+                parseFactor(factor.trim(), factors, expression);
+            }
+            terms.add(factors.toArray(new Factor[0]));
+        }
+        return new TtcDistribution(expression, terms.toArray(new Factor[0][]));
+    }
+
+    private static void parseFactor(String text, List<Factor> factors, String expression) {
+        Matcher m = FACTOR.matcher(text);
+        if (!m.matches()) {
+            throw new IllegalArgumentException(String.format("Invalid TTC expression '%s'", expression));
+        }
+        String name = m.group(1);
+        double[] args = arguments(m.group(2));
+        switch (name) {
+            case "Enabled":
+                factors.add(new Factor(Kind.BERNOULLI, 1, 0));
+                break;
+            case "Disabled":
+                factors.add(new Factor(Kind.BERNOULLI, 0, 0));
+                break;
+            case "Zero":
+                factors.add(new Factor(Kind.CONSTANT, 0, 0));
+                break;
+            case "Infinity":
+                factors.add(new Factor(Kind.CONSTANT, Double.POSITIVE_INFINITY, 0));
+                break;
+            case "EasyAndCertain":
+                factors.add(new Factor(Kind.EXPONENTIAL, 1.0, 0));
+                break;
+            case "EasyAndUncertain":
+                factors.add(new Factor(Kind.BERNOULLI, 0.5, 0));
+                factors.add(new Factor(Kind.EXPONENTIAL, 1.0, 0));
+                break;
+            case "HardAndCertain":
+                factors.add(new Factor(Kind.EXPONENTIAL, 0.1, 0));
+                break;
+            case "HardAndUncertain":
+                factors.add(new Factor(Kind.BERNOULLI, 0.5, 0));
+                factors.add(new Factor(Kind.EXPONENTIAL, 0.1, 0));
+                break;
+            case "VeryHardAndCertain":
+                factors.add(new Factor(Kind.EXPONENTIAL, 0.01, 0));
+                break;
+            case "VeryHardAndUncertain":
+                factors.add(new Factor(Kind.BERNOULLI, 0.5, 0));
+                factors.add(new Factor(Kind.EXPONENTIAL, 0.01, 0));
+                break;
+            case "Bernoulli":
+                factors.add(new Factor(Kind.BERNOULLI, arg(args, 0, text), 0));
+                break;
+            case "Binomial":
+                factors.add(new Factor(Kind.BINOMIAL, arg(args, 0, text), arg(args, 1, text)));
+                break;
+            case "Exponential":
+                factors.add(new Factor(Kind.EXPONENTIAL, arg(args, 0, text), 0));
+                break;
+            case "Gamma":
+                factors.add(new Factor(Kind.GAMMA, arg(args, 0, text), arg(args, 1, text)));
+                break;
+            case "LogNormal":
+                factors.add(new Factor(Kind.LOG_NORMAL, arg(args, 0, text), arg(args, 1, text)));
+                break;
+            case "Pareto":
+                factors.add(new Factor(Kind.PARETO, arg(args, 0, text), arg(args, 1, text)));
+                break;
+            case "TruncatedNormal":
+                factors.add(new Factor(Kind.TRUNCATED_NORMAL, arg(args, 0, text), arg(args, 1, text)));
+                break;
+            case "Uniform":
+                factors.add(new Factor(Kind.UNIFORM, arg(args, 0, text), arg(args, 1, text)));
+                break;
+            default:
+                if (args.length == 0 && isNumber(name)) {
+                    factors.add(new Factor(Kind.CONSTANT, Double.parseDouble(name), 0));
+                    break;
+                }
+                throw new IllegalArgumentException(
+                        String.format("Unsupported distribution '%s' in '%s'", name, expression));
+        }
+    }
+
+    private static double[] arguments(String text) {
+        if (text == null || text.isBlank()) {
+            return new double[0];
+        }
+        String[] parts = text.split(",");
+        var args = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            args[i] = Double.parseDouble(parts[i].trim());
+        }
+        return args;
+    }
+
+    private static double arg(double[] args, int index, String text) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(String.format("Missing parameter in '%s'", text));
+        }
+        return args[index];
+    }
+
+    private static boolean isNumber(String text) {
+        return text.chars().allMatch(c -> Character.isDigit(c) || c == '.');
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    /** True if every factor is a constant or a Bernoulli, so only reachability varies between samples. */
+    public boolean isBernoulliOnly() {
+        for (Factor[] term : terms) {
+            for (Factor factor : term) {
+                if (factor.kind != Kind.BERNOULLI && factor.kind != Kind.CONSTANT) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Draws one TTC; {@link Double#POSITIVE_INFINITY} means the step cannot be performed. */
+    public double sample(SplittableRandom random) {
+        double total = 0;
+        for (Factor[] term : terms) {
+            double product = 1;
+            boolean hasValue = false;
+            for (Factor factor : term) {
+                if (factor.kind == Kind.BERNOULLI) {
+                    if (random.nextDouble() >= factor.a) {
+                        return Double.POSITIVE_INFINITY;
+                    }
+                    continue;
+                }
+                product *= draw(factor, random);
+                hasValue = true;
+            }
+            total += hasValue ? product : 0;
+        }
+        return total;
+    }
+
+    /** Probability that a Bernoulli-only expression (such as a defense default) is true. */
+    public double probability() {
+        double p = 1;
+        for (Factor[] term : terms) {
+            for (Factor factor : term) {
+                if (factor.kind == Kind.BERNOULLI) {
+                    p *= factor.a;
+                }
+            }
+        }
+        return p;
+    }
+
+    /** The expected TTC ignoring Bernoulli factors, as used for deterministic runs. */
+    public double mean() {
+        double total = 0;
+        for (Factor[] term : terms) {
+            double product = 1;
+            boolean hasValue = false;
+            for (Factor factor : term) {
+                if (factor.kind == Kind.BERNOULLI) {
+                    continue;
+                }
+                product *= mean(factor);
+                hasValue = true;
+            }
+            total += hasValue ? product : 0;
+        }
+        return total;
+    }
+
+    private static double draw(Factor factor, SplittableRandom random) {
+        switch (factor.kind) {
+            case EXPONENTIAL:
+                return -Math.log(1 - random.nextDouble()) / factor.a;
+            case GAMMA:
+                return gamma(factor.a, random) * factor.b;
+            case LOG_NORMAL:
+                return Math.exp(factor.a + factor.b * gaussian(random));
+            case PARETO:
+                return factor.a / Math.pow(1 - random.nextDouble(), 1 / factor.b);
+            case TRUNCATED_NORMAL:
+                double value;
+                do {
+                    value = factor.a + factor.b * gaussian(random);
+                } while (value < 0);
+                return value;
+            case UNIFORM:
+                return factor.a + (factor.b - factor.a) * random.nextDouble();
+            case BINOMIAL:
+                int successes = 0;
+                for (int i = 0; i < (int) factor.a; i++) {
+                    if (random.nextDouble() < factor.b) {
+                        successes++;
+                    }
+                }
+                return successes;
+            default:
+                return factor.a;
+        }
+    }
+
+    private static double mean(Factor factor) {
+        switch (factor.kind) {
+            case EXPONENTIAL:
+                return 1 / factor.a;
+            case GAMMA:
+                return factor.a * factor.b;
+            case LOG_NORMAL:
+                return Math.exp(factor.a + factor.b * factor.b / 2);
+            case PARETO:
+                return factor.b <= 1 ? Double.POSITIVE_INFINITY : factor.b * factor.a / (factor.b - 1);
+            case TRUNCATED_NORMAL:
+                return factor.a;
+            case UNIFORM:
+                return (factor.a + factor.b) / 2;
+            case BINOMIAL:
+                return factor.a * factor.b;
+            default:
+                return factor.a;
+        }
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    /** Marsaglia and Tsang's method, with the usual boost for shapes below one. */
+    private static double gamma(double shape, SplittableRandom random) {
+        if (shape < 1) {
+            return gamma(shape + 1, random) * Math.pow(random.nextDouble(), 1 / shape);
+        }
+        double d = shape - 1.0 / 3;
+        double c = 1 / Math.sqrt(9 * d);
+        while (true) {
+            double x = gaussian(random);
+            double v = 1 + c * x;
+            if (v <= 0) {
+                continue;
+            }
+            v = v * v * v;
+            double u = random.nextDouble();
+            if (Math.log(u) < 0.5 * x * x + d - d * v + d * Math.log(v)) {
+                return d * v;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
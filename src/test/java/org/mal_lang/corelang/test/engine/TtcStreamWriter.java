@@ -0,0 +1,251 @@
+package org.mal_lang.corelang.test.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Streams the TTC of every step out as soon as a {@link GraphSolver} settles it.
+ *
+ * <p>Settled steps are collected into batches on the solving thread and formatted and written by
+ * a background thread. The writer owns a fixed number of batches; when all of them are waiting to
+ * be written the solver blocks until one is free, so a slow consumer slows the solve down instead
+ * of growing the heap. Every batch is flushed when it has been written, so a reader sees results
+ * while the solve is still running. Unreached steps are never settled and thus not written.
+ *
+ * <p>The formats are
+ *
+ * <ul>
+ *   <li>{@link Format#NDJSON}: one {@code {"step":12,"name":"Office.physicalAccess","ttc":0.0}}
+ *       object per line,
+ *   <li>{@link Format#CSV}: a {@code step,name,ttc} header, then one row per step,
+ *   <li>{@link Format#BINARY}: {@code int magic, int version}, then {@code int step, double ttc}
+ *       per step, big-endian and without names.
+ * </ul>
+ */
+public final class TtcStreamWriter implements GraphSolver.SettleListener, Closeable {
+    public enum Format {
+        NDJSON,
+        CSV,
+        BINARY
+    }
+
+    static final int MAGIC = 0x4D414C54;
+    static final int VERSION = 1;
+    static final int BATCH_SIZE = 1024;
+    private static final Batch END = new Batch(0);
+
+    private final Format format;
+    private final StepCatalog catalog;
+    private final OutputStream out;
+    private final ArrayBlockingQueue<Batch> free;
+    private final ArrayBlockingQueue<Batch> written;
+    private final Thread thread;
+    private Batch current;
+    private volatile Throwable failure;
+    private boolean closed;
+
+    /** A writer with 16 batches in flight. */
+    public TtcStreamWriter(OutputStream out, Format format, StepCatalog catalog) {
+        this(out, format, catalog, 16);
+    }
+
+    /**
+     * A writer that holds at most {@code batches} batches of {@value #BATCH_SIZE} steps. The catalog
+     * provides step names and may be null for {@link Format#BINARY}.
+     */
+    public TtcStreamWriter(OutputStream out, Format format, StepCatalog catalog, int batches) {
+        if (catalog == null && format != Format.BINARY) {
+            throw new IllegalArgumentException(format + " output needs a step catalog for names");
+        }
+        this.format = format;
+        this.catalog = catalog;
+        this.out = out;
+        this.free = new ArrayBlockingQueue<>(Math.max(1, batches));
+        this.written = new ArrayBlockingQueue<>(Math.max(1, batches) + 1);
+        for (int i = 0; i < Math.max(1, batches); i++) {
+            free.add(new Batch(BATCH_SIZE));
+        }
+        this.current = take(free);
+        this.thread = new Thread(this::drain, "ttc-stream-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void settled(int step, double ttc) {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        if (failure != null) {
+            throw failed();
+        }
+        current.steps[current.size] = step;
+        current.ttcs[current.size] = ttc;
+        if (++current.size == current.steps.length) {
+            flush();
+        }
+    }
+
+    /** Hands the steps collected so far to the writer thread, for example at the end of a solve. */
+    public void flush() {
+        if (failure != null) {
+            throw failed();
+        }
+        if (current.size > 0) {
+            put(current);
+            current = take(free);
+        }
+    }
+
+    /** Writes the remaining steps, waits for the writer thread and closes the stream. */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (current.size > 0) {
+            put(current);
+        }
+        put(END);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing results", e);
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failed();
+        }
+    }
+
+    /** The failure of the writer thread, to be thrown on the solving thread. */
+    private RuntimeException failed() {
+        if (failure instanceof IOException) {
+            return new UncheckedIOException((IOException) failure);
+        }
+        return new IllegalStateException("Writing results failed", failure);
+    }
+
+    private void drain() {
+        Batch batch = null;
+        try {
+            Writer text = null;
+            DataOutputStream binary = null;
+            if (format == Format.BINARY) {
+                binary = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+                binary.writeInt(MAGIC);
+                binary.writeInt(VERSION);
+                binary.flush();
+            } else {
+                text =
+                        new OutputStreamWriter(
+                                new BufferedOutputStream(out, 1 << 16), StandardCharsets.UTF_8);
+                if (format == Format.CSV) {
+                    text.write("step,name,ttc\n");
+                    text.flush();
+                }
+            }
+            var line = new StringBuilder();
+            while ((batch = take(written)) != END) {
+                for (int i = 0; i < batch.size; i++) {
+                    if (binary != null) {
+                        binary.writeInt(batch.steps[i]);
+                        binary.writeDouble(batch.ttcs[i]);
+                    } else {
+                        line.setLength(0);
+                        appendLine(line, batch.steps[i], batch.ttcs[i]);
+                        text.append(line);
+                    }
+                }
+                if (binary != null) {
+                    binary.flush();
+                } else {
+                    text.flush();
+                }
+                recycle(batch);
+                batch = null;
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            failure = e;
+            // Keep returning batches so the solver never blocks on a dead writer.
+            if (batch != null) {
+                recycle(batch);
+            }
+            while ((batch = take(written)) != END) {
+                recycle(batch);
+            }
+        }
+    }
+
+    private void appendLine(StringBuilder line, int step, double ttc) {
+        String name = catalog.fullName(step);
+        if (format == Format.NDJSON) {
+            line.append("{\"step\":").append(step).append(",\"name\":");
+            Json.appendString(line, name);
+            line.append(",\"ttc\":").append(ttc).append("}\n");
+        } else {
+            line.append(step).append(',');
+            appendCsvField(line, name);
+            line.append(',').append(ttc).append('\n');
+        }
+    }
+
+    private static void appendCsvField(StringBuilder csv, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            csv.append(value);
+        } else {
+            csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    private void recycle(Batch batch) {
+        batch.size = 0;
+        free.add(batch);
+    }
+
+    private void put(Batch batch) {
+        try {
+            written.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing results", e);
+        }
+    }
+
+    private static Batch take(ArrayBlockingQueue<Batch> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing results", e);
+        }
+    }
+
+    /** Settled steps waiting to be written. */
+    private static final class Batch {
+        final int[] steps;
+        final double[] ttcs;
+        int size;
+
+        Batch(int capacity) {
+            this.steps = new int[capacity];
+            this.ttcs = new double[capacity];
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.mal_lang.corelang.test.engine;
+
+import core.Defense;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves one compiled model under many defense configurations.
+ *
+ * <p>A configuration is a {@code boolean[]} holding the state of every defense, indexed like
+ * {@link AttackGraph#defense(int)}. The graph is shared read-only by all workers and each worker
+ * owns a {@link GraphSolver}, so evaluating a configuration costs one solve and no asset is
+ * instantiated or modified. Configurations are handed out one at a time, and every configuration
+ * writes to its own row of the result.
+ */
+public final class WhatIfEvaluator {
+    private final AttackGraph graph;
+
+    public WhatIfEvaluator(AttackGraph graph) {
+        this.graph = graph;
+    }
+
+    public AttackGraph graph() {
+        return graph;
+    }
+
+    /** The default states of the model with the given defenses overridden. */
+    public boolean[] configuration(Map<Defense, Boolean> overrides) {
+        boolean[] states = graph.defenseStates();
+        for (var entry : overrides.entrySet()) {
+            int index = graph.defenseIndex(entry.getKey());
+            if (index < 0) {
+                throw new IllegalArgumentException("Defense is not part of the model: " + entry.getKey());
+            }
+            states[index] = entry.getValue();
+        }
+        return states;
+    }
+
+    /**
+     * The default states of the model with the defenses named as in {@link
+     * StepCatalog#defenseFullName(int)}, for example {@code ConnectionA.restricted}, overridden.
+     */
+    public boolean[] configuration(StepCatalog catalog, Map<String, Boolean> overrides) {
+        var indices = new HashMap<String, Integer>();
+        for (int d = 0; d < graph.defenseCount(); d++) {
+            indices.put(catalog.defenseFullName(d), d);
+        }
+        boolean[] states = graph.defenseStates();
+        for (var entry : overrides.entrySet()) {
+            Integer index = indices.get(entry.getKey());
+            if (index == null) {
+                throw new IllegalArgumentException("No defense named " + entry.getKey());
+            }
+            states[index] = entry.getValue();
+        }
+        return states;
+    }
+
+    public double[][] evaluate(int[] attackPoints, int[] targets, List<boolean[]> configurations) {
+        return evaluate(
+                attackPoints, targets, configurations, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the TTC of every target under every configuration, with {@code result[c][t]} the TTC
+     * of {@code targets[t]} under {@code configurations.get(c)}. Unreached targets get {@link
+     * GraphSolver#UNREACHED}.
+     */
+    public double[][] evaluate(
+            int[] attackPoints, int[] targets, List<boolean[]> configurations, int threads) {
+        for (boolean[] configuration : configurations) {
+            if (configuration.length != graph.defenseCount()) {
+                throw new IllegalArgumentException(
+                        String.format(
+                                "Configuration has %d defense states, the model has %d",
+                                configuration.length, graph.defenseCount()));
+            }
+        }
+        var result = new double[configurations.size()][targets.length];
+        var next = new AtomicInteger();
+
+        var workers = new ArrayList<Callable<Void>>();
+        for (int t = 0; t < Math.max(1, Math.min(threads, configurations.size())); t++) {
+            workers.add(
+                    () -> {
+                        var solver = new GraphSolver(graph);
+                        int c;
+                        while ((c = next.getAndIncrement()) < configurations.size()) {
+                            double[] ttc = solver.solve(attackPoints, configurations.get(c));
+                            for (int i = 0; i < targets.length; i++) {
+                                result[c][i] = ttc[targets[i]];
+                            }
+                        }
+                        return null;
+                    });
+        }
+        MonteCarloSampler.invokeAll(workers);
+        return result;
+    }
+}